@@ -0,0 +1,115 @@
+package org.deeplearning4j.util;
+
+import java.util.Random;
+
+/**
+ * Flat storage of many alias tables (Vose's alias method), for O(1) sampling from discrete distributions.<br>
+ * Each distribution (for example: weights of outgoing edges of a graph vertex) occupies a contiguous range of
+ * entries, defined by its start position and size. Ranges are managed by the caller, so tables for all vertices of
+ * a graph can be stored in two flat arrays: 8 bytes per entry.<br>
+ * Instances are immutable once all tables are built, and thus can be shared between threads.
+ * @see <a href="http://www.keithschwarz.com/darts-dice-coins/">Darts, Dice, and Coins: Sampling from a Discrete Distribution</a>
+ */
+public class AliasTable {
+
+    private final float[] probabilities;
+    private final int[] aliases;
+
+    /**
+     * @param numEntries Total number of entries, over all distributions
+     */
+    public AliasTable(int numEntries) {
+        probabilities = new float[numEntries];
+        aliases = new int[numEntries];
+    }
+
+    /** Total number of entries, over all distributions */
+    public int numEntries() {
+        return probabilities.length;
+    }
+
+    /**
+     * This method builds alias table for a single distribution, in O(size) time
+     *
+     * @param start    Position of the first entry of this distribution
+     * @param size     Number of entries in this distribution
+     * @param weights  Weights of the entries (non-negative, not necessarily normalized), at positions [0, size).
+     *                 Used as a work array, so it's modified by this method
+     * @param worklist Work array of at least size elements
+     * @throws IllegalArgumentException if any weight is negative, infinite or NaN
+     */
+    public void build(int start, int size, double[] weights, int[] worklist) {
+        double totalWeight = 0.0;
+        for (int k = 0; k < size; k++) {
+            if (!(weights[k] >= 0.0) || Double.isInfinite(weights[k]))
+                throw new IllegalArgumentException("Invalid weight at position " + k + ": " + weights[k]
+                                + ". Weights must be finite and non-negative");
+            totalWeight += weights[k];
+        }
+
+        if (totalWeight == 0.0) {
+            //All entries have zero weight: sample uniformly
+            for (int k = 0; k < size; k++) {
+                probabilities[start + k] = 1.0f;
+                aliases[start + k] = k;
+            }
+            return;
+        }
+
+        //Scaled probabilities: average is 1.0
+        for (int k = 0; k < size; k++)
+            weights[k] = weights[k] * size / totalWeight;
+
+        //Worklist holds "small" (p < 1) entries at the start, and "large" (p >= 1) entries at the end
+        int numSmall = 0;
+        int largeStart = size;
+        for (int k = 0; k < size; k++) {
+            if (weights[k] < 1.0)
+                worklist[numSmall++] = k;
+            else
+                worklist[--largeStart] = k;
+        }
+
+        while (numSmall > 0 && largeStart < size) {
+            int s = worklist[--numSmall];
+            int l = worklist[largeStart++];
+
+            probabilities[start + s] = (float) weights[s];
+            aliases[start + s] = l;
+
+            weights[l] = (weights[l] + weights[s]) - 1.0;
+            if (weights[l] < 1.0)
+                worklist[numSmall++] = l;
+            else
+                worklist[--largeStart] = l;
+        }
+
+        //Remaining entries have probability 1.0 (up to numerical precision)
+        while (largeStart < size) {
+            int l = worklist[largeStart++];
+            probabilities[start + l] = 1.0f;
+            aliases[start + l] = l;
+        }
+        while (numSmall > 0) {
+            int s = worklist[--numSmall];
+            probabilities[start + s] = 1.0f;
+            aliases[start + s] = s;
+        }
+    }
+
+    /**
+     * This method samples an entry of a single distribution, with probability proportional to its weight,
+     * in O(1) time
+     *
+     * @param start Position of the first entry of the distribution
+     * @param size  Number of entries in the distribution. Must be positive
+     * @param rng   Random number generator to use
+     * @return index of the sampled entry within the distribution, i.e. in range [0, size)
+     */
+    public int sample(int start, int size, Random rng) {
+        int k = rng.nextInt(size);
+        if (rng.nextFloat() < probabilities[start + k])
+            return k;
+        return aliases[start + k];
+    }
+}
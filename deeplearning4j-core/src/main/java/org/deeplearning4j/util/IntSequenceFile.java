@@ -0,0 +1,346 @@
+package org.deeplearning4j.util;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+/**
+ * Compact binary file of int sequences (for example: random walks over graph vertex indices), memory-mapped for
+ * reading.<br>
+ * Files are written sequentially via {@link Writer} (so sequences never have to be held in memory), and multiple files
+ * can be concatenated via {@link #merge(List, File)} - i.e., files can be written in parallel, one per thread.<br>
+ * Sequences can have different lengths. Random access to any sequence is O(1): all sequence elements are stored in a
+ * single int array, followed by an array of (numSequences + 1) long offsets into it.
+ * <br>
+ * File format (big endian):<br>
+ * - header: magic (int), version (int), number of sequences (long), total number of elements (long),
+ *   maximum sequence length (int)<br>
+ * - elements of all sequences (ints)<br>
+ * - sequence offsets (longs)<br>
+ * <br>
+ * PLEASE NOTE: reader keeps the file mapped until the reader instance is garbage collected. Reader is thread safe.
+ */
+public class IntSequenceFile {
+    public static final int MAGIC = 0x49534551;
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 28;
+
+    //Single MappedByteBuffer can't be larger than 2GB, so data is mapped in 1GB chunks
+    private static final int DATA_CHUNK_SHIFT = 28;
+    private static final int INDEX_CHUNK_SHIFT = 27;
+    private static final int DATA_CHUNK_MASK = (1 << DATA_CHUNK_SHIFT) - 1;
+    private static final int INDEX_CHUNK_MASK = (1 << INDEX_CHUNK_SHIFT) - 1;
+
+    private final File file;
+    private final long numSequences;
+    private final long numElements;
+    private final int maxSequenceLength;
+    private final IntBuffer[] data;
+    private final LongBuffer[] index;
+
+    /**
+     * Memory-map existing file, written by {@link Writer} or {@link #merge(List, File)}
+     *
+     * @param file File to read
+     * @throws IOException If file can't be read, or it's not a valid sequence file
+     */
+    public IntSequenceFile(File file) throws IOException {
+        this.file = file;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            Header header = readHeader(channel, file);
+            this.numSequences = header.numSequences;
+            this.numElements = header.numElements;
+            this.maxSequenceLength = header.maxSequenceLength;
+
+            long expectedLength = HEADER_BYTES + 4L * numElements + 8L * (numSequences + 1);
+            if (channel.size() != expectedLength)
+                throw new IOException("Invalid file length: expected " + expectedLength + " bytes, got "
+                                + channel.size());
+
+            int numDataChunks = (int) ((numElements + DATA_CHUNK_MASK) >>> DATA_CHUNK_SHIFT);
+            data = new IntBuffer[numDataChunks];
+            long position = HEADER_BYTES;
+            for (int c = 0; c < numDataChunks; c++) {
+                long chunkLength = Math.min(1L << DATA_CHUNK_SHIFT, numElements - ((long) c << DATA_CHUNK_SHIFT));
+                data[c] = channel.map(FileChannel.MapMode.READ_ONLY, position, 4 * chunkLength).asIntBuffer();
+                position += 4 * chunkLength;
+            }
+
+            int numIndexChunks = (int) ((numSequences + 1 + INDEX_CHUNK_MASK) >>> INDEX_CHUNK_SHIFT);
+            index = new LongBuffer[numIndexChunks];
+            for (int c = 0; c < numIndexChunks; c++) {
+                long chunkLength = Math.min(1L << INDEX_CHUNK_SHIFT,
+                                numSequences + 1 - ((long) c << INDEX_CHUNK_SHIFT));
+                index[c] = channel.map(FileChannel.MapMode.READ_ONLY, position, 8 * chunkLength).asLongBuffer();
+                position += 8 * chunkLength;
+            }
+        }
+    }
+
+    /** File this instance was loaded from */
+    public File getFile() {
+        return file;
+    }
+
+    /** Number of sequences in the file */
+    public long numSequences() {
+        return numSequences;
+    }
+
+    /** Total number of elements, in all sequences */
+    public long numElements() {
+        return numElements;
+    }
+
+    /** Length of the longest sequence in the file: arrays of this length can hold any sequence */
+    public int getMaxSequenceLength() {
+        return maxSequenceLength;
+    }
+
+    /**
+     * This method returns length of the given sequence
+     *
+     * @param sequence index of the sequence, 0 to {@link #numSequences()}-1
+     * @return
+     */
+    public int getSequenceLength(long sequence) {
+        checkIndex(sequence);
+        return (int) (offsetAt(sequence + 1) - offsetAt(sequence));
+    }
+
+    /**
+     * This method returns a copy of the given sequence
+     *
+     * @param sequence index of the sequence, 0 to {@link #numSequences()}-1
+     * @return
+     */
+    public int[] getSequence(long sequence) {
+        int[] out = new int[getSequenceLength(sequence)];
+        getSequence(sequence, out);
+        return out;
+    }
+
+    /**
+     * This method copies the given sequence into provided array, without allocation. Arrays of length
+     * {@link #getMaxSequenceLength()} can hold any sequence in the file.
+     *
+     * @param sequence index of the sequence, 0 to {@link #numSequences()}-1
+     * @param out      array to copy sequence into, starting at position 0
+     * @return length of the sequence
+     */
+    public int getSequence(long sequence, int[] out) {
+        checkIndex(sequence);
+        long start = offsetAt(sequence);
+        int length = (int) (offsetAt(sequence + 1) - start);
+        if (out.length < length)
+            throw new IllegalArgumentException("Output array is too small: sequence " + sequence + " has length "
+                            + length + ", array length is " + out.length);
+
+        for (int i = 0; i < length; i++) {
+            long pos = start + i;
+            out[i] = data[(int) (pos >>> DATA_CHUNK_SHIFT)].get((int) (pos & DATA_CHUNK_MASK));
+        }
+        return length;
+    }
+
+    private long offsetAt(long i) {
+        return index[(int) (i >>> INDEX_CHUNK_SHIFT)].get((int) (i & INDEX_CHUNK_MASK));
+    }
+
+    private void checkIndex(long sequence) {
+        if (sequence < 0 || sequence >= numSequences)
+            throw new IndexOutOfBoundsException("Invalid sequence index: " + sequence + ", file has " + numSequences
+                            + " sequences");
+    }
+
+    /**
+     * This method concatenates multiple sequence files into one. Part files aren't modified or deleted.
+     *
+     * @param parts  files to concatenate, written by {@link Writer}
+     * @param output output file
+     * @return total number of sequences in the output file
+     * @throws IOException
+     */
+    public static long merge(List<File> parts, File output) throws IOException {
+        Header[] headers = new Header[parts.size()];
+        long numSequences = 0;
+        long numElements = 0;
+        int maxSequenceLength = 0;
+        for (int i = 0; i < headers.length; i++) {
+            try (RandomAccessFile raf = new RandomAccessFile(parts.get(i), "r")) {
+                headers[i] = readHeader(raf.getChannel(), parts.get(i));
+            }
+            numSequences += headers[i].numSequences;
+            numElements += headers[i].numElements;
+            maxSequenceLength = Math.max(maxSequenceLength, headers[i].maxSequenceLength);
+        }
+
+        try (FileOutputStream fos = new FileOutputStream(output)) {
+            FileChannel out = fos.getChannel();
+            writeFully(out, header(numSequences, numElements, maxSequenceLength));
+
+            //Data: direct copy of element arrays
+            for (int i = 0; i < headers.length; i++) {
+                try (RandomAccessFile raf = new RandomAccessFile(parts.get(i), "r")) {
+                    FileChannel in = raf.getChannel();
+                    long position = HEADER_BYTES;
+                    long end = HEADER_BYTES + 4L * headers[i].numElements;
+                    while (position < end)
+                        position += in.transferTo(position, end - position, out);
+                }
+            }
+
+            //Index: offsets of each part are shifted by total number of elements in previous parts
+            DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(fos));
+            long base = 0;
+            dos.writeLong(0L);
+            for (int i = 0; i < headers.length; i++) {
+                try (DataInputStream dis = new DataInputStream(
+                                new BufferedInputStream(new FileInputStream(parts.get(i))))) {
+                    long skip = HEADER_BYTES + 4L * headers[i].numElements + 8L;
+                    while (skip > 0) {
+                        long skipped = dis.skip(skip);
+                        if (skipped <= 0)
+                            throw new EOFException("Unexpected end of file: " + parts.get(i));
+                        skip -= skipped;
+                    }
+                    for (long j = 0; j < headers[i].numSequences; j++)
+                        dos.writeLong(base + dis.readLong());
+                }
+                base += headers[i].numElements;
+            }
+            dos.flush();
+        }
+
+        return numSequences;
+    }
+
+    private static Header readHeader(FileChannel channel, File file) throws IOException {
+        if (channel.size() < HEADER_BYTES)
+            throw new IOException("Invalid file: " + file + " is not an int sequence file");
+        ByteBuffer bb = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+        if (bb.getInt() != MAGIC)
+            throw new IOException("Invalid file: " + file + " is not an int sequence file");
+        int version = bb.getInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported int sequence file version: " + version);
+        Header header = new Header();
+        header.numSequences = bb.getLong();
+        header.numElements = bb.getLong();
+        header.maxSequenceLength = bb.getInt();
+        return header;
+    }
+
+    private static ByteBuffer header(long numSequences, long numElements, int maxSequenceLength) {
+        ByteBuffer bb = ByteBuffer.allocate(HEADER_BYTES);
+        bb.putInt(MAGIC).putInt(VERSION).putLong(numSequences).putLong(numElements).putInt(maxSequenceLength);
+        bb.flip();
+        return bb;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer bb) throws IOException {
+        while (bb.hasRemaining())
+            channel.write(bb);
+    }
+
+    private static class Header {
+        private long numSequences;
+        private long numElements;
+        private int maxSequenceLength;
+    }
+
+    /**
+     * Sequential writer for int sequence files. Sequence elements are streamed to the output file directly, and
+     * sequence offsets are spilled to a temporary file next to it, so memory use doesn't depend on the number of
+     * sequences. The file is complete (and can be read) only after {@link #close()}.
+     *
+     * PLEASE NOTE: this class is not thread safe. For parallel writing, use one writer (and one file) per thread,
+     * and {@link IntSequenceFile#merge(List, File)} afterwards.
+     */
+    public static class Writer implements Closeable {
+        private final File file;
+        private final File indexFile;
+        private final DataOutputStream data;
+        private final DataOutputStream index;
+        private long numSequences;
+        private long numElements;
+        private int maxSequenceLength;
+        private boolean closed;
+
+        public Writer(File file) throws IOException {
+            this.file = file;
+            this.indexFile = new File(file.getAbsolutePath() + ".idx");
+            this.data = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+            this.index = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile), 1 << 16));
+
+            //Placeholder, rewritten on close
+            data.write(header(0, 0, 0).array());
+            index.writeLong(0L);
+        }
+
+        /**
+         * Append one sequence to the file
+         *
+         * @param sequence sequence to write
+         */
+        public void write(int[] sequence) throws IOException {
+            write(sequence, sequence.length);
+        }
+
+        /**
+         * Append one sequence to the file
+         *
+         * @param sequence array, containing sequence to write
+         * @param length   length of the sequence: first length elements of the array are written
+         */
+        public void write(int[] sequence, int length) throws IOException {
+            if (closed)
+                throw new IllegalStateException("Writer is already closed");
+            if (length < 0 || length > sequence.length)
+                throw new IllegalArgumentException("Invalid sequence length: " + length + ", array length is "
+                                + sequence.length);
+            for (int i = 0; i < length; i++)
+                data.writeInt(sequence[i]);
+            numElements += length;
+            numSequences++;
+            maxSequenceLength = Math.max(maxSequenceLength, length);
+            index.writeLong(numElements);
+        }
+
+        /** Number of sequences written so far */
+        public long numSequences() {
+            return numSequences;
+        }
+
+        /**
+         * Completes the file: appends sequence offsets, and writes the header
+         */
+        @Override
+        public void close() throws IOException {
+            if (closed)
+                return;
+            closed = true;
+            try {
+                index.close();
+                try (FileInputStream fis = new FileInputStream(indexFile)) {
+                    byte[] buffer = new byte[1 << 16];
+                    int read;
+                    while ((read = fis.read(buffer)) > 0)
+                        data.write(buffer, 0, read);
+                }
+                data.close();
+
+                try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                    raf.write(header(numSequences, numElements, maxSequenceLength).array());
+                }
+            } finally {
+                data.close();
+                index.close();
+                indexFile.delete();
+            }
+        }
+    }
+}
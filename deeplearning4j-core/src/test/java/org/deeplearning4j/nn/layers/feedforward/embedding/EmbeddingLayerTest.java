@@ -11,11 +11,16 @@ import org.deeplearning4j.nn.conf.preprocessor.FeedForwardToRnnPreProcessor;
 import org.deeplearning4j.nn.conf.preprocessor.RnnToFeedForwardPreProcessor;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.deeplearning4j.nn.params.DefaultParamInitializer;
+import org.deeplearning4j.nn.updater.MultiLayerUpdater;
 import org.deeplearning4j.nn.weights.WeightInit;
+import org.deeplearning4j.optimize.stepfunctions.NegativeDefaultStepFunction;
 import org.junit.Test;
 import org.nd4j.linalg.activations.Activation;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.linalg.learning.config.Adam;
+import org.nd4j.linalg.learning.config.IUpdater;
 import org.nd4j.linalg.learning.config.Sgd;
 import org.nd4j.linalg.lossfunctions.LossFunctions;
 
@@ -25,6 +30,7 @@ import java.util.Random;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
 public class EmbeddingLayerTest extends BaseDL4JTest {
 
@@ -323,4 +329,109 @@ public class EmbeddingLayerTest extends BaseDL4JTest {
         }
     }
 
+    @Test
+    public void testEmbeddingSparseGradients() {
+        int nIn = 20;
+        int nOut = 4;
+        INDArray[] inputs = new INDArray[] {Nd4j.create(new double[] {1, 3, 3, 7}, new int[] {4, 1}),
+                        Nd4j.create(new double[] {10, 12, 15, 12}, new int[] {4, 1}),
+                        Nd4j.create(new double[] {1, 7, 19, 0}, new int[] {4, 1})};
+        INDArray labels = Nd4j.create(new double[][] {{1, 0, 0}, {0, 1, 0}, {0, 0, 1}, {1, 0, 0}});
+
+        //SGD: no updater state, so sparse and dense updates should be identical
+        MultiLayerNetwork dense = getSparseTestNet(nIn, nOut, new Sgd(0.1), false);
+        MultiLayerNetwork sparse = getSparseTestNet(nIn, nOut, new Sgd(0.1), true);
+        assertEquals(dense.params(), sparse.params());
+        //Embedding weights get their own updater block
+        assertEquals(1, ((MultiLayerUpdater) dense.getUpdater()).getUpdaterBlocks().size());
+        assertEquals(2, ((MultiLayerUpdater) sparse.getUpdater()).getUpdaterBlocks().size());
+
+        for (INDArray in : inputs) {
+            dense.fit(in, labels);
+            sparse.fit(in, labels);
+            assertEquals(dense.params(), sparse.params());
+        }
+        assertArrayEquals(new int[] {0, 1, 7, 19}, ((org.deeplearning4j.nn.layers.feedforward.embedding.EmbeddingLayer)
+                        sparse.getLayer(0)).getGradientRows(DefaultParamInitializer.WEIGHT_KEY));
+
+        //Adam: lazy updates - rows outside of the minibatch, and their updater state, aren't modified
+        dense = getSparseTestNet(nIn, nOut, new Adam(0.01), false);
+        sparse = getSparseTestNet(nIn, nOut, new Adam(0.01), true);
+        dense.fit(inputs[0], labels);
+        sparse.fit(inputs[0], labels);
+        assertEquals(dense.params(), sparse.params());
+
+        INDArray weightsBefore = sparse.getLayer(0).getParam(DefaultParamInitializer.WEIGHT_KEY).dup();
+        INDArray stateBefore = sparse.getUpdater().getStateViewArray().dup();
+        sparse.fit(inputs[1], labels);
+        INDArray weightsAfter = sparse.getLayer(0).getParam(DefaultParamInitializer.WEIGHT_KEY);
+        for (int i = 0; i < nIn; i++) {
+            boolean inMinibatch = i == 10 || i == 12 || i == 15;
+            assertEquals(inMinibatch, !weightsBefore.getRow(i).equals(weightsAfter.getRow(i)));
+        }
+
+        //Updater state: m and v of embedding weights, in 'f' order
+        for (int s = 0; s < 2; s++) {
+            INDArray before = stateBefore.get(NDArrayIndex.point(0), NDArrayIndex.interval(s * nIn * nOut,
+                            (s + 1) * nIn * nOut)).reshape('f', nIn, nOut);
+            INDArray after = sparse.getUpdater().getStateViewArray().get(NDArrayIndex.point(0),
+                            NDArrayIndex.interval(s * nIn * nOut, (s + 1) * nIn * nOut)).reshape('f', nIn, nOut);
+            assertEquals(before.getRow(1), after.getRow(1));
+            assertEquals(before.getRow(19), after.getRow(19));
+            if (s == 0)
+                assertNotEquals(before.getRow(10), after.getRow(10));
+        }
+
+        //Dense Adam keeps updating rows from the previous minibatch (momentum)
+        INDArray denseBefore = dense.getLayer(0).getParam(DefaultParamInitializer.WEIGHT_KEY).dup();
+        dense.fit(inputs[1], labels);
+        assertNotEquals(denseBefore.getRow(1), dense.getLayer(0).getParam(DefaultParamInitializer.WEIGHT_KEY).getRow(1));
+    }
+
+    @Test
+    public void testEmbeddingSparseStep() {
+        int nIn = 20;
+        int nOut = 4;
+        INDArray in = Nd4j.create(new double[] {1, 3, 3, 7}, new int[] {4, 1});
+        INDArray labels = Nd4j.create(new double[][] {{1, 0, 0}, {0, 1, 0}, {0, 0, 1}, {1, 0, 0}});
+
+        MultiLayerNetwork net = getSparseTestNet(nIn, nOut, new Sgd(0.1), true);
+        net.fit(in, labels);
+
+        //Gradients are now the update of the last step. Rows outside of the minibatch must not be stepped at all:
+        // put non-zero values there, which a dense step over the whole view would apply
+        INDArray weights = net.getLayer(0).getParam(DefaultParamInitializer.WEIGHT_KEY);
+        INDArray weightGrad = net.getFlattenedGradients().get(NDArrayIndex.point(0), NDArrayIndex.interval(0, nIn * nOut))
+                        .reshape('f', nIn, nOut);
+        weightGrad.getRow(5).assign(1.0);
+        INDArray update = weightGrad.getRow(3).dup();
+        INDArray paramsBefore = net.params().dup();
+        INDArray weightsBefore = weights.dup();
+
+        ((MultiLayerUpdater) net.getUpdater()).step(new NegativeDefaultStepFunction(), net.params(),
+                        net.getFlattenedGradients());
+
+        assertEquals(weightsBefore.getRow(5), weights.getRow(5));
+        assertEquals(weightsBefore.getRow(3).sub(update), weights.getRow(3));
+        //Dense parameters (embedding bias, output layer) are stepped as usual
+        INDArray expDense = paramsBefore.sub(net.getFlattenedGradients()).get(NDArrayIndex.point(0),
+                        NDArrayIndex.interval(nIn * nOut, net.numParams()));
+        assertEquals(expDense, net.params().get(NDArrayIndex.point(0), NDArrayIndex.interval(nIn * nOut,
+                        net.numParams())));
+    }
+
+    private static MultiLayerNetwork getSparseTestNet(int nIn, int nOut, IUpdater updater, boolean sparse) {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).activation(Activation.TANH)
+                        .updater(updater).weightInit(WeightInit.XAVIER).list()
+                        .layer(0, new EmbeddingLayer.Builder().nIn(nIn).nOut(nOut).hasBias(true)
+                                        .sparseGradients(sparse).build())
+                        .layer(1, new OutputLayer.Builder().nIn(nOut).nOut(3).activation(Activation.SOFTMAX)
+                                        .lossFunction(LossFunctions.LossFunction.MCXENT).build())
+                        .build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+        return net;
+    }
+
 }
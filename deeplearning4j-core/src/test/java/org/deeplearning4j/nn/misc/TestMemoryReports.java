@@ -11,10 +11,12 @@ import org.deeplearning4j.nn.conf.graph.rnn.DuplicateToTimeSeriesVertex;
 import org.deeplearning4j.nn.conf.graph.rnn.LastTimeStepVertex;
 import org.deeplearning4j.nn.conf.inputs.InputType;
 import org.deeplearning4j.nn.conf.layers.*;
+import org.deeplearning4j.nn.conf.memory.ActivationMemoryPlan;
 import org.deeplearning4j.nn.conf.memory.MemoryReport;
 import org.deeplearning4j.nn.conf.memory.MemoryType;
 import org.deeplearning4j.nn.conf.memory.MemoryUseMode;
 import org.deeplearning4j.nn.conf.preprocessor.FeedForwardToCnnPreProcessor;
+import org.deeplearning4j.nn.graph.ComputationGraph;
 import org.junit.Test;
 import org.nd4j.linalg.activations.Activation;
 import org.nd4j.linalg.api.buffer.DataBuffer;
@@ -26,10 +28,17 @@ import org.nd4j.linalg.primitives.Pair;
 import java.io.File;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Created by Alex on 14/07/2017.
@@ -252,4 +261,78 @@ public class TestMemoryReports extends BaseDL4JTest {
 
         conf.getMemoryReport(InputType.convolutional(17,19,19));
     }
+
+    @Test
+    public void testActivationMemoryPlanLiveness() {
+        //Chain: in -> a -> b -> c -> d. Only two outputs are live at a time
+        Map<String, List<String>> inputs = new LinkedHashMap<>();
+        inputs.put("a", Collections.singletonList("in"));
+        inputs.put("b", Collections.singletonList("a"));
+        inputs.put("c", Collections.singletonList("b"));
+        inputs.put("d", Collections.singletonList("c"));
+        Map<String, Long> bytes = new HashMap<>();
+        bytes.put("in", 0L);
+        bytes.put("a", 100L);
+        bytes.put("b", 200L);
+        bytes.put("c", 100L);
+        bytes.put("d", 50L);
+
+        ActivationMemoryPlan plan = ActivationMemoryPlan.create(Arrays.asList("in", "a", "b", "c", "d"), inputs, 1,
+                        bytes, 0);
+        assertEquals(2, plan.getNumBuffers());
+        assertEquals(plan.getBuffer("a"), plan.getBuffer("c"));
+        assertEquals(plan.getBuffer("b"), plan.getBuffer("d"));
+        assertEquals(300, plan.getTotalBytes());
+        assertEquals(450, plan.getUnplannedBytes());
+        assertEquals(300, plan.getPeakLiveBytes());
+
+        //Skip connection: a is consumed by c, so it can't share a buffer with b
+        inputs.put("c", Arrays.asList("b", "a"));
+        inputs.remove("d");
+        bytes.remove("d");
+        plan = ActivationMemoryPlan.create(Arrays.asList("in", "a", "b", "c"), inputs, 1, bytes, 0);
+        assertEquals(3, plan.getNumBuffers());
+        assertEquals(plan.getBuffer("in"), plan.getBuffer("b"));
+        assertEquals(200, plan.getBufferBytes(plan.getBuffer("b")));
+        assertEquals(400, plan.getPeakLiveBytes());
+    }
+
+    @Test
+    public void testActivationMemoryPlanCG() {
+        ComputationGraphConfiguration conf = new NeuralNetConfiguration.Builder().activation(Activation.TANH)
+                        .graphBuilder().addInputs("in")
+                        .addLayer("0", new DenseLayer.Builder().nIn(10).nOut(20).build(), "in")
+                        .addLayer("1", new DenseLayer.Builder().nIn(20).nOut(20).build(), "0")
+                        .addLayer("2", new DenseLayer.Builder().nIn(20).nOut(20).build(), "1")
+                        .addLayer("3", new DenseLayer.Builder().nIn(20).nOut(20).build(), "2")
+                        .addLayer("out", new OutputLayer.Builder().nIn(20).nOut(5).build(), "3")
+                        .setOutputs("out").build();
+
+        ActivationMemoryPlan fromConf = conf.getActivationMemoryPlan(32, DataBuffer.Type.FLOAT,
+                        InputType.feedForward(10));
+        assertEquals(2, fromConf.getNumBuffers());
+        assertEquals(32 * 20 * 4, fromConf.getActivationBytes("1"));
+        assertTrue(fromConf.getTotalBytes() < fromConf.getUnplannedBytes());
+
+        ComputationGraph net = new ComputationGraph(conf);
+        net.init();
+
+        List<INDArray> inputs = new ArrayList<>();
+        List<INDArray> expected = new ArrayList<>();
+        for (int minibatch : new int[] {32, 8, 64}) {
+            INDArray in = Nd4j.rand(minibatch, 10);
+            inputs.add(in);
+            expected.add(net.outputSingle(in));
+        }
+
+        ActivationMemoryPlan plan = net.planActivationMemory(32, InputType.feedForward(10));
+        assertEquals(plan, net.getActivationMemoryPlan());
+        assertEquals(2, plan.getNumBuffers());
+        for (int i = 0; i < inputs.size(); i++)
+            assertEquals(expected.get(i), net.outputSingle(inputs.get(i)));
+
+        net.clearActivationMemoryPlan();
+        assertNull(net.getActivationMemoryPlan());
+        assertEquals(expected.get(0), net.outputSingle(inputs.get(0)));
+    }
 }
@@ -0,0 +1,210 @@
+package org.deeplearning4j.nn.updater;
+
+import org.deeplearning4j.BaseDL4JTest;
+import org.deeplearning4j.datasets.iterator.impl.IrisDataSetIterator;
+import org.deeplearning4j.nn.api.layers.IOutputLayer;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.MixedPrecision;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.weights.WeightInit;
+import org.deeplearning4j.nn.workspace.LayerWorkspaceMgr;
+import org.junit.Test;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.learning.config.Adam;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+import org.nd4j.linalg.ops.transforms.Transforms;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+public class TestMixedPrecision extends BaseDL4JTest {
+
+    @Test
+    public void testLossScaler() {
+        MixedPrecision conf = new MixedPrecision.Builder().initialScale(8).growthInterval(2).scaleBounds(1, 16).build();
+        LossScaler scaler = new LossScaler(conf);
+        assertEquals(8.0, scaler.getScale(), 0.0);
+
+        INDArray grad = Nd4j.create(new double[] {8, 16, -24});
+        assertTrue(scaler.unscale(grad));
+        assertEquals(Nd4j.create(new double[] {1, 2, -3}), grad);
+        assertEquals(8.0, scaler.getScale(), 0.0);
+
+        //Growth after 2 steps without overflow, limited by max scale
+        assertTrue(scaler.unscale(grad.dup()));
+        assertEquals(16.0, scaler.getScale(), 0.0);
+        assertTrue(scaler.unscale(grad.dup()));
+        assertTrue(scaler.unscale(grad.dup()));
+        assertEquals(16.0, scaler.getScale(), 0.0);
+
+        //Backoff on overflow, gradient isn't modified
+        INDArray overflow = Nd4j.create(new double[] {1, Double.NaN, 3});
+        assertFalse(scaler.unscale(overflow));
+        assertEquals(8.0, scaler.getScale(), 0.0);
+        assertEquals(1, scaler.getSkippedSteps());
+        assertEquals(3.0, overflow.getDouble(2), 0.0);
+
+        overflow.putScalar(1, Double.POSITIVE_INFINITY);
+        assertFalse(scaler.unscale(overflow));
+        assertEquals(4.0, scaler.getScale(), 0.0);
+        assertEquals(0, scaler.getStepsSinceOverflow());
+
+        scaler.reset();
+        assertEquals(8.0, scaler.getScale(), 0.0);
+        assertEquals(0, scaler.getSkippedSteps());
+    }
+
+    @Test
+    public void testUpdateResidual() {
+        //Updates below half ulp of the parameters are lost without compensation
+        double ulp = Nd4j.dataType() == DataBuffer.Type.DOUBLE ? Math.ulp(1.0) : Math.ulp(1.0f);
+        double update = 0.2 * ulp;
+        int steps = 50;
+
+        INDArray params = Nd4j.ones(1, 4);
+        INDArray grad = Nd4j.create(1, 4);
+        UpdaterBlock ub = new UpdaterBlock(0, 4, 0, 0, new ArrayList<UpdaterBlock.ParamState>());
+        ub.setParamsView(params);
+        ub.setGradientView(grad);
+
+        INDArray plain = params.dup();
+        for (int i = 0; i < steps; i++) {
+            plain.subi(update);
+
+            grad.assign(update);
+            ub.applyUpdateResidual();
+            params.subi(grad);
+        }
+
+        assertEquals(1.0, plain.getDouble(0), 0.0);
+        assertEquals(1.0 - steps * update, params.getDouble(0), ulp);
+    }
+
+    @Test
+    public void testMixedPrecisionMatchesBaseline() {
+        //With power of 2 loss scale, and FLOAT/DOUBLE data type, loss scaling shouldn't change the results
+        MultiLayerNetwork baseline = new MultiLayerNetwork(getConf(null));
+        baseline.init();
+        MultiLayerNetwork mixed = new MultiLayerNetwork(getConf(MixedPrecision.defaults()));
+        mixed.init();
+        assertNotNull(mixed.getLossScaler());
+        assertNull(baseline.getLossScaler());
+
+        DataSet ds = new IrisDataSetIterator(150, 150).next();
+        ds.normalizeZeroMeanZeroUnitVariance();
+        for (int i = 0; i < 20; i++) {
+            baseline.fit(ds);
+            mixed.fit(ds);
+        }
+
+        assertEquals(0, mixed.getLossScaler().getSkippedSteps());
+        assertEquals(baseline.score(), mixed.score(), 1e-4);
+        assertTrue(Transforms.abs(baseline.params().sub(mixed.params())).maxNumber().doubleValue() < 1e-4);
+
+        MultiLayerConfiguration fromJson = MultiLayerConfiguration.fromJson(mixed.getLayerWiseConfigurations().toJson());
+        assertEquals(mixed.getLayerWiseConfigurations(), fromJson);
+        assertEquals(MixedPrecision.defaults(), fromJson.getMixedPrecision());
+    }
+
+    @Test
+    public void testLossGradientScaledBeforeOutputLayer() {
+        MultiLayerNetwork baseline = new MultiLayerNetwork(getConf(null));
+        baseline.init();
+        MultiLayerNetwork mixed = new MultiLayerNetwork(getConf(MixedPrecision.defaults()));
+        mixed.init();
+        double scale = mixed.getLossScaler().getScale();
+
+        DataSet ds = new IrisDataSetIterator(10, 10).next();
+        for (MultiLayerNetwork net : new MultiLayerNetwork[] {baseline, mixed}) {
+            net.setInput(ds.getFeatures());
+            net.setLabels(ds.getLabels());
+            net.computeGradientAndScore();
+        }
+
+        //All gradients, output layer included, are scaled: dL/dz is scaled before backprop through the output layer
+        assertEquals(1.0, ((IOutputLayer) baseline.getOutputLayer()).getLossGradientScale(), 0.0);
+        assertEquals(scale, ((IOutputLayer) mixed.getOutputLayer()).getLossGradientScale(), 0.0);
+        assertEquals(baseline.score(), mixed.score(), 1e-6);
+        INDArray expected = baseline.getFlattenedGradients().mul(scale);
+        INDArray actual = mixed.getFlattenedGradients();
+        assertTrue(Transforms.abs(expected.sub(actual)).maxNumber().doubleValue()
+                        <= 1e-5 * expected.amaxNumber().doubleValue());
+    }
+
+    @Test
+    public void testOverflowSkipsStep() {
+        MultiLayerNetwork net = new MultiLayerNetwork(getConf(MixedPrecision.defaults()));
+        net.init();
+        DataSet ds = new IrisDataSetIterator(10, 10).next();
+        net.fit(ds);
+
+        INDArray paramsBefore = net.params().dup();
+        INDArray stateBefore = net.getUpdater().getStateViewArray().dup();
+        double scaleBefore = net.getLossScaler().getScale();
+
+        net.setInput(ds.getFeatures());
+        net.setLabels(ds.getLabels());
+        net.computeGradientAndScore();
+        net.getFlattenedGradients().putScalar(0, Double.NaN);
+        net.getUpdater().update(net, net.gradient(), 1, 0, 10, LayerWorkspaceMgr.noWorkspaces());
+
+        assertEquals(0.0, net.getFlattenedGradients().amaxNumber().doubleValue(), 0.0);
+        assertEquals(stateBefore, net.getUpdater().getStateViewArray());
+        assertEquals(paramsBefore, net.params());
+        assertEquals(scaleBefore * 0.5, net.getLossScaler().getScale(), 0.0);
+        assertEquals(1, net.getLossScaler().getSkippedSteps());
+    }
+
+    @Test
+    public void testMixedPrecisionComputationGraph() {
+        ComputationGraph baseline = new ComputationGraph(getGraphConf(null));
+        baseline.init();
+        ComputationGraph mixed = new ComputationGraph(getGraphConf(MixedPrecision.defaults()));
+        mixed.init();
+
+        DataSet ds = new IrisDataSetIterator(150, 150).next();
+        ds.normalizeZeroMeanZeroUnitVariance();
+        for (int i = 0; i < 20; i++) {
+            baseline.fit(ds);
+            mixed.fit(ds);
+        }
+
+        assertEquals(0, mixed.getLossScaler().getSkippedSteps());
+        assertEquals(baseline.score(), mixed.score(), 1e-4);
+        assertTrue(Transforms.abs(baseline.params().sub(mixed.params())).maxNumber().doubleValue() < 1e-4);
+
+        ComputationGraphConfiguration fromJson =
+                        ComputationGraphConfiguration.fromJson(mixed.getConfiguration().toJson());
+        assertEquals(mixed.getConfiguration(), fromJson);
+    }
+
+    private static MultiLayerConfiguration getConf(MixedPrecision mixedPrecision) {
+        return new NeuralNetConfiguration.Builder().seed(12345).updater(new Adam(0.01))
+                        .weightInit(WeightInit.XAVIER).activation(Activation.TANH).mixedPrecision(mixedPrecision)
+                        .list()
+                        .layer(0, new DenseLayer.Builder().nIn(4).nOut(10).build())
+                        .layer(1, new OutputLayer.Builder().lossFunction(LossFunctions.LossFunction.MCXENT)
+                                        .activation(Activation.SOFTMAX).nIn(10).nOut(3).build())
+                        .build();
+    }
+
+    private static ComputationGraphConfiguration getGraphConf(MixedPrecision mixedPrecision) {
+        return new NeuralNetConfiguration.Builder().seed(12345).updater(new Adam(0.01))
+                        .weightInit(WeightInit.XAVIER).activation(Activation.TANH).mixedPrecision(mixedPrecision)
+                        .graphBuilder().addInputs("in")
+                        .addLayer("0", new DenseLayer.Builder().nIn(4).nOut(10).build(), "in")
+                        .addLayer("1", new OutputLayer.Builder().lossFunction(LossFunctions.LossFunction.MCXENT)
+                                        .activation(Activation.SOFTMAX).nIn(10).nOut(3).build(), "0")
+                        .setOutputs("1").build();
+    }
+}
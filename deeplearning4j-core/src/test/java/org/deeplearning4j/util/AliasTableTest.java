@@ -0,0 +1,50 @@
+package org.deeplearning4j.util;
+
+import org.deeplearning4j.BaseDL4JTest;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class AliasTableTest extends BaseDL4JTest {
+
+    @Test
+    public void testSampleProportionalToWeights() {
+        //Two distributions in the same table: [1, 2, 3, 4] at position 0, and [0, 5] at position 4
+        AliasTable table = new AliasTable(6);
+        table.build(0, 4, new double[] {1, 2, 3, 4}, new int[4]);
+        table.build(4, 2, new double[] {0, 5}, new int[2]);
+        assertEquals(6, table.numEntries());
+
+        Random rng = new Random(12345);
+        int n = 100000;
+        int[] counts = new int[4];
+        for (int i = 0; i < n; i++)
+            counts[table.sample(0, 4, rng)]++;
+        for (int k = 0; k < 4; k++)
+            assertEquals((k + 1) / 10.0, counts[k] / (double) n, 0.01);
+
+        //Zero weight entries are never sampled
+        for (int i = 0; i < 1000; i++)
+            assertEquals(1, table.sample(4, 2, rng));
+    }
+
+    @Test
+    public void testZeroWeightsSampledUniformly() {
+        AliasTable table = new AliasTable(3);
+        table.build(0, 3, new double[3], new int[3]);
+
+        Random rng = new Random(12345);
+        int[] counts = new int[3];
+        for (int i = 0; i < 30000; i++)
+            counts[table.sample(0, 3, rng)]++;
+        for (int c : counts)
+            assertEquals(10000, c, 500);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeWeight() {
+        new AliasTable(2).build(0, 2, new double[] {1.0, -1.0}, new int[2]);
+    }
+}
@@ -0,0 +1,103 @@
+package org.deeplearning4j.util;
+
+import org.deeplearning4j.BaseDL4JTest;
+import org.deeplearning4j.nn.api.Layer;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.inputs.InputType;
+import org.deeplearning4j.nn.conf.layers.*;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.params.BatchNormalizationParamInitializer;
+import org.deeplearning4j.nn.weights.WeightInit;
+import org.junit.Test;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import static org.junit.Assert.*;
+
+public class InferenceOptimizerTest extends BaseDL4JTest {
+
+    @Test
+    public void testOptimizeMultiLayerNetwork() {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345)
+                        .weightInit(WeightInit.XAVIER).list()
+                        .layer(0, new ConvolutionLayer.Builder().kernelSize(2, 2).nOut(4)
+                                        .activation(Activation.IDENTITY).build())
+                        .layer(1, new BatchNormalization.Builder().build())
+                        .layer(2, new ActivationLayer.Builder().activation(Activation.RELU).build())
+                        .layer(3, new DropoutLayer.Builder(0.5).build())
+                        .layer(4, new DenseLayer.Builder().nOut(10).activation(Activation.IDENTITY).hasBias(false)
+                                        .dropOut(0.8).build())
+                        .layer(5, new BatchNormalization.Builder().build())
+                        .layer(6, new OutputLayer.Builder().lossFunction(LossFunctions.LossFunction.MCXENT)
+                                        .activation(Activation.SOFTMAX).nOut(3).build())
+                        .setInputType(InputType.convolutional(6, 6, 2)).build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+        randomizeBatchNorm(net.getLayers());
+
+        MultiLayerNetwork optimized = InferenceOptimizer.optimize(net);
+        assertEquals(3, optimized.getnLayers());
+        assertEquals(7, net.getnLayers());
+
+        INDArray input = Nd4j.rand(new int[] {5, 2, 6, 6});
+        assertEquals(net.output(input, false), optimized.output(input, false));
+    }
+
+    @Test
+    public void testOptimizeComputationGraph() {
+        ComputationGraphConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345)
+                        .weightInit(WeightInit.XAVIER).graphBuilder().addInputs("in")
+                        .addLayer("conv", new ConvolutionLayer.Builder().kernelSize(2, 2).nOut(4)
+                                        .activation(Activation.IDENTITY).build(), "in")
+                        .addLayer("bn", new BatchNormalization.Builder().build(), "conv")
+                        .addLayer("act", new ActivationLayer.Builder().activation(Activation.TANH).build(), "bn")
+                        .addLayer("drop", new DropoutLayer.Builder(0.5).build(), "act")
+                        .addLayer("dense", new DenseLayer.Builder().nOut(10).activation(Activation.IDENTITY).build(),
+                                        "drop")
+                        // dense output is consumed by two vertices, so batch norm can't be folded into it
+                        .addLayer("bn2", new BatchNormalization.Builder().build(), "dense")
+                        .addLayer("out", new OutputLayer.Builder().lossFunction(LossFunctions.LossFunction.MCXENT)
+                                        .activation(Activation.SOFTMAX).nOut(3).build(), "bn2")
+                        .addLayer("out2", new OutputLayer.Builder().lossFunction(LossFunctions.LossFunction.MSE)
+                                        .activation(Activation.IDENTITY).nOut(2).build(), "dense")
+                        .setOutputs("out", "out2").setInputTypes(InputType.convolutional(6, 6, 2)).build();
+
+        ComputationGraph net = new ComputationGraph(conf);
+        net.init();
+        randomizeBatchNorm(net.getLayers());
+
+        ComputationGraph optimized = InferenceOptimizer.optimize(net);
+        assertEquals(5, optimized.getNumLayers());
+        assertFalse(optimized.getConfiguration().getVertices().containsKey("bn"));
+        assertFalse(optimized.getConfiguration().getVertices().containsKey("drop"));
+        assertTrue(optimized.getConfiguration().getVertices().containsKey("bn2"));
+
+        INDArray input = Nd4j.rand(new int[] {5, 2, 6, 6});
+        INDArray[] expected = net.output(false, input);
+        INDArray[] actual = optimized.output(false, input);
+        for (int i = 0; i < expected.length; i++)
+            assertEquals(expected[i], actual[i]);
+    }
+
+    private static void randomizeBatchNorm(Layer[] layers) {
+        for (Layer layer : layers) {
+            if (!(layer instanceof org.deeplearning4j.nn.layers.normalization.BatchNormalization))
+                continue;
+
+            layer.getParam(BatchNormalizationParamInitializer.GAMMA).assign(Nd4j.rand(1, (int) layer.getParam(
+                            BatchNormalizationParamInitializer.GAMMA).length()).addi(0.5));
+            layer.getParam(BatchNormalizationParamInitializer.BETA).assign(Nd4j.randn(1, (int) layer.getParam(
+                            BatchNormalizationParamInitializer.BETA).length()));
+            layer.getParam(BatchNormalizationParamInitializer.GLOBAL_MEAN).assign(Nd4j.randn(1, (int) layer.getParam(
+                            BatchNormalizationParamInitializer.GLOBAL_MEAN).length()));
+            layer.getParam(BatchNormalizationParamInitializer.GLOBAL_VAR).assign(Nd4j.rand(1, (int) layer.getParam(
+                            BatchNormalizationParamInitializer.GLOBAL_VAR).length()).addi(0.5));
+        }
+    }
+}
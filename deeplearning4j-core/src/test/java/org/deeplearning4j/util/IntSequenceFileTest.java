@@ -0,0 +1,113 @@
+package org.deeplearning4j.util;
+
+import org.deeplearning4j.BaseDL4JTest;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class IntSequenceFileTest extends BaseDL4JTest {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    @Test
+    public void testWriteRead() throws Exception {
+        File dir = testDir.newFolder();
+        File f = new File(dir, "sequences.bin");
+
+        int[][] sequences = randomSequences(100, 12345);
+        try (IntSequenceFile.Writer writer = new IntSequenceFile.Writer(f)) {
+            for (int[] s : sequences)
+                writer.write(s);
+            assertEquals(100, writer.numSequences());
+        }
+        //Temporary index file should be removed
+        assertEquals(1, dir.listFiles().length);
+
+        IntSequenceFile file = new IntSequenceFile(f);
+        assertSame(sequences, file);
+
+        int[] buffer = new int[file.getMaxSequenceLength()];
+        for (int i = 0; i < sequences.length; i++) {
+            int length = file.getSequence(i, buffer);
+            assertArrayEquals(sequences[i], Arrays.copyOf(buffer, length));
+        }
+
+        try {
+            file.getSequence(100);
+            fail("Expected exception");
+        } catch (IndexOutOfBoundsException e) {
+            //OK
+        }
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        int[][] a = randomSequences(50, 12345);
+        int[][] b = new int[0][0];
+        int[][] c = randomSequences(70, 23456);
+
+        File dir = testDir.newFolder();
+        File fa = write(new File(dir, "a.bin"), a);
+        File fb = write(new File(dir, "b.bin"), b);
+        File fc = write(new File(dir, "c.bin"), c);
+        File merged = new File(dir, "merged.bin");
+        assertEquals(120, IntSequenceFile.merge(Arrays.asList(fa, fb, fc), merged));
+
+        int[][] all = new int[120][];
+        System.arraycopy(a, 0, all, 0, 50);
+        System.arraycopy(c, 0, all, 50, 70);
+        assertSame(all, new IntSequenceFile(merged));
+
+        IntSequenceFile empty = new IntSequenceFile(fb);
+        assertEquals(0, empty.numSequences());
+        assertEquals(0, empty.numElements());
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidFile() throws Exception {
+        File f = testDir.newFile();
+        org.apache.commons.io.FileUtils.writeStringToFile(f, "not a sequence file at all");
+        new IntSequenceFile(f);
+    }
+
+    private static File write(File f, int[][] sequences) throws IOException {
+        try (IntSequenceFile.Writer writer = new IntSequenceFile.Writer(f)) {
+            for (int[] s : sequences)
+                writer.write(s);
+        }
+        return f;
+    }
+
+    private static void assertSame(int[][] expected, IntSequenceFile actual) {
+        assertEquals(expected.length, actual.numSequences());
+        long numElements = 0;
+        int maxLength = 0;
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i].length, actual.getSequenceLength(i));
+            assertArrayEquals(expected[i], actual.getSequence(i));
+            numElements += expected[i].length;
+            maxLength = Math.max(maxLength, expected[i].length);
+        }
+        assertEquals(numElements, actual.numElements());
+        assertEquals(maxLength, actual.getMaxSequenceLength());
+    }
+
+    private static int[][] randomSequences(int n, long seed) {
+        Random r = new Random(seed);
+        int[][] out = new int[n][0];
+        for (int i = 0; i < n; i++) {
+            out[i] = new int[r.nextInt(20)];
+            for (int j = 0; j < out[i].length; j++)
+                out[i][j] = r.nextInt();
+        }
+        return out;
+    }
+}
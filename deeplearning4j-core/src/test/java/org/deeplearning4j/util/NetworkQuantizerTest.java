@@ -0,0 +1,139 @@
+package org.deeplearning4j.util;
+
+import org.deeplearning4j.BaseDL4JTest;
+import org.deeplearning4j.datasets.iterator.impl.IrisDataSetIterator;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.inputs.InputType;
+import org.deeplearning4j.nn.conf.layers.ConvolutionLayer;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.EmbeddingLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.conf.layers.misc.QuantizedLayer;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.layers.QuantizedWeights;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.weights.WeightInit;
+import org.junit.Test;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.learning.config.Adam;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+import org.nd4j.linalg.ops.transforms.Transforms;
+
+import static org.junit.Assert.*;
+
+public class NetworkQuantizerTest extends BaseDL4JTest {
+
+    @Test
+    public void testQuantizedWeights() {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray weights = Nd4j.randn(new int[] {6, 3, 2, 2});
+
+        for (QuantizedLayer.Format format : QuantizedLayer.Format.values()) {
+            QuantizedWeights quantized = QuantizedWeights.quantize(weights, format, true);
+            INDArray restored = quantized.dequantize();
+            assertArrayEquals(weights.shape(), restored.shape());
+
+            // INT8 error is bounded by half of per-channel step, FLOAT16 has 11 bits of precision
+            double maxAbs = weights.amaxNumber().doubleValue();
+            double tolerance = format == QuantizedLayer.Format.INT8 ? maxAbs / 254 : maxAbs / 2048;
+            assertTrue(Transforms.abs(weights.sub(restored)).maxNumber().doubleValue() <= tolerance + 1e-6);
+
+            INDArray rows = quantized.dequantizeRows(new int[] {4, 1});
+            INDArray matrix = restored.reshape('c', 6, 12);
+            assertEquals(matrix.getRow(4), rows.getRow(0));
+            assertEquals(matrix.getRow(1), rows.getRow(1));
+        }
+
+        assertEquals(72 + 6 * 4, QuantizedWeights.quantize(weights, QuantizedLayer.Format.INT8, true).getMemoryBytes());
+        assertEquals(72 * 2, QuantizedWeights.quantize(weights, QuantizedLayer.Format.FLOAT16, true).getMemoryBytes());
+    }
+
+    @Test
+    public void testQuantizeMultiLayerNetwork() {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).updater(new Adam(0.01))
+                        .weightInit(WeightInit.XAVIER).activation(Activation.TANH).list()
+                        .layer(0, new DenseLayer.Builder().nIn(4).nOut(32).build())
+                        .layer(1, new DenseLayer.Builder().nIn(32).nOut(32).hasBias(false).build())
+                        .layer(2, new OutputLayer.Builder().lossFunction(LossFunctions.LossFunction.MCXENT)
+                                        .activation(Activation.SOFTMAX).nIn(32).nOut(3).build())
+                        .build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+        DataSetIterator iter = new IrisDataSetIterator(150, 150);
+        for (int i = 0; i < 20; i++)
+            net.fit(iter);
+
+        INDArray input = new IrisDataSetIterator(150, 150).next().getFeatures();
+        INDArray expected = net.output(input);
+
+        for (QuantizedLayer.Format format : QuantizedLayer.Format.values()) {
+            MultiLayerNetwork quantized = NetworkQuantizer.quantize(net, format);
+            assertTrue(quantized.getLayer(0) instanceof org.deeplearning4j.nn.layers.QuantizedLayer);
+            assertTrue(quantized.getLayer(1) instanceof org.deeplearning4j.nn.layers.QuantizedLayer);
+            assertFalse(quantized.getLayer(2) instanceof org.deeplearning4j.nn.layers.QuantizedLayer);
+
+            // only biases and output layer stay in network params
+            assertEquals(32 + 32 * 3 + 3, quantized.numParams());
+
+            INDArray actual = quantized.output(input);
+            assertTrue(Transforms.abs(expected.sub(actual)).maxNumber().doubleValue() < 0.05);
+
+            QuantizationReport report = NetworkQuantizer.compare(net, quantized, iter);
+            assertEquals(150, report.getQuantized().getNumRowCounter());
+            assertTrue(report.getQuantizedBytes() < report.getOriginalBytes());
+            assertTrue(Math.abs(report.getAccuracyDelta()) < 0.05);
+        }
+    }
+
+    @Test
+    public void testQuantizeEmbedding() {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345)
+                        .weightInit(WeightInit.XAVIER).activation(Activation.TANH).list()
+                        .layer(0, new EmbeddingLayer.Builder().nIn(100).nOut(16).hasBias(true).build())
+                        .layer(1, new OutputLayer.Builder().lossFunction(LossFunctions.LossFunction.MCXENT)
+                                        .activation(Activation.SOFTMAX).nIn(16).nOut(4).build())
+                        .build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        INDArray input = Nd4j.create(new double[] {7, 3, 99, 7, 0, 42}, new int[] {6, 1});
+        INDArray expected = net.output(input);
+
+        MultiLayerNetwork quantized = NetworkQuantizer.quantize(net, QuantizedLayer.Format.INT8);
+        INDArray actual = quantized.output(input);
+        assertTrue(Transforms.abs(expected.sub(actual)).maxNumber().doubleValue() < 0.01);
+    }
+
+    @Test
+    public void testQuantizeComputationGraph() {
+        ComputationGraphConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345)
+                        .weightInit(WeightInit.XAVIER).activation(Activation.RELU).graphBuilder().addInputs("in")
+                        .addLayer("conv", new ConvolutionLayer.Builder().kernelSize(3, 3).nOut(8).build(), "in")
+                        .addLayer("dense", new DenseLayer.Builder().nOut(16).build(), "conv")
+                        .addLayer("out", new OutputLayer.Builder().lossFunction(LossFunctions.LossFunction.MCXENT)
+                                        .activation(Activation.SOFTMAX).nOut(5).build(), "dense")
+                        .setOutputs("out").setInputTypes(InputType.convolutional(8, 8, 2)).build();
+
+        ComputationGraph net = new ComputationGraph(conf);
+        net.init();
+
+        INDArray input = Nd4j.rand(new int[] {4, 2, 8, 8});
+        INDArray expected = net.outputSingle(input);
+
+        ComputationGraph quantized = NetworkQuantizer.quantize(net, QuantizedLayer.Format.FLOAT16);
+        assertTrue(quantized.getLayer("conv") instanceof org.deeplearning4j.nn.layers.QuantizedLayer);
+        assertTrue(quantized.getLayer("dense") instanceof org.deeplearning4j.nn.layers.QuantizedLayer);
+
+        INDArray actual = quantized.outputSingle(input);
+        assertTrue(Transforms.abs(expected.sub(actual)).maxNumber().doubleValue() < 0.01);
+        assertTrue(NetworkQuantizer.parameterBytes(quantized.getLayers()) < NetworkQuantizer
+                        .parameterBytes(net.getLayers()));
+    }
+}
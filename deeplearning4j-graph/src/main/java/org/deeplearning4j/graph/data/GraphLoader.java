@@ -4,6 +4,7 @@ import org.deeplearning4j.graph.api.Edge;
 import org.deeplearning4j.graph.api.Vertex;
 import org.deeplearning4j.graph.data.impl.DelimitedEdgeLineProcessor;
 import org.deeplearning4j.graph.data.impl.WeightedEdgeLineProcessor;
+import org.deeplearning4j.graph.graph.CSRGraph;
 import org.deeplearning4j.graph.graph.Graph;
 import org.deeplearning4j.graph.vertexfactory.StringVertexFactory;
 import org.deeplearning4j.graph.vertexfactory.VertexFactory;
@@ -172,4 +173,81 @@ public class GraphLoader {
 
         return graph;
     }
+
+    /** Load a graph into memory in compressed sparse row format ({@link CSRGraph}), using a given EdgeLineProcessor.
+     * Assume one edge per line.<br>
+     * The file is read twice: first to count the edges of each vertex, and then to fill the adjacency arrays. Thus no
+     * per-edge objects are kept in memory, and this method is suitable for large graphs. All edges are kept
+     * (i.e., allowMultipleEdges = true).
+     * @param path Path to the file containing the edges, one per line
+     * @param lineProcessor EdgeLineProcessor used to convert lines of text into a graph (or null for comment lines etc)
+     * @param vertexFactory Used to create vertices
+     * @param numVertices number of vertices in the graph
+     * @param weighted if true, edge values are used as edge weights, and must be Numbers
+     * @return CSRGraph
+     */
+    public static <V, E> CSRGraph<V> loadCSRGraph(String path, EdgeLineProcessor<E> lineProcessor,
+                    VertexFactory<V> vertexFactory, int numVertices, boolean weighted) throws IOException {
+        CSRGraph.Builder<V> builder = new CSRGraph.Builder<>(numVertices, weighted, vertexFactory);
+
+        try (BufferedReader br = new BufferedReader(new FileReader(new File(path)))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                Edge<E> edge = lineProcessor.processLine(line);
+                if (edge != null) {
+                    builder.countEdge(edge.getFrom(), edge.getTo(), edge.isDirected());
+                }
+            }
+        }
+
+        builder.allocate();
+
+        try (BufferedReader br = new BufferedReader(new FileReader(new File(path)))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                Edge<E> edge = lineProcessor.processLine(line);
+                if (edge != null) {
+                    float weight = weighted ? ((Number) edge.getValue()).floatValue() : 1.0f;
+                    builder.addEdge(edge.getFrom(), edge.getTo(), weight, edge.isDirected());
+                }
+            }
+        }
+
+        return builder.build();
+    }
+
+    /** Simple method for loading an undirected graph in compressed sparse row format ({@link CSRGraph}), where the graph
+     * is represented by a edge list with one edge per line with a delimiter in between<br>
+     * This method assumes that all lines in the file are of the form {@code i<delim>j} where i and j are integers
+     * in range 0 to numVertices inclusive, and "<delim>" is the user-provided delimiter
+     * @param path Path to the edge list file
+     * @param numVertices number of vertices in the graph
+     * @return graph
+     * @throws IOException if file cannot be read
+     * @see #loadUndirectedGraphEdgeListFile(String, int, String)
+     */
+    public static CSRGraph<String> loadUndirectedCSRGraphEdgeListFile(String path, int numVertices, String delim)
+                    throws IOException {
+        return loadCSRGraph(path, new DelimitedEdgeLineProcessor(delim, false), new StringVertexFactory(),
+                        numVertices, false);
+    }
+
+    /**Method for loading a weighted graph in compressed sparse row format ({@link CSRGraph}) from an edge list file,
+     * where each edge (inc. weight) is represented by a single line. Graph may be directed or undirected<br>
+     * This method assumes that edges are of the format: {@code fromIndex<delim>toIndex<delim>edgeWeight} where {@code <delim>}
+     * is the delimiter.
+     * @param path Path to the edge list file
+     * @param numVertices The number of vertices in the graph
+     * @param delim The delimiter used in the file (typically: "," or " " etc)
+     * @param directed whether the edges should be treated as directed (true) or undirected (false)
+     * @param ignoreLinesStartingWith Starting characters for comment lines. May be null. For example: "//" or "#"
+     * @return The graph
+     * @throws IOException
+     * @see #loadWeightedEdgeListFile(String, int, String, boolean, String...)
+     */
+    public static CSRGraph<String> loadWeightedCSRGraphEdgeListFile(String path, int numVertices, String delim,
+                    boolean directed, String... ignoreLinesStartingWith) throws IOException {
+        return loadCSRGraph(path, new WeightedEdgeLineProcessor(delim, directed, ignoreLinesStartingWith),
+                        new StringVertexFactory(), numVertices, true);
+    }
 }
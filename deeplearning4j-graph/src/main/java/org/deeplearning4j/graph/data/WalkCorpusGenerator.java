@@ -0,0 +1,132 @@
+package org.deeplearning4j.graph.data;
+
+import org.deeplearning4j.graph.api.IVertexSequence;
+import org.deeplearning4j.graph.iterator.GraphWalkIterator;
+import org.deeplearning4j.graph.iterator.parallel.GraphWalkIteratorProvider;
+import org.deeplearning4j.util.IntSequenceFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.threadly.concurrent.PriorityScheduler;
+import org.threadly.concurrent.future.FutureUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**Generates a corpus of graph walks (vertex indices), and saves it to an {@link IntSequenceFile}.<br>
+ * Walks are generated in parallel: one thread per iterator returned by the {@link GraphWalkIteratorProvider} (i.e.,
+ * one thread per vertex partition, for {@link org.deeplearning4j.graph.iterator.parallel.RandomWalkGraphIteratorProvider}
+ * and {@link org.deeplearning4j.graph.iterator.parallel.WeightedRandomWalkGraphIteratorProvider}). Each thread
+ * writes its walks straight to its own part file next to the output file, and the parts are then merged - so walks are
+ * never held in memory. Parts are merged into a temporary file, that replaces the output file only once the whole
+ * corpus is written: if generation fails, an existing output file is left as is.<br>
+ * Generated corpus can be replayed for any number of epochs or models (for example: hyperparameter search) via
+ * {@link org.deeplearning4j.graph.iterator.parallel.WalkCorpusGraphIteratorProvider} or
+ * {@link org.deeplearning4j.graph.models.deepwalk.DeepWalk#fit(org.deeplearning4j.graph.api.IGraph, IntSequenceFile)}
+ */
+public class WalkCorpusGenerator {
+    private static final Logger log = LoggerFactory.getLogger(WalkCorpusGenerator.class);
+
+    private WalkCorpusGenerator() {}
+
+    /**
+     * Generate walk corpus, and save it to the given file
+     *
+     * @param provider       Provider of graph walk iterators. Each iterator is used by one thread.
+     * @param numPartitions  Number of iterators (and threads) to request from the provider
+     * @param walksPerVertex Number of passes over each iterator: iterators are reset between passes. For the random
+     *                       walk iterators, this is the number of walks starting at each vertex
+     * @param output         File to write the corpus to
+     * @return Number of walks in the corpus
+     * @throws IOException If the corpus can't be written
+     */
+    public static <V> long generate(GraphWalkIteratorProvider<V> provider, int numPartitions, int walksPerVertex,
+                    File output) throws IOException {
+        if (numPartitions <= 0)
+            throw new IllegalArgumentException("Number of partitions must be positive, got " + numPartitions);
+        if (walksPerVertex <= 0)
+            throw new IllegalArgumentException("Number of walks per vertex must be positive, got " + walksPerVertex);
+
+        List<GraphWalkIterator<V>> iterators = provider.getGraphWalkIterators(numPartitions);
+        File dir = output.getAbsoluteFile().getParentFile();
+        List<File> parts = new ArrayList<>(iterators.size());
+        File merged = null;
+        PriorityScheduler scheduler = null;
+        boolean success = false;
+        try {
+            for (int i = 0; i < iterators.size(); i++)
+                parts.add(File.createTempFile(output.getName() + "_part" + i + "_", ".tmp", dir));
+
+            scheduler = new PriorityScheduler(iterators.size());
+            List<Future<Long>> futures = new ArrayList<>(iterators.size());
+            for (int i = 0; i < iterators.size(); i++)
+                futures.add(scheduler.submit(new PartitionCallable<>(iterators.get(i), walksPerVertex, parts.get(i))));
+            scheduler.shutdown();
+
+            try {
+                FutureUtils.blockTillAllCompleteOrFirstError(futures);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException)
+                    throw (IOException) e.getCause();
+                throw new RuntimeException(e);
+            }
+
+            merged = File.createTempFile(output.getName() + "_", ".tmp", dir);
+            long numWalks = IntSequenceFile.merge(parts, merged);
+            Files.move(merged.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            log.info("Generated {} walks in {} partitions: {}", numWalks, parts.size(), output);
+            success = true;
+            return numWalks;
+        } finally {
+            if (!success) {
+                //Stop the remaining partitions, and don't leave a partially written corpus behind
+                if (scheduler != null)
+                    scheduler.shutdownNow();
+                if (merged != null)
+                    merged.delete();
+            }
+            for (File f : parts)
+                f.delete();
+        }
+    }
+
+    private static class PartitionCallable<V> implements Callable<Long> {
+        private final GraphWalkIterator<V> iterator;
+        private final int numPasses;
+        private final File file;
+
+        private PartitionCallable(GraphWalkIterator<V> iterator, int numPasses, File file) {
+            this.iterator = iterator;
+            this.numPasses = numPasses;
+            this.file = file;
+        }
+
+        @Override
+        public Long call() throws Exception {
+            int[] walk = new int[iterator.walkLength() + 1];
+            try (IntSequenceFile.Writer writer = new IntSequenceFile.Writer(file)) {
+                for (int pass = 0; pass < numPasses; pass++) {
+                    if (pass > 0)
+                        iterator.reset();
+                    while (iterator.hasNext()) {
+                        IVertexSequence<V> sequence = iterator.next();
+                        int length = 0;
+                        while (sequence.hasNext())
+                            walk[length++] = sequence.next().vertexID();
+                        writer.write(walk, length);
+                    }
+                }
+                return writer.numSequences();
+            }
+        }
+    }
+}
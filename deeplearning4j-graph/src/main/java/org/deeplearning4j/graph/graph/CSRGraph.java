@@ -0,0 +1,494 @@
+package org.deeplearning4j.graph.graph;
+
+import org.deeplearning4j.graph.api.BaseGraph;
+import org.deeplearning4j.graph.api.Edge;
+import org.deeplearning4j.graph.api.IGraph;
+import org.deeplearning4j.graph.api.Vertex;
+import org.deeplearning4j.graph.exception.NoEdgesException;
+import org.deeplearning4j.graph.vertexfactory.VertexFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/** Immutable graph, with adjacency stored in compressed sparse row (CSR) format.<br>
+ * Out-edges of vertex i are stored in {@code targets[offsets[i]]} to {@code targets[offsets[i+1]-1]}, with optional
+ * edge weights stored in the same positions of the {@code weights} array. Undirected edges are stored in both
+ * directions, as in {@link Graph}. Vertex objects are not stored, but created on demand by a {@link VertexFactory}.<br>
+ * Compared to {@link Graph}, this representation uses 4 bytes per (directed) edge, plus 4 bytes per edge for weights,
+ * instead of an {@link Edge} object per edge. So it is suitable for large graphs, and for methods that are called for
+ * each step of a random walk, such as {@link #getRandomConnectedVertexIndex(int, Random)}, that don't allocate.<br>
+ * Edge values of this graph are edge weights, or null for unweighted graphs.<br>
+ * CSRGraph instances can be created via {@link Builder} (or {@link org.deeplearning4j.graph.data.GraphLoader} for
+ * edge list files), saved to binary format via {@link #saveBinary(File)}, and loaded (or memory-mapped) via
+ * {@link #loadBinary(File, VertexFactory, boolean)}.
+ *
+ * PLEASE NOTE: graph can't be modified after creation: addEdge methods throw UnsupportedOperationException
+ * @param <V> Type parameter for vertices (type of objects attached to each vertex)
+ */
+public class CSRGraph<V> extends BaseGraph<V, Double> {
+    private static final int MAGIC = 0x43535247; //"CSRG"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 5 * 4;
+
+    //Memory-mapped arrays are split into chunks, as single MappedByteBuffer can't be larger than 2GB
+    private static final int MMAP_CHUNK_SHIFT = 28;
+    private static final int HEAP_CHUNK_SHIFT = 31;
+
+    private final int numVertices;
+    private final int numEdges;
+    private final boolean directed;
+    private final VertexFactory<V> vertexFactory;
+
+    private final IntBuffer offsets;
+    private final IntBuffer[] targets;
+    private final FloatBuffer[] weights;
+    private final int chunkShift;
+    private final int chunkMask;
+
+    /**
+     * @param offsets       Offsets of out-edges for each vertex: length numVertices+1, offsets[0] == 0 and
+     *                      offsets[numVertices] == targets.length
+     * @param targets       Target vertex of each edge
+     * @param weights       Weight of each edge. May be null for unweighted graphs
+     * @param directed      Whether graph edges are directed or not. Undirected edges must be present in both directions
+     * @param vertexFactory Used to create vertex objects
+     */
+    public CSRGraph(int[] offsets, int[] targets, float[] weights, boolean directed, VertexFactory<V> vertexFactory) {
+        this(IntBuffer.wrap(offsets), new IntBuffer[] {IntBuffer.wrap(targets)},
+                        weights == null ? null : new FloatBuffer[] {FloatBuffer.wrap(weights)}, HEAP_CHUNK_SHIFT,
+                        directed, vertexFactory);
+        if (weights != null && weights.length != targets.length)
+            throw new IllegalArgumentException("Invalid weights: expected length " + targets.length + ", got "
+                            + weights.length);
+    }
+
+    private CSRGraph(IntBuffer offsets, IntBuffer[] targets, FloatBuffer[] weights, int chunkShift, boolean directed,
+                    VertexFactory<V> vertexFactory) {
+        if (offsets.limit() < 2)
+            throw new IllegalArgumentException("Invalid offsets: graph must have at least 1 vertex");
+        this.numVertices = offsets.limit() - 1;
+        this.numEdges = offsets.get(numVertices);
+        if (offsets.get(0) != 0 || numEdges < 0)
+            throw new IllegalArgumentException("Invalid offsets: first offset must be 0, last offset must be number "
+                            + "of edges; got " + offsets.get(0) + " and " + numEdges);
+
+        long stored = 0;
+        for (IntBuffer b : targets)
+            stored += b.limit();
+        if (stored != numEdges)
+            throw new IllegalArgumentException("Invalid targets: expected " + numEdges + " edges, got " + stored);
+
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.chunkShift = chunkShift;
+        this.chunkMask = (int) ((1L << chunkShift) - 1);
+        this.directed = directed;
+        this.vertexFactory = vertexFactory;
+    }
+
+    @Override
+    public int numVertices() {
+        return numVertices;
+    }
+
+    /** Total number of stored edges. Undirected edges are counted twice (once in each direction) */
+    public int numEdges() {
+        return numEdges;
+    }
+
+    public boolean isDirected() {
+        return directed;
+    }
+
+    public boolean isWeighted() {
+        return weights != null;
+    }
+
+    @Override
+    public Vertex<V> getVertex(int idx) {
+        if (idx < 0 || idx >= numVertices)
+            throw new IllegalArgumentException("Invalid index: " + idx);
+        return vertexFactory.create(idx);
+    }
+
+    @Override
+    public List<Vertex<V>> getVertices(int[] indexes) {
+        List<Vertex<V>> out = new ArrayList<>(indexes.length);
+        for (int i : indexes)
+            out.add(getVertex(i));
+        return out;
+    }
+
+    @Override
+    public List<Vertex<V>> getVertices(int from, int to) {
+        if (to < from || from < 0 || to >= numVertices)
+            throw new IllegalArgumentException("Invalid range: from=" + from + ", to=" + to);
+        List<Vertex<V>> out = new ArrayList<>(to - from + 1);
+        for (int i = from; i <= to; i++)
+            out.add(getVertex(i));
+        return out;
+    }
+
+    @Override
+    public void addEdge(Edge<Double> edge) {
+        throw new UnsupportedOperationException("CSRGraph is immutable: edges can't be added");
+    }
+
+    @Override
+    public void addEdge(int from, int to, Double value, boolean directed) {
+        throw new UnsupportedOperationException("CSRGraph is immutable: edges can't be added");
+    }
+
+    @Override
+    public List<Edge<Double>> getEdgesOut(int vertex) {
+        int start = offsets.get(vertex);
+        int end = offsets.get(vertex + 1);
+        if (start == end)
+            return Collections.emptyList();
+
+        List<Edge<Double>> out = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            Double weight = (weights == null ? null : (double) weightAt(i));
+            out.add(new Edge<>(vertex, targetAt(i), weight, directed));
+        }
+        return out;
+    }
+
+    @Override
+    public int getVertexDegree(int vertex) {
+        return offsets.get(vertex + 1) - offsets.get(vertex);
+    }
+
+    @Override
+    public Vertex<V> getRandomConnectedVertex(int vertex, Random rng) throws NoEdgesException {
+        return vertexFactory.create(getRandomConnectedVertexIndex(vertex, rng));
+    }
+
+    /**
+     * This method returns index of a vertex connected to the given vertex, sampled uniformly at random.
+     * Same as {@link #getRandomConnectedVertex(int, Random)}, but without any allocations
+     *
+     * @param vertex vertex to randomly sample from
+     * @param rng    Random number generator to use
+     * @return index of a connected vertex
+     * @throws NoEdgesException if the specified vertex has no outgoing/undirected edges
+     */
+    public int getRandomConnectedVertexIndex(int vertex, Random rng) throws NoEdgesException {
+        if (vertex < 0 || vertex >= numVertices)
+            throw new IllegalArgumentException("Invalid vertex index: " + vertex);
+        int start = offsets.get(vertex);
+        int degree = offsets.get(vertex + 1) - start;
+        if (degree == 0)
+            throw new NoEdgesException("Cannot generate random connected vertex: vertex " + vertex
+                            + " has no outgoing/undirected edges");
+        return targetAt(start + rng.nextInt(degree));
+    }
+
+    @Override
+    public List<Vertex<V>> getConnectedVertices(int vertex) {
+        if (vertex < 0 || vertex >= numVertices)
+            throw new IllegalArgumentException("Invalid vertex index: " + vertex);
+
+        int start = offsets.get(vertex);
+        int end = offsets.get(vertex + 1);
+        List<Vertex<V>> list = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++)
+            list.add(vertexFactory.create(targetAt(i)));
+        return list;
+    }
+
+    @Override
+    public int[] getConnectedVertexIndices(int vertex) {
+        int start = offsets.get(vertex);
+        int[] out = new int[offsets.get(vertex + 1) - start];
+        for (int i = 0; i < out.length; i++)
+            out[i] = targetAt(start + i);
+        return out;
+    }
+
+    /**
+     * This method returns position of the first out-edge of the given vertex. Out-edges of the vertex are stored at
+     * positions {@code getEdgeOffset(vertex)} to {@code getEdgeOffset(vertex + 1) - 1} inclusive
+     *
+     * @param vertex index of the vertex, in range 0 to numVertices() inclusive
+     * @return edge position
+     */
+    public int getEdgeOffset(int vertex) {
+        return offsets.get(vertex);
+    }
+
+    /**
+     * @param edge edge position, see {@link #getEdgeOffset(int)}
+     * @return index of the target vertex of the edge
+     */
+    public int getEdgeTarget(int edge) {
+        return targetAt(edge);
+    }
+
+    /**
+     * @param edge edge position, see {@link #getEdgeOffset(int)}
+     * @return weight of the edge, or 1.0 for unweighted graphs
+     */
+    public float getEdgeWeight(int edge) {
+        return weights == null ? 1.0f : weightAt(edge);
+    }
+
+    private int targetAt(int i) {
+        return targets[i >>> chunkShift].get(i & chunkMask);
+    }
+
+    private float weightAt(int i) {
+        return weights[i >>> chunkShift].get(i & chunkMask);
+    }
+
+    /**
+     * This method saves this graph in binary format, that can be loaded or memory-mapped via
+     * {@link #loadBinary(File, VertexFactory, boolean)}. Vertex objects aren't saved.
+     *
+     * @param file file to save the graph to
+     * @throws IOException
+     */
+    public void saveBinary(File file) throws IOException {
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            dos.writeInt(MAGIC);
+            dos.writeInt(VERSION);
+            dos.writeInt(numVertices);
+            dos.writeInt(numEdges);
+            dos.writeInt((directed ? 1 : 0) | (weights != null ? 2 : 0));
+
+            for (int i = 0; i <= numVertices; i++)
+                dos.writeInt(offsets.get(i));
+            for (int i = 0; i < numEdges; i++)
+                dos.writeInt(targetAt(i));
+            if (weights != null) {
+                for (int i = 0; i < numEdges; i++)
+                    dos.writeFloat(weightAt(i));
+            }
+        }
+    }
+
+    /**
+     * This method loads graph saved via {@link #saveBinary(File)}
+     *
+     * PLEASE NOTE: memory-mapped graph keeps the file open until all references to the graph are garbage collected
+     *
+     * @param file          file to load the graph from
+     * @param vertexFactory used to create vertex objects
+     * @param memoryMapped  if true, adjacency arrays will be memory-mapped instead of loaded into heap memory
+     * @return loaded graph
+     * @throws IOException
+     */
+    public static <V> CSRGraph<V> loadBinary(File file, VertexFactory<V> vertexFactory, boolean memoryMapped)
+                    throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC)
+                throw new IOException("Invalid file: " + file + " is not a CSRGraph binary file");
+            int version = header.getInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported CSRGraph binary file version: " + version);
+            int numVertices = header.getInt();
+            int numEdges = header.getInt();
+            int flags = header.getInt();
+            boolean directed = (flags & 1) != 0;
+            boolean weighted = (flags & 2) != 0;
+
+            long expectedLength = HEADER_BYTES + 4L * (numVertices + 1) + 4L * numEdges * (weighted ? 2 : 1);
+            if (channel.size() != expectedLength)
+                throw new IOException("Invalid file length: expected " + expectedLength + " bytes, got "
+                                + channel.size());
+
+            long position = HEADER_BYTES;
+            if (!memoryMapped) {
+                int[] offsets = new int[numVertices + 1];
+                int[] targets = new int[numEdges];
+                float[] weights = weighted ? new float[numEdges] : null;
+                position = readInts(channel, position, offsets);
+                position = readInts(channel, position, targets);
+                if (weighted)
+                    readFloats(channel, position, weights);
+                return new CSRGraph<>(offsets, targets, weights, directed, vertexFactory);
+            }
+
+            IntBuffer offsets = channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * (numVertices + 1))
+                            .asIntBuffer();
+            position += 4L * (numVertices + 1);
+
+            int numChunks = (int) ((numEdges + (1L << MMAP_CHUNK_SHIFT) - 1) >>> MMAP_CHUNK_SHIFT);
+            IntBuffer[] targets = new IntBuffer[numChunks];
+            FloatBuffer[] weights = weighted ? new FloatBuffer[numChunks] : null;
+            for (int c = 0; c < numChunks; c++) {
+                long chunkLength = Math.min(1L << MMAP_CHUNK_SHIFT, numEdges - ((long) c << MMAP_CHUNK_SHIFT));
+                targets[c] = channel.map(FileChannel.MapMode.READ_ONLY, position, 4 * chunkLength).asIntBuffer();
+                if (weighted)
+                    weights[c] = channel.map(FileChannel.MapMode.READ_ONLY, position + 4L * numEdges,
+                                    4 * chunkLength).asFloatBuffer();
+                position += 4 * chunkLength;
+            }
+
+            return new CSRGraph<>(offsets, targets, weights, MMAP_CHUNK_SHIFT, directed, vertexFactory);
+        }
+    }
+
+    private static long readInts(FileChannel channel, long position, int[] out) throws IOException {
+        int blockSize = 1 << 20;
+        for (int i = 0; i < out.length; i += blockSize) {
+            int length = Math.min(blockSize, out.length - i);
+            channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * length).asIntBuffer().get(out, i, length);
+            position += 4L * length;
+        }
+        return position;
+    }
+
+    private static long readFloats(FileChannel channel, long position, float[] out) throws IOException {
+        int blockSize = 1 << 20;
+        for (int i = 0; i < out.length; i += blockSize) {
+            int length = Math.min(blockSize, out.length - i);
+            channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * length).asFloatBuffer().get(out, i, length);
+            position += 4L * length;
+        }
+        return position;
+    }
+
+    /**
+     * This method creates CSRGraph with the same vertices and edges as the given graph
+     *
+     * @param graph         graph to convert
+     * @param weighted      if true, edge values are used as edge weights, and must be Numbers
+     * @param vertexFactory used to create vertex objects
+     * @return CSRGraph
+     */
+    public static <V, E> CSRGraph<V> fromGraph(IGraph<V, E> graph, boolean weighted, VertexFactory<V> vertexFactory) {
+        int numVertices = graph.numVertices();
+        int[] offsets = new int[numVertices + 1];
+        for (int i = 0; i < numVertices; i++)
+            offsets[i + 1] = offsets[i] + graph.getVertexDegree(i);
+
+        int[] targets = new int[offsets[numVertices]];
+        float[] weights = weighted ? new float[targets.length] : null;
+        boolean directed = true;
+        for (int i = 0; i < numVertices; i++) {
+            int pos = offsets[i];
+            for (Edge<E> e : graph.getEdgesOut(i)) {
+                directed &= e.isDirected();
+                targets[pos] = (e.getFrom() == i ? e.getTo() : e.getFrom());
+                if (weighted)
+                    weights[pos] = ((Number) e.getValue()).floatValue();
+                pos++;
+            }
+        }
+
+        return new CSRGraph<>(offsets, targets, weights, directed, vertexFactory);
+    }
+
+    @Override
+    public String toString() {
+        return "CSRGraph(numVertices=" + numVertices + ",numEdges=" + numEdges + ",directed=" + directed
+                        + ",weighted=" + isWeighted() + ")";
+    }
+
+    /**
+     * Builder for {@link CSRGraph}, for bulk loading of edges without per-edge objects.<br>
+     * Edges are added in two passes over the same edge list: first all edges are counted via
+     * {@link #countEdge(int, int, boolean)}, then {@link #allocate()} is called, and all edges are added via
+     * {@link #addEdge(int, int, float, boolean)} in the same order.
+     */
+    public static class Builder<V> {
+        private final int numVertices;
+        private final boolean weighted;
+        private final VertexFactory<V> vertexFactory;
+        private int[] offsets;
+        private int[] cursors;
+        private int[] targets;
+        private float[] weights;
+        private boolean directed = true;
+
+        public Builder(int numVertices, boolean weighted, VertexFactory<V> vertexFactory) {
+            if (numVertices <= 0)
+                throw new IllegalArgumentException("Invalid number of vertices: " + numVertices);
+            this.numVertices = numVertices;
+            this.weighted = weighted;
+            this.vertexFactory = vertexFactory;
+            this.offsets = new int[numVertices + 1];
+        }
+
+        /**
+         * First pass: count edge. Undirected edges are counted for both vertices
+         */
+        public Builder<V> countEdge(int from, int to, boolean directed) {
+            if (targets != null)
+                throw new IllegalStateException("Can't count edges after allocate() was called");
+            if (from < 0 || from >= numVertices || to < 0 || to >= numVertices)
+                throw new IllegalArgumentException("Invalid edge: " + from + (directed ? "->" : "--") + to
+                                + ", from/to indexes out of range");
+            offsets[from + 1]++;
+            if (!directed)
+                offsets[to + 1]++;
+            if (offsets[from + 1] < 0 || offsets[to + 1] < 0)
+                throw new IllegalStateException("Too many edges for vertex");
+            this.directed &= directed;
+            return this;
+        }
+
+        /**
+         * Allocates adjacency arrays, after all edges were counted
+         */
+        public Builder<V> allocate() {
+            long total = 0;
+            for (int i = 0; i < numVertices; i++) {
+                total += offsets[i + 1];
+                if (total > Integer.MAX_VALUE)
+                    throw new IllegalStateException("Too many edges: CSRGraph supports up to " + Integer.MAX_VALUE
+                                    + " (directed) edges");
+                offsets[i + 1] = (int) total;
+            }
+
+            cursors = new int[numVertices];
+            System.arraycopy(offsets, 0, cursors, 0, numVertices);
+            targets = new int[(int) total];
+            if (weighted)
+                weights = new float[(int) total];
+            return this;
+        }
+
+        /**
+         * Second pass: add edge. Weight is ignored for unweighted graphs
+         */
+        public Builder<V> addEdge(int from, int to, float weight, boolean directed) {
+            if (targets == null)
+                throw new IllegalStateException("allocate() must be called before adding edges");
+            put(from, to, weight);
+            if (!directed)
+                put(to, from, weight);
+            return this;
+        }
+
+        private void put(int from, int to, float weight) {
+            int pos = cursors[from]++;
+            if (pos >= offsets[from + 1])
+                throw new IllegalStateException("Edges added for vertex " + from + " don't match counted edges");
+            targets[pos] = to;
+            if (weighted)
+                weights[pos] = weight;
+        }
+
+        public CSRGraph<V> build() {
+            if (targets == null)
+                allocate();
+            for (int i = 0; i < numVertices; i++) {
+                if (cursors[i] != offsets[i + 1])
+                    throw new IllegalStateException("Edges added for vertex " + i + " don't match counted edges: "
+                                    + "expected " + (offsets[i + 1] - offsets[i]) + ", got " + (cursors[i] - offsets[i]));
+            }
+            return new CSRGraph<>(offsets, targets, weights, directed, vertexFactory);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.deeplearning4j.graph.iterator;
+
+import org.deeplearning4j.graph.api.Edge;
+import org.deeplearning4j.graph.api.IGraph;
+import org.deeplearning4j.graph.graph.CSRGraph;
+import org.deeplearning4j.util.AliasTable;
+
+import java.util.List;
+import java.util.Random;
+
+/**Alias tables (Vose's alias method) for weighted sampling of outgoing edges of each vertex in a graph.<br>
+ * After O(numEdges) precomputation, sampling of a connected vertex with probability proportional to edge weight is
+ * O(1), regardless of vertex degree. Tables for all vertices are stored in flat arrays: 12 bytes per (directed) edge,
+ * plus 4 bytes per vertex. For {@link CSRGraph}, edge targets and offsets aren't copied, but read from the graph: 8 bytes
+ * per edge. Tables themselves are stored in {@link AliasTable}.<br>
+ * Instances are immutable after construction, and thus can be shared between multiple (parallel) iterators on the same
+ * graph: see {@link WeightedRandomWalkIterator} and
+ * {@link org.deeplearning4j.graph.iterator.parallel.WeightedRandomWalkGraphIteratorProvider}
+ */
+public class EdgeAliasTables {
+
+    private final CSRGraph<?> csr; //If not null: offsets and targets are read from the graph, and aren't stored here
+    private final int[] offsets;
+    private final int[] targets;
+    private final AliasTable table;
+
+    /**
+     * @param graph Graph to build alias tables for. Edge values are used as (non-negative) edge weights; for
+     *              unweighted {@link CSRGraph} all edges have weight 1.0
+     */
+    public EdgeAliasTables(IGraph<?, ? extends Number> graph) {
+        int numVertices = graph.numVertices();
+        csr = (graph instanceof CSRGraph ? (CSRGraph<?>) graph : null);
+        int maxDegree = 0;
+        int numEdges;
+        if (csr != null) {
+            offsets = null;
+            targets = null;
+            for (int i = 0; i < numVertices; i++)
+                maxDegree = Math.max(maxDegree, csr.getVertexDegree(i));
+            numEdges = csr.numEdges();
+        } else {
+            offsets = new int[numVertices + 1];
+            for (int i = 0; i < numVertices; i++) {
+                int degree = graph.getVertexDegree(i);
+                offsets[i + 1] = offsets[i] + degree;
+                maxDegree = Math.max(maxDegree, degree);
+            }
+            numEdges = offsets[numVertices];
+            targets = new int[numEdges];
+        }
+        table = new AliasTable(numEdges);
+
+        double[] weights = new double[maxDegree];
+        int[] worklist = new int[maxDegree];
+        for (int v = 0; v < numVertices; v++) {
+            int start = offset(v);
+            int degree = offset(v + 1) - start;
+            if (degree == 0)
+                continue;
+
+            if (csr != null) {
+                //Alias tables use the same edge positions as the graph
+                for (int k = 0; k < degree; k++)
+                    weights[k] = csr.getEdgeWeight(start + k);
+            } else {
+                List<? extends Edge<? extends Number>> edges = graph.getEdgesOut(v);
+                if (edges.size() != degree)
+                    throw new IllegalStateException("Number of edges for vertex " + v + " (" + edges.size()
+                                    + ") doesn't match vertex degree (" + degree + ")");
+                int k = 0;
+                for (Edge<? extends Number> edge : edges) {
+                    //Undirected edge: might be next--v instead of v--next
+                    targets[start + k] = (edge.getFrom() == v ? edge.getTo() : edge.getFrom());
+                    weights[k++] = edge.getValue().doubleValue();
+                }
+            }
+
+            try {
+                table.build(start, degree, weights, worklist);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid edge weights of vertex " + v + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private int offset(int vertex) {
+        return csr != null ? csr.getEdgeOffset(vertex) : offsets[vertex];
+    }
+
+    private int target(int edge) {
+        return csr != null ? csr.getEdgeTarget(edge) : targets[edge];
+    }
+
+    /** Number of vertices in the graph */
+    public int numVertices() {
+        return csr != null ? csr.numVertices() : offsets.length - 1;
+    }
+
+    /** Number of outgoing edges (or undirected edges) for the given vertex */
+    public int getVertexDegree(int vertex) {
+        return offset(vertex + 1) - offset(vertex);
+    }
+
+    /**
+     * This method samples a vertex connected to the given vertex, with probability proportional to the weight of
+     * the edge, in O(1) time
+     *
+     * @param vertex vertex to sample from
+     * @param rng    Random number generator to use
+     * @return index of the sampled vertex, or -1 if the vertex has no outgoing/undirected edges
+     */
+    public int sample(int vertex, Random rng) {
+        int start = offset(vertex);
+        int degree = offset(vertex + 1) - start;
+        if (degree == 0)
+            return -1;
+
+        return target(start + table.sample(start, degree, rng));
+    }
+}
@@ -3,8 +3,8 @@ package org.deeplearning4j.graph.iterator;
 import org.deeplearning4j.graph.api.IGraph;
 import org.deeplearning4j.graph.api.IVertexSequence;
 import org.deeplearning4j.graph.api.NoEdgeHandling;
-import org.deeplearning4j.graph.api.Vertex;
 import org.deeplearning4j.graph.exception.NoEdgesException;
+import org.deeplearning4j.graph.graph.CSRGraph;
 import org.deeplearning4j.graph.graph.VertexSequence;
 
 import java.util.NoSuchElementException;
@@ -18,6 +18,7 @@ import java.util.Random;
 public class RandomWalkIterator<V> implements GraphWalkIterator<V> {
 
     private final IGraph<V, ?> graph;
+    private final CSRGraph<V> csr;
     private final int walkLength;
     private final NoEdgeHandling mode;
     private final int firstVertex;
@@ -63,6 +64,7 @@ public class RandomWalkIterator<V> implements GraphWalkIterator<V> {
     public RandomWalkIterator(IGraph<V, ?> graph, int walkLength, long rngSeed, NoEdgeHandling mode, int firstVertex,
                     int lastVertex) {
         this.graph = graph;
+        this.csr = (graph instanceof CSRGraph ? (CSRGraph<V>) graph : null);
         this.walkLength = walkLength;
         this.rng = new Random(rngSeed);
         this.mode = mode;
@@ -86,9 +88,8 @@ public class RandomWalkIterator<V> implements GraphWalkIterator<V> {
         if (walkLength == 0)
             return new VertexSequence<>(graph, indices);
 
-        Vertex<V> next;
         try {
-            next = graph.getRandomConnectedVertex(currVertexIdx, rng);
+            currVertexIdx = randomConnectedVertex(currVertexIdx);
         } catch (NoEdgesException e) {
             switch (mode) {
                 case SELF_LOOP_ON_DISCONNECTED:
@@ -101,17 +102,22 @@ public class RandomWalkIterator<V> implements GraphWalkIterator<V> {
                     throw new RuntimeException("Unknown/not implemented NoEdgeHandling mode: " + mode);
             }
         }
-        indices[1] = next.vertexID();
-        currVertexIdx = indices[1];
+        indices[1] = currVertexIdx;
 
         for (int i = 2; i <= walkLength; i++) { //<= walk length: i.e., if walk length = 2, it contains 3 vertices etc
-            next = graph.getRandomConnectedVertex(currVertexIdx, rng);
-            currVertexIdx = next.vertexID();
+            currVertexIdx = randomConnectedVertex(currVertexIdx);
             indices[i] = currVertexIdx;
         }
         return new VertexSequence<>(graph, indices);
     }
 
+    /** Random step from the given vertex. For {@link CSRGraph}, this doesn't allocate a Vertex object per step */
+    private int randomConnectedVertex(int vertex) {
+        if (csr != null)
+            return csr.getRandomConnectedVertexIndex(vertex, rng);
+        return graph.getRandomConnectedVertex(vertex, rng).vertexID();
+    }
+
     @Override
     public boolean hasNext() {
         return position < order.length;
@@ -0,0 +1,72 @@
+package org.deeplearning4j.graph.iterator;
+
+import org.deeplearning4j.graph.api.IGraph;
+import org.deeplearning4j.graph.api.IVertexSequence;
+import org.deeplearning4j.graph.graph.VertexSequence;
+import org.deeplearning4j.util.IntSequenceFile;
+
+import java.util.NoSuchElementException;
+
+/**GraphWalkIterator that replays walks from a walk corpus (for example, one generated via
+ * {@link org.deeplearning4j.graph.data.WalkCorpusGenerator}), instead of generating them.<br>
+ * Walks are returned in the order they are stored in the corpus file. All walks in the corpus must have the same length.
+ * @param <V> Vertex type
+ * @see org.deeplearning4j.graph.iterator.parallel.WalkCorpusGraphIteratorProvider
+ */
+public class WalkCorpusIterator<V> implements GraphWalkIterator<V> {
+    private final IGraph<V, ?> graph;
+    private final IntSequenceFile corpus;
+    private final long firstWalk;
+    private final long lastWalk;
+    private long position;
+
+    /**
+     * @param graph  Graph the walks were generated on
+     * @param corpus Walk corpus to replay
+     */
+    public WalkCorpusIterator(IGraph<V, ?> graph, IntSequenceFile corpus) {
+        this(graph, corpus, 0, corpus.numSequences());
+    }
+
+    /**
+     * @param graph     Graph the walks were generated on
+     * @param corpus    Walk corpus to replay
+     * @param firstWalk Index of the first walk to return (inclusive)
+     * @param lastWalk  Index of the last walk to return (exclusive)
+     */
+    public WalkCorpusIterator(IGraph<V, ?> graph, IntSequenceFile corpus, long firstWalk, long lastWalk) {
+        if (corpus.numElements() != corpus.numSequences() * corpus.getMaxSequenceLength())
+            throw new IllegalArgumentException("Walk corpus " + corpus.getFile() + " contains walks of different "
+                            + "lengths: GraphWalkIterator requires walks of fixed length");
+        if (firstWalk < 0 || lastWalk > corpus.numSequences() || firstWalk > lastWalk)
+            throw new IllegalArgumentException("Invalid walk range: [" + firstWalk + "," + lastWalk + "), corpus has "
+                            + corpus.numSequences() + " walks");
+        this.graph = graph;
+        this.corpus = corpus;
+        this.firstWalk = firstWalk;
+        this.lastWalk = lastWalk;
+        this.position = firstWalk;
+    }
+
+    @Override
+    public int walkLength() {
+        return corpus.getMaxSequenceLength() - 1;
+    }
+
+    @Override
+    public IVertexSequence<V> next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        return new VertexSequence<>(graph, corpus.getSequence(position++));
+    }
+
+    @Override
+    public boolean hasNext() {
+        return position < lastWalk;
+    }
+
+    @Override
+    public void reset() {
+        position = firstWalk;
+    }
+}
@@ -1,13 +1,11 @@
 package org.deeplearning4j.graph.iterator;
 
-import org.deeplearning4j.graph.api.Edge;
 import org.deeplearning4j.graph.api.IGraph;
 import org.deeplearning4j.graph.api.IVertexSequence;
 import org.deeplearning4j.graph.api.NoEdgeHandling;
 import org.deeplearning4j.graph.exception.NoEdgesException;
 import org.deeplearning4j.graph.graph.VertexSequence;
 
-import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Random;
 
@@ -17,7 +15,10 @@ import java.util.Random;
  * Because the edge values are used to determine the probabilities of selecting an edge, the {@code WeightedRandomWalkIterator}
  * can only be used on graphs with an edge type that extends the {@link java.lang.Number} class (i.e., Integer, Double, etc)<br>
  * Random walks are generated starting at every node in the graph exactly once, though the order of the starting nodes
- * is randomized.
+ * is randomized.<br>
+ * Edges are sampled via {@link EdgeAliasTables}, so each step of the walk is O(1) regardless of vertex degree.
+ * Alias tables are built on construction, unless provided: when using multiple iterators on the same graph, the same
+ * EdgeAliasTables instance should be shared between them.
  * @author Alex Black
  */
 public class WeightedRandomWalkIterator<V> implements GraphWalkIterator<V> {
@@ -27,7 +28,7 @@ public class WeightedRandomWalkIterator<V> implements GraphWalkIterator<V> {
     private final NoEdgeHandling mode;
     private final int firstVertex;
     private final int lastVertex;
-
+    private final EdgeAliasTables aliasTables;
 
     private int position;
     private Random rng;
@@ -68,7 +69,26 @@ public class WeightedRandomWalkIterator<V> implements GraphWalkIterator<V> {
      */
     public WeightedRandomWalkIterator(IGraph<V, ? extends Number> graph, int walkLength, long rngSeed,
                     NoEdgeHandling mode, int firstVertex, int lastVertex) {
+        this(graph, walkLength, rngSeed, mode, firstVertex, lastVertex, new EdgeAliasTables(graph));
+    }
+
+    /**Constructor used to generate random walks starting at a subset of the vertices in the graph, using precomputed
+     * alias tables. Order of starting vertices is randomized within this subset
+     * @param graph IGraph to conduct walks on
+     * @param walkLength length of each walk. Walk of length 0 includes 1 vertex, walk of 1 includes 2 vertices etc
+     * @param rngSeed seed for randomization
+     * @param mode mode for handling random walks from vertices with either no edges, or no outgoing edges (for directed graphs)
+     * @param firstVertex first vertex index (inclusive) to start random walks from
+     * @param lastVertex last vertex index (exclusive) to start random walks from
+     * @param aliasTables alias tables for the graph. May be shared between multiple iterators
+     */
+    public WeightedRandomWalkIterator(IGraph<V, ? extends Number> graph, int walkLength, long rngSeed,
+                    NoEdgeHandling mode, int firstVertex, int lastVertex, EdgeAliasTables aliasTables) {
+        if (aliasTables.numVertices() != graph.numVertices())
+            throw new IllegalArgumentException("Alias tables don't match the graph: expected "
+                            + graph.numVertices() + " vertices, got " + aliasTables.numVertices());
         this.graph = graph;
+        this.aliasTables = aliasTables;
         this.walkLength = walkLength;
         this.rng = new Random(rngSeed);
         this.mode = mode;
@@ -93,10 +113,10 @@ public class WeightedRandomWalkIterator<V> implements GraphWalkIterator<V> {
             return new VertexSequence<>(graph, indices);
 
         for (int i = 1; i <= walkLength; i++) {
-            List<? extends Edge<? extends Number>> edgeList = graph.getEdgesOut(currVertexIdx);
+            int next = aliasTables.sample(currVertexIdx, rng);
 
             //First: check if there are any outgoing edges from this vertex. If not: handle the situation
-            if (edgeList == null || edgeList.isEmpty()) {
+            if (next < 0) {
                 switch (mode) {
                     case SELF_LOOP_ON_DISCONNECTED:
                         for (int j = i; j < walkLength; j++)
@@ -112,31 +132,8 @@ public class WeightedRandomWalkIterator<V> implements GraphWalkIterator<V> {
                 }
             }
 
-            //To do a weighted random walk: we need to know total weight of all outgoing edges
-            double totalWeight = 0.0;
-            for (Edge<? extends Number> edge : edgeList) {
-                totalWeight += edge.getValue().doubleValue();
-            }
-
-            double d = rng.nextDouble();
-            double threshold = d * totalWeight;
-            double sumWeight = 0.0;
-            for (Edge<? extends Number> edge : edgeList) {
-                sumWeight += edge.getValue().doubleValue();
-                if (sumWeight >= threshold) {
-                    if (edge.isDirected()) {
-                        currVertexIdx = edge.getTo();
-                    } else {
-                        if (edge.getFrom() == currVertexIdx) {
-                            currVertexIdx = edge.getTo();
-                        } else {
-                            currVertexIdx = edge.getFrom(); //Undirected edge: might be next--currVertexIdx instead of currVertexIdx--next
-                        }
-                    }
-                    indices[i] = currVertexIdx;
-                    break;
-                }
-            }
+            currVertexIdx = next;
+            indices[i] = currVertexIdx;
         }
         return new VertexSequence<>(graph, indices);
     }
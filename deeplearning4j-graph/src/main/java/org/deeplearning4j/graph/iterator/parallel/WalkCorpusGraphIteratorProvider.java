@@ -0,0 +1,53 @@
+package org.deeplearning4j.graph.iterator.parallel;
+
+import org.deeplearning4j.graph.api.IGraph;
+import org.deeplearning4j.graph.iterator.GraphWalkIterator;
+import org.deeplearning4j.graph.iterator.WalkCorpusIterator;
+import org.deeplearning4j.util.IntSequenceFile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**Walk corpus graph iterator provider: splits up replay of a previously generated walk corpus (see
+ * {@link org.deeplearning4j.graph.data.WalkCorpusGenerator}) for parallel learning.
+ * Specifically: with N threads and W walks in the corpus, first iterator returns walks 0 to W/N, second iterator returns
+ * walks W/N to 2*W/N, and so on.<br>
+ * As walks of each partition are stored contiguously, each thread reads a contiguous region of the (memory-mapped)
+ * corpus file.
+ * @param <V> Vertex type
+ */
+public class WalkCorpusGraphIteratorProvider<V> implements GraphWalkIteratorProvider<V> {
+
+    private IGraph<V, ?> graph;
+    private IntSequenceFile corpus;
+
+    /**
+     * @param graph  Graph the walks were generated on
+     * @param corpus Walk corpus to replay
+     */
+    public WalkCorpusGraphIteratorProvider(IGraph<V, ?> graph, IntSequenceFile corpus) {
+        this.graph = graph;
+        this.corpus = corpus;
+    }
+
+    @Override
+    public List<GraphWalkIterator<V>> getGraphWalkIterators(int numIterators) {
+        long nWalks = corpus.numSequences();
+        if (numIterators > nWalks)
+            numIterators = (int) Math.max(1, nWalks);
+
+        long walksPerIter = nWalks / numIterators;
+
+        List<GraphWalkIterator<V>> list = new ArrayList<>(numIterators);
+        long last = 0;
+        for (int i = 0; i < numIterators; i++) {
+            long from = last;
+            long to = (i == numIterators - 1 ? nWalks : from + walksPerIter);
+
+            list.add(new WalkCorpusIterator<>(graph, corpus, from, to));
+            last = to;
+        }
+
+        return list;
+    }
+}
@@ -2,6 +2,7 @@ package org.deeplearning4j.graph.iterator.parallel;
 
 import org.deeplearning4j.graph.api.IGraph;
 import org.deeplearning4j.graph.api.NoEdgeHandling;
+import org.deeplearning4j.graph.iterator.EdgeAliasTables;
 import org.deeplearning4j.graph.iterator.GraphWalkIterator;
 import org.deeplearning4j.graph.iterator.WeightedRandomWalkIterator;
 
@@ -13,7 +14,9 @@ import java.util.Random;
  * split up the generation of weighted random walks for parallel learning. Specifically: with N threads and V vertices:
  * - First iterator generates weighted random walks starting at vertices 0 to V/N
  * - Second iterator generates weighted random walks starting at vertices V/N+1 to 2*V/N
- * - and so on
+ * - and so on<br>
+ * All iterators share the same {@link EdgeAliasTables}, which are built once, on the first call to
+ * {@link #getGraphWalkIterators(int)}
  * @param <V> Vertex type
  * @see WeightedRandomWalkIterator
  */
@@ -23,6 +26,7 @@ public class WeightedRandomWalkGraphIteratorProvider<V> implements GraphWalkIter
     private int walkLength;
     private Random rng;
     private NoEdgeHandling mode;
+    private EdgeAliasTables aliasTables;
 
     public WeightedRandomWalkGraphIteratorProvider(IGraph<V, ? extends Number> graph, int walkLength) {
         this(graph, walkLength, System.currentTimeMillis(), NoEdgeHandling.EXCEPTION_ON_DISCONNECTED);
@@ -45,6 +49,9 @@ public class WeightedRandomWalkGraphIteratorProvider<V> implements GraphWalkIter
 
         int verticesPerIter = nVertices / numIterators;
 
+        if (aliasTables == null)
+            aliasTables = new EdgeAliasTables(graph);
+
         List<GraphWalkIterator<V>> list = new ArrayList<>(numIterators);
         int last = 0;
         for (int i = 0; i < numIterators; i++) {
@@ -53,8 +60,8 @@ public class WeightedRandomWalkGraphIteratorProvider<V> implements GraphWalkIter
             if (i == numIterators - 1)
                 to = nVertices;
 
-            GraphWalkIterator<V> iter =
-                            new WeightedRandomWalkIterator<>(graph, walkLength, rng.nextLong(), mode, from, to);
+            GraphWalkIterator<V> iter = new WeightedRandomWalkIterator<>(graph, walkLength, rng.nextLong(), mode,
+                            from, to, aliasTables);
             list.add(iter);
             last = to;
         }
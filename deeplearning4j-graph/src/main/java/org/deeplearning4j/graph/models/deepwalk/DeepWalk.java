@@ -4,12 +4,16 @@ import lombok.AllArgsConstructor;
 import org.deeplearning4j.graph.api.IGraph;
 import org.deeplearning4j.graph.api.IVertexSequence;
 import org.deeplearning4j.graph.api.NoEdgeHandling;
+import org.deeplearning4j.graph.data.WalkCorpusGenerator;
 import org.deeplearning4j.graph.iterator.GraphWalkIterator;
 import org.deeplearning4j.graph.iterator.parallel.GraphWalkIteratorProvider;
 import org.deeplearning4j.graph.iterator.parallel.RandomWalkGraphIteratorProvider;
+import org.deeplearning4j.graph.iterator.parallel.WalkCorpusGraphIteratorProvider;
 import org.deeplearning4j.graph.models.embeddings.GraphVectorLookupTable;
 import org.deeplearning4j.graph.models.embeddings.GraphVectorsImpl;
+import org.deeplearning4j.graph.models.embeddings.HogwildGraphLookupTable;
 import org.deeplearning4j.graph.models.embeddings.InMemoryGraphLookupTable;
+import org.deeplearning4j.util.IntSequenceFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.threadly.concurrent.PriorityScheduler;
@@ -32,6 +36,7 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 public class DeepWalk<V, E> extends GraphVectorsImpl<V, E> {
     public static final int STATUS_UPDATE_FREQUENCY = 1000;
+    public static final int DEFAULT_NEGATIVE_TABLE_SIZE = 10000000;
     private Logger log = LoggerFactory.getLogger(DeepWalk.class);
 
     private int vectorSize;
@@ -39,6 +44,10 @@ public class DeepWalk<V, E> extends GraphVectorsImpl<V, E> {
     private double learningRate;
     private boolean initCalled = false;
     private long seed;
+    private boolean hogwild = false;
+    private int negative = 0;
+    private int negativeTableSize = DEFAULT_NEGATIVE_TABLE_SIZE;
+    private boolean useHierarchicSoftmax = true;
     private int nThreads = Runtime.getRuntime().availableProcessors();
     private transient AtomicLong walkCounter = new AtomicLong(0);
 
@@ -54,6 +63,18 @@ public class DeepWalk<V, E> extends GraphVectorsImpl<V, E> {
         return windowSize;
     }
 
+    public int getNegative() {
+        return negative;
+    }
+
+    public int getNegativeTableSize() {
+        return negativeTableSize;
+    }
+
+    public boolean isUseHierarchicSoftmax() {
+        return useHierarchicSoftmax;
+    }
+
     public double getLearningRate() {
         return learningRate;
     }
@@ -76,14 +97,30 @@ public class DeepWalk<V, E> extends GraphVectorsImpl<V, E> {
     /** Initialize the DeepWalk model with a list of vertex degrees for a graph.<br>
      * Specifically, graphVertexDegrees[i] represents the vertex degree of the ith vertex<br>
      * vertex degrees are used to construct a binary (Huffman) tree, which is in turn used in
-     * the hierarchical softmax implementation
+     * the hierarchical softmax implementation, and (if negative sampling is used) the negative sampling table:
+     * noise vertices are drawn with probability proportional to degree^0.75
      * @param graphVertexDegrees degrees of each vertex
      */
     public void initialize(int[] graphVertexDegrees) {
         log.info("Initializing: Creating Huffman tree and lookup table...");
-        GraphHuffman gh = new GraphHuffman(graphVertexDegrees.length);
-        gh.buildTree(graphVertexDegrees);
-        lookupTable = new InMemoryGraphLookupTable(graphVertexDegrees.length, vectorSize, gh, learningRate);
+        int nVertices = graphVertexDegrees.length;
+        GraphHuffman gh = null;
+        if (useHierarchicSoftmax) {
+            gh = new GraphHuffman(nVertices);
+            gh.buildTree(graphVertexDegrees);
+        }
+
+        if (negative > 0) {
+            //Random walk visits vertices in proportion to their degree: degrees are the "unigram" counts
+            int[] negativeTable =
+                            HogwildGraphLookupTable.buildNegativeTable(graphVertexDegrees, 0.75, negativeTableSize);
+            lookupTable = new HogwildGraphLookupTable(nVertices, vectorSize, gh, negativeTable, negative, learningRate,
+                            seed);
+        } else if (hogwild) {
+            lookupTable = new HogwildGraphLookupTable(nVertices, vectorSize, gh, learningRate, seed);
+        } else {
+            lookupTable = new InMemoryGraphLookupTable(nVertices, vectorSize, gh, learningRate);
+        }
         initCalled = true;
         log.info("Initialization complete");
     }
@@ -104,6 +141,19 @@ public class DeepWalk<V, E> extends GraphVectorsImpl<V, E> {
         fit(iteratorProvider);
     }
 
+    /** Fit the model, in parallel, by replaying a previously generated walk corpus.<br>
+     * Unlike {@link #fit(IGraph, int)}, walks aren't generated during training: the same corpus (see
+     * {@link WalkCorpusGenerator}) can be reused for multiple epochs or multiple models.
+     * @param graph Graph to fit
+     * @param walkCorpus Walks on the graph (vertex indices). All walks must have the same length
+     */
+    public void fit(IGraph<V, E> graph, IntSequenceFile walkCorpus) {
+        if (!initCalled)
+            initialize(graph);
+
+        fit(new WalkCorpusGraphIteratorProvider<>(graph, walkCorpus));
+    }
+
     /** Fit the model, in parallel, using a given GraphWalkIteratorProvider.<br>
      * This object is used to generate multiple GraphWalkIterators, which can then be distributed to each thread
      * to do in parallel<br>
@@ -149,12 +199,12 @@ public class DeepWalk<V, E> extends GraphVectorsImpl<V, E> {
         if (!initCalled)
             throw new UnsupportedOperationException("DeepWalk not initialized (call initialize before fit)");
         int walkLength = iterator.walkLength();
+        int[] walk = new int[walkLength + 1];
 
         while (iterator.hasNext()) {
             IVertexSequence<V> sequence = iterator.next();
 
             //Skipgram model:
-            int[] walk = new int[walkLength + 1];
             int i = 0;
             while (sequence.hasNext())
                 walk[i++] = sequence.next().vertexID();
@@ -190,6 +240,10 @@ public class DeepWalk<V, E> extends GraphVectorsImpl<V, E> {
         private long seed = System.currentTimeMillis();
         private double learningRate = 0.01;
         private int windowSize = 2;
+        private boolean hogwild = false;
+        private int negative = 0;
+        private int negativeTableSize = DEFAULT_NEGATIVE_TABLE_SIZE;
+        private boolean useHierarchicSoftmax = true;
 
         /** Sets the size of the vectors to be learned for each vertex in the graph */
         public Builder<V, E> vectorSize(int vectorSize) {
@@ -218,12 +272,57 @@ public class DeepWalk<V, E> extends GraphVectorsImpl<V, E> {
             return this;
         }
 
+        /** If true: use {@link HogwildGraphLookupTable}, which stores vectors in flat float arrays and updates them
+         * without allocation or locking (faster, especially with many threads). If false (default): use
+         * {@link InMemoryGraphLookupTable}
+         */
+        public Builder<V, E> hogwild(boolean hogwild) {
+            this.hogwild = hogwild;
+            return this;
+        }
+
+        /** Number of negative samples (noise vertices) per vertex pair. 0 (default) disables negative sampling.<br>
+         * Noise vertices are drawn from the unigram distribution (vertex degree) raised to the power of 0.75, as in
+         * word2vec. Negative sampling always uses {@link HogwildGraphLookupTable}
+         */
+        public Builder<V, E> negativeSample(int negative) {
+            if (negative < 0)
+                throw new IllegalArgumentException("Number of negative samples must be non-negative, got " + negative);
+            this.negative = negative;
+            return this;
+        }
+
+        /** Size of the table noise vertices are drawn from, if negative sampling is used. Each vertex gets a share of
+         * the table proportional to its noise probability, so the table should be much larger than the number of
+         * vertices: vertices with probability below 1/negativeTableSize are (almost) never drawn.<br>
+         * Default: {@link DeepWalk#DEFAULT_NEGATIVE_TABLE_SIZE} (10^7 entries, 40MB). word2vec uses 10^8
+         */
+        public Builder<V, E> negativeTableSize(int negativeTableSize) {
+            if (negativeTableSize <= 0)
+                throw new IllegalArgumentException("Negative table size must be positive, got " + negativeTableSize);
+            this.negativeTableSize = negativeTableSize;
+            return this;
+        }
+
+        /** Whether to use hierarchical softmax (default: true). Can be disabled only if negative sampling is used */
+        public Builder<V, E> useHierarchicSoftmax(boolean useHierarchicSoftmax) {
+            this.useHierarchicSoftmax = useHierarchicSoftmax;
+            return this;
+        }
+
         public DeepWalk<V, E> build() {
+            if (!useHierarchicSoftmax && negative == 0)
+                throw new IllegalStateException("Either hierarchical softmax or negative sampling must be used");
+
             DeepWalk<V, E> dw = new DeepWalk<>();
             dw.vectorSize = vectorSize;
             dw.windowSize = windowSize;
             dw.learningRate = learningRate;
             dw.seed = seed;
+            dw.hogwild = hogwild;
+            dw.negative = negative;
+            dw.negativeTableSize = negativeTableSize;
+            dw.useHierarchicSoftmax = useHierarchicSoftmax;
 
             return dw;
         }
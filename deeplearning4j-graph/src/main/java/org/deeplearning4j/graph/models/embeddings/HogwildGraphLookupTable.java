@@ -0,0 +1,307 @@
+package org.deeplearning4j.graph.models.embeddings;
+
+import org.apache.commons.math3.util.FastMath;
+import org.deeplearning4j.graph.models.BinaryTree;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Lookup table for vector representations of the vertices in a graph, optimized for parallel training.<br>
+ * Unlike {@link InMemoryGraphLookupTable}, all vectors are stored in flat float arrays (row i at offset i*vectorSize),
+ * and {@link #iterate(int, int)} is allocation-free plain Java: no INDArray ops or views are created per step.<br>
+ * Updates are applied Hogwild-style: multiple threads (i.e., DeepWalk fitting threads) update the shared arrays
+ * concurrently, without any locks. Occasional lost updates are tolerated, as each update touches only a few vectors.
+ * See Recht et al. (2011), <i>Hogwild!: A Lock-Free Approach to Parallelizing Stochastic Gradient Descent</i><br>
+ * Two output layers are supported (and can be combined):<br>
+ * - hierarchical softmax over a {@link BinaryTree} (such as GraphHuffman), as in {@link InMemoryGraphLookupTable}<br>
+ * - negative sampling: the second vertex is contrasted with k "noise" vertices, drawn from a table of vertex indices
+ *   (each vertex appears in the table with frequency proportional to its noise distribution probability)<br>
+ * {@link #getVector(int)} returns a copy of the vertex vector, not a view.
+ */
+public class HogwildGraphLookupTable implements GraphVectorLookupTable {
+    protected static final int EXP_TABLE_SIZE = 1000;
+    protected static final float MAX_EXP = 6;
+
+    protected final int nVertices;
+    protected final int vectorSize;
+    protected final BinaryTree tree;
+    protected final int[] negativeTable;
+    protected final int negative;
+    protected final long seed;
+
+    protected float[] vertexVectors; //'input' vectors
+    protected float[] innerNodeVectors; //Output vectors for inner nodes in binary tree; null if tree is not used
+    protected float[] negativeVectors; //Output vectors for negative sampling; null if negative sampling is not used
+    protected volatile float learningRate;
+
+    protected final float[] expTable;
+    private final AtomicLong threadCounter = new AtomicLong();
+    private final ThreadLocal<Workspace> workspace = new ThreadLocal<Workspace>() {
+        @Override
+        protected Workspace initialValue() {
+            return new Workspace(vectorSize, seed + threadCounter.getAndIncrement());
+        }
+    };
+
+    /**
+     * Lookup table with hierarchical softmax
+     */
+    public HogwildGraphLookupTable(int nVertices, int vectorSize, BinaryTree tree, double learningRate, long seed) {
+        this(nVertices, vectorSize, tree, null, 0, learningRate, seed);
+    }
+
+    /**
+     * Lookup table with negative sampling
+     */
+    public HogwildGraphLookupTable(int nVertices, int vectorSize, int[] negativeTable, int negative,
+                    double learningRate, long seed) {
+        this(nVertices, vectorSize, null, negativeTable, negative, learningRate, seed);
+    }
+
+    /**
+     * @param nVertices     Number of vertices in the graph
+     * @param vectorSize    Size of the vertex vectors
+     * @param tree          Binary tree for hierarchical softmax. May be null if negative sampling is used
+     * @param negativeTable Table of vertex indices to draw noise vertices from. May be null if negative == 0
+     * @param negative      Number of noise vertices per (first, second) pair. 0 disables negative sampling
+     * @param learningRate  Learning rate
+     * @param seed          Seed for weight initialization and negative sampling
+     */
+    public HogwildGraphLookupTable(int nVertices, int vectorSize, BinaryTree tree, int[] negativeTable, int negative,
+                    double learningRate, long seed) {
+        if (tree == null && negative <= 0)
+            throw new IllegalArgumentException("Either binary tree (hierarchical softmax) or negative sampling "
+                            + "must be used");
+        if (negative > 0 && (negativeTable == null || negativeTable.length == 0))
+            throw new IllegalArgumentException("Negative sampling requires non-empty negative table");
+        if ((long) nVertices * vectorSize > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Too many parameters for flat array storage: " + nVertices
+                            + " vertices x " + vectorSize);
+
+        this.nVertices = nVertices;
+        this.vectorSize = vectorSize;
+        this.tree = tree;
+        this.negativeTable = negativeTable;
+        this.negative = negative;
+        this.learningRate = (float) learningRate;
+        this.seed = seed;
+        resetWeights();
+
+        expTable = new float[EXP_TABLE_SIZE];
+        for (int i = 0; i < expTable.length; i++) {
+            double tmp = FastMath.exp((i / (double) expTable.length * 2 - 1) * MAX_EXP);
+            expTable[i] = (float) (tmp / (tmp + 1.0));
+        }
+    }
+
+    @Override
+    public int vectorSize() {
+        return vectorSize;
+    }
+
+    @Override
+    public void resetWeights() {
+        Random r = new Random(seed);
+        vertexVectors = new float[nVertices * vectorSize];
+        for (int i = 0; i < vertexVectors.length; i++)
+            vertexVectors[i] = (r.nextFloat() - 0.5f) / vectorSize;
+
+        if (tree != null) {
+            //Full binary tree with L leaves has L-1 inner nodes
+            innerNodeVectors = new float[Math.max(0, nVertices - 1) * vectorSize];
+            for (int i = 0; i < innerNodeVectors.length; i++)
+                innerNodeVectors[i] = (r.nextFloat() - 0.5f) / vectorSize;
+        }
+        if (negative > 0)
+            negativeVectors = new float[nVertices * vectorSize];
+    }
+
+    @Override
+    public void iterate(int first, int second) {
+        Workspace ws = workspace.get();
+        float[] error = ws.error;
+        Arrays.fill(error, 0.0f);
+
+        float lr = learningRate;
+        int l1 = first * vectorSize;
+
+        if (tree != null) {
+            int codeLength = tree.getCodeLength(second);
+            long code = tree.getCode(second);
+            int[] innerNodes = tree.getPathInnerNodes(second);
+            for (int i = 0; i < codeLength; i++) {
+                int l2 = innerNodes[i] * vectorSize;
+                float f = dot(vertexVectors, l1, innerNodeVectors, l2);
+                if (f <= -MAX_EXP || f >= MAX_EXP)
+                    continue;
+
+                //Gradient of -log P: (sigmoid(dot) - 1) if path bit is set, sigmoid(dot) otherwise
+                float label = ((code >>> i) & 1L) != 0 ? 1.0f : 0.0f;
+                float g = (label - sigmoid(f)) * lr;
+                update(innerNodeVectors, l2, vertexVectors, l1, error, g);
+            }
+        }
+
+        if (negative > 0) {
+            for (int d = 0; d <= negative; d++) {
+                int target;
+                float label;
+                if (d == 0) {
+                    target = second;
+                    label = 1.0f;
+                } else {
+                    ws.nextRandom = ws.nextRandom * 25214903917L + 11;
+                    target = negativeTable[(int) ((ws.nextRandom >>> 16) % negativeTable.length)];
+                    if (target == second)
+                        continue;
+                    label = 0.0f;
+                }
+
+                int l2 = target * vectorSize;
+                float f = dot(vertexVectors, l1, negativeVectors, l2);
+                float g;
+                if (f > MAX_EXP)
+                    g = (label - 1.0f) * lr;
+                else if (f < -MAX_EXP)
+                    g = label * lr;
+                else
+                    g = (label - sigmoid(f)) * lr;
+                update(negativeVectors, l2, vertexVectors, l1, error, g);
+            }
+        }
+
+        for (int j = 0; j < vectorSize; j++)
+            vertexVectors[l1 + j] += error[j];
+    }
+
+    /** Accumulate error for the input vector, and update output vector at offset l2 */
+    private void update(float[] out, int l2, float[] in, int l1, float[] error, float g) {
+        for (int j = 0; j < vectorSize; j++) {
+            error[j] += g * out[l2 + j];
+            out[l2 + j] += g * in[l1 + j];
+        }
+    }
+
+    private float dot(float[] x, int xOffset, float[] y, int yOffset) {
+        float sum = 0.0f;
+        for (int j = 0; j < vectorSize; j++)
+            sum += x[xOffset + j] * y[yOffset + j];
+        return sum;
+    }
+
+    private float sigmoid(float f) {
+        return expTable[(int) ((f + MAX_EXP) * (EXP_TABLE_SIZE / MAX_EXP / 2))];
+    }
+
+    /** Calculate the probability of the second vertex given the first vertex, P(v_second | v_first).<br>
+     * With hierarchical softmax this is the probability of the path to the second vertex in the binary tree; with
+     * negative sampling only, this is sigmoid(v_first . u_second): the probability that (first, second) is an
+     * observed (not noise) pair
+     * @param first index of the first vertex
+     * @param second index of the second vertex
+     */
+    public double calculateProb(int first, int second) {
+        int l1 = first * vectorSize;
+        if (tree == null)
+            return exactSigmoid(dot(vertexVectors, l1, negativeVectors, second * vectorSize));
+
+        int codeLength = tree.getCodeLength(second);
+        long code = tree.getCode(second);
+        int[] innerNodes = tree.getPathInnerNodes(second);
+        double prob = 1.0;
+        for (int i = 0; i < codeLength; i++) {
+            double dot = dot(vertexVectors, l1, innerNodeVectors, innerNodes[i] * vectorSize);
+            prob *= (((code >>> i) & 1L) != 0 ? exactSigmoid(dot) : exactSigmoid(-dot));
+        }
+        return prob;
+    }
+
+    /** Calculate score. -log P(v_second | v_first) */
+    public double calculateScore(int first, int second) {
+        return -FastMath.log(calculateProb(first, second));
+    }
+
+    private static double exactSigmoid(double in) {
+        return 1.0 / (1.0 + FastMath.exp(-in));
+    }
+
+    /** Build a table for negative sampling, as in word2vec: vertex i appears in the table with frequency proportional
+     * to counts[i]^power. For DeepWalk, counts are vertex degrees and power is 0.75 (smoothed unigram distribution).
+     * If all counts are zero, the noise distribution is uniform.
+     * @param counts    counts (for example, vertex degrees) of each vertex
+     * @param power     power to raise the counts to
+     * @param tableSize size of the table
+     * @return table of vertex indices
+     */
+    public static int[] buildNegativeTable(int[] counts, double power, int tableSize) {
+        if (counts.length == 0 || tableSize <= 0)
+            throw new IllegalArgumentException("Cannot build negative table: " + counts.length
+                            + " vertices, table size " + tableSize);
+        double[] weights = new double[counts.length];
+        double total = 0.0;
+        for (int i = 0; i < counts.length; i++) {
+            weights[i] = Math.pow(counts[i], power);
+            total += weights[i];
+        }
+        if (total == 0.0) {
+            Arrays.fill(weights, 1.0);
+            total = counts.length;
+        }
+
+        int[] table = new int[tableSize];
+        int idx = 0;
+        double cumulative = weights[0] / total;
+        for (int i = 0; i < tableSize; i++) {
+            //Skip to the vertex covering position i: vertices with zero weight get no entries
+            while (i / (double) tableSize >= cumulative && idx < counts.length - 1) {
+                idx++;
+                cumulative += weights[idx] / total;
+            }
+            table[i] = idx;
+        }
+        return table;
+    }
+
+    /** Vertex vectors: vector for vertex i is at positions [i*vectorSize, (i+1)*vectorSize) */
+    public float[] getVertexVectors() {
+        return vertexVectors;
+    }
+
+    public BinaryTree getTree() {
+        return tree;
+    }
+
+    public int getNegative() {
+        return negative;
+    }
+
+    @Override
+    public INDArray getVector(int idx) {
+        float[] vec = Arrays.copyOfRange(vertexVectors, idx * vectorSize, (idx + 1) * vectorSize);
+        return Nd4j.create(vec, new int[] {1, vectorSize});
+    }
+
+    @Override
+    public void setLearningRate(double learningRate) {
+        this.learningRate = (float) learningRate;
+    }
+
+    @Override
+    public int getNumVertices() {
+        return nVertices;
+    }
+
+    /** Per-thread scratch space: error accumulator for the input vector, and random state for negative sampling */
+    private static class Workspace {
+        private final float[] error;
+        private long nextRandom;
+
+        private Workspace(int vectorSize, long seed) {
+            this.error = new float[vectorSize];
+            this.nextRandom = seed;
+        }
+    }
+}
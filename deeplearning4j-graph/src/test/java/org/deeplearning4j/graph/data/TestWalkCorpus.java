@@ -0,0 +1,115 @@
+package org.deeplearning4j.graph.data;
+
+import org.deeplearning4j.graph.api.IGraph;
+import org.deeplearning4j.graph.api.IVertexSequence;
+import org.deeplearning4j.graph.api.NoEdgeHandling;
+import org.deeplearning4j.graph.graph.Graph;
+import org.deeplearning4j.graph.iterator.GraphWalkIterator;
+import org.deeplearning4j.graph.iterator.parallel.RandomWalkGraphIteratorProvider;
+import org.deeplearning4j.graph.iterator.parallel.WalkCorpusGraphIteratorProvider;
+import org.deeplearning4j.graph.models.deepwalk.DeepWalk;
+import org.deeplearning4j.graph.vertexfactory.IntegerVertexFactory;
+import org.deeplearning4j.util.IntSequenceFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nd4j.linalg.io.ClassPathResource;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestWalkCorpus {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    @Test
+    public void testGenerateReplay() throws Exception {
+        String path = new ClassPathResource("testgraph_7vertices.txt").getTempFileFromArchive().getAbsolutePath();
+        IGraph<String, String> graph = GraphLoader.loadUndirectedGraphEdgeListFile(path, 7, ",");
+
+        int walkLength = 5;
+        int walksPerVertex = 3;
+        File dir = testDir.newFolder();
+        File corpusFile = new File(dir, "walks.bin");
+        long numWalks = WalkCorpusGenerator.generate(new RandomWalkGraphIteratorProvider<>(graph, walkLength, 12345,
+                        NoEdgeHandling.EXCEPTION_ON_DISCONNECTED), 3, walksPerVertex, corpusFile);
+        assertEquals(7 * walksPerVertex, numWalks);
+        //Part files should be removed
+        assertEquals(1, dir.listFiles().length);
+
+        IntSequenceFile corpus = new IntSequenceFile(corpusFile);
+        assertEquals(numWalks, corpus.numSequences());
+        assertEquals(walkLength + 1, corpus.getMaxSequenceLength());
+
+        int[] startCounts = new int[7];
+        for (long i = 0; i < numWalks; i++) {
+            int[] walk = corpus.getSequence(i);
+            assertEquals(walkLength + 1, walk.length);
+            startCounts[walk[0]]++;
+            for (int j = 1; j < walk.length; j++) {
+                boolean connected = false;
+                for (int v : graph.getConnectedVertexIndices(walk[j - 1]))
+                    connected |= (v == walk[j]);
+                assertTrue(connected);
+            }
+        }
+        for (int c : startCounts)
+            assertEquals(walksPerVertex, c);
+
+        //Replay: iterators cover the whole corpus, in order
+        List<GraphWalkIterator<String>> iterators =
+                        new WalkCorpusGraphIteratorProvider<>(graph, corpus).getGraphWalkIterators(4);
+        assertEquals(4, iterators.size());
+        long idx = 0;
+        for (GraphWalkIterator<String> iter : iterators) {
+            assertEquals(walkLength, iter.walkLength());
+            for (int pass = 0; pass < 2; pass++) {
+                long first = idx;
+                while (iter.hasNext()) {
+                    IVertexSequence<String> sequence = iter.next();
+                    int[] expected = corpus.getSequence(idx++);
+                    assertEquals(expected.length, sequence.sequenceLength());
+                    for (int v : expected)
+                        assertEquals(v, sequence.next().vertexID());
+                }
+                if (pass == 0) {
+                    iter.reset();
+                    idx = first;
+                }
+            }
+        }
+        assertEquals(numWalks, idx);
+
+        DeepWalk<String, String> deepWalk = new DeepWalk.Builder<String, String>().vectorSize(5).windowSize(2)
+                        .learningRate(0.01).seed(12345).build();
+        deepWalk.fit(graph, corpus);
+        for (int i = 0; i < 7; i++)
+            assertEquals(5, deepWalk.getVertexVector(i).length());
+    }
+
+    @Test
+    public void testFailedGenerationKeepsExistingCorpus() throws Exception {
+        Graph<Integer, String> graph = new Graph<>(3, new IntegerVertexFactory());
+        graph.addEdge(0, 1, "a", false);
+
+        File dir = testDir.newFolder();
+        File corpusFile = new File(dir, "walks.bin");
+        long numWalks = WalkCorpusGenerator.generate(new RandomWalkGraphIteratorProvider<>(graph, 4, 12345,
+                        NoEdgeHandling.SELF_LOOP_ON_DISCONNECTED), 2, 2, corpusFile);
+        assertEquals(6, numWalks);
+
+        //Vertex 2 has no edges: generation fails, and the previously generated corpus must be left intact
+        try {
+            WalkCorpusGenerator.generate(new RandomWalkGraphIteratorProvider<>(graph, 4, 12345,
+                            NoEdgeHandling.EXCEPTION_ON_DISCONNECTED), 2, 2, corpusFile);
+            fail("Expected exception");
+        } catch (RuntimeException e) {
+            //OK
+        }
+        assertEquals(1, dir.listFiles().length);
+        assertEquals(numWalks, new IntSequenceFile(corpusFile).numSequences());
+    }
+}
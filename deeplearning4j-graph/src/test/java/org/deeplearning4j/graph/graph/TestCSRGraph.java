@@ -0,0 +1,191 @@
+package org.deeplearning4j.graph.graph;
+
+import org.deeplearning4j.graph.api.Edge;
+import org.deeplearning4j.graph.api.IGraph;
+import org.deeplearning4j.graph.api.IVertexSequence;
+import org.deeplearning4j.graph.api.NoEdgeHandling;
+import org.deeplearning4j.graph.data.GraphLoader;
+import org.deeplearning4j.graph.exception.NoEdgesException;
+import org.deeplearning4j.graph.iterator.GraphWalkIterator;
+import org.deeplearning4j.graph.iterator.RandomWalkIterator;
+import org.deeplearning4j.graph.vertexfactory.IntegerVertexFactory;
+import org.deeplearning4j.graph.vertexfactory.StringVertexFactory;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nd4j.linalg.io.ClassPathResource;
+
+import java.io.File;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class TestCSRGraph {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    @Test
+    public void testLoadUndirected() throws Exception {
+        String path = new ClassPathResource("testgraph_7vertices.txt").getTempFileFromArchive().getAbsolutePath();
+        int numVertices = 7;
+
+        IGraph<String, String> graph = GraphLoader.loadUndirectedGraphEdgeListFile(path, numVertices, ",");
+        CSRGraph<String> csr = GraphLoader.loadUndirectedCSRGraphEdgeListFile(path, numVertices, ",");
+
+        assertFalse(csr.isDirected());
+        assertFalse(csr.isWeighted());
+        assertSameAdjacency(graph, csr);
+
+        Random r = new Random(12345);
+        for (int i = 0; i < numVertices; i++) {
+            for (int j = 0; j < 10; j++) {
+                int idx = csr.getRandomConnectedVertexIndex(i, r);
+                assertTrue(sortedNeighbors(graph, i).contains(idx));
+            }
+            assertEquals(graph.getVertex(i), csr.getVertex(i));
+        }
+    }
+
+    @Test
+    public void testLoadWeightedDirected() throws Exception {
+        String path = new ClassPathResource("WeightedGraph.txt").getTempFileFromArchive().getAbsolutePath();
+        int numVertices = 9;
+
+        IGraph<String, Double> graph = GraphLoader.loadWeightedEdgeListFile(path, numVertices, ",", true, "//");
+        CSRGraph<String> csr = GraphLoader.loadWeightedCSRGraphEdgeListFile(path, numVertices, ",", true, "//");
+
+        assertTrue(csr.isDirected());
+        assertTrue(csr.isWeighted());
+        assertEquals(13, csr.numEdges());
+        assertSameAdjacency(graph, csr);
+
+        for (int i = 0; i < numVertices; i++) {
+            List<Edge<Double>> expected = graph.getEdgesOut(i);
+            List<Edge<Double>> actual = csr.getEdgesOut(i);
+            assertEquals(new HashSet<>(expected), new HashSet<>(actual));
+
+            for (int e = csr.getEdgeOffset(i); e < csr.getEdgeOffset(i + 1); e++) {
+                //Weights in test file are 10*from + to
+                assertEquals(10 * i + csr.getEdgeTarget(e), csr.getEdgeWeight(e), 0.0f);
+            }
+        }
+    }
+
+    @Test
+    public void testFromGraph() {
+        Graph<Integer, String> graph = new Graph<>(5, new IntegerVertexFactory());
+        graph.addEdge(0, 1, "a", false);
+        graph.addEdge(1, 2, "b", true);
+        graph.addEdge(3, 3, "c", true);
+
+        CSRGraph<Integer> csr = CSRGraph.fromGraph(graph, false, new IntegerVertexFactory());
+        assertFalse(csr.isDirected());
+        assertEquals(4, csr.numEdges());
+        assertSameAdjacency(graph, csr);
+
+        assertEquals(0, csr.getVertexDegree(4));
+        assertTrue(csr.getEdgesOut(4).isEmpty());
+        try {
+            csr.getRandomConnectedVertex(4, new Random(12345));
+            fail("Expected exception");
+        } catch (NoEdgesException e) {
+            //OK
+        }
+
+        try {
+            csr.addEdge(0, 4, null, true);
+            fail("Expected exception");
+        } catch (UnsupportedOperationException e) {
+            //OK
+        }
+    }
+
+    @Test
+    public void testRandomWalks() {
+        Graph<Integer, String> graph = new Graph<>(5, new IntegerVertexFactory());
+        graph.addEdge(0, 1, "a", false);
+        graph.addEdge(1, 2, "b", true);
+        graph.addEdge(2, 0, "c", false);
+        graph.addEdge(3, 3, "d", true);
+        CSRGraph<Integer> csr = CSRGraph.fromGraph(graph, false, new IntegerVertexFactory());
+
+        //Walks on CSRGraph step over vertex indices directly: check every step follows an edge
+        GraphWalkIterator<Integer> iter = new RandomWalkIterator<>(csr, 8, 12345,
+                        NoEdgeHandling.SELF_LOOP_ON_DISCONNECTED, 0, 4);
+        int count = 0;
+        while (iter.hasNext()) {
+            IVertexSequence<Integer> walk = iter.next();
+            assertEquals(9, walk.sequenceLength());
+            int prev = walk.next().vertexID();
+            while (walk.hasNext()) {
+                int curr = walk.next().vertexID();
+                int[] connected = csr.getConnectedVertexIndices(prev);
+                Arrays.sort(connected);
+                assertTrue(prev + " -> " + curr, Arrays.binarySearch(connected, curr) >= 0);
+                prev = curr;
+            }
+            count++;
+        }
+        assertEquals(4, count);
+
+        try {
+            new RandomWalkIterator<>(csr, 8, 12345, NoEdgeHandling.EXCEPTION_ON_DISCONNECTED, 4, 5).next();
+            fail("Expected exception");
+        } catch (NoEdgesException e) {
+            //OK
+        }
+    }
+
+    @Test
+    public void testBuilderMismatch() {
+        CSRGraph.Builder<String> builder = new CSRGraph.Builder<>(3, false, new StringVertexFactory());
+        builder.countEdge(0, 1, true).countEdge(1, 2, false).allocate();
+        builder.addEdge(0, 1, 1.0f, true);
+
+        try {
+            builder.build();
+            fail("Expected exception");
+        } catch (IllegalStateException e) {
+            //OK: edge 1--2 wasn't added
+        }
+    }
+
+    @Test
+    public void testSaveLoadBinary() throws Exception {
+        String path = new ClassPathResource("WeightedGraph.txt").getTempFileFromArchive().getAbsolutePath();
+        CSRGraph<String> csr = GraphLoader.loadWeightedCSRGraphEdgeListFile(path, 9, ",", false, "//");
+
+        File f = new File(testDir.newFolder(), "graph.bin");
+        csr.saveBinary(f);
+
+        for (boolean mmap : new boolean[] {false, true}) {
+            CSRGraph<String> loaded = CSRGraph.loadBinary(f, new StringVertexFactory(), mmap);
+
+            assertEquals(csr.numVertices(), loaded.numVertices());
+            assertEquals(csr.numEdges(), loaded.numEdges());
+            assertEquals(csr.isDirected(), loaded.isDirected());
+            assertEquals(csr.isWeighted(), loaded.isWeighted());
+            for (int i = 0; i < csr.numVertices(); i++) {
+                assertArrayEquals(csr.getConnectedVertexIndices(i), loaded.getConnectedVertexIndices(i));
+                assertEquals(csr.getEdgesOut(i), loaded.getEdgesOut(i));
+            }
+        }
+    }
+
+    private static void assertSameAdjacency(IGraph<?, ?> expected, CSRGraph<?> actual) {
+        assertEquals(expected.numVertices(), actual.numVertices());
+        for (int i = 0; i < expected.numVertices(); i++) {
+            assertEquals(expected.getVertexDegree(i), actual.getVertexDegree(i));
+            assertEquals(sortedNeighbors(expected, i), sortedNeighbors(actual, i));
+        }
+    }
+
+    private static List<Integer> sortedNeighbors(IGraph<?, ?> graph, int vertex) {
+        List<Integer> out = new ArrayList<>();
+        for (int i : graph.getConnectedVertexIndices(vertex))
+            out.add(i);
+        Collections.sort(out);
+        return out;
+    }
+}
@@ -3,6 +3,7 @@ package org.deeplearning4j.graph.graph;
 import org.apache.commons.lang3.ArrayUtils;
 import org.deeplearning4j.graph.api.*;
 import org.deeplearning4j.graph.data.GraphLoader;
+import org.deeplearning4j.graph.iterator.EdgeAliasTables;
 import org.deeplearning4j.graph.iterator.RandomWalkIterator;
 import org.deeplearning4j.graph.iterator.WeightedRandomWalkIterator;
 import org.deeplearning4j.graph.vertexfactory.VertexFactory;
@@ -12,6 +13,7 @@ import org.nd4j.linalg.io.ClassPathResource;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
 import static junit.framework.TestCase.assertTrue;
@@ -223,4 +225,42 @@ public class TestGraph {
             assertTrue(set.contains(i));
         assertEquals(numVertices, walkCount);
     }
+
+    @Test
+    public void testEdgeAliasTables() {
+        //Star graph: vertex 0 connected to all other vertices, with weight equal to index of the other vertex
+        int numVertices = 20;
+        Graph<String, Double> graph = new Graph<>(numVertices, new VFactory());
+        for (int i = 1; i < numVertices; i++)
+            graph.addEdge(0, i, (double) i, false);
+        graph.addEdge(1, 2, 0.0, true);
+
+        EdgeAliasTables tables = new EdgeAliasTables(graph);
+        assertEquals(numVertices, tables.numVertices());
+        assertEquals(numVertices - 1, tables.getVertexDegree(0));
+
+        double totalWeight = (numVertices - 1) * numVertices / 2.0;
+        int nSamples = 200000;
+        int[] counts = new int[numVertices];
+        Random r = new Random(12345);
+        for (int i = 0; i < nSamples; i++)
+            counts[tables.sample(0, r)]++;
+
+        assertEquals(0, counts[0]);
+        for (int i = 1; i < numVertices; i++)
+            assertEquals(i / totalWeight, counts[i] / (double) nSamples, 0.005);
+
+        //Undirected edges are sampled in both directions; zero-weight edges are never sampled
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, tables.sample(numVertices - 1, r));
+            assertEquals(0, tables.sample(1, r));
+        }
+
+        //Same samples for CSR representation of the same graph
+        EdgeAliasTables csrTables = new EdgeAliasTables(CSRGraph.fromGraph(graph, true, new VFactory()));
+        Random r1 = new Random(12345);
+        Random r2 = new Random(12345);
+        for (int i = 0; i < 1000; i++)
+            assertEquals(tables.sample(0, r1), csrTables.sample(0, r2));
+    }
 }
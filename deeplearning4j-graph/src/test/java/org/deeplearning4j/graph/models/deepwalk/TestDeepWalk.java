@@ -10,6 +10,7 @@ import org.deeplearning4j.graph.iterator.RandomWalkIterator;
 import org.deeplearning4j.graph.iterator.parallel.GraphWalkIteratorProvider;
 import org.deeplearning4j.graph.iterator.parallel.WeightedRandomWalkGraphIteratorProvider;
 import org.deeplearning4j.graph.models.GraphVectors;
+import org.deeplearning4j.graph.models.embeddings.HogwildGraphLookupTable;
 import org.deeplearning4j.graph.models.loader.GraphVectorSerializer;
 import org.deeplearning4j.graph.vertexfactory.StringVertexFactory;
 import org.junit.Test;
@@ -81,6 +82,128 @@ public class TestDeepWalk {
         deepWalk.fit(graph, 8);
     }
 
+    @Test
+    public void testParallelHogwild() {
+
+        IGraph<String, String> graph = generateClusteredGraph(10, 10, 5);
+
+        int vectorSize = 20;
+        int windowSize = 2;
+
+        DeepWalk<String, String> deepWalk = new DeepWalk.Builder<String, String>().learningRate(0.05)
+                        .vectorSize(vectorSize).windowSize(windowSize).hogwild(true).seed(12345).build();
+        deepWalk.initialize(graph);
+        assertTrue(deepWalk.lookupTable() instanceof HogwildGraphLookupTable);
+        HogwildGraphLookupTable table = (HogwildGraphLookupTable) deepWalk.lookupTable();
+
+        double scoreBefore = meanEdgeScore(table, graph);
+        for (int epoch = 0; epoch < 10; epoch++)
+            deepWalk.fit(graph, 8);
+        double scoreAfter = meanEdgeScore(table, graph);
+
+        //Hogwild updates from all threads must add up to learning: -log P(neighbour | vertex) goes down
+        assertTrue("Score before: " + scoreBefore + ", after: " + scoreAfter, scoreAfter < 0.8 * scoreBefore);
+
+        for (int i = 0; i < graph.numVertices(); i++) {
+            INDArray vector = deepWalk.getVertexVector(i);
+            assertArrayEquals(new int[] {1, vectorSize}, vector.shape());
+            for (float f : vector.data().asFloat())
+                assertFalse(Float.isNaN(f) || Float.isInfinite(f));
+        }
+    }
+
+
+    @Test
+    public void testNegativeSampling() {
+
+        IGraph<String, String> graph = generateClusteredGraph(10, 10, 5);
+
+        int vectorSize = 20;
+        DeepWalk<String, String> deepWalk = new DeepWalk.Builder<String, String>().learningRate(0.05)
+                        .vectorSize(vectorSize).windowSize(2).negativeSample(5).negativeTableSize(100000)
+                        .useHierarchicSoftmax(false).seed(12345).build();
+        deepWalk.initialize(graph);
+
+        HogwildGraphLookupTable table = (HogwildGraphLookupTable) deepWalk.lookupTable();
+        assertNull(table.getTree());
+        assertEquals(5, table.getNegative());
+        assertEquals(100000, deepWalk.getNegativeTableSize());
+
+        //Output vectors start at zero: P(observed pair) is 0.5 for all pairs
+        assertEquals(0.5, meanEdgeProb(table, graph), 1e-6);
+
+        for (int epoch = 0; epoch < 20; epoch++)
+            deepWalk.fit(graph, 8);
+        for (int i = 0; i < graph.numVertices(); i++) {
+            for (float f : deepWalk.getVertexVector(i).data().asFloat())
+                assertFalse(Float.isNaN(f) || Float.isInfinite(f));
+        }
+
+        //Neighbours are distinguished from noise: P(observed pair) goes up for edges, and is well above random pairs
+        double edgeProb = meanEdgeProb(table, graph);
+        Random r = new Random(12345);
+        double randomProb = 0.0;
+        for (int i = 0; i < 1000; i++)
+            randomProb += table.calculateProb(r.nextInt(graph.numVertices()), r.nextInt(graph.numVertices()));
+        randomProb /= 1000;
+        assertTrue("Edge probability: " + edgeProb, edgeProb > 0.5);
+        assertTrue("Edge probability: " + edgeProb + ", random pairs: " + randomProb, edgeProb > 2 * randomProb);
+
+        try {
+            new DeepWalk.Builder<String, String>().useHierarchicSoftmax(false).build();
+            fail("Expected exception");
+        } catch (IllegalStateException e) {
+            //OK: no output layer
+        }
+    }
+
+
+    /** Clusters of vertices, with edges between random vertices within each cluster. Consecutive clusters are
+     * connected by a single edge */
+    private static Graph<String, String> generateClusteredGraph(int nClusters, int clusterSize, int nEdgesPerVertex) {
+
+        Random r = new Random(12345);
+
+        int nVertices = nClusters * clusterSize;
+        Graph<String, String> graph = new Graph<>(nVertices, new StringVertexFactory());
+        for (int i = 0; i < nVertices; i++) {
+            int clusterStart = (i / clusterSize) * clusterSize;
+            for (int j = 0; j < nEdgesPerVertex; j++) {
+                int to = clusterStart + (i - clusterStart + 1 + r.nextInt(clusterSize - 1)) % clusterSize;
+                graph.addEdge(new Edge<>(i, to, i + "--" + to, false));
+            }
+        }
+        for (int c = 0; c < nClusters; c++) {
+            int from = c * clusterSize;
+            int to = ((c + 1) % nClusters) * clusterSize;
+            graph.addEdge(new Edge<>(from, to, from + "--" + to, false));
+        }
+        return graph;
+    }
+
+    private static double meanEdgeProb(HogwildGraphLookupTable table, IGraph<String, String> graph) {
+        double sum = 0.0;
+        int count = 0;
+        for (int i = 0; i < graph.numVertices(); i++) {
+            for (int j : graph.getConnectedVertexIndices(i)) {
+                sum += table.calculateProb(i, j);
+                count++;
+            }
+        }
+        return sum / count;
+    }
+
+    private static double meanEdgeScore(HogwildGraphLookupTable table, IGraph<String, String> graph) {
+        double sum = 0.0;
+        int count = 0;
+        for (int i = 0; i < graph.numVertices(); i++) {
+            for (int j : graph.getConnectedVertexIndices(i)) {
+                sum += table.calculateScore(i, j);
+                count++;
+            }
+        }
+        return sum / count;
+    }
 
     private static Graph<String, String> generateRandomGraph(int nVertices, int nEdgesPerVertex) {
 
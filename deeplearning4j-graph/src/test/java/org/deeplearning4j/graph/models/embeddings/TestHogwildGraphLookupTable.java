@@ -0,0 +1,122 @@
+package org.deeplearning4j.graph.models.embeddings;
+
+import org.deeplearning4j.graph.models.deepwalk.GraphHuffman;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TestHogwildGraphLookupTable {
+
+    private static final int[] DEGREES = {3, 2, 5, 1, 4, 2, 3};
+
+    @Test
+    public void testHierarchicalSoftmax() {
+        GraphHuffman gh = new GraphHuffman(DEGREES.length);
+        gh.buildTree(DEGREES);
+        HogwildGraphLookupTable table = new HogwildGraphLookupTable(DEGREES.length, 10, gh, 0.1, 12345);
+
+        //Hierarchical softmax: valid probability distribution over all vertices
+        double sum = 0.0;
+        for (int i = 0; i < DEGREES.length; i++)
+            sum += table.calculateProb(0, i);
+        assertEquals(1.0, sum, 1e-5);
+
+        double scoreBefore = table.calculateScore(0, 3);
+        for (int i = 0; i < 100; i++)
+            table.iterate(0, 3);
+        assertTrue(table.calculateScore(0, 3) < scoreBefore);
+        assertTrue(table.calculateProb(0, 3) > 0.5);
+    }
+
+    @Test
+    public void testNegativeSampling() {
+        int[] negativeTable = new int[100];
+        for (int i = 0; i < negativeTable.length; i++)
+            negativeTable[i] = i % DEGREES.length;
+        HogwildGraphLookupTable table = new HogwildGraphLookupTable(DEGREES.length, 10, negativeTable, 3, 0.1, 12345);
+        assertNull(table.getTree());
+        assertEquals(3, table.getNegative());
+
+        //Output vectors start at zero: sigmoid(0) = 0.5
+        assertEquals(0.5, table.calculateProb(0, 1), 1e-6);
+
+        for (int i = 0; i < 200; i++) {
+            table.iterate(0, 1);
+            table.iterate(2, 3);
+        }
+        assertTrue(table.calculateProb(0, 1) > 0.9);
+        assertTrue(table.calculateProb(2, 3) > 0.9);
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws Exception {
+        final int nVertices = 100;
+        int[] degrees = new int[nVertices];
+        int[] negativeTable = new int[1000];
+        for (int i = 0; i < nVertices; i++)
+            degrees[i] = 1 + i % 5;
+        for (int i = 0; i < negativeTable.length; i++)
+            negativeTable[i] = i % nVertices;
+        GraphHuffman gh = new GraphHuffman(nVertices);
+        gh.buildTree(degrees);
+
+        final HogwildGraphLookupTable table =
+                        new HogwildGraphLookupTable(nVertices, 16, gh, negativeTable, 5, 0.025, 12345);
+        ExecutorService exec = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int offset = t;
+            futures.add(exec.submit(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 20000; i++)
+                        table.iterate((i + offset) % nVertices, (i * 7 + offset) % nVertices);
+                }
+            }));
+        }
+        exec.shutdown();
+        //Rethrows any exception thrown by the workers
+        for (Future<?> f : futures)
+            f.get(1, TimeUnit.MINUTES);
+
+        for (float f : table.getVertexVectors())
+            assertFalse(Float.isNaN(f) || Float.isInfinite(f));
+        assertArrayEquals(new int[] {1, 16}, table.getVector(5).shape());
+    }
+
+    @Test
+    public void testNegativeTable() {
+        int[] counts = {0, 1, 16, 0, 81};
+        int tableSize = 100000;
+        int[] table = HogwildGraphLookupTable.buildNegativeTable(counts, 0.75, tableSize);
+
+        //counts^0.75: 0, 1, 8, 0, 27
+        int[] hist = new int[counts.length];
+        for (int v : table)
+            hist[v]++;
+        assertEquals(0, hist[0]);
+        assertEquals(0, hist[3]);
+        assertEquals(1.0 / 36, hist[1] / (double) tableSize, 1e-3);
+        assertEquals(8.0 / 36, hist[2] / (double) tableSize, 1e-3);
+        assertEquals(27.0 / 36, hist[4] / (double) tableSize, 1e-3);
+
+        //All zero: uniform
+        table = HogwildGraphLookupTable.buildNegativeTable(new int[4], 0.75, 100);
+        hist = new int[4];
+        for (int v : table)
+            hist[v]++;
+        assertArrayEquals(new int[] {25, 25, 25, 25}, hist);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoOutputLayer() {
+        new HogwildGraphLookupTable(DEGREES.length, 10, null, null, 0, 0.1, 12345);
+    }
+}
@@ -2,11 +2,17 @@ package org.deeplearning4j.nearestneighbor.server;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
+import org.deeplearning4j.clustering.hnsw.HNSWIndex;
+import org.deeplearning4j.clustering.pq.PQIndex;
 import org.deeplearning4j.clustering.sptree.DataPoint;
+import org.deeplearning4j.clustering.util.ChunkedMatrix;
+import org.deeplearning4j.clustering.vptree.BatchSearchResult;
+import org.deeplearning4j.clustering.vptree.MutableVPTree;
 import org.deeplearning4j.clustering.vptree.VPTree;
 import org.deeplearning4j.nearestneighbor.model.NearestNeighborRequest;
 import org.deeplearning4j.nearestneighbor.model.NearestNeighborsResult;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -19,12 +25,44 @@ import java.util.List;
 public class NearestNeighbor {
     private NearestNeighborRequest record;
     private VPTree tree;
-    private INDArray points;
+    private HNSWIndex hnsw;
+    private PQIndex pq;
+    private MutableVPTree mutable;
+    private boolean invert;
+    private ChunkedMatrix points;
 
     public List<NearestNeighborsResult> search() {
-        INDArray input = points.slice(record.getInputIndex());
         List<NearestNeighborsResult> results = new ArrayList<>();
-        if (input.isVector()) {
+        INDArray input;
+        MutableVPTree.Snapshot snapshot = null;
+        if (mutable != null) {
+            // items could be added or removed since the server started, so points matrix can't be used here
+            snapshot = mutable.snapshot();
+            float[] vector = snapshot.getVector(record.getInputIndex());
+            if (vector == null)
+                throw new IllegalStateException("Item " + record.getInputIndex() + " doesn't exist");
+
+            input = Nd4j.create(vector);
+        } else {
+            input = points.getRow(record.getInputIndex());
+        }
+
+        if (input.isVector() && (hnsw != null || pq != null || snapshot != null)) {
+            BatchSearchResult found;
+            if (snapshot != null)
+                found = snapshot.search(input, record.getK());
+            else if (hnsw != null)
+                found = hnsw.search(input, record.getK());
+            else
+                found = pq.search(input, record.getK());
+
+            // keeping the same order as VPTree.search() provides
+            for (int i = 0; i < found.getK(); i++) {
+                int j = invert ? i : found.getK() - 1 - i;
+                if (found.getIndex(0, j) >= 0)
+                    results.add(new NearestNeighborsResult(found.getIndex(0, j), found.getDistance(0, j)));
+            }
+        } else if (input.isVector()) {
             List<DataPoint> add = new ArrayList<>();
             List<Double> distances = new ArrayList<>();
             tree.search(input, record.getK(), add, distances);
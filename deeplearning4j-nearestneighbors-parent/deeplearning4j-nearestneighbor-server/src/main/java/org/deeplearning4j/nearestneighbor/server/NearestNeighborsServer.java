@@ -5,7 +5,13 @@ import com.beust.jcommander.Parameter;
 import com.beust.jcommander.ParameterException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
+import org.deeplearning4j.clustering.hnsw.HNSWIndex;
+import org.deeplearning4j.clustering.pq.PQIndex;
 import org.deeplearning4j.clustering.sptree.DataPoint;
+import org.deeplearning4j.clustering.util.ChunkedMatrix;
+import org.deeplearning4j.clustering.vptree.BatchSearchResult;
+import org.deeplearning4j.clustering.vptree.FlatVPTree;
+import org.deeplearning4j.clustering.vptree.MutableVPTree;
 import org.deeplearning4j.clustering.vptree.VPTree;
 import org.deeplearning4j.clustering.vptree.VPTreeFillSearch;
 import org.deeplearning4j.exception.DL4JInvalidInputException;
@@ -23,7 +29,14 @@ import play.routing.RoutingDsl;
 import play.server.Server;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
 
 import static play.mvc.Controller.request;
 import static play.mvc.Results.*;
@@ -50,8 +63,47 @@ public class NearestNeighborsServer {
     private String similarityFunction = "euclidean";
     @Parameter(names = {"--invert"}, arity = 1)
     private boolean invert = false;
+    @Parameter(names = {"--memoryMapped"}, arity = 1,
+                    description = "Memory-map BinarySerde chunks instead of reading them into memory. "
+                                    + "Multiple chunks are used in place by hnsw and pq indexes, "
+                                    + "vptree copies them into single array")
+    private boolean memoryMapped = false;
+    @Parameter(names = {"--treePath"}, arity = 1,
+                    description = "Path of saved VPTree: it's loaded if file exists, otherwise tree is built and saved there")
+    private String treePath = null;
+    @Parameter(names = {"--flatTree"}, arity = 1,
+                    description = "Use flat array-based tree for /knnnew queries, to reduce per-query allocations")
+    private boolean flatTree = false;
+    @Parameter(names = {"--index"}, arity = 1, description = "Index used for search: vptree, hnsw or pq")
+    private String index = "vptree";
+    @Parameter(names = {"--hnswM"}, arity = 1, description = "Number of neighbours per HNSW node")
+    private int hnswM = HNSWIndex.DEFAULT_M;
+    @Parameter(names = {"--hnswEfConstruction"}, arity = 1, description = "HNSW beam width used during build")
+    private int hnswEfConstruction = HNSWIndex.DEFAULT_EF_CONSTRUCTION;
+    @Parameter(names = {"--hnswEfSearch"}, arity = 1, description = "HNSW beam width used during search")
+    private int hnswEfSearch = HNSWIndex.DEFAULT_EF_SEARCH;
+    @Parameter(names = {"--pqSubspaces"}, arity = 1,
+                    description = "Number of PQ subspaces, i.e. bytes per vector. Should divide number of columns")
+    private int pqSubspaces = 8;
+    @Parameter(names = {"--pqCentroids"}, arity = 1, description = "Number of PQ centroids per subspace, up to 256")
+    private int pqCentroids = 256;
+    @Parameter(names = {"--pqLists"}, arity = 1, description = "Number of IVF lists for PQ index, 0 disables IVF")
+    private int pqLists = 0;
+    @Parameter(names = {"--pqProbes"}, arity = 1, description = "Number of IVF lists scanned per query")
+    private int pqProbes = 8;
+    @Parameter(names = {"--pqRerank"}, arity = 1,
+                    description = "Number of PQ candidates re-ranked against exact vectors, 0 disables re-ranking. "
+                                    + "Exact vectors are read from chunks, use --memoryMapped to keep them out of heap")
+    private int pqRerank = 100;
+    @Parameter(names = {"--mutable"}, arity = 1,
+                    description = "Allow adding and removing items via /add and /remove, only for vptree index")
+    private boolean mutable = false;
+    @Parameter(names = {"--mergeThreshold"}, arity = 1,
+                    description = "Number of pending additions or removals that triggers background tree rebuild")
+    private int mergeThreshold = MutableVPTree.DEFAULT_MERGE_THRESHOLD;
 
     private Server server;
+    private MutableVPTree mutableIndex;
 
     public void runMain(String... args) throws Exception {
         JCommander jcmdr = new JCommander(this);
@@ -117,21 +169,85 @@ public class NearestNeighborsServer {
         if (!labels.isEmpty() && labels.size() != rows)
             throw new DL4JInvalidInputException(String.format("Number of labels must match number of rows in points matrix (expected %d, found %d)", rows, labels.size()));
 
-        final INDArray points = Nd4j.createUninitialized(rows, cols);
-
-        int lastPosition = 0;
-        for (int i = 0; i < pathArr.length; i++) {
-            log.info("Loading chunk {} of {}", i + 1, pathArr.length);
-            INDArray pointsArr = BinarySerde.readFromDisk(new File(pathArr[i]));
-
-            points.get(NDArrayIndex.interval(lastPosition, lastPosition + pointsArr.rows())).assign(pointsArr);
-            lastPosition += pointsArr.rows();
+        // HNSW and PQ indexes read vectors row by row, so chunks are used in place: mapped chunks stay in page cache.
+        // VPTree needs single matrix, so multiple chunks are merged, and each chunk is released after copying
+        boolean inPlace = pathArr.length == 1 || "hnsw".equalsIgnoreCase(index) || "pq".equalsIgnoreCase(index);
+        final ChunkedMatrix points =
+                        inPlace ? loadChunks(pathArr) : new ChunkedMatrix(mergeChunks(pathArr, rows, cols));
+
+        final VPTree tree;
+        final FlatVPTree flat;
+        final HNSWIndex hnsw;
+        final PQIndex pq;
+        final MutableVPTree mutableTree;
+        if (mutable && !"vptree".equalsIgnoreCase(index))
+            throw new DL4JInvalidInputException("--mutable is supported only for vptree index");
+
+        if ("pq".equalsIgnoreCase(index)) {
+            if (treePath != null || flatTree)
+                log.warn("--treePath and --flatTree options are ignored for PQ index");
+
+            log.info("Building PQ index over {} points: {} subspaces, {} centroids, {} lists", rows, pqSubspaces,
+                            pqCentroids, pqLists);
+            pq = new PQIndex(similarityFunction, pqSubspaces, pqCentroids, pqLists);
+            pq.setNumProbes(pqProbes);
+            pq.setRerankSize(pqRerank);
+            // PQ index keeps codes only, chunks are streamed into it, and kept for re-ranking if it's enabled
+            pq.fit(points);
+            log.info("PQ index uses {} bytes, while exact vectors take {} bytes", pq.getMemoryBytes(),
+                            PQIndex.estimateExactMemory(rows, cols));
+            tree = null;
+            flat = null;
+            hnsw = null;
+            mutableTree = null;
+        } else if ("hnsw".equalsIgnoreCase(index)) {
+            if (treePath != null || flatTree)
+                log.warn("--treePath and --flatTree options are ignored for HNSW index");
+
+            int threads = Runtime.getRuntime().availableProcessors();
+            log.info("Building HNSW index over {} points using {} threads", rows, threads);
+            hnsw = new HNSWIndex(cols, rows, similarityFunction, hnswM, hnswEfConstruction, hnswEfSearch);
+            // HNSW copies vectors into its own storage, so chunks are added one by one, without merging them
+            for (int i = 0; i < points.numChunks(); i++)
+                hnsw.addAll(points.getChunk(i), threads);
+            tree = null;
+            flat = null;
+            pq = null;
+            mutableTree = null;
+        } else if ("vptree".equalsIgnoreCase(index)) {
+            // there's always single chunk here, and /knn reads rows from the same matrix the tree is built on
+            INDArray items = points.getChunk(0);
+            File treeFile = treePath == null ? null : new File(treePath);
+            if (treeFile != null && treeFile.exists()) {
+                log.info("Loading VPTree from {}", treeFile.getAbsolutePath());
+                tree = VPTree.load(treeFile, items);
+
+                if (!similarityFunction.equals(tree.getSimilarityFunction()) || invert != tree.isInvert())
+                    throw new DL4JInvalidInputException("Saved VPTree was built with similarityFunction ["
+                                    + tree.getSimilarityFunction() + "] and invert [" + tree.isInvert()
+                                    + "], which doesn't match server parameters");
+            } else {
+                tree = new VPTree(items, similarityFunction, invert);
+
+                if (treeFile != null) {
+                    log.info("Saving VPTree to {}", treeFile.getAbsolutePath());
+                    tree.save(treeFile);
+                }
+            }
 
-            // let's ensure we don't bring too much stuff in next loop
-            System.gc();
+            // mutable tree keeps its own flat copy of the tree, and swaps it on every rebuild
+            mutableTree = mutable ? new MutableVPTree(tree, mergeThreshold) : null;
+            mutableIndex = mutableTree;
+            flat = flatTree && !mutable ? FlatVPTree.fromTree(tree) : null;
+            hnsw = null;
+            pq = null;
+        } else {
+            throw new DL4JInvalidInputException("Unknown index type [" + index + "], vptree, hnsw or pq expected");
         }
 
-        VPTree tree = new VPTree(points, similarityFunction, invert);
+        // labels of items added via /add, original items use labels list
+        final Map<Integer, String> addedLabels = new ConcurrentHashMap<>();
+        final IntFunction<String> labelOf = id -> id < labels.size() ? labels.get(id) : addedLabels.get(id);
 
         RoutingDsl routingDsl = new RoutingDsl();
         //return the host information for a given id
@@ -139,7 +255,9 @@ public class NearestNeighborsServer {
             try {
                 NearestNeighborRequest record = Json.fromJson(request().body().asJson(), NearestNeighborRequest.class);
                 NearestNeighbor nearestNeighbor =
-                                NearestNeighbor.builder().points(points).record(record).tree(tree).build();
+                                NearestNeighbor.builder().points(points).record(record).tree(tree)
+                                                .hnsw(hnsw).pq(pq).mutable(mutableTree).invert(invert)
+                                                .build();
 
                 if (record == null)
                     return badRequest(Json.toJson(Collections.singletonMap("status", "invalid json passed.")));
@@ -164,32 +282,63 @@ public class NearestNeighborsServer {
                     return badRequest(Json.toJson(Collections.singletonMap("status", "invalid json passed.")));
 
                 INDArray arr = Nd4jBase64.fromBase64(record.getNdarray());
-                List<DataPoint> results;
+                List<Integer> indices = new ArrayList<>();
                 List<Double> distances;
 
-                if (record.isForceFillK()) {
-                    VPTreeFillSearch vpTreeFillSearch = new VPTreeFillSearch(tree, record.getK(), arr);
-                    vpTreeFillSearch.search();
-                    results = vpTreeFillSearch.getResults();
-                    distances = vpTreeFillSearch.getDistances();
+                // HNSW, PQ and mutable tree always return k results, if index has at least k items
+                if (hnsw != null || pq != null || mutableTree != null || (flat != null && !record.isForceFillK())) {
+                    BatchSearchResult found;
+                    if (hnsw != null)
+                        found = hnsw.search(arr, record.getK());
+                    else if (pq != null)
+                        found = pq.search(arr, record.getK());
+                    else if (mutableTree != null)
+                        found = mutableTree.search(arr, record.getK());
+                    else
+                        found = flat.search(arr, record.getK());
+
+                    distances = new ArrayList<>(found.getK());
+
+                    // keeping the same order as VPTree.search() provides
+                    for (int i = 0; i < found.getK(); i++) {
+                        int j = invert ? i : found.getK() - 1 - i;
+                        int idx = found.getIndex(0, j);
+                        if (idx < 0)
+                            continue;
+
+                        indices.add(idx);
+                        distances.add((double) found.getDistance(0, j));
+                    }
                 } else {
-                    results = new ArrayList<>();
-                    distances = new ArrayList<>();
-                    tree.search(arr, record.getK(), results, distances);
+                    List<DataPoint> results;
+                    if (record.isForceFillK()) {
+                        VPTreeFillSearch vpTreeFillSearch = new VPTreeFillSearch(tree, record.getK(), arr);
+                        vpTreeFillSearch.search();
+                        results = vpTreeFillSearch.getResults();
+                        distances = vpTreeFillSearch.getDistances();
+                    } else {
+                        results = new ArrayList<>();
+                        distances = new ArrayList<>();
+                        tree.search(arr, record.getK(), results, distances);
+                    }
+
+                    for (DataPoint point : results)
+                        indices.add(point.getIndex());
                 }
 
-                if (results.size() != distances.size()) {
+                if (indices.size() != distances.size()) {
                     return internalServerError(
                             String.format("results.size == %d != %d == distances.size",
-                                    results.size(), distances.size()));
+                                    indices.size(), distances.size()));
                 }
 
                 List<NearestNeighborsResult> nnResult = new ArrayList<>();
-                for (int i=0; i<results.size(); i++) {
-                    if (!labels.isEmpty())
-                        nnResult.add(new NearestNeighborsResult(results.get(i).getIndex(), distances.get(i), labels.get(results.get(i).getIndex())));
+                for (int i=0; i<indices.size(); i++) {
+                    String label = labelOf.apply(indices.get(i));
+                    if (label != null)
+                        nnResult.add(new NearestNeighborsResult(indices.get(i), distances.get(i), label));
                     else
-                        nnResult.add(new NearestNeighborsResult(results.get(i).getIndex(), distances.get(i)));
+                        nnResult.add(new NearestNeighborsResult(indices.get(i), distances.get(i)));
                 }
 
                 NearstNeighborsResults results2 = NearstNeighborsResults.builder().results(nnResult).build();
@@ -202,6 +351,63 @@ public class NearestNeighborsServer {
             }
         })));
 
+        routingDsl.POST("/add").routeTo(FunctionUtil.function0((() -> {
+            try {
+                if (mutableTree == null)
+                    return badRequest(Json.toJson(Collections.singletonMap("status",
+                                    "server should be started with --mutable true")));
+
+                AddItemsRequest record = Json.fromJson(request().body().asJson(), AddItemsRequest.class);
+                if (record == null || record.getNdarray() == null)
+                    return badRequest(Json.toJson(Collections.singletonMap("status", "invalid json passed.")));
+
+                INDArray arr = Nd4jBase64.fromBase64(record.getNdarray());
+                if (record.getLabels() != null && record.getLabels().size() != (arr.isVector() ? 1 : arr.rows()))
+                    return badRequest(Json.toJson(Collections.singletonMap("status",
+                                    "number of labels must match number of rows")));
+
+                int[] ids = mutableTree.add(arr);
+                List<Integer> added = new ArrayList<>(ids.length);
+                for (int i = 0; i < ids.length; i++) {
+                    added.add(ids[i]);
+                    if (record.getLabels() != null)
+                        addedLabels.put(ids[i], record.getLabels().get(i));
+                }
+
+                return ok(Json.toJson(ItemsResponse.builder().ids(added).build()));
+            } catch (Throwable e) {
+                log.error("Error in POST /add",e);
+                return internalServerError(e.getMessage());
+            }
+        })));
+
+        routingDsl.POST("/remove").routeTo(FunctionUtil.function0((() -> {
+            try {
+                if (mutableTree == null)
+                    return badRequest(Json.toJson(Collections.singletonMap("status",
+                                    "server should be started with --mutable true")));
+
+                RemoveItemsRequest record = Json.fromJson(request().body().asJson(), RemoveItemsRequest.class);
+                if (record == null || record.getIds() == null)
+                    return badRequest(Json.toJson(Collections.singletonMap("status", "invalid json passed.")));
+
+                int[] ids = new int[record.getIds().size()];
+                for (int i = 0; i < ids.length; i++)
+                    ids[i] = record.getIds().get(i);
+
+                List<Integer> removed = new ArrayList<>();
+                for (int id : mutableTree.remove(ids)) {
+                    removed.add(id);
+                    addedLabels.remove(id);
+                }
+
+                return ok(Json.toJson(ItemsResponse.builder().ids(removed).build()));
+            } catch (Throwable e) {
+                log.error("Error in POST /remove",e);
+                return internalServerError(e.getMessage());
+            }
+        })));
+
         //Set play secret key, if required
         //http://www.playframework.com/documentation/latest/ApplicationSecret
         String crypto = System.getProperty("play.crypto.secret");
@@ -219,6 +425,88 @@ public class NearestNeighborsServer {
 
     }
 
+    /**
+     * This method loads all chunks, and keeps them separately
+     *
+     * @param pathArr chunk paths
+     * @return chunks
+     * @throws IOException
+     */
+    protected ChunkedMatrix loadChunks(String[] pathArr) throws IOException {
+        List<INDArray> chunks = new ArrayList<>();
+        for (int i = 0; i < pathArr.length; i++) {
+            log.info("{} chunk {} of {}", memoryMapped ? "Memory-mapping" : "Loading", i + 1, pathArr.length);
+            chunks.add(loadChunk(new File(pathArr[i])));
+        }
+
+        return new ChunkedMatrix(chunks);
+    }
+
+    /**
+     * This method copies all chunks into single matrix. Chunks aren't referenced afterwards,
+     * so only one of them is held in memory at a time, besides the result.
+     *
+     * PLEASE NOTE: result is always on heap, even if chunks are memory-mapped
+     *
+     * @param pathArr chunk paths
+     * @param rows total number of rows
+     * @param cols number of columns
+     * @return matrix with all rows
+     * @throws IOException
+     */
+    protected INDArray mergeChunks(String[] pathArr, int rows, int cols) throws IOException {
+        if (memoryMapped)
+            log.warn("Merging {} memory-mapped chunks into single [{} x {}] array: use single chunk to avoid the copy",
+                            pathArr.length, rows, cols);
+
+        INDArray points = Nd4j.createUninitialized(rows, cols);
+        int lastPosition = 0;
+        for (int i = 0; i < pathArr.length; i++) {
+            log.info("Loading chunk {} of {}", i + 1, pathArr.length);
+            INDArray pointsArr = loadChunk(new File(pathArr[i]));
+
+            points.get(NDArrayIndex.interval(lastPosition, lastPosition + pointsArr.rows()), NDArrayIndex.all())
+                            .assign(pointsArr);
+            lastPosition += pointsArr.rows();
+
+            // mapped chunks live in page cache, so there's nothing to collect
+            if (!memoryMapped)
+                System.gc();
+        }
+
+        return points;
+    }
+
+    private INDArray loadChunk(File file) throws IOException {
+        return memoryMapped ? mapFromDisk(file) : BinarySerde.readFromDisk(file);
+    }
+
+    /**
+     * This method memory-maps array saved with BinarySerde, without copying its data.
+     *
+     * Mapping is private (copy-on-write), so the file itself will never be modified.
+     * PLEASE NOTE: each chunk is limited to 2GB, due to ByteBuffer limitations, so larger data sets
+     * should be split into multiple chunks. HNSW and PQ indexes use multiple chunks in place, while VPTree
+     * copies them into single array: use single chunk for it to avoid the copy.
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    protected static INDArray mapFromDisk(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new DL4JInvalidInputException("Chunk " + file.getAbsolutePath() + " is larger than 2GB, "
+                                + "and can't be memory-mapped. Please split it into smaller chunks.");
+
+            // mapping stays valid after channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.PRIVATE, 0, channel.size());
+            buffer.order(ByteOrder.nativeOrder());
+
+            return BinarySerde.toArray(buffer);
+        }
+    }
+
     /**
      * Stop the server
      */
@@ -227,6 +515,9 @@ public class NearestNeighborsServer {
             log.info("Attempting to stop server");
             server.stop();
         }
+
+        if (mutableIndex != null)
+            mutableIndex.shutdown();
     }
 
     public static void main(String[] args) throws Exception {
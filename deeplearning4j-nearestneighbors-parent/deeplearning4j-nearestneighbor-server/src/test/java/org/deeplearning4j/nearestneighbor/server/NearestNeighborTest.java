@@ -1,26 +1,31 @@
 package org.deeplearning4j.nearestneighbor.server;
 
 import org.deeplearning4j.clustering.sptree.DataPoint;
+import org.deeplearning4j.clustering.util.ChunkedMatrix;
 import org.deeplearning4j.clustering.vptree.VPTree;
 import org.deeplearning4j.clustering.vptree.VPTreeFillSearch;
 import org.deeplearning4j.nearestneighbor.client.NearestNeighborsClient;
 import org.deeplearning4j.nearestneighbor.model.NearestNeighborRequest;
+import org.deeplearning4j.nearestneighbor.model.NearestNeighborsResult;
 import org.deeplearning4j.nearestneighbor.model.NearstNeighborsResults;
 import org.junit.Test;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.api.ops.impl.accum.distances.EuclideanDistance;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
 import org.nd4j.serde.binary.BinarySerde;
 
 import java.io.File;
 import java.io.IOException;
 import java.net.ServerSocket;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
 /**
  * Created by agibsonccc on 4/27/17.
@@ -35,7 +40,7 @@ public class NearestNeighborTest {
         NearestNeighborRequest request = new NearestNeighborRequest();
         request.setK(2);
         request.setInputIndex(0);
-        NearestNeighbor nearestNeighbor = NearestNeighbor.builder().tree(vpTree).points(arr).record(request).build();
+        NearestNeighbor nearestNeighbor = NearestNeighbor.builder().tree(vpTree).points(new ChunkedMatrix(arr)).record(request).build();
         assertEquals(1, nearestNeighbor.search().get(0).getIndex());
     }
 
@@ -84,6 +89,133 @@ public class NearestNeighborTest {
 
 
 
+    @Test
+    public void testMapFromDisk() throws Exception {
+        INDArray rand = Nd4j.randn(10, 5);
+        File writeToTmp = new File(System.getProperty("java.io.tmpdir"), "ndarray" + UUID.randomUUID().toString());
+        writeToTmp.deleteOnExit();
+        BinarySerde.writeArrayToDisk(rand, writeToTmp);
+
+        INDArray mapped = NearestNeighborsServer.mapFromDisk(writeToTmp);
+        assertEquals(rand, mapped);
+    }
+
+    @Test
+    public void testServerMemoryMapped() throws Exception {
+        Nd4j.getRandom().setSeed(7);
+        INDArray rand = Nd4j.randn(10, 5);
+        File chunk0 = new File(System.getProperty("java.io.tmpdir"), "ndarray" + UUID.randomUUID().toString());
+        File chunk1 = new File(System.getProperty("java.io.tmpdir"), "ndarray" + UUID.randomUUID().toString());
+        chunk0.deleteOnExit();
+        chunk1.deleteOnExit();
+        BinarySerde.writeArrayToDisk(rand.get(NDArrayIndex.interval(0, 5), NDArrayIndex.all()).dup(), chunk0);
+        BinarySerde.writeArrayToDisk(rand.get(NDArrayIndex.interval(5, 10), NDArrayIndex.all()).dup(), chunk1);
+
+        // both single chunk and multiple chunks should work
+        for (String path : new String[] {chunk0.getAbsolutePath(),
+                        chunk0.getAbsolutePath() + "," + chunk1.getAbsolutePath()}) {
+            int localPort = getAvailablePort();
+            NearestNeighborsServer server = new NearestNeighborsServer();
+            server.runMain("--ndarrayPath", path, "--nearestNeighborsPort", String.valueOf(localPort),
+                            "--memoryMapped", "true");
+
+            NearestNeighborsClient client = new NearestNeighborsClient("http://localhost:" + localPort);
+            NearstNeighborsResults result = client.knnNew(5, rand.getRow(0));
+            assertEquals(5, result.getResults().size());
+            // results are ordered from the farthest to the nearest one
+            assertEquals(0, result.getResults().get(4).getIndex());
+            server.stop();
+        }
+    }
+
+
+    @Test
+    public void testServerHnsw() throws Exception {
+        int localPort = getAvailablePort();
+        Nd4j.getRandom().setSeed(7);
+        INDArray rand = Nd4j.randn(10, 5);
+        File writeToTmp = new File(System.getProperty("java.io.tmpdir"), "ndarray" + UUID.randomUUID().toString());
+        writeToTmp.deleteOnExit();
+        BinarySerde.writeArrayToDisk(rand, writeToTmp);
+        NearestNeighborsServer server = new NearestNeighborsServer();
+        server.runMain("--ndarrayPath", writeToTmp.getAbsolutePath(), "--nearestNeighborsPort",
+                        String.valueOf(localPort), "--index", "hnsw", "--hnswM", "4");
+
+        NearestNeighborsClient client = new NearestNeighborsClient("http://localhost:" + localPort);
+        NearstNeighborsResults result = client.knnNew(5, rand.getRow(0));
+        assertEquals(5, result.getResults().size());
+        // same order as VPTree provides: from the farthest to the nearest one
+        assertEquals(0, result.getResults().get(4).getIndex());
+
+        result = client.knn(0, 3);
+        assertEquals(3, result.getResults().size());
+        assertEquals(0, result.getResults().get(2).getIndex());
+        server.stop();
+    }
+
+
+    @Test
+    public void testServerHnswChunks() throws Exception {
+        int localPort = getAvailablePort();
+        Nd4j.getRandom().setSeed(7);
+        INDArray rand = Nd4j.randn(10, 5);
+        File chunk0 = new File(System.getProperty("java.io.tmpdir"), "ndarray" + UUID.randomUUID().toString());
+        File chunk1 = new File(System.getProperty("java.io.tmpdir"), "ndarray" + UUID.randomUUID().toString());
+        chunk0.deleteOnExit();
+        chunk1.deleteOnExit();
+        BinarySerde.writeArrayToDisk(rand.get(NDArrayIndex.interval(0, 5), NDArrayIndex.all()).dup(), chunk0);
+        BinarySerde.writeArrayToDisk(rand.get(NDArrayIndex.interval(5, 10), NDArrayIndex.all()).dup(), chunk1);
+
+        // mapped chunks are added to HNSW one by one, and ids continue across chunks
+        NearestNeighborsServer server = new NearestNeighborsServer();
+        server.runMain("--ndarrayPath", chunk0.getAbsolutePath() + "," + chunk1.getAbsolutePath(),
+                        "--nearestNeighborsPort", String.valueOf(localPort), "--memoryMapped", "true",
+                        "--index", "hnsw", "--hnswM", "4");
+
+        NearestNeighborsClient client = new NearestNeighborsClient("http://localhost:" + localPort);
+        NearstNeighborsResults result = client.knnNew(5, rand.getRow(7));
+        assertEquals(5, result.getResults().size());
+        assertEquals(7, result.getResults().get(4).getIndex());
+
+        result = client.knn(7, 3);
+        assertEquals(7, result.getResults().get(2).getIndex());
+        server.stop();
+    }
+
+
+    @Test
+    public void testServerMutable() throws Exception {
+        int localPort = getAvailablePort();
+        Nd4j.getRandom().setSeed(7);
+        INDArray rand = Nd4j.randn(10, 5);
+        File writeToTmp = new File(System.getProperty("java.io.tmpdir"), "ndarray" + UUID.randomUUID().toString());
+        writeToTmp.deleteOnExit();
+        BinarySerde.writeArrayToDisk(rand, writeToTmp);
+        NearestNeighborsServer server = new NearestNeighborsServer();
+        server.runMain("--ndarrayPath", writeToTmp.getAbsolutePath(), "--nearestNeighborsPort",
+                        String.valueOf(localPort), "--mutable", "true");
+
+        NearestNeighborsClient client = new NearestNeighborsClient("http://localhost:" + localPort);
+        INDArray query = Nd4j.randn(1, 5);
+        List<Integer> ids = client.add(query, Collections.singletonList("added"));
+        assertEquals(Collections.singletonList(10), ids);
+
+        // added item is the nearest one, and it's the last in the list
+        NearstNeighborsResults result = client.knnNew(3, query);
+        assertEquals(3, result.getResults().size());
+        assertEquals(10, result.getResults().get(2).getIndex());
+        assertEquals("added", result.getResults().get(2).getLabel());
+
+        assertEquals(Collections.singletonList(10), client.remove(10, 42));
+        result = client.knnNew(11, query);
+        assertEquals(10, result.getResults().size());
+        for (NearestNeighborsResult r : result.getResults())
+            assertNotEquals(10, r.getIndex());
+
+        server.stop();
+    }
+
+
     @Test
     public void testFullSearch() throws Exception {
         int numRows = 1000;
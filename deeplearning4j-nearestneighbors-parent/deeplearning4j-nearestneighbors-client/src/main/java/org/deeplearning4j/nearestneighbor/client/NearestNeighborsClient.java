@@ -3,14 +3,14 @@ package org.deeplearning4j.nearestneighbor.client;
 import com.mashape.unirest.http.ObjectMapper;
 import com.mashape.unirest.http.Unirest;
 import lombok.AllArgsConstructor;
-import org.deeplearning4j.nearestneighbor.model.Base64NDArrayBody;
-import org.deeplearning4j.nearestneighbor.model.NearestNeighborRequest;
-import org.deeplearning4j.nearestneighbor.model.NearstNeighborsResults;
+import org.deeplearning4j.nearestneighbor.model.*;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.serde.base64.Nd4jBase64;
 import org.nd4j.shade.jackson.core.JsonProcessingException;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Client for the nearest neighbors server.
@@ -93,5 +93,41 @@ public class NearestNeighborsClient {
         return ret;
     }
 
+    /**
+     * Adds new items to the server. Server should be started with --mutable true
+     * @param arr the items to add, one item per row
+     * @param labels labels for added items, or null
+     * @return ids assigned to added items, in the same order as rows
+     * @throws Exception
+     */
+    public List<Integer> add(INDArray arr, List<String> labels) throws Exception {
+        AddItemsRequest request =
+                        AddItemsRequest.builder().ndarray(Nd4jBase64.base64String(arr)).labels(labels).build();
+
+        ItemsResponse ret = Unirest.post(url + "/add").header("accept", "application/json")
+                        .header("Content-Type", "application/json").body(request).asObject(ItemsResponse.class)
+                        .getBody();
+
+        return ret.getIds();
+    }
+
+    /**
+     * Removes items from the server. Server should be started with --mutable true
+     * @param ids ids of the items to remove
+     * @return ids of the items that were actually removed
+     * @throws Exception
+     */
+    public List<Integer> remove(int... ids) throws Exception {
+        List<Integer> list = new ArrayList<>();
+        for (int id : ids)
+            list.add(id);
+
+        RemoveItemsRequest request = RemoveItemsRequest.builder().ids(list).build();
+        ItemsResponse ret = Unirest.post(url + "/remove").header("accept", "application/json")
+                        .header("Content-Type", "application/json").body(request).asObject(ItemsResponse.class)
+                        .getBody();
+
+        return ret.getIds();
+    }
 
 }
@@ -0,0 +1,22 @@
+package org.deeplearning4j.nearestneighbor.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Request for adding items to the nearest neighbors server: base64 encoded matrix, one item per row,
+ * and optional labels for these items
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AddItemsRequest implements Serializable {
+    private String ndarray;
+    private List<String> labels;
+}
@@ -0,0 +1,20 @@
+package org.deeplearning4j.nearestneighbor.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Request for removing items from the nearest neighbors server
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RemoveItemsRequest implements Serializable {
+    private List<Integer> ids;
+}
@@ -0,0 +1,89 @@
+package org.deeplearning4j.clustering.hnsw;
+
+import java.util.Arrays;
+
+/**
+ * Growable binary heap of (node, distance) pairs over primitive arrays.
+ *
+ * Min-heap keeps the closest candidate on top, max-heap keeps the farthest one. Used by HNSW layer search,
+ * so graph traversal doesn't allocate per visited node.
+ */
+class CandidateHeap {
+    private final boolean max;
+    private int[] ids;
+    private float[] distances;
+    private int size;
+
+    CandidateHeap(int initialCapacity, boolean max) {
+        this.max = max;
+        this.ids = new int[Math.max(1, initialCapacity)];
+        this.distances = new float[ids.length];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    int topId() {
+        return ids[0];
+    }
+
+    float topDistance() {
+        return distances[0];
+    }
+
+    void push(int id, float distance) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            distances = Arrays.copyOf(distances, size * 2);
+        }
+
+        int pos = size++;
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (!before(distance, distances[parent]))
+                break;
+
+            ids[pos] = ids[parent];
+            distances[pos] = distances[parent];
+            pos = parent;
+        }
+        ids[pos] = id;
+        distances[pos] = distance;
+    }
+
+    void pop() {
+        size--;
+        if (size == 0)
+            return;
+
+        int id = ids[size];
+        float distance = distances[size];
+        int pos = 0;
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= size)
+                break;
+
+            if (child + 1 < size && before(distances[child + 1], distances[child]))
+                child++;
+
+            if (!before(distances[child], distance))
+                break;
+
+            ids[pos] = ids[child];
+            distances[pos] = distances[child];
+            pos = child;
+        }
+        ids[pos] = id;
+        distances[pos] = distance;
+    }
+
+    private boolean before(float a, float b) {
+        return max ? a > b : a < b;
+    }
+}
@@ -0,0 +1,702 @@
+package org.deeplearning4j.clustering.hnsw;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.deeplearning4j.clustering.vptree.BatchSearchResult;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hierarchical Navigable Small World graph index for approximate k-nearest neighbours search.
+ *
+ * Each item is inserted into the bottom layer, and into a geometrically decreasing number of upper layers.
+ * Search descends greedily from the top layer entry point, and then does beam search of width {@code efSearch}
+ * over the bottom layer. Unlike VPTree, index can be built incrementally, one item at a time.
+ *
+ * Supported similarity functions: euclidean, manhattan, cosinedistance, cosinesimilarity and dot.
+ * Results are always ordered from the best match to the worst one, i.e. by decreasing similarity for
+ * cosinesimilarity and dot, and by increasing distance otherwise.
+ *
+ * PLEASE NOTE: Search is thread-safe, and can run concurrently with insertions.
+ * Index capacity is fixed at construction time.
+ *
+ * @see <a href="https://arxiv.org/abs/1603.09320">Malkov and Yashunin, 2016</a>
+ */
+public class HNSWIndex {
+    public static final int DEFAULT_M = 16;
+    public static final int DEFAULT_EF_CONSTRUCTION = 200;
+    public static final int DEFAULT_EF_SEARCH = 50;
+
+    private static final int EUCLIDEAN = 0;
+    private static final int MANHATTAN = 1;
+    private static final int COSINE_DISTANCE = 2;
+    private static final int COSINE_SIMILARITY = 3;
+    private static final int DOT = 4;
+
+    // vectors are stored in chunks, so index isn't limited by max array length
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_ROWS = 1 << CHUNK_SHIFT;
+
+    @Getter
+    private final int dimension;
+    @Getter
+    private final int capacity;
+    @Getter
+    private final String similarityFunction;
+    @Getter
+    private final int m;
+    @Getter
+    private final int efConstruction;
+    private volatile int efSearch;
+
+    private final int function;
+    private final int maxM0;
+    private final double levelMultiplier;
+    private final Random random;
+
+    private final float[][] vectors;
+    // links[node][level][0] holds number of neighbours, the rest of the array holds neighbours themselves
+    private final int[][][] links;
+    private final AtomicInteger size = new AtomicInteger(0);
+
+    // guarded by this
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    private final ThreadLocal<SearchContext> contexts = new ThreadLocal<SearchContext>() {
+        @Override
+        protected SearchContext initialValue() {
+            return new SearchContext();
+        }
+    };
+
+    public HNSWIndex(int dimension, int capacity, @NonNull String similarityFunction) {
+        this(dimension, capacity, similarityFunction, DEFAULT_M, DEFAULT_EF_CONSTRUCTION, DEFAULT_EF_SEARCH);
+    }
+
+    public HNSWIndex(int dimension, int capacity, @NonNull String similarityFunction, int m, int efConstruction,
+                    int efSearch) {
+        this(dimension, capacity, similarityFunction, m, efConstruction, efSearch, System.currentTimeMillis());
+    }
+
+    /**
+     *
+     * @param dimension length of indexed vectors
+     * @param capacity max number of items in this index
+     * @param similarityFunction similarity function name
+     * @param m number of neighbours per node on upper layers, bottom layer keeps 2 * m
+     * @param efConstruction beam width used during insertion
+     * @param efSearch default beam width used during search
+     * @param seed random seed used for level assignment
+     */
+    public HNSWIndex(int dimension, int capacity, @NonNull String similarityFunction, int m, int efConstruction,
+                    int efSearch, long seed) {
+        if (dimension < 1)
+            throw new ND4JIllegalStateException("Dimension should be positive value");
+
+        if (capacity < 1)
+            throw new ND4JIllegalStateException("Capacity should be positive value");
+
+        if (m < 2)
+            throw new ND4JIllegalStateException("M should be at least 2");
+
+        if (efConstruction < 1 || efSearch < 1)
+            throw new ND4JIllegalStateException("efConstruction and efSearch should be positive values");
+
+        switch (similarityFunction) {
+            case "euclidean":
+                function = EUCLIDEAN;
+                break;
+            case "manhattan":
+                function = MANHATTAN;
+                break;
+            case "cosinedistance":
+                function = COSINE_DISTANCE;
+                break;
+            case "cosinesimilarity":
+                function = COSINE_SIMILARITY;
+                break;
+            case "dot":
+                function = DOT;
+                break;
+            default:
+                throw new ND4JIllegalStateException("Similarity function [" + similarityFunction
+                                + "] isn't supported by HNSW index");
+        }
+
+        this.dimension = dimension;
+        this.capacity = capacity;
+        this.similarityFunction = similarityFunction;
+        this.m = m;
+        this.maxM0 = 2 * m;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.efSearch = efSearch;
+        this.levelMultiplier = 1.0 / Math.log(m);
+        this.random = new Random(seed);
+
+        this.vectors = new float[(int) ((capacity + (long) CHUNK_ROWS - 1) >>> CHUNK_SHIFT)][];
+        this.links = new int[capacity][][];
+    }
+
+    /**
+     * This method returns number of items in this index
+     *
+     * @return
+     */
+    public int size() {
+        return Math.min(size.get(), capacity);
+    }
+
+    public int getEfSearch() {
+        return efSearch;
+    }
+
+    /**
+     * This method sets default beam width used by search. Higher values give better recall at the cost of speed.
+     *
+     * @param efSearch
+     */
+    public void setEfSearch(int efSearch) {
+        if (efSearch < 1)
+            throw new ND4JIllegalStateException("efSearch should be positive value");
+
+        this.efSearch = efSearch;
+    }
+
+    /**
+     * This method adds single vector to the index
+     *
+     * @param vector
+     * @return index of the added item
+     */
+    public int add(@NonNull float[] vector) {
+        if (vector.length != dimension)
+            throw new ND4JIllegalStateException("Vector should have length of " + dimension + " but got "
+                            + vector.length);
+
+        int id = reserve(1);
+        insert(id, vector);
+        return id;
+    }
+
+    /**
+     * This method adds single vector to the index
+     *
+     * @param vector row vector
+     * @return index of the added item
+     */
+    public int add(@NonNull INDArray vector) {
+        if (!vector.isVector())
+            throw new ND4JIllegalStateException("Vector expected, but got shape " + Arrays.toString(vector.shape()));
+
+        return add(vector.dup().data().asFloat());
+    }
+
+    /**
+     * This method adds all rows of given matrix to the index, using specified number of threads.
+     * Rows get consecutive indices, in the same order as in the matrix.
+     *
+     * @param points matrix of vectors, one vector per row
+     * @param threads number of threads used for insertion
+     * @return index of the first added item
+     */
+    public int addAll(@NonNull final INDArray points, int threads) {
+        if (points.rank() != 2 || points.columns() != dimension)
+            throw new ND4JIllegalStateException("Points should have shape of [N, " + dimension + "] but got "
+                            + Arrays.toString(points.shape()));
+
+        final int rows = points.rows();
+        final int base = reserve(rows);
+        final AtomicInteger cursor = new AtomicInteger(0);
+
+        if (threads <= 1 || rows < 2) {
+            for (int r = 0; r < rows; r++)
+                insert(base + r, points.getRow(r).dup().data().asFloat());
+
+            return base;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        int r;
+                        while ((r = cursor.getAndIncrement()) < rows)
+                            insert(base + r, points.getRow(r).dup().data().asFloat());
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures)
+                future.get();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            executor.shutdown();
+        }
+
+        return base;
+    }
+
+    /**
+     * This method searches k nearest neighbours of given query, using default efSearch
+     *
+     * @param query
+     * @param k
+     * @param outIndices array of at least k elements, receives item indices, the best match first
+     * @param outDistances array of at least k elements, receives distances (or similarities)
+     * @return number of results written, which is less than k only if index has less than k items
+     */
+    public int search(@NonNull float[] query, int k, @NonNull int[] outIndices, @NonNull float[] outDistances) {
+        return search(query, k, efSearch, outIndices, outDistances);
+    }
+
+    /**
+     * This method searches k nearest neighbours of given query
+     *
+     * @param query
+     * @param k
+     * @param ef beam width, effectively max(ef, k) is used
+     * @param outIndices array of at least k elements, receives item indices, the best match first
+     * @param outDistances array of at least k elements, receives distances (or similarities)
+     * @return number of results written, which is less than k only if index has less than k items
+     */
+    public int search(@NonNull float[] query, int k, int ef, @NonNull int[] outIndices,
+                    @NonNull float[] outDistances) {
+        if (query.length != dimension)
+            throw new ND4JIllegalStateException("Query should have length of " + dimension + " but got "
+                            + query.length);
+
+        int ep;
+        int top;
+        synchronized (this) {
+            ep = entryPoint;
+            top = maxLevel;
+        }
+
+        if (ep < 0 || k < 1)
+            return 0;
+
+        SearchContext ctx = contexts.get();
+        float[] q = prepare(query, ctx.query);
+
+        float epDistance = distance(q, 0, ep);
+        for (int level = top; level > 0; level--) {
+            ep = greedy(q, ep, epDistance, level, ctx);
+            epDistance = ctx.greedyDistance;
+        }
+
+        searchLayer(q, ep, epDistance, Math.max(ef, k), 0, ctx);
+
+        CandidateHeap results = ctx.results;
+        while (results.size() > k)
+            results.pop();
+
+        int count = results.size();
+        for (int i = count - 1; i >= 0; i--) {
+            outIndices[i] = results.topId();
+            outDistances[i] = externalDistance(results.topDistance());
+            results.pop();
+        }
+
+        return count;
+    }
+
+    /**
+     * This method searches k nearest neighbours for each row of given matrix
+     *
+     * @param queries matrix of queries, one query per row
+     * @param k
+     * @return search results, missing results (if index has less than k items) have index -1
+     */
+    public BatchSearchResult search(@NonNull INDArray queries, int k) {
+        if (queries.isVector())
+            queries = queries.reshape(1, queries.length());
+
+        if (queries.columns() != dimension)
+            throw new ND4JIllegalStateException("Queries should have shape of [N, " + dimension + "] but got "
+                            + Arrays.toString(queries.shape()));
+
+        int numQueries = queries.rows();
+        int[] indices = new int[numQueries * k];
+        float[] distances = new float[numQueries * k];
+        int[] idx = new int[k];
+        float[] dist = new float[k];
+
+        for (int q = 0; q < numQueries; q++) {
+            int count = search(queries.getRow(q).dup().data().asFloat(), k, idx, dist);
+            System.arraycopy(idx, 0, indices, q * k, count);
+            System.arraycopy(dist, 0, distances, q * k, count);
+            for (int i = count; i < k; i++) {
+                indices[q * k + i] = -1;
+                distances[q * k + i] = Float.NaN;
+            }
+        }
+
+        return new BatchSearchResult(numQueries, k, indices, distances);
+    }
+
+    protected int reserve(int count) {
+        int base = size.getAndAdd(count);
+        if (base + (long) count > capacity) {
+            size.addAndGet(-count);
+            throw new ND4JIllegalStateException("HNSW index capacity of " + capacity + " items exceeded");
+        }
+
+        return base;
+    }
+
+    protected void insert(int id, float[] vector) {
+        int chunkIdx = id >>> CHUNK_SHIFT;
+        float[] chunk = vectors[chunkIdx];
+        if (chunk == null) {
+            synchronized (vectors) {
+                chunk = vectors[chunkIdx];
+                if (chunk == null) {
+                    int rows = Math.min(CHUNK_ROWS, capacity - (chunkIdx << CHUNK_SHIFT));
+                    chunk = new float[rows * dimension];
+                    vectors[chunkIdx] = chunk;
+                }
+            }
+        }
+
+        SearchContext ctx = contexts.get();
+        float[] q = prepare(vector, new float[dimension]);
+        System.arraycopy(q, 0, chunk, (id & (CHUNK_ROWS - 1)) * dimension, dimension);
+
+        int level = randomLevel();
+        int[][] nodeLinks = new int[level + 1][];
+        for (int l = 0; l <= level; l++)
+            nodeLinks[l] = new int[(l == 0 ? maxM0 : m) + 1];
+
+        links[id] = nodeLinks;
+
+        // PLEASE NOTE: node becomes visible to other threads only via neighbour lists of other nodes, and these
+        // are modified under lock, which also publishes vector and links of this node
+        int ep;
+        int top;
+        synchronized (this) {
+            if (entryPoint < 0) {
+                entryPoint = id;
+                maxLevel = level;
+                return;
+            }
+
+            ep = entryPoint;
+            top = maxLevel;
+        }
+
+        float epDistance = distance(q, 0, ep);
+        for (int l = top; l > level; l--) {
+            ep = greedy(q, ep, epDistance, l, ctx);
+            epDistance = ctx.greedyDistance;
+        }
+
+        for (int l = Math.min(level, top); l >= 0; l--) {
+            searchLayer(q, ep, epDistance, efConstruction, l, ctx);
+
+            CandidateHeap results = ctx.results;
+            int count = results.size();
+            int[] ids = new int[count];
+            float[] dists = new float[count];
+            for (int i = count - 1; i >= 0; i--) {
+                ids[i] = results.topId();
+                dists[i] = results.topDistance();
+                results.pop();
+            }
+
+            ep = ids[0];
+            epDistance = dists[0];
+
+            int selected = selectNeighbors(ids, dists, count, m);
+            int[] own = nodeLinks[l];
+            synchronized (own) {
+                System.arraycopy(ids, 0, own, 1, selected);
+                own[0] = selected;
+            }
+
+            int maxConnections = l == 0 ? maxM0 : m;
+            for (int i = 0; i < selected; i++)
+                connect(ids[i], id, dists[i], l, maxConnections);
+        }
+
+        if (level > top) {
+            synchronized (this) {
+                if (level > maxLevel) {
+                    maxLevel = level;
+                    entryPoint = id;
+                }
+            }
+        }
+    }
+
+    /**
+     * This method adds back link from existing node to the new one, shrinking neighbour list if it's full
+     */
+    private void connect(int node, int neighbor, float distance, int level, int maxConnections) {
+        int[] list = links[node][level];
+        synchronized (list) {
+            int count = list[0];
+            if (count < maxConnections) {
+                list[count + 1] = neighbor;
+                list[0] = count + 1;
+                return;
+            }
+
+            int[] ids = new int[count + 1];
+            float[] dists = new float[count + 1];
+            for (int i = 0; i < count; i++) {
+                ids[i] = list[i + 1];
+                dists[i] = distance(node, ids[i]);
+            }
+            ids[count] = neighbor;
+            dists[count] = distance;
+
+            sort(ids, dists, count + 1);
+            int selected = selectNeighbors(ids, dists, count + 1, maxConnections);
+            System.arraycopy(ids, 0, list, 1, selected);
+            list[0] = selected;
+        }
+    }
+
+    /**
+     * This method picks neighbours using heuristic from the paper: candidate is kept only if it's closer
+     * to the base element than to any of already selected neighbours. Selected neighbours are moved to
+     * the beginning of the arrays.
+     *
+     * @param ids candidates, sorted by distance
+     * @param dists distances between candidates and base element
+     * @param count number of candidates
+     * @param max max number of neighbours
+     * @return number of selected neighbours
+     */
+    private int selectNeighbors(int[] ids, float[] dists, int count, int max) {
+        if (count <= max)
+            return count;
+
+        int selected = 0;
+        for (int i = 0; i < count && selected < max; i++) {
+            boolean good = true;
+            for (int j = 0; j < selected; j++) {
+                if (distance(ids[i], ids[j]) < dists[i]) {
+                    good = false;
+                    break;
+                }
+            }
+
+            if (good) {
+                ids[selected] = ids[i];
+                dists[selected] = dists[i];
+                selected++;
+            }
+        }
+
+        return selected;
+    }
+
+    private static void sort(int[] ids, float[] dists, int count) {
+        // insertion sort, lists are short
+        for (int i = 1; i < count; i++) {
+            int id = ids[i];
+            float d = dists[i];
+            int j = i - 1;
+            while (j >= 0 && dists[j] > d) {
+                ids[j + 1] = ids[j];
+                dists[j + 1] = dists[j];
+                j--;
+            }
+            ids[j + 1] = id;
+            dists[j + 1] = d;
+        }
+    }
+
+    private int greedy(float[] q, int ep, float epDistance, int level, SearchContext ctx) {
+        int[] buffer = ctx.neighbors;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int count = copyNeighbors(ep, level, buffer);
+            for (int i = 0; i < count; i++) {
+                float d = distance(q, 0, buffer[i]);
+                if (d < epDistance) {
+                    epDistance = d;
+                    ep = buffer[i];
+                    changed = true;
+                }
+            }
+        }
+
+        ctx.greedyDistance = epDistance;
+        return ep;
+    }
+
+    /**
+     * This method does beam search within single layer, results are left in ctx.results max-heap
+     */
+    private void searchLayer(float[] q, int ep, float epDistance, int ef, int level, SearchContext ctx) {
+        CandidateHeap candidates = ctx.candidates;
+        CandidateHeap results = ctx.results;
+        candidates.clear();
+        results.clear();
+        ctx.nextVisit();
+
+        ctx.visit(ep);
+        candidates.push(ep, epDistance);
+        results.push(ep, epDistance);
+
+        int[] buffer = ctx.neighbors;
+        while (candidates.size() > 0) {
+            int current = candidates.topId();
+            float currentDistance = candidates.topDistance();
+            if (currentDistance > results.topDistance() && results.size() >= ef)
+                break;
+
+            candidates.pop();
+
+            int count = copyNeighbors(current, level, buffer);
+            for (int i = 0; i < count; i++) {
+                int e = buffer[i];
+                if (!ctx.visit(e))
+                    continue;
+
+                float d = distance(q, 0, e);
+                if (results.size() < ef || d < results.topDistance()) {
+                    candidates.push(e, d);
+                    results.push(e, d);
+                    if (results.size() > ef)
+                        results.pop();
+                }
+            }
+        }
+    }
+
+    private int copyNeighbors(int node, int level, int[] buffer) {
+        int[] list = links[node][level];
+        synchronized (list) {
+            int count = list[0];
+            System.arraycopy(list, 1, buffer, 0, count);
+            return count;
+        }
+    }
+
+    private int randomLevel() {
+        double r = random.nextDouble();
+        return (int) (-Math.log(Math.max(r, Double.MIN_NORMAL)) * levelMultiplier);
+    }
+
+    /**
+     * This method normalizes vector for cosine functions, so cosine becomes simple dot product
+     */
+    private float[] prepare(float[] vector, float[] target) {
+        if (function != COSINE_DISTANCE && function != COSINE_SIMILARITY) {
+            System.arraycopy(vector, 0, target, 0, dimension);
+            return target;
+        }
+
+        double norm = 0.0;
+        for (int i = 0; i < dimension; i++)
+            norm += vector[i] * vector[i];
+
+        float scale = norm > 0.0 ? (float) (1.0 / Math.sqrt(norm)) : 0.0f;
+        for (int i = 0; i < dimension; i++)
+            target[i] = vector[i] * scale;
+
+        return target;
+    }
+
+    private float distance(int a, int b) {
+        return distance(vectors[a >>> CHUNK_SHIFT], (a & (CHUNK_ROWS - 1)) * dimension, b);
+    }
+
+    /**
+     * This method returns internal distance between vector and indexed item: lower is always better
+     */
+    private float distance(float[] a, int offset, int item) {
+        float[] b = vectors[item >>> CHUNK_SHIFT];
+        int bOffset = (item & (CHUNK_ROWS - 1)) * dimension;
+
+        float result = 0.0f;
+        switch (function) {
+            case MANHATTAN:
+                for (int i = 0; i < dimension; i++)
+                    result += Math.abs(a[offset + i] - b[bOffset + i]);
+                return result;
+            case COSINE_DISTANCE:
+            case COSINE_SIMILARITY:
+                for (int i = 0; i < dimension; i++)
+                    result += a[offset + i] * b[bOffset + i];
+                return 1.0f - result;
+            case DOT:
+                for (int i = 0; i < dimension; i++)
+                    result += a[offset + i] * b[bOffset + i];
+                return -result;
+            case EUCLIDEAN:
+            default:
+                // squared distance keeps ordering, square root is taken only for reported results
+                for (int i = 0; i < dimension; i++) {
+                    float d = a[offset + i] - b[bOffset + i];
+                    result += d * d;
+                }
+                return result;
+        }
+    }
+
+    private float externalDistance(float internal) {
+        switch (function) {
+            case EUCLIDEAN:
+                return (float) Math.sqrt(internal);
+            case COSINE_SIMILARITY:
+                return 1.0f - internal;
+            case DOT:
+                return -internal;
+            default:
+                return internal;
+        }
+    }
+
+    /**
+     * Per-thread search state, reused across searches
+     */
+    private class SearchContext {
+        private final CandidateHeap candidates = new CandidateHeap(64, false);
+        private final CandidateHeap results = new CandidateHeap(64, true);
+        private final int[] neighbors = new int[maxM0];
+        private final float[] query = new float[dimension];
+        private int[] visited = new int[0];
+        private int visitMark = 0;
+        private float greedyDistance;
+
+        private void nextVisit() {
+            if (visited.length < capacity)
+                visited = new int[capacity];
+
+            if (++visitMark == Integer.MAX_VALUE) {
+                Arrays.fill(visited, 0);
+                visitMark = 1;
+            }
+        }
+
+        /**
+         * @return true if node wasn't visited before within current search
+         */
+        private boolean visit(int node) {
+            if (visited[node] == visitMark)
+                return false;
+
+            visited[node] = visitMark;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,520 @@
+package org.deeplearning4j.clustering.pq;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.deeplearning4j.clustering.util.ChunkedMatrix;
+import org.deeplearning4j.clustering.vptree.BatchSearchResult;
+import org.deeplearning4j.clustering.vptree.KnnHeaps;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Approximate nearest neighbours index over product-quantized vectors, with optional inverted file (IVF-PQ).
+ *
+ * With {@code numLists > 0} vectors are first assigned to the nearest coarse centroid, and only residuals are
+ * quantized. Search then scans only {@code numProbes} lists nearest to the query. With {@code numLists == 0}
+ * all codes are scanned.
+ *
+ * Distances to codes are computed via lookup tables (asymmetric distance computation). Index itself keeps
+ * only codes: points are streamed row by row while fitting, so they can be split into memory-mapped chunks.
+ * Optionally, {@code rerankSize} best candidates are re-ranked against exact vectors. Those are read from
+ * the chunks given to fit(), so only with re-ranking enabled at that point the chunks stay referenced,
+ * and they should be memory-mapped to stay out of heap.
+ *
+ * Supported similarity functions: euclidean, cosinedistance, cosinesimilarity and dot.
+ * Results are ordered from the best match to the worst one.
+ *
+ * PLEASE NOTE: Search is thread-safe once index is fitted.
+ */
+public class PQIndex {
+    public static final int DEFAULT_TRAIN_SIZE = 65536;
+    public static final int DEFAULT_ITERATIONS = 20;
+
+    private static final int EUCLIDEAN = 0;
+    private static final int COSINE_DISTANCE = 1;
+    private static final int COSINE_SIMILARITY = 2;
+    private static final int DOT = 3;
+
+    @Getter
+    private final String similarityFunction;
+    @Getter
+    private final int numSubspaces;
+    @Getter
+    private final int numCentroids;
+    @Getter
+    private final int numLists;
+    @Getter
+    private volatile int numProbes = 1;
+    @Getter
+    private volatile int rerankSize = 0;
+
+    private final int function;
+
+    @Getter
+    private ProductQuantizer quantizer;
+    @Getter
+    private int dimension;
+    @Getter
+    private int numItems;
+
+    private float[] coarse;
+    private int[][] listIds;
+    private byte[][] listCodes;
+    private int[] listSizes;
+
+    // exact vectors, used for re-ranking only. null if re-ranking was disabled during fit
+    private ChunkedMatrix vectors;
+
+    /**
+     *
+     * @param similarityFunction similarity function name
+     * @param numSubspaces number of subspaces, i.e. bytes per encoded vector. Vectors length should be divisible by it
+     * @param numCentroids number of centroids per subspace, up to 256
+     * @param numLists number of inverted lists, 0 disables IVF
+     */
+    public PQIndex(@NonNull String similarityFunction, int numSubspaces, int numCentroids, int numLists) {
+        switch (similarityFunction) {
+            case "euclidean":
+                function = EUCLIDEAN;
+                break;
+            case "cosinedistance":
+                function = COSINE_DISTANCE;
+                break;
+            case "cosinesimilarity":
+                function = COSINE_SIMILARITY;
+                break;
+            case "dot":
+                function = DOT;
+                break;
+            default:
+                throw new ND4JIllegalStateException("Similarity function [" + similarityFunction
+                                + "] isn't supported by PQ index");
+        }
+
+        if (numSubspaces < 1)
+            throw new ND4JIllegalStateException("Number of subspaces should be positive value");
+
+        if (numCentroids < 1 || numCentroids > ProductQuantizer.MAX_CENTROIDS)
+            throw new ND4JIllegalStateException("Number of centroids should be in range [1, "
+                            + ProductQuantizer.MAX_CENTROIDS + "]");
+
+        if (numLists < 0)
+            throw new ND4JIllegalStateException("Number of lists can't be negative");
+
+        this.similarityFunction = similarityFunction;
+        this.numSubspaces = numSubspaces;
+        this.numCentroids = numCentroids;
+        this.numLists = numLists;
+    }
+
+    /**
+     * This method sets number of inverted lists scanned per query. Ignored if IVF is disabled.
+     *
+     * @param numProbes
+     */
+    public void setNumProbes(int numProbes) {
+        if (numProbes < 1)
+            throw new ND4JIllegalStateException("Number of probes should be positive value");
+
+        this.numProbes = numProbes;
+    }
+
+    /**
+     * This method sets number of best candidates re-ranked against exact vectors. 0 disables re-ranking,
+     * and approximate distances are returned.
+     *
+     * PLEASE NOTE: re-ranking should be enabled before fit(), otherwise exact vectors aren't kept
+     *
+     * @param rerankSize
+     */
+    public void setRerankSize(int rerankSize) {
+        if (rerankSize < 0)
+            throw new ND4JIllegalStateException("Rerank size can't be negative");
+
+        if (rerankSize > 0 && quantizer != null && vectors == null)
+            throw new ND4JIllegalStateException("PQ index was fitted without re-ranking, so exact vectors "
+                            + "aren't available. Set rerank size before fit()");
+
+        this.rerankSize = rerankSize;
+    }
+
+    /**
+     * This method trains quantizers on a random sample of given points, and encodes all of them
+     *
+     * @param points
+     */
+    public void fit(@NonNull INDArray points) {
+        fit(points, DEFAULT_TRAIN_SIZE, DEFAULT_ITERATIONS, 119);
+    }
+
+    /**
+     * This method trains quantizers on a random sample of given points, and encodes all of them
+     *
+     * @param points matrix of vectors, one vector per row
+     * @param trainSize max number of points used for training
+     * @param iterations number of k-means iterations
+     * @param seed
+     */
+    public void fit(@NonNull INDArray points, int trainSize, int iterations, long seed) {
+        if (points.rank() != 2)
+            throw new ND4JIllegalStateException("Points should be a matrix, but got shape "
+                            + Arrays.toString(points.shape()));
+
+        fit(new ChunkedMatrix(points), trainSize, iterations, seed);
+    }
+
+    /**
+     * This method trains quantizers on a random sample of given points, and encodes all of them
+     *
+     * @param points chunks of vectors, one vector per row
+     */
+    public void fit(@NonNull ChunkedMatrix points) {
+        fit(points, DEFAULT_TRAIN_SIZE, DEFAULT_ITERATIONS, 119);
+    }
+
+    /**
+     * This method trains quantizers on a random sample of given points, and encodes all of them.
+     * Points are read row by row and never copied as a whole: only the training sample is kept on heap.
+     * If re-ranking is enabled, points stay referenced to read exact vectors from.
+     *
+     * @param points chunks of vectors, one vector per row
+     * @param trainSize max number of points used for training
+     * @param iterations number of k-means iterations
+     * @param seed
+     */
+    public void fit(@NonNull ChunkedMatrix points, int trainSize, int iterations, long seed) {
+        if (points.columns() % numSubspaces != 0)
+            throw new ND4JIllegalStateException("Number of columns " + points.columns()
+                            + " should be divisible by number of subspaces " + numSubspaces);
+
+        this.vectors = rerankSize > 0 ? points : null;
+        this.dimension = points.columns();
+        this.numItems = points.rows();
+
+        // reservoir sampling, so only sampled row numbers are kept in memory
+        Random random = new Random(seed);
+        int rows = Math.min(Math.max(1, trainSize), numItems);
+        int[] sample = new int[rows];
+        for (int r = 0; r < numItems; r++) {
+            if (r < rows) {
+                sample[r] = r;
+            } else {
+                int j = random.nextInt(r + 1);
+                if (j < rows)
+                    sample[j] = r;
+            }
+        }
+
+        float[] train = new float[rows * dimension];
+        for (int r = 0; r < rows; r++)
+            readRow(points, sample[r], train, r * dimension);
+
+        int lists = Math.max(1, numLists);
+        if (numLists > 0) {
+            coarse = ProductQuantizer.kMeans(train, rows, dimension, lists, iterations, random);
+
+            // codebooks are trained on residuals
+            for (int r = 0; r < rows; r++) {
+                int c = ProductQuantizer.nearest(coarse, 0, lists, train, r * dimension, dimension);
+                for (int i = 0; i < dimension; i++)
+                    train[r * dimension + i] -= coarse[c * dimension + i];
+            }
+        } else {
+            coarse = new float[dimension];
+        }
+
+        quantizer = ProductQuantizer.train(train, rows, dimension, numSubspaces, numCentroids, iterations,
+                        random.nextLong());
+
+        listIds = new int[lists][];
+        listCodes = new byte[lists][];
+        listSizes = new int[lists];
+        for (int l = 0; l < lists; l++) {
+            listIds[l] = new int[16];
+            listCodes[l] = new byte[16 * numSubspaces];
+        }
+
+        float[] vector = new float[dimension];
+        for (int r = 0; r < numItems; r++) {
+            readRow(points, r, vector, 0);
+            int l = lists > 1 ? ProductQuantizer.nearest(coarse, 0, lists, vector, 0, dimension) : 0;
+            for (int i = 0; i < dimension; i++)
+                vector[i] -= coarse[l * dimension + i];
+
+            int size = listSizes[l];
+            if (size == listIds[l].length) {
+                listIds[l] = Arrays.copyOf(listIds[l], size * 2);
+                listCodes[l] = Arrays.copyOf(listCodes[l], size * 2 * numSubspaces);
+            }
+
+            listIds[l][size] = r;
+            quantizer.encode(vector, 0, listCodes[l], size * numSubspaces);
+            listSizes[l] = size + 1;
+        }
+
+        // trimming lists, there's no sense keeping extra capacity around
+        for (int l = 0; l < lists; l++) {
+            listIds[l] = Arrays.copyOf(listIds[l], listSizes[l]);
+            listCodes[l] = Arrays.copyOf(listCodes[l], listSizes[l] * numSubspaces);
+        }
+    }
+
+    /**
+     * This method searches k nearest neighbours for each row of given matrix
+     *
+     * @param queries matrix of queries, one query per row
+     * @param k
+     * @return search results, missing results (if index has less than k items) have index -1
+     */
+    public BatchSearchResult search(@NonNull INDArray queries, int k) {
+        if (queries.isVector())
+            queries = queries.reshape(1, queries.length());
+
+        if (queries.columns() != dimension)
+            throw new ND4JIllegalStateException("Queries should have shape of [N, " + dimension + "] but got "
+                            + Arrays.toString(queries.shape()));
+
+        int numQueries = queries.rows();
+        int[] indices = new int[numQueries * k];
+        float[] distances = new float[numQueries * k];
+        int[] idx = new int[k];
+        float[] dist = new float[k];
+
+        for (int q = 0; q < numQueries; q++) {
+            int count = search(queries.getRow(q).dup().data().asFloat(), k, idx, dist);
+            System.arraycopy(idx, 0, indices, q * k, count);
+            System.arraycopy(dist, 0, distances, q * k, count);
+            for (int i = count; i < k; i++) {
+                indices[q * k + i] = -1;
+                distances[q * k + i] = Float.NaN;
+            }
+        }
+
+        return new BatchSearchResult(numQueries, k, indices, distances);
+    }
+
+    /**
+     * This method searches k nearest neighbours of given query
+     *
+     * @param query
+     * @param k
+     * @param outIndices array of at least k elements, receives item indices, the best match first
+     * @param outDistances array of at least k elements, receives distances (or similarities)
+     * @return number of results written
+     */
+    public int search(@NonNull float[] query, int k, @NonNull int[] outIndices, @NonNull float[] outDistances) {
+        if (quantizer == null)
+            throw new ND4JIllegalStateException("PQ index should be fitted before search");
+
+        if (query.length != dimension)
+            throw new ND4JIllegalStateException("Query should have length of " + dimension + " but got "
+                            + query.length);
+
+        if (k < 1)
+            return 0;
+
+        float[] q = Arrays.copyOf(query, dimension);
+        if (function == COSINE_DISTANCE || function == COSINE_SIMILARITY)
+            normalize(q, 0);
+
+        int lists = listIds.length;
+        int probes = lists > 1 ? Math.min(numProbes, lists) : 1;
+        int[] probed = new int[probes];
+        float[] coarseProducts = new float[probes];
+        selectLists(q, probed, coarseProducts);
+
+        int rerank = rerankSize;
+        int candidatesCount = Math.max(k, rerank);
+        KnnHeaps candidates = new KnnHeaps(1, candidatesCount);
+        float[] table = new float[numSubspaces * numCentroids];
+        float[] residual = new float[dimension];
+
+        if (function == DOT)
+            quantizer.computeInnerProductTable(q, table);
+
+        for (int p = 0; p < probes; p++) {
+            int l = probed[p];
+            float base = 0.0f;
+            if (function == DOT) {
+                // q * (c + r) = q * c + q * r, so table doesn't depend on the list
+                base = coarseProducts[p];
+            } else {
+                for (int i = 0; i < dimension; i++)
+                    residual[i] = q[i] - coarse[l * dimension + i];
+
+                quantizer.computeDistanceTable(residual, table);
+            }
+
+            int[] ids = listIds[l];
+            byte[] codes = listCodes[l];
+            int size = listSizes[l];
+            for (int i = 0; i < size; i++) {
+                float d = quantizer.lookup(table, codes, i * numSubspaces);
+                candidates.offer(0, ids[i], function == DOT ? -(base + d) : d);
+            }
+        }
+
+        int[] candidateIds = new int[candidatesCount];
+        float[] candidateDistances = new float[candidatesCount];
+        int found = candidates.drain(0, candidateIds, candidateDistances, 0);
+
+        if (rerank > 0 && vectors != null) {
+            KnnHeaps exact = new KnnHeaps(1, k);
+            float[] vector = new float[dimension];
+            for (int i = 0; i < found; i++) {
+                vectors.readRow(candidateIds[i], vector, 0);
+                exact.offer(0, candidateIds[i], exactDistance(q, vector));
+            }
+
+            found = exact.drain(0, candidateIds, candidateDistances, 0);
+        }
+
+        found = Math.min(found, k);
+        for (int i = 0; i < found; i++) {
+            outIndices[i] = candidateIds[i];
+            outDistances[i] = externalDistance(candidateDistances[i]);
+        }
+
+        return found;
+    }
+
+    /**
+     * This method returns number of bytes used by this index, excluding exact vectors used for re-ranking
+     *
+     * @return
+     */
+    public long getMemoryBytes() {
+        if (quantizer == null)
+            return 0;
+
+        return estimateMemory(numItems, dimension, numSubspaces, numCentroids, numLists);
+    }
+
+    /**
+     * This method estimates number of bytes required by PQ index with given parameters,
+     * excluding exact vectors used for re-ranking
+     *
+     * @param numItems number of indexed vectors
+     * @param dimension vectors length
+     * @param numSubspaces
+     * @param numCentroids
+     * @param numLists
+     * @return
+     */
+    public static long estimateMemory(long numItems, int dimension, int numSubspaces, int numCentroids,
+                    int numLists) {
+        long codes = numItems * numSubspaces;
+        long ids = numItems * 4L;
+        long codebooks = 4L * numCentroids * dimension;
+        long coarseCentroids = 4L * Math.max(1, numLists) * dimension;
+        return codes + ids + codebooks + coarseCentroids;
+    }
+
+    /**
+     * This method returns number of bytes required to store the same vectors as float32, for comparison
+     *
+     * @param numItems
+     * @param dimension
+     * @return
+     */
+    public static long estimateExactMemory(long numItems, int dimension) {
+        return 4L * numItems * dimension;
+    }
+
+    private void selectLists(float[] q, int[] probed, float[] coarseProducts) {
+        int lists = listIds.length;
+        int probes = probed.length;
+        KnnHeaps heaps = new KnnHeaps(1, probes);
+        for (int l = 0; l < lists; l++) {
+            float sum = 0.0f;
+            if (function == DOT) {
+                for (int i = 0; i < dimension; i++)
+                    sum += q[i] * coarse[l * dimension + i];
+                sum = -sum;
+            } else {
+                for (int i = 0; i < dimension; i++) {
+                    float d = q[i] - coarse[l * dimension + i];
+                    sum += d * d;
+                }
+            }
+            heaps.offer(0, l, sum);
+        }
+
+        heaps.drain(0, probed, coarseProducts, 0);
+        if (function == DOT) {
+            for (int p = 0; p < probes; p++)
+                coarseProducts[p] = -coarseProducts[p];
+        }
+    }
+
+    private void readRow(ChunkedMatrix points, int row, float[] target, int targetOffset) {
+        points.readRow(row, target, targetOffset);
+
+        if (function == COSINE_DISTANCE || function == COSINE_SIMILARITY)
+            normalize(target, targetOffset);
+    }
+
+    private void normalize(float[] vector, int vectorOffset) {
+        double norm = 0.0;
+        for (int i = 0; i < dimension; i++)
+            norm += vector[vectorOffset + i] * vector[vectorOffset + i];
+
+        if (norm > 0.0) {
+            float scale = (float) (1.0 / Math.sqrt(norm));
+            for (int i = 0; i < dimension; i++)
+                vector[vectorOffset + i] *= scale;
+        }
+    }
+
+    /**
+     * This method returns exact distance, in the same units as lookup table distances
+     */
+    private float exactDistance(float[] q, float[] v) {
+        switch (function) {
+            case DOT: {
+                float dot = 0.0f;
+                for (int i = 0; i < dimension; i++)
+                    dot += q[i] * v[i];
+                return -dot;
+            }
+            case COSINE_DISTANCE:
+            case COSINE_SIMILARITY: {
+                // query is normalized already, so squared distance between unit vectors is 2 - 2 * cos
+                float dot = 0.0f;
+                float norm = 0.0f;
+                for (int i = 0; i < dimension; i++) {
+                    dot += q[i] * v[i];
+                    norm += v[i] * v[i];
+                }
+                float cos = norm > 0.0f ? dot / (float) Math.sqrt(norm) : 0.0f;
+                return 2.0f - 2.0f * cos;
+            }
+            case EUCLIDEAN:
+            default: {
+                float sum = 0.0f;
+                for (int i = 0; i < dimension; i++) {
+                    float d = q[i] - v[i];
+                    sum += d * d;
+                }
+                return sum;
+            }
+        }
+    }
+
+    private float externalDistance(float internal) {
+        switch (function) {
+            case EUCLIDEAN:
+                return (float) Math.sqrt(Math.max(0.0f, internal));
+            case COSINE_DISTANCE:
+                return internal / 2.0f;
+            case COSINE_SIMILARITY:
+                return 1.0f - internal / 2.0f;
+            case DOT:
+            default:
+                return -internal;
+        }
+    }
+}
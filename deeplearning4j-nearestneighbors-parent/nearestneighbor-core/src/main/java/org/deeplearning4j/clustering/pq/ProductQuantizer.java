@@ -0,0 +1,275 @@
+package org.deeplearning4j.clustering.pq;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Product quantizer: vector is split into {@code numSubspaces} equal parts, and each part is replaced
+ * with index of the nearest centroid from the codebook of its subspace. So each vector is stored as
+ * {@code numSubspaces} bytes instead of {@code dimension} floats.
+ *
+ * Distances between a query and encoded vectors are computed asymmetrically: query stays uncompressed,
+ * and distances to all centroids are precomputed into lookup table once per query.
+ *
+ * @see <a href="https://hal.inria.fr/inria-00514462">Jegou, Douze and Schmid, 2011</a>
+ */
+public class ProductQuantizer {
+    public static final int MAX_CENTROIDS = 256;
+
+    @Getter
+    private final int dimension;
+    @Getter
+    private final int numSubspaces;
+    @Getter
+    private final int numCentroids;
+    @Getter
+    private final int subDimension;
+
+    // [numSubspaces][numCentroids][subDimension], flattened
+    private final float[] codebooks;
+
+    protected ProductQuantizer(int dimension, int numSubspaces, int numCentroids, @NonNull float[] codebooks) {
+        this.dimension = dimension;
+        this.numSubspaces = numSubspaces;
+        this.numCentroids = numCentroids;
+        this.subDimension = dimension / numSubspaces;
+        this.codebooks = codebooks;
+    }
+
+    /**
+     * This method trains codebooks on given vectors
+     *
+     * @param data training vectors, stored row by row
+     * @param rows number of training vectors
+     * @param dimension vectors length, should be divisible by numSubspaces
+     * @param numSubspaces number of subspaces, i.e. number of bytes per encoded vector
+     * @param numCentroids number of centroids per subspace, up to 256
+     * @param iterations number of k-means iterations
+     * @param seed
+     * @return
+     */
+    public static ProductQuantizer train(@NonNull float[] data, int rows, int dimension, int numSubspaces,
+                    int numCentroids, int iterations, long seed) {
+        if (numSubspaces < 1 || dimension % numSubspaces != 0)
+            throw new ND4JIllegalStateException("Dimension " + dimension + " should be divisible by number of subspaces "
+                            + numSubspaces);
+
+        if (numCentroids < 1 || numCentroids > MAX_CENTROIDS)
+            throw new ND4JIllegalStateException("Number of centroids should be in range [1, " + MAX_CENTROIDS + "]");
+
+        if (rows < 1)
+            throw new ND4JIllegalStateException("At least one training vector is required");
+
+        int subDimension = dimension / numSubspaces;
+        float[] codebooks = new float[numSubspaces * numCentroids * subDimension];
+        float[] sub = new float[rows * subDimension];
+        Random random = new Random(seed);
+
+        for (int s = 0; s < numSubspaces; s++) {
+            for (int r = 0; r < rows; r++)
+                System.arraycopy(data, r * dimension + s * subDimension, sub, r * subDimension, subDimension);
+
+            float[] centroids = kMeans(sub, rows, subDimension, numCentroids, iterations, random);
+            System.arraycopy(centroids, 0, codebooks, s * numCentroids * subDimension, centroids.length);
+        }
+
+        return new ProductQuantizer(dimension, numSubspaces, numCentroids, codebooks);
+    }
+
+    /**
+     * This method encodes single vector
+     *
+     * @param vector
+     * @param offset position of the vector in the array
+     * @param codes output array
+     * @param codesOffset position in output array
+     */
+    public void encode(@NonNull float[] vector, int offset, @NonNull byte[] codes, int codesOffset) {
+        for (int s = 0; s < numSubspaces; s++) {
+            int best = nearest(codebooks, s * numCentroids * subDimension, numCentroids, vector,
+                            offset + s * subDimension, subDimension);
+            codes[codesOffset + s] = (byte) best;
+        }
+    }
+
+    /**
+     * This method reconstructs vector from its codes
+     *
+     * @param codes
+     * @param codesOffset
+     * @param vector output array
+     * @param offset position in output array
+     */
+    public void decode(@NonNull byte[] codes, int codesOffset, @NonNull float[] vector, int offset) {
+        for (int s = 0; s < numSubspaces; s++) {
+            int c = codes[codesOffset + s] & 0xFF;
+            System.arraycopy(codebooks, (s * numCentroids + c) * subDimension, vector, offset + s * subDimension,
+                            subDimension);
+        }
+    }
+
+    /**
+     * This method fills lookup table with squared euclidean distances between query subvectors and all centroids
+     *
+     * @param query
+     * @param table output array of numSubspaces * numCentroids elements
+     */
+    public void computeDistanceTable(@NonNull float[] query, @NonNull float[] table) {
+        for (int s = 0; s < numSubspaces; s++) {
+            for (int c = 0; c < numCentroids; c++) {
+                int pos = (s * numCentroids + c) * subDimension;
+                int q = s * subDimension;
+                float sum = 0.0f;
+                for (int i = 0; i < subDimension; i++) {
+                    float d = query[q + i] - codebooks[pos + i];
+                    sum += d * d;
+                }
+                table[s * numCentroids + c] = sum;
+            }
+        }
+    }
+
+    /**
+     * This method fills lookup table with dot products between query subvectors and all centroids
+     *
+     * @param query
+     * @param table output array of numSubspaces * numCentroids elements
+     */
+    public void computeInnerProductTable(@NonNull float[] query, @NonNull float[] table) {
+        for (int s = 0; s < numSubspaces; s++) {
+            for (int c = 0; c < numCentroids; c++) {
+                int pos = (s * numCentroids + c) * subDimension;
+                int q = s * subDimension;
+                float sum = 0.0f;
+                for (int i = 0; i < subDimension; i++)
+                    sum += query[q + i] * codebooks[pos + i];
+
+                table[s * numCentroids + c] = sum;
+            }
+        }
+    }
+
+    /**
+     * This method sums lookup table values for given codes
+     *
+     * @param table lookup table, produced by computeDistanceTable() or computeInnerProductTable()
+     * @param codes
+     * @param codesOffset
+     * @return
+     */
+    public float lookup(@NonNull float[] table, @NonNull byte[] codes, int codesOffset) {
+        float sum = 0.0f;
+        for (int s = 0, t = 0; s < numSubspaces; s++, t += numCentroids)
+            sum += table[t + (codes[codesOffset + s] & 0xFF)];
+
+        return sum;
+    }
+
+    /**
+     * This method returns number of bytes used by codebooks
+     *
+     * @return
+     */
+    public long getMemoryBytes() {
+        return 4L * codebooks.length;
+    }
+
+    /**
+     * This method runs Lloyd's k-means over vectors stored row by row, and returns centroids stored the same way
+     *
+     * @param data
+     * @param rows
+     * @param dimension
+     * @param k
+     * @param iterations
+     * @param random
+     * @return
+     */
+    public static float[] kMeans(@NonNull float[] data, int rows, int dimension, int k, int iterations,
+                    @NonNull Random random) {
+        float[] centroids = new float[k * dimension];
+
+        // initial centroids are random distinct rows, if we have enough of them
+        int[] order = new int[rows];
+        for (int i = 0; i < rows; i++)
+            order[i] = i;
+        for (int i = 0; i < Math.min(k, rows); i++) {
+            int j = i + random.nextInt(rows - i);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+        for (int c = 0; c < k; c++)
+            System.arraycopy(data, order[c % rows] * dimension, centroids, c * dimension, dimension);
+
+        if (rows <= k)
+            return centroids;
+
+        int[] assignments = new int[rows];
+        int[] counts = new int[k];
+        double[] sums = new double[k * dimension];
+        for (int iter = 0; iter < iterations; iter++) {
+            boolean changed = false;
+            for (int r = 0; r < rows; r++) {
+                int c = nearest(centroids, 0, k, data, r * dimension, dimension);
+                if (c != assignments[r] || iter == 0) {
+                    assignments[r] = c;
+                    changed = true;
+                }
+            }
+
+            if (!changed)
+                break;
+
+            Arrays.fill(counts, 0);
+            Arrays.fill(sums, 0.0);
+            for (int r = 0; r < rows; r++) {
+                int c = assignments[r];
+                counts[c]++;
+                for (int i = 0; i < dimension; i++)
+                    sums[c * dimension + i] += data[r * dimension + i];
+            }
+
+            for (int c = 0; c < k; c++) {
+                if (counts[c] == 0) {
+                    // empty cluster gets random vector, so all centroids stay useful
+                    System.arraycopy(data, random.nextInt(rows) * dimension, centroids, c * dimension, dimension);
+                    continue;
+                }
+
+                for (int i = 0; i < dimension; i++)
+                    centroids[c * dimension + i] = (float) (sums[c * dimension + i] / counts[c]);
+            }
+        }
+
+        return centroids;
+    }
+
+    /**
+     * This method returns index of the centroid nearest to given vector, by squared euclidean distance
+     */
+    protected static int nearest(float[] centroids, int centroidsOffset, int k, float[] vector, int offset,
+                    int dimension) {
+        int best = 0;
+        float bestDistance = Float.POSITIVE_INFINITY;
+        for (int c = 0; c < k; c++) {
+            int pos = centroidsOffset + c * dimension;
+            float sum = 0.0f;
+            for (int i = 0; i < dimension && sum < bestDistance; i++) {
+                float d = vector[offset + i] - centroids[pos + i];
+                sum += d * d;
+            }
+
+            if (sum < bestDistance) {
+                bestDistance = sum;
+                best = c;
+            }
+        }
+
+        return best;
+    }
+}
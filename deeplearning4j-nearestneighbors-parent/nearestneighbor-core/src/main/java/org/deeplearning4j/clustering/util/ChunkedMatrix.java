@@ -0,0 +1,148 @@
+package org.deeplearning4j.clustering.util;
+
+import lombok.NonNull;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-only matrix that consists of row chunks, i.e. separate BinarySerde files, each memory-mapped on its own.
+ * Chunks are used in place: rows are read directly from chunk buffers, and nothing is copied into a single array.
+ *
+ * Rows are numbered across chunks: rows of the second chunk go after rows of the first one, and so on.
+ *
+ * PLEASE NOTE: chunks should be 2D matrices with equal number of columns, and shouldn't be modified while used here.
+ */
+public class ChunkedMatrix {
+    private final List<INDArray> chunks;
+    private final int[] firstRows;
+    private final DataBuffer[] buffers;
+    private final long[] offsets;
+    private final long[] rowStrides;
+    private final long[] columnStrides;
+    private final int rows;
+    private final int columns;
+
+    public ChunkedMatrix(@NonNull INDArray... chunks) {
+        this(Arrays.asList(chunks));
+    }
+
+    public ChunkedMatrix(@NonNull List<INDArray> chunks) {
+        if (chunks.isEmpty())
+            throw new ND4JIllegalStateException("At least one chunk is required");
+
+        int n = chunks.size();
+        this.chunks = Collections.unmodifiableList(new ArrayList<>(chunks));
+        this.firstRows = new int[n];
+        this.buffers = new DataBuffer[n];
+        this.offsets = new long[n];
+        this.rowStrides = new long[n];
+        this.columnStrides = new long[n];
+
+        long total = 0;
+        int cols = -1;
+        for (int i = 0; i < n; i++) {
+            INDArray chunk = chunks.get(i);
+            if (chunk.rank() != 2)
+                throw new ND4JIllegalStateException("Chunks should be matrices, but chunk " + i + " has shape "
+                                + Arrays.toString(chunk.shape()));
+
+            if (cols < 0)
+                cols = chunk.columns();
+            else if (cols != chunk.columns())
+                throw new ND4JIllegalStateException("Chunks should have equal number of columns: expected " + cols
+                                + " but chunk " + i + " has " + chunk.columns());
+
+            firstRows[i] = (int) total;
+            buffers[i] = chunk.data();
+            offsets[i] = chunk.offset();
+            rowStrides[i] = chunk.stride(0);
+            columnStrides[i] = chunk.stride(1);
+            total += chunk.rows();
+        }
+
+        if (total > Integer.MAX_VALUE)
+            throw new ND4JIllegalStateException("Total number of rows " + total + " exceeds " + Integer.MAX_VALUE);
+
+        this.rows = (int) total;
+        this.columns = cols;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int columns() {
+        return columns;
+    }
+
+    public int numChunks() {
+        return chunks.size();
+    }
+
+    /**
+     * @param chunk chunk number
+     * @return chunk itself, not a copy
+     */
+    public INDArray getChunk(int chunk) {
+        return chunks.get(chunk);
+    }
+
+    /**
+     * @param chunk chunk number
+     * @return number of the first row of given chunk, across all chunks
+     */
+    public int getFirstRow(int chunk) {
+        return firstRows[chunk];
+    }
+
+    /**
+     * This method returns row with given number as view of its chunk, without copying it
+     *
+     * @param row row number, across all chunks
+     * @return row vector
+     */
+    public INDArray getRow(int row) {
+        int chunk = chunkOf(row);
+        return chunks.get(chunk).getRow(row - firstRows[chunk]);
+    }
+
+    /**
+     * This method copies row with given number into target array
+     *
+     * @param row row number, across all chunks
+     * @param target array to copy row to
+     * @param targetOffset position in target array
+     */
+    public void readRow(int row, @NonNull float[] target, int targetOffset) {
+        int chunk = chunkOf(row);
+        DataBuffer buffer = buffers[chunk];
+        long columnStride = columnStrides[chunk];
+        long pos = offsets[chunk] + (row - firstRows[chunk]) * rowStrides[chunk];
+        for (int i = 0; i < columns; i++, pos += columnStride)
+            target[targetOffset + i] = buffer.getFloat(pos);
+    }
+
+    private int chunkOf(int row) {
+        if (row < 0 || row >= rows)
+            throw new ND4JIllegalStateException("Row " + row + " is out of range [0, " + rows + ")");
+
+        if (firstRows.length == 1)
+            return 0;
+
+        int pos = Arrays.binarySearch(firstRows, row);
+        // chunks can be empty, so few chunks may start at the same row: the last of them contains it
+        if (pos >= 0) {
+            while (pos + 1 < firstRows.length && firstRows[pos + 1] == row)
+                pos++;
+            return pos;
+        }
+
+        return -pos - 2;
+    }
+}
@@ -0,0 +1,40 @@
+package org.deeplearning4j.clustering.vptree;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Results of batched k-nearest neighbours search, stored as flat arrays.
+ *
+ * Results for query {@code q} occupy positions {@code [q * k, (q + 1) * k)}, ordered from the best match to the worst.
+ */
+@Getter
+@AllArgsConstructor
+public class BatchSearchResult {
+    private int numQueries;
+    private int k;
+    private int[] indices;
+    private float[] distances;
+
+    /**
+     * This method returns item index of i-th result for given query
+     *
+     * @param query
+     * @param i
+     * @return
+     */
+    public int getIndex(int query, int i) {
+        return indices[query * k + i];
+    }
+
+    /**
+     * This method returns distance of i-th result for given query
+     *
+     * @param query
+     * @param i
+     * @return
+     */
+    public float getDistance(int query, int i) {
+        return distances[query * k + i];
+    }
+}
@@ -0,0 +1,470 @@
+package org.deeplearning4j.clustering.vptree;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+
+/**
+ * Vantage point tree stored as flat primitive arrays, instead of Node objects.
+ *
+ * Nodes are stored in pre-order: for node {@code i}, {@code indices[i]} is its item index, {@code thresholds[i]} is
+ * its radius, and {@code left[i]}/{@code right[i]} are ids of its children, or -1 if absent. The same layout is
+ * used as on-disk format of VPTree.
+ *
+ * Distances are calculated directly over items data buffer, and k nearest candidates are kept in KnnHeaps,
+ * so search with preallocated heaps and output arrays doesn't allocate anything.
+ * Search supports following similarity functions: euclidean, manhattan, cosinedistance, cosinesimilarity, dot.
+ *
+ * PLEASE NOTE: This class is thread-safe for search, as long as each thread uses its own KnnHeaps instance
+ */
+public class FlatVPTree {
+    // "VPT1" in ascii
+    private static final int FORMAT_MAGIC = 0x56505431;
+    private static final int FORMAT_VERSION = 1;
+    private static final int IO_CHUNK = 1 << 16;
+
+    static final int EUCLIDEAN = 0;
+    static final int MANHATTAN = 1;
+    static final int COSINE_DISTANCE = 2;
+    static final int COSINE_SIMILARITY = 3;
+    static final int DOT = 4;
+
+    @Getter
+    private final INDArray items;
+    @Getter
+    private final String similarityFunction;
+    @Getter
+    private final boolean invert;
+    @Getter
+    private final int numNodes;
+
+    private final int[] indices;
+    private final float[] thresholds;
+    private final int[] left;
+    private final int[] right;
+
+    // direct access to items
+    private final DataBuffer buffer;
+    private final long offset;
+    private final long rowStride;
+    private final long columnStride;
+    private final int columns;
+    private final int function;
+    private float[] norms;
+
+    protected FlatVPTree(@NonNull INDArray items, @NonNull String similarityFunction, boolean invert, int numNodes,
+                    @NonNull int[] indices, @NonNull float[] thresholds, @NonNull int[] left, @NonNull int[] right) {
+        if (items.rank() != 2)
+            throw new ND4JIllegalStateException("Items should be a matrix, but got shape " + Arrays.toString(items.shape()));
+
+        this.items = items;
+        this.similarityFunction = similarityFunction;
+        this.invert = invert;
+        this.numNodes = numNodes;
+        this.indices = indices;
+        this.thresholds = thresholds;
+        this.left = left;
+        this.right = right;
+
+        this.buffer = items.data();
+        this.offset = items.offset();
+        this.rowStride = items.stride(0);
+        this.columnStride = items.stride(1);
+        this.columns = items.columns();
+        this.function = functionCode(similarityFunction);
+    }
+
+    static int functionCode(String similarityFunction) {
+        switch (similarityFunction) {
+            case "euclidean":
+                return EUCLIDEAN;
+            case "manhattan":
+                return MANHATTAN;
+            case "cosinedistance":
+                return COSINE_DISTANCE;
+            case "cosinesimilarity":
+                return COSINE_SIMILARITY;
+            case "dot":
+                return DOT;
+            default:
+                // tree can still be saved, loaded and converted, just not searched
+                return -1;
+        }
+    }
+
+    /**
+     * This method flattens already built VPTree, nodes are laid out in pre-order
+     *
+     * @param tree
+     * @return
+     */
+    public static FlatVPTree fromTree(@NonNull VPTree tree) {
+        INDArray items = tree.getItems();
+        VPTree.Node root = tree.getRoot();
+        int numItems = items.rows();
+        int numNodes = 0;
+        int[] indices = new int[numItems];
+        float[] thresholds = new float[numItems];
+        int[] left = new int[numItems];
+        int[] right = new int[numItems];
+
+        // node ids are assigned in the order of visiting
+        Deque<VPTree.Node> stack = new ArrayDeque<>();
+        Deque<Integer> parents = new ArrayDeque<>();
+        Deque<Boolean> sides = new ArrayDeque<>();
+        if (root != null) {
+            stack.push(root);
+            parents.push(-1);
+            sides.push(true);
+        }
+
+        while (!stack.isEmpty()) {
+            VPTree.Node node = stack.pop();
+            int parent = parents.pop();
+            boolean isLeft = sides.pop();
+
+            int id = numNodes++;
+            indices[id] = node.getIndex();
+            thresholds[id] = node.getThreshold();
+            left[id] = -1;
+            right[id] = -1;
+
+            if (parent >= 0) {
+                if (isLeft)
+                    left[parent] = id;
+                else
+                    right[parent] = id;
+            }
+
+            // right goes first, so left subtree is visited first
+            if (node.getRight() != null) {
+                stack.push(node.getRight());
+                parents.push(id);
+                sides.push(false);
+            }
+
+            if (node.getLeft() != null) {
+                stack.push(node.getLeft());
+                parents.push(id);
+                sides.push(true);
+            }
+        }
+
+        return new FlatVPTree(items, tree.getSimilarityFunction(), tree.isInvert(), numNodes, indices, thresholds,
+                        left, right);
+    }
+
+    /**
+     * This method builds Node-based VPTree out of flat arrays, without any distance calculations
+     *
+     * @return
+     */
+    public VPTree toTree() {
+        VPTree.Node[] nodes = new VPTree.Node[numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            nodes[i] = new VPTree.Node(indices[i], thresholds[i]);
+            nodes[i].setPoint(items.getRow(indices[i]));
+        }
+
+        for (int i = 0; i < numNodes; i++) {
+            if (left[i] >= 0)
+                nodes[i].setLeft(nodes[left[i]]);
+
+            if (right[i] >= 0)
+                nodes[i].setRight(nodes[right[i]]);
+        }
+
+        return new VPTree(items, similarityFunction, invert, numNodes > 0 ? nodes[0] : null);
+    }
+
+    /**
+     * This method returns distance between given query and item, with respect to invert flag
+     *
+     * @param query
+     * @param item
+     * @return
+     */
+    public float distance(float[] query, int item) {
+        long pos = offset + item * rowStride;
+        float result;
+        switch (function) {
+            case MANHATTAN: {
+                float sum = 0.0f;
+                for (int i = 0; i < columns; i++, pos += columnStride)
+                    sum += Math.abs(query[i] - buffer.getFloat(pos));
+                result = sum;
+                break;
+            }
+            case COSINE_DISTANCE:
+            case COSINE_SIMILARITY: {
+                float dot = 0.0f;
+                float queryNorm = 0.0f;
+                for (int i = 0; i < columns; i++, pos += columnStride) {
+                    dot += query[i] * buffer.getFloat(pos);
+                    queryNorm += query[i] * query[i];
+                }
+                float similarity = dot / (float) (Math.sqrt(queryNorm) * norm(item));
+                result = function == COSINE_SIMILARITY ? similarity : 1.0f - similarity;
+                break;
+            }
+            case DOT: {
+                float dot = 0.0f;
+                for (int i = 0; i < columns; i++, pos += columnStride)
+                    dot += query[i] * buffer.getFloat(pos);
+                result = dot;
+                break;
+            }
+            case EUCLIDEAN:
+            default: {
+                float sum = 0.0f;
+                for (int i = 0; i < columns; i++, pos += columnStride) {
+                    float d = query[i] - buffer.getFloat(pos);
+                    sum += d * d;
+                }
+                result = (float) Math.sqrt(sum);
+                break;
+            }
+        }
+
+        return invert ? -result : result;
+    }
+
+    /**
+     * This method copies item vector into given array
+     *
+     * @param item
+     * @param target
+     * @param targetOffset
+     */
+    void readRow(int item, float[] target, int targetOffset) {
+        long pos = offset + item * rowStride;
+        for (int i = 0; i < columns; i++, pos += columnStride)
+            target[targetOffset + i] = buffer.getFloat(pos);
+    }
+
+    private float norm(int item) {
+        if (norms == null) {
+            // benign race: every thread computes exactly the same values
+            float[] n = new float[items.rows()];
+            for (int r = 0; r < n.length; r++) {
+                long pos = offset + r * rowStride;
+                float sum = 0.0f;
+                for (int i = 0; i < columns; i++, pos += columnStride) {
+                    float v = buffer.getFloat(pos);
+                    sum += v * v;
+                }
+                n[r] = (float) Math.sqrt(sum);
+            }
+            norms = n;
+        }
+        return norms[item];
+    }
+
+    /**
+     * This method performs k-nearest neighbours search, without any allocations
+     *
+     * @param query query vector, of length equal to number of items columns
+     * @param heaps heaps instance with numQueries >= 1 and k equal to number of requested neighbours
+     * @param outIndices output array for item indices, of length >= k
+     * @param outDistances output array for distances, of length >= k
+     * @return number of results, ordered from the best match to the worst
+     */
+    public int search(@NonNull float[] query, @NonNull KnnHeaps heaps, @NonNull int[] outIndices,
+                    @NonNull float[] outDistances) {
+        if (function < 0)
+            throw new ND4JIllegalStateException("Similarity function [" + similarityFunction
+                            + "] isn't supported by FlatVPTree search");
+
+        if (query.length != columns)
+            throw new ND4JIllegalStateException("Query should have length of " + columns + " but got "
+                            + query.length + " instead");
+
+        heaps.reset();
+        if (numNodes > 0)
+            search(0, query, heaps, null, null);
+
+        return heaps.drain(0, outIndices, outDistances, 0);
+    }
+
+    /**
+     * This method performs k-nearest neighbours search, skipping excluded items during the traversal: excluded items
+     * never take place in the heap, so k best non-excluded items are found no matter how many items are excluded.
+     * Heaps aren't reset, so results can be combined with other sources.
+     *
+     * @param query query vector, of length equal to number of items columns
+     * @param heaps heaps instance, results are offered for query 0
+     * @param ids ids of items: item i is offered to heaps as ids[i]
+     * @param excluded ids of items to skip
+     */
+    public void search(@NonNull float[] query, @NonNull KnnHeaps heaps, @NonNull int[] ids,
+                    @NonNull BitSet excluded) {
+        if (function < 0)
+            throw new ND4JIllegalStateException("Similarity function [" + similarityFunction
+                            + "] isn't supported by FlatVPTree search");
+
+        if (query.length != columns)
+            throw new ND4JIllegalStateException("Query should have length of " + columns + " but got "
+                            + query.length + " instead");
+
+        if (numNodes > 0)
+            search(0, query, heaps, ids, excluded);
+    }
+
+    /**
+     * This method performs k-nearest neighbours search
+     *
+     * @param query query row vector
+     * @param k number of neighbours
+     * @return results for single query, ordered from the best match to the worst
+     */
+    public BatchSearchResult search(@NonNull INDArray query, int k) {
+        if (!query.isVector() || query.length() != columns)
+            throw new ND4JIllegalStateException("Target for search should have shape of [" + 1 + ", " + columns
+                            + "] but got " + Arrays.toString(query.shape()) + " instead");
+
+        k = Math.min(k, items.rows());
+        float[] q = query.dup().data().asFloat();
+        int[] outIndices = new int[k];
+        float[] outDistances = new float[k];
+        search(q, new KnnHeaps(1, k), outIndices, outDistances);
+
+        return new BatchSearchResult(1, k, outIndices, outDistances);
+    }
+
+    private void search(int node, float[] query, KnnHeaps heaps, int[] ids, BitSet excluded) {
+        float distance = distance(query, indices[node]);
+        if (ids == null) {
+            heaps.offer(0, indices[node], distance);
+        } else if (!excluded.get(ids[indices[node]])) {
+            // excluded vantage points still route the search, they just aren't results
+            heaps.offer(0, ids[indices[node]], distance);
+        }
+
+        int l = left[node];
+        int r = right[node];
+        float threshold = thresholds[node];
+
+        if (distance < threshold) {
+            if (l >= 0 && distance - heaps.tau(0) < threshold)
+                search(l, query, heaps, ids, excluded);
+
+            if (r >= 0 && distance + heaps.tau(0) >= threshold)
+                search(r, query, heaps, ids, excluded);
+        } else {
+            if (r >= 0 && distance + heaps.tau(0) >= threshold)
+                search(r, query, heaps, ids, excluded);
+
+            if (l >= 0 && distance - heaps.tau(0) < threshold)
+                search(l, query, heaps, ids, excluded);
+        }
+    }
+
+    /**
+     * This method saves tree structure to the stream. Items themselves aren't saved,
+     * since usually they're stored separately, i.e. with BinarySerde.
+     *
+     * @param stream
+     * @throws IOException
+     */
+    public void save(@NonNull OutputStream stream) throws IOException {
+        DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(stream));
+        dos.writeInt(FORMAT_MAGIC);
+        dos.writeInt(FORMAT_VERSION);
+        dos.writeUTF(similarityFunction);
+        dos.writeBoolean(invert);
+        dos.writeInt(items.rows());
+        dos.writeInt(items.columns());
+        dos.writeInt(numNodes);
+
+        writeInts(dos, indices, numNodes);
+        writeFloats(dos, thresholds, numNodes);
+        writeInts(dos, left, numNodes);
+        writeInts(dos, right, numNodes);
+        dos.flush();
+    }
+
+    /**
+     * This method restores tree saved with save() method
+     *
+     * @param stream
+     * @param items the same items tree was built for
+     * @return
+     * @throws IOException
+     */
+    public static FlatVPTree load(@NonNull InputStream stream, @NonNull INDArray items) throws IOException {
+        DataInputStream dis = new DataInputStream(new BufferedInputStream(stream));
+        if (dis.readInt() != FORMAT_MAGIC)
+            throw new ND4JIllegalStateException("Stream doesn't contain VPTree");
+
+        int version = dis.readInt();
+        if (version != FORMAT_VERSION)
+            throw new ND4JIllegalStateException("Unsupported VPTree format version: " + version);
+
+        String similarityFunction = dis.readUTF();
+        boolean invert = dis.readBoolean();
+        int rows = dis.readInt();
+        int columns = dis.readInt();
+        if (rows != items.rows() || columns != items.columns())
+            throw new ND4JIllegalStateException("VPTree was built for items of shape [" + rows + ", " + columns
+                            + "] but got " + Arrays.toString(items.shape()) + " instead");
+
+        int numNodes = dis.readInt();
+        int[] indices = readInts(dis, numNodes);
+        float[] thresholds = readFloats(dis, numNodes);
+        int[] left = readInts(dis, numNodes);
+        int[] right = readInts(dis, numNodes);
+
+        return new FlatVPTree(items, similarityFunction, invert, numNodes, indices, thresholds, left, right);
+    }
+
+    private static void writeInts(DataOutputStream dos, int[] array, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(IO_CHUNK * 4);
+        for (int pos = 0; pos < length; pos += IO_CHUNK) {
+            int cnt = Math.min(IO_CHUNK, length - pos);
+            buffer.clear();
+            buffer.asIntBuffer().put(array, pos, cnt);
+            dos.write(buffer.array(), 0, cnt * 4);
+        }
+    }
+
+    private static void writeFloats(DataOutputStream dos, float[] array, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(IO_CHUNK * 4);
+        for (int pos = 0; pos < length; pos += IO_CHUNK) {
+            int cnt = Math.min(IO_CHUNK, length - pos);
+            buffer.clear();
+            buffer.asFloatBuffer().put(array, pos, cnt);
+            dos.write(buffer.array(), 0, cnt * 4);
+        }
+    }
+
+    private static int[] readInts(DataInputStream dis, int length) throws IOException {
+        int[] array = new int[length];
+        byte[] bytes = new byte[IO_CHUNK * 4];
+        for (int pos = 0; pos < length; pos += IO_CHUNK) {
+            int cnt = Math.min(IO_CHUNK, length - pos);
+            dis.readFully(bytes, 0, cnt * 4);
+            ByteBuffer.wrap(bytes, 0, cnt * 4).asIntBuffer().get(array, pos, cnt);
+        }
+        return array;
+    }
+
+    private static float[] readFloats(DataInputStream dis, int length) throws IOException {
+        float[] array = new float[length];
+        byte[] bytes = new byte[IO_CHUNK * 4];
+        for (int pos = 0; pos < length; pos += IO_CHUNK) {
+            int cnt = Math.min(IO_CHUNK, length - pos);
+            dis.readFully(bytes, 0, cnt * 4);
+            ByteBuffer.wrap(bytes, 0, cnt * 4).asFloatBuffer().get(array, pos, cnt);
+        }
+        return array;
+    }
+}
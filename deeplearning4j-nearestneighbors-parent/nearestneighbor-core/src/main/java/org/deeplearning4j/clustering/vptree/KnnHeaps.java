@@ -0,0 +1,137 @@
+package org.deeplearning4j.clustering.vptree;
+
+import java.util.Arrays;
+
+/**
+ * Set of k-bounded max-heaps over flat primitive arrays, one heap per query.
+ *
+ * Used for k-nearest neighbours search instead of PriorityQueue of HeapObjects, so search doesn't allocate per candidate.
+ */
+public class KnnHeaps {
+    private final int k;
+    private final int numQueries;
+    private final int[] indices;
+    private final float[] distances;
+    private final int[] sizes;
+
+    public KnnHeaps(int numQueries, int k) {
+        this.numQueries = numQueries;
+        this.k = k;
+        this.indices = new int[numQueries * k];
+        this.distances = new float[numQueries * k];
+        this.sizes = new int[numQueries];
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    public int getNumQueries() {
+        return numQueries;
+    }
+
+    /**
+     * This method empties all heaps, so this instance can be reused for the next search
+     */
+    public void reset() {
+        Arrays.fill(sizes, 0);
+    }
+
+    public int size(int query) {
+        return sizes[query];
+    }
+
+    /**
+     * This method returns current search radius for given query: the worst distance in the heap if it's full,
+     * or positive infinity otherwise
+     *
+     * @param query
+     * @return
+     */
+    public float tau(int query) {
+        return sizes[query] < k ? Float.POSITIVE_INFINITY : distances[query * k];
+    }
+
+    /**
+     * This method offers candidate to the heap of given query
+     *
+     * @param query
+     * @param index item index
+     * @param distance distance between query and item
+     * @return true if candidate was accepted
+     */
+    public boolean offer(int query, int index, float distance) {
+        int base = query * k;
+        int size = sizes[query];
+
+        if (size < k) {
+            // sift up
+            int pos = size;
+            while (pos > 0) {
+                int parent = (pos - 1) >>> 1;
+                if (distances[base + parent] >= distance)
+                    break;
+
+                distances[base + pos] = distances[base + parent];
+                indices[base + pos] = indices[base + parent];
+                pos = parent;
+            }
+            distances[base + pos] = distance;
+            indices[base + pos] = index;
+            sizes[query] = size + 1;
+            return true;
+        }
+
+        if (k == 0 || distance >= distances[base])
+            return false;
+
+        siftDown(base, k, index, distance);
+        return true;
+    }
+
+    private void siftDown(int base, int size, int index, float distance) {
+        int pos = 0;
+        int half = size >>> 1;
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            int right = child + 1;
+            if (right < size && distances[base + right] > distances[base + child])
+                child = right;
+
+            if (distance >= distances[base + child])
+                break;
+
+            distances[base + pos] = distances[base + child];
+            indices[base + pos] = indices[base + child];
+            pos = child;
+        }
+        distances[base + pos] = distance;
+        indices[base + pos] = index;
+    }
+
+    /**
+     * This method empties heap of given query into provided arrays, ordered from the nearest to the farthest
+     *
+     * @param query
+     * @param outIndices
+     * @param outDistances
+     * @param offset position in output arrays to start from
+     * @return number of results written
+     */
+    public int drain(int query, int[] outIndices, float[] outDistances, int offset) {
+        int base = query * k;
+        int size = sizes[query];
+        for (int i = size - 1; i >= 0; i--) {
+            outIndices[offset + i] = indices[base];
+            outDistances[offset + i] = distances[base];
+
+            // move last element to the top, and restore heap property
+            int lastIndex = indices[base + i];
+            float lastDistance = distances[base + i];
+            if (i > 0)
+                siftDown(base, i, lastIndex, lastDistance);
+        }
+        sizes[query] = 0;
+        return size;
+    }
+}
@@ -0,0 +1,468 @@
+package org.deeplearning4j.clustering.vptree;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * VPTree wrapper that supports adding and removing items after the tree was built.
+ *
+ * Items are identified by ids: items the tree was built from get ids equal to their row numbers, and added items
+ * get consecutive ids after them. Added items are kept in a small delta buffer that is searched by brute force,
+ * removed items are filtered out of search results. Once delta buffer or number of removed items reaches merge
+ * threshold, the tree is rebuilt in the background, and swapped in when ready.
+ *
+ * Searches always work on immutable {@link Snapshot}, so concurrent readers see consistent state without locking.
+ *
+ * PLEASE NOTE: Only similarity functions supported by {@link FlatVPTree} search can be used here.
+ */
+@Slf4j
+public class MutableVPTree {
+    public static final int DEFAULT_MERGE_THRESHOLD = 10000;
+
+    @Getter
+    private final String similarityFunction;
+    @Getter
+    private final boolean invert;
+    @Getter
+    private final int columns;
+    @Getter
+    private final int mergeThreshold;
+    private final int function;
+
+    private volatile Snapshot snapshot;
+
+    // guarded by this. Delta buffer is append-only: published snapshots never see positions after their deltaCount
+    private float[] deltaVectors;
+    private int[] deltaIds;
+    private int nextId;
+
+    // serializes merges: each merge builds on the snapshot published by the previous one
+    private final Object mergeLock = new Object();
+    private final AtomicBoolean merging = new AtomicBoolean(false);
+    private final ExecutorService merger = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "MutableVPTree merger");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    public MutableVPTree(@NonNull INDArray items, @NonNull String similarityFunction, boolean invert) {
+        this(new VPTree(items, similarityFunction, invert), DEFAULT_MERGE_THRESHOLD);
+    }
+
+    /**
+     * @param tree already built tree, its rows become items with ids 0..N-1
+     * @param mergeThreshold number of pending additions or removals that triggers background rebuild
+     */
+    public MutableVPTree(@NonNull VPTree tree, int mergeThreshold) {
+        if (mergeThreshold < 1)
+            throw new ND4JIllegalStateException("Merge threshold should be positive value");
+
+        this.similarityFunction = tree.getSimilarityFunction();
+        this.invert = tree.isInvert();
+        this.function = FlatVPTree.functionCode(similarityFunction);
+        if (function < 0)
+            throw new ND4JIllegalStateException("Similarity function [" + similarityFunction
+                            + "] isn't supported by MutableVPTree");
+
+        INDArray items = tree.getItems();
+        this.columns = items.columns();
+        this.mergeThreshold = mergeThreshold;
+
+        int rows = items.rows();
+        int[] ids = new int[rows];
+        for (int i = 0; i < rows; i++)
+            ids[i] = i;
+
+        this.nextId = rows;
+        this.deltaVectors = new float[16 * columns];
+        this.deltaIds = new int[16];
+        this.snapshot = new Snapshot(rows > 0 ? FlatVPTree.fromTree(tree) : null, ids, deltaVectors, deltaIds, 0,
+                        new BitSet(), 0);
+    }
+
+    /**
+     * This method returns current snapshot. Snapshot never changes, so all reads done on it are consistent
+     *
+     * @return
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * This method returns number of live items
+     *
+     * @return
+     */
+    public int size() {
+        return snapshot.size();
+    }
+
+    /**
+     * This method searches k nearest neighbours of given query within current snapshot
+     *
+     * @param query row vector
+     * @param k
+     * @return results ordered from the best match to the worst one, missing results have index -1
+     */
+    public BatchSearchResult search(@NonNull INDArray query, int k) {
+        return snapshot.search(query, k);
+    }
+
+    /**
+     * This method adds all rows of given matrix
+     *
+     * @param items
+     * @return ids assigned to added items, in the same order as rows
+     */
+    public int[] add(@NonNull INDArray items) {
+        if (items.isVector())
+            items = items.reshape(1, items.length());
+
+        if (items.columns() != columns)
+            throw new ND4JIllegalStateException("Items should have shape of [N, " + columns + "] but got "
+                            + Arrays.toString(items.shape()));
+
+        int rows = items.rows();
+        float[] data = items.dup('c').data().asFloat();
+        int[] result = new int[rows];
+
+        synchronized (this) {
+            Snapshot current = snapshot;
+            int count = current.deltaCount;
+            ensureDeltaCapacity(count + rows);
+
+            System.arraycopy(data, 0, deltaVectors, count * columns, rows * columns);
+            for (int i = 0; i < rows; i++) {
+                result[i] = nextId++;
+                deltaIds[count + i] = result[i];
+            }
+
+            snapshot = new Snapshot(current.main, current.mainIds, deltaVectors, deltaIds, count + rows,
+                            current.deleted, current.deletedInMain);
+        }
+
+        maybeMerge();
+        return result;
+    }
+
+    /**
+     * This method removes items with given ids. Unknown and already removed ids are ignored
+     *
+     * @param ids
+     * @return ids that were actually removed
+     */
+    public int[] remove(@NonNull int... ids) {
+        int[] removed = new int[ids.length];
+        int numRemoved = 0;
+
+        synchronized (this) {
+            Snapshot current = snapshot;
+            BitSet deleted = (BitSet) current.deleted.clone();
+            int deletedInMain = current.deletedInMain;
+
+            for (int id : ids) {
+                if (id < 0 || deleted.get(id))
+                    continue;
+
+                boolean inMain = Arrays.binarySearch(current.mainIds, id) >= 0;
+                if (!inMain && Arrays.binarySearch(current.deltaIds, 0, current.deltaCount, id) < 0)
+                    continue;
+
+                deleted.set(id);
+                removed[numRemoved++] = id;
+                if (inMain)
+                    deletedInMain++;
+            }
+
+            if (numRemoved > 0)
+                snapshot = new Snapshot(current.main, current.mainIds, current.deltaVectors, current.deltaIds,
+                                current.deltaCount, deleted, deletedInMain);
+        }
+
+        maybeMerge();
+        return Arrays.copyOf(removed, numRemoved);
+    }
+
+    /**
+     * This method rebuilds the tree from all live items, and swaps it in.
+     * Additions and removals done during rebuild are preserved.
+     *
+     * PLEASE NOTE: merges are serialized, so if background merge is in progress, this method waits for it first
+     */
+    public void merge() {
+        synchronized (mergeLock) {
+            mergeSnapshot();
+        }
+    }
+
+    private void mergeSnapshot() {
+        Snapshot base = snapshot;
+
+        int live = base.size();
+        int[] ids = new int[live];
+        float[] data = new float[live * columns];
+        int pos = 0;
+        for (int i = 0; i < base.mainIds.length; i++) {
+            int id = base.mainIds[i];
+            if (base.deleted.get(id))
+                continue;
+
+            base.main.readRow(i, data, pos * columns);
+            ids[pos++] = id;
+        }
+
+        for (int i = 0; i < base.deltaCount; i++) {
+            int id = base.deltaIds[i];
+            if (base.deleted.get(id))
+                continue;
+
+            System.arraycopy(base.deltaVectors, i * columns, data, pos * columns, columns);
+            ids[pos++] = id;
+        }
+
+        FlatVPTree main = null;
+        if (live > 0) {
+            INDArray items = Nd4j.create(data, new int[] {live, columns}, 'c');
+            main = FlatVPTree.fromTree(new VPTree(items, similarityFunction, invert));
+        }
+
+        synchronized (this) {
+            Snapshot current = snapshot;
+
+            // everything added while we were building the tree stays in delta buffer
+            int pending = current.deltaCount - base.deltaCount;
+            float[] vectors = new float[Math.max(16, pending * 2) * columns];
+            int[] pendingIds = new int[Math.max(16, pending * 2)];
+            System.arraycopy(current.deltaVectors, base.deltaCount * columns, vectors, 0, pending * columns);
+            System.arraycopy(current.deltaIds, base.deltaCount, pendingIds, 0, pending);
+            deltaVectors = vectors;
+            deltaIds = pendingIds;
+
+            // items removed before the rebuild are physically gone, items removed during it are still there
+            BitSet deleted = (BitSet) current.deleted.clone();
+            deleted.andNot(base.deleted);
+            int deletedInMain = 0;
+            for (int id = deleted.nextSetBit(0); id >= 0; id = deleted.nextSetBit(id + 1)) {
+                if (Arrays.binarySearch(ids, id) >= 0)
+                    deletedInMain++;
+            }
+
+            snapshot = new Snapshot(main, ids, vectors, pendingIds, pending, deleted, deletedInMain);
+        }
+
+        log.debug("MutableVPTree merged: {} items in the tree", live);
+    }
+
+    /**
+     * This method stops background merging
+     */
+    public void shutdown() {
+        merger.shutdownNow();
+    }
+
+    private void ensureDeltaCapacity(int count) {
+        if (count <= deltaIds.length)
+            return;
+
+        int capacity = Math.max(count, deltaIds.length * 2);
+        // old arrays are still referenced by published snapshots, so we always copy instead of reusing them
+        deltaVectors = Arrays.copyOf(deltaVectors, capacity * columns);
+        deltaIds = Arrays.copyOf(deltaIds, capacity);
+    }
+
+    private void maybeMerge() {
+        Snapshot current = snapshot;
+        if (current.deltaCount < mergeThreshold && current.deletedInMain < mergeThreshold)
+            return;
+
+        if (!merging.compareAndSet(false, true))
+            return;
+
+        merger.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    merge();
+                } catch (Exception e) {
+                    log.error("MutableVPTree merge failed", e);
+                } finally {
+                    merging.set(false);
+                }
+            }
+        });
+    }
+
+    /**
+     * Immutable state of MutableVPTree: the tree, delta buffer and set of removed ids
+     */
+    public class Snapshot {
+        private final FlatVPTree main;
+        // ids of tree rows and delta entries, both are sorted
+        private final int[] mainIds;
+        private final float[] deltaVectors;
+        private final int[] deltaIds;
+        @Getter
+        private final int deltaCount;
+        private final BitSet deleted;
+        @Getter
+        private final int deletedInMain;
+
+        private Snapshot(FlatVPTree main, int[] mainIds, float[] deltaVectors, int[] deltaIds, int deltaCount,
+                        BitSet deleted, int deletedInMain) {
+            this.main = main;
+            this.mainIds = mainIds;
+            this.deltaVectors = deltaVectors;
+            this.deltaIds = deltaIds;
+            this.deltaCount = deltaCount;
+            this.deleted = deleted;
+            this.deletedInMain = deletedInMain;
+        }
+
+        /**
+         * This method returns number of live items within this snapshot
+         *
+         * @return
+         */
+        public int size() {
+            return mainIds.length + deltaCount - deleted.cardinality();
+        }
+
+        /**
+         * This method checks if item with given id is present within this snapshot
+         *
+         * @param id
+         * @return
+         */
+        public boolean contains(int id) {
+            return id >= 0 && !deleted.get(id) && (Arrays.binarySearch(mainIds, id) >= 0
+                            || Arrays.binarySearch(deltaIds, 0, deltaCount, id) >= 0);
+        }
+
+        /**
+         * This method returns vector of the item with given id
+         *
+         * @param id
+         * @return vector, or null if there's no such item
+         */
+        public float[] getVector(int id) {
+            if (id < 0 || deleted.get(id))
+                return null;
+
+            float[] result = new float[columns];
+            int pos = Arrays.binarySearch(mainIds, id);
+            if (pos >= 0) {
+                main.readRow(pos, result, 0);
+                return result;
+            }
+
+            pos = Arrays.binarySearch(deltaIds, 0, deltaCount, id);
+            if (pos >= 0) {
+                System.arraycopy(deltaVectors, pos * columns, result, 0, columns);
+                return result;
+            }
+
+            return null;
+        }
+
+        /**
+         * This method searches k nearest neighbours of given query
+         *
+         * @param query row vector
+         * @param k
+         * @return results ordered from the best match to the worst one, missing results have index -1
+         */
+        public BatchSearchResult search(@NonNull INDArray query, int k) {
+            if (!query.isVector() || query.length() != columns)
+                throw new ND4JIllegalStateException("Target for search should have shape of [" + 1 + ", " + columns
+                                + "] but got " + Arrays.toString(query.shape()) + " instead");
+
+            KnnHeaps heaps = new KnnHeaps(1, k);
+            float[] q = query.dup().data().asFloat();
+
+            // removed items are still in the tree, they're skipped during traversal
+            if (main != null)
+                main.search(q, heaps, mainIds, deleted);
+
+            for (int i = 0; i < deltaCount; i++) {
+                int id = deltaIds[i];
+                if (!deleted.get(id))
+                    heaps.offer(0, id, distance(q, deltaVectors, i * columns));
+            }
+
+            int[] indices = new int[k];
+            float[] distances = new float[k];
+            int count = heaps.drain(0, indices, distances, 0);
+            for (int i = count; i < k; i++) {
+                indices[i] = -1;
+                distances[i] = Float.NaN;
+            }
+
+            return new BatchSearchResult(1, k, indices, distances);
+        }
+    }
+
+    /**
+     * This method returns distance between query and delta vector, same as FlatVPTree.distance() does for tree items
+     */
+    private float distance(float[] query, float[] vectors, int offset) {
+        float result;
+        switch (function) {
+            case FlatVPTree.MANHATTAN: {
+                float sum = 0.0f;
+                for (int i = 0; i < columns; i++)
+                    sum += Math.abs(query[i] - vectors[offset + i]);
+                result = sum;
+                break;
+            }
+            case FlatVPTree.COSINE_DISTANCE:
+            case FlatVPTree.COSINE_SIMILARITY: {
+                float dot = 0.0f;
+                float queryNorm = 0.0f;
+                float norm = 0.0f;
+                for (int i = 0; i < columns; i++) {
+                    dot += query[i] * vectors[offset + i];
+                    queryNorm += query[i] * query[i];
+                    norm += vectors[offset + i] * vectors[offset + i];
+                }
+                float similarity = dot / (float) (Math.sqrt(queryNorm) * Math.sqrt(norm));
+                result = function == FlatVPTree.COSINE_SIMILARITY ? similarity : 1.0f - similarity;
+                break;
+            }
+            case FlatVPTree.DOT: {
+                float dot = 0.0f;
+                for (int i = 0; i < columns; i++)
+                    dot += query[i] * vectors[offset + i];
+                result = dot;
+                break;
+            }
+            case FlatVPTree.EUCLIDEAN:
+            default: {
+                float sum = 0.0f;
+                for (int i = 0; i < columns; i++) {
+                    float d = query[i] - vectors[offset + i];
+                    sum += d * d;
+                }
+                result = (float) Math.sqrt(sum);
+                break;
+            }
+        }
+
+        return invert ? -result : result;
+    }
+}
@@ -32,6 +32,7 @@ import org.nd4j.linalg.api.ops.impl.accum.distances.*;
 import org.nd4j.linalg.exception.ND4JIllegalStateException;
 import org.nd4j.linalg.factory.Nd4j;
 
+import java.io.*;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -54,6 +55,7 @@ public class VPTree {
     private INDArray items;
     private List<INDArray> itemsList;
     private Node root;
+    @Getter
     private String similarityFunction;
     @Getter
     private boolean invert = false;
@@ -126,6 +128,16 @@ public class VPTree {
 
 
 
+    /**
+     * This constructor is used for tree loading, no distances are calculated here
+     */
+    VPTree(INDArray items, String similarityFunction, boolean invert, Node root) {
+        this.items = items;
+        this.similarityFunction = similarityFunction;
+        this.invert = invert;
+        this.root = root;
+    }
+
     /**
      *
      * @param items
@@ -550,6 +562,148 @@ public class VPTree {
     }
 
 
+    /**
+     * This method performs k-nearest neighbours search for multiple queries at once.
+     *
+     * Queries are traversing the tree together: on each visited node, distances to all queries that weren't pruned
+     * yet are calculated with a single op, instead of one op per query.
+     *
+     * @param queries matrix of queries, one query per row
+     * @param k number of neighbours to find
+     * @return flat results, ordered from the best match to the worst for each query
+     */
+    public BatchSearchResult search(@NonNull INDArray queries, int k) {
+        if (queries.rank() != 2 || queries.columns() != items.columns())
+            throw new ND4JIllegalStateException("Queries for search should have shape of [N, " + items.columns()
+                            + "] but got " + Arrays.toString(queries.shape()) + " instead");
+
+        k = Math.min(k, items.rows());
+        int numQueries = queries.rows();
+        KnnHeaps heaps = new KnnHeaps(numQueries, k);
+
+        int[] active = new int[numQueries];
+        for (int i = 0; i < numQueries; i++)
+            active[i] = i;
+
+        search(root, queries, active, numQueries, heaps);
+
+        int[] indices = new int[numQueries * k];
+        float[] distances = new float[numQueries * k];
+        for (int q = 0; q < numQueries; q++)
+            heaps.drain(q, indices, distances, q * k);
+
+        return new BatchSearchResult(numQueries, k, indices, distances);
+    }
+
+    protected void search(Node node, INDArray queries, int[] active, int numActive, KnnHeaps heaps) {
+        if (node == null || numActive == 0)
+            return;
+
+        float[] dist = new float[numActive];
+        if (numActive == 1) {
+            dist[0] = distance(node.getPoint(), queries.getRow(active[0]));
+        } else {
+            INDArray subset = numActive == queries.rows() ? queries : queries.getRows(Arrays.copyOf(active, numActive));
+            INDArray distancesArr = Nd4j.create(numActive, 1);
+            calcDistancesRelativeTo(subset, node.getPoint(), distancesArr);
+            for (int i = 0; i < numActive; i++)
+                dist[i] = distancesArr.getFloat(i);
+        }
+
+        for (int i = 0; i < numActive; i++)
+            heaps.offer(active[i], node.getIndex(), dist[i]);
+
+        Node left = node.getLeft();
+        Node right = node.getRight();
+        if (left == null && right == null)
+            return;
+
+        // majority of queries decides which child is visited first, it only affects pruning efficiency
+        int votes = 0;
+        for (int i = 0; i < numActive; i++)
+            votes += dist[i] < node.getThreshold() ? 1 : -1;
+
+        boolean leftFirst = votes >= 0;
+        for (int pass = 0; pass < 2; pass++) {
+            boolean goLeft = (pass == 0) == leftFirst;
+            Node child = goLeft ? left : right;
+            if (child == null)
+                continue;
+
+            // tau is checked right before descending, since first child might have shrunk it
+            int[] next = new int[numActive];
+            int numNext = 0;
+            for (int i = 0; i < numActive; i++) {
+                float tau = heaps.tau(active[i]);
+                boolean visit = goLeft ? dist[i] - tau < node.getThreshold() : dist[i] + tau >= node.getThreshold();
+                if (visit)
+                    next[numNext++] = active[i];
+            }
+
+            search(child, queries, next, numNext, heaps);
+        }
+    }
+
+    /**
+     * This method returns root node of the tree
+     *
+     * @return
+     */
+    Node getRoot() {
+        return root;
+    }
+
+    /**
+     * This method saves built tree structure to the stream. Items themselves aren't saved,
+     * since usually they're stored separately, i.e. with BinarySerde.
+     *
+     * Tree is saved in flat layout, see {@link FlatVPTree} for details
+     *
+     * @param stream
+     * @throws IOException
+     */
+    public void save(@NonNull OutputStream stream) throws IOException {
+        FlatVPTree.fromTree(this).save(stream);
+    }
+
+    /**
+     * This method saves built tree structure to the file
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void save(@NonNull File file) throws IOException {
+        try (OutputStream os = new FileOutputStream(file)) {
+            save(os);
+        }
+    }
+
+    /**
+     * This method restores tree previously saved with save() method, without any distance calculations
+     *
+     * @param stream
+     * @param items the same items tree was built for
+     * @return
+     * @throws IOException
+     */
+    public static VPTree load(@NonNull InputStream stream, @NonNull INDArray items) throws IOException {
+        return FlatVPTree.load(stream, items).toTree();
+    }
+
+    /**
+     * This method restores tree previously saved with save() method, without any distance calculations
+     *
+     * @param file
+     * @param items the same items tree was built for
+     * @return
+     * @throws IOException
+     */
+    public static VPTree load(@NonNull File file, @NonNull INDArray items) throws IOException {
+        try (InputStream is = new FileInputStream(file)) {
+            return load(is, items);
+        }
+    }
+
     protected class HeapObjectComparator implements Comparator<HeapObject> {
 
         @Override
@@ -0,0 +1,122 @@
+package org.deeplearning4j.clustering.hnsw;
+
+import org.deeplearning4j.clustering.vptree.BatchSearchResult;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class HNSWIndexTest {
+
+    @Test
+    public void testRecall() {
+        Nd4j.getRandom().setSeed(12345);
+        int n = 2000;
+        int k = 10;
+        INDArray points = Nd4j.randn(n, 16);
+        INDArray queries = Nd4j.randn(50, 16);
+
+        for (String function : new String[] {"euclidean", "cosinesimilarity", "dot"}) {
+            HNSWIndex index = new HNSWIndex(16, n, function, 16, 100, 50, 119);
+            assertEquals(0, index.addAll(points, 4));
+            assertEquals(n, index.size());
+
+            BatchSearchResult found = index.search(queries, k);
+            int hits = 0;
+            for (int q = 0; q < queries.rows(); q++) {
+                Set<Integer> truth = bruteForce(points, queries.getRow(q), k, function);
+                for (int i = 0; i < k; i++) {
+                    if (truth.contains(found.getIndex(q, i)))
+                        hits++;
+
+                    if (i > 0) {
+                        if (function.equals("euclidean"))
+                            assertTrue(found.getDistance(q, i - 1) <= found.getDistance(q, i));
+                        else
+                            assertTrue(found.getDistance(q, i - 1) >= found.getDistance(q, i));
+                    }
+                }
+            }
+
+            double recall = hits / (double) (queries.rows() * k);
+            assertTrue("Recall for " + function + " was " + recall, recall > 0.9);
+        }
+    }
+
+    @Test
+    public void testIncrementalInsert() {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray points = Nd4j.randn(100, 8);
+        HNSWIndex index = new HNSWIndex(8, 200, "euclidean", 8, 50, 20, 119);
+
+        int[] idx = new int[1];
+        float[] dist = new float[1];
+        for (int i = 0; i < points.rows(); i++) {
+            assertEquals(i, index.add(points.getRow(i)));
+
+            // every item should be found right after insertion
+            assertEquals(1, index.search(points.getRow(i).dup().data().asFloat(), 1, idx, dist));
+            assertEquals(i, idx[0]);
+            assertEquals(0.0f, dist[0], 1e-5f);
+        }
+    }
+
+    @Test
+    public void testSmallIndex() {
+        HNSWIndex index = new HNSWIndex(2, 10, "euclidean");
+        index.add(new float[] {0.0f, 0.0f});
+        index.add(new float[] {3.0f, 4.0f});
+
+        BatchSearchResult found = index.search(Nd4j.create(new float[] {0.0f, 0.0f}), 3);
+        assertEquals(0, found.getIndex(0, 0));
+        assertEquals(1, found.getIndex(0, 1));
+        assertEquals(5.0f, found.getDistance(0, 1), 1e-5f);
+        assertEquals(-1, found.getIndex(0, 2));
+    }
+
+    @Test(expected = ND4JIllegalStateException.class)
+    public void testCapacity() {
+        HNSWIndex index = new HNSWIndex(2, 1, "euclidean");
+        index.add(new float[] {0.0f, 0.0f});
+        index.add(new float[] {1.0f, 1.0f});
+    }
+
+    private static Set<Integer> bruteForce(INDArray points, INDArray query, int k, String function) {
+        float[] q = query.dup().data().asFloat();
+        double[] scores = new double[points.rows()];
+        for (int r = 0; r < points.rows(); r++) {
+            float[] p = points.getRow(r).dup().data().asFloat();
+            double dot = 0.0, norm = 0.0, qNorm = 0.0, sq = 0.0;
+            for (int i = 0; i < q.length; i++) {
+                dot += p[i] * q[i];
+                norm += p[i] * p[i];
+                qNorm += q[i] * q[i];
+                sq += (p[i] - q[i]) * (p[i] - q[i]);
+            }
+
+            if (function.equals("euclidean"))
+                scores[r] = sq;
+            else if (function.equals("dot"))
+                scores[r] = -dot;
+            else
+                scores[r] = -dot / Math.sqrt(norm * qNorm);
+        }
+
+        Set<Integer> result = new HashSet<>();
+        for (int i = 0; i < k; i++) {
+            int best = -1;
+            for (int r = 0; r < scores.length; r++) {
+                if (!result.contains(r) && (best < 0 || scores[r] < scores[best]))
+                    best = r;
+            }
+            result.add(best);
+        }
+
+        return result;
+    }
+}
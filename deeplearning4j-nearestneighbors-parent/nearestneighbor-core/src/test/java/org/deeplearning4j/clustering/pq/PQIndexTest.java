@@ -0,0 +1,126 @@
+package org.deeplearning4j.clustering.pq;
+
+import org.deeplearning4j.clustering.util.ChunkedMatrix;
+import org.deeplearning4j.clustering.vptree.BatchSearchResult;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PQIndexTest {
+
+    @Test
+    public void testEncodeDecode() {
+        Random random = new Random(12345);
+        int rows = 500;
+        int dimension = 8;
+        float[] data = new float[rows * dimension];
+        for (int i = 0; i < data.length; i++)
+            data[i] = (float) random.nextGaussian();
+
+        // with as many centroids as training vectors, every training vector is reconstructed exactly
+        ProductQuantizer pq = ProductQuantizer.train(data, 16, dimension, 4, 16, 10, 119);
+        byte[] codes = new byte[4];
+        float[] decoded = new float[dimension];
+        for (int r = 0; r < 16; r++) {
+            pq.encode(data, r * dimension, codes, 0);
+            pq.decode(codes, 0, decoded, 0);
+            for (int i = 0; i < dimension; i++)
+                assertEquals(data[r * dimension + i], decoded[i], 1e-5f);
+        }
+
+        // lookup table distance equals distance to reconstructed vector
+        float[] table = new float[4 * 16];
+        float[] query = new float[dimension];
+        System.arraycopy(data, 100 * dimension, query, 0, dimension);
+        pq.computeDistanceTable(query, table);
+        pq.encode(data, 200 * dimension, codes, 0);
+        pq.decode(codes, 0, decoded, 0);
+        float expected = 0.0f;
+        for (int i = 0; i < dimension; i++)
+            expected += (query[i] - decoded[i]) * (query[i] - decoded[i]);
+        assertEquals(expected, pq.lookup(table, codes, 0), 1e-4f);
+    }
+
+    @Test
+    public void testSearchWithRerank() {
+        Nd4j.getRandom().setSeed(12345);
+        int n = 2000;
+        int k = 5;
+        INDArray points = Nd4j.rand(n, 16);
+
+        for (int numLists : new int[] {0, 8}) {
+            PQIndex index = new PQIndex("euclidean", 4, 32, numLists);
+            index.setNumProbes(8);
+            index.setRerankSize(200);
+            index.fit(points);
+
+            // querying indexed points themselves: after re-ranking each point should be its own nearest neighbour
+            BatchSearchResult found = index.search(points.getRow(7), k);
+            assertEquals(7, found.getIndex(0, 0));
+            assertEquals(0.0f, found.getDistance(0, 0), 1e-5f);
+            for (int i = 1; i < k; i++)
+                assertTrue(found.getDistance(0, i - 1) <= found.getDistance(0, i));
+        }
+    }
+
+    @Test
+    public void testChunkedFit() {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray points = Nd4j.rand(1000, 16);
+        ChunkedMatrix chunks = new ChunkedMatrix(points.get(NDArrayIndex.interval(0, 300), NDArrayIndex.all()).dup(),
+                        points.get(NDArrayIndex.interval(300, 1000), NDArrayIndex.all()).dup());
+
+        PQIndex dense = new PQIndex("euclidean", 4, 32, 8);
+        dense.setNumProbes(8);
+        dense.setRerankSize(100);
+        dense.fit(points);
+
+        PQIndex chunked = new PQIndex("euclidean", 4, 32, 8);
+        chunked.setNumProbes(8);
+        chunked.setRerankSize(100);
+        chunked.fit(chunks);
+
+        // the same rows and seed give the same index, no matter how rows are split into chunks
+        for (int r : new int[] {0, 299, 300, 999}) {
+            BatchSearchResult expected = dense.search(points.getRow(r), 5);
+            BatchSearchResult found = chunked.search(points.getRow(r), 5);
+            assertEquals(r, found.getIndex(0, 0));
+            for (int i = 0; i < 5; i++) {
+                assertEquals(expected.getIndex(0, i), found.getIndex(0, i));
+                assertEquals(expected.getDistance(0, i), found.getDistance(0, i), 1e-5f);
+            }
+        }
+    }
+
+    @Test(expected = ND4JIllegalStateException.class)
+    public void testRerankAfterFit() {
+        // exact vectors aren't kept without re-ranking, so it can't be enabled later
+        PQIndex index = new PQIndex("euclidean", 4, 16, 0);
+        index.fit(Nd4j.rand(100, 16));
+        index.setRerankSize(10);
+    }
+
+    @Test
+    public void testMemoryEstimate() {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray points = Nd4j.rand(1000, 32);
+        PQIndex index = new PQIndex("cosinesimilarity", 8, 16, 4);
+        index.fit(points);
+
+        long expected = 1000L * 8 + 1000L * 4 + 4L * 16 * 32 + 4L * 4 * 32;
+        assertEquals(expected, index.getMemoryBytes());
+        assertEquals(expected, PQIndex.estimateMemory(1000, 32, 8, 16, 4));
+        assertTrue(index.getMemoryBytes() < PQIndex.estimateExactMemory(1000, 32));
+    }
+
+    @Test(expected = ND4JIllegalStateException.class)
+    public void testWrongSubspaces() {
+        new PQIndex("euclidean", 3, 16, 0).fit(Nd4j.rand(100, 16));
+    }
+}
@@ -0,0 +1,45 @@
+package org.deeplearning4j.clustering.util;
+
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import static org.junit.Assert.assertEquals;
+
+public class ChunkedMatrixTest {
+
+    @Test
+    public void testRowsAcrossChunks() {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray all = Nd4j.rand(10, 4);
+        // chunks may have different sizes and orders
+        ChunkedMatrix chunked = new ChunkedMatrix(all.get(NDArrayIndex.interval(0, 3), NDArrayIndex.all()).dup(),
+                        all.get(NDArrayIndex.interval(3, 4), NDArrayIndex.all()).dup(),
+                        all.get(NDArrayIndex.interval(4, 10), NDArrayIndex.all()).dup('f'));
+
+        assertEquals(10, chunked.rows());
+        assertEquals(4, chunked.columns());
+        assertEquals(3, chunked.numChunks());
+
+        float[] row = new float[5];
+        for (int r = 0; r < 10; r++) {
+            assertEquals(all.getRow(r), chunked.getRow(r));
+
+            chunked.readRow(r, row, 1);
+            for (int i = 0; i < 4; i++)
+                assertEquals(all.getFloat(r, i), row[i + 1], 0f);
+        }
+    }
+
+    @Test(expected = ND4JIllegalStateException.class)
+    public void testColumnsMismatch() {
+        new ChunkedMatrix(Nd4j.create(2, 4), Nd4j.create(2, 5));
+    }
+
+    @Test(expected = ND4JIllegalStateException.class)
+    public void testRowOutOfRange() {
+        new ChunkedMatrix(Nd4j.create(2, 4), Nd4j.create(2, 4)).getRow(4);
+    }
+}
@@ -26,12 +26,18 @@ import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.primitives.Counter;
 import org.nd4j.linalg.primitives.Pair;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.PriorityQueue;
 import java.util.TreeSet;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -60,6 +66,226 @@ public class VpTreeNodeTest {
     }
 
 
+    @Test
+    public void testSaveLoad() throws Exception {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray points = Nd4j.rand(500, 20);
+        VPTree tree = new VPTree(points, "euclidean", false);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        tree.save(baos);
+
+        VPTree restored = VPTree.load(new ByteArrayInputStream(baos.toByteArray()), points);
+        assertEquals("euclidean", restored.getSimilarityFunction());
+        assertEquals(false, restored.isInvert());
+
+        for (int i = 0; i < 20; i++) {
+            INDArray query = Nd4j.rand(1, 20);
+            List<DataPoint> expResults = new ArrayList<>();
+            List<Double> expDistances = new ArrayList<>();
+            List<DataPoint> results = new ArrayList<>();
+            List<Double> distances = new ArrayList<>();
+
+            tree.search(query, 10, expResults, expDistances);
+            restored.search(query, 10, results, distances);
+
+            assertEquals(expResults, results);
+            assertEquals(expDistances, distances);
+        }
+    }
+
+    @Test(expected = ND4JIllegalStateException.class)
+    public void testLoadWrongItems() throws Exception {
+        INDArray points = Nd4j.rand(50, 5);
+        VPTree tree = new VPTree(points);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        tree.save(baos);
+
+        VPTree.load(new ByteArrayInputStream(baos.toByteArray()), Nd4j.rand(40, 5));
+    }
+
+    @Test
+    public void testBatchSearch() {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray points = Nd4j.rand(1000, 10);
+        INDArray queries = Nd4j.rand(64, 10);
+        int k = 7;
+
+        VPTree tree = new VPTree(points);
+        BatchSearchResult batch = tree.search(queries, k);
+        assertEquals(64, batch.getNumQueries());
+        assertEquals(k, batch.getK());
+
+        for (int q = 0; q < queries.rows(); q++) {
+            List<DataPoint> results = new ArrayList<>();
+            List<Double> distances = new ArrayList<>();
+            tree.search(queries.getRow(q), k, results, distances);
+
+            // single query search returns results from the farthest to the nearest one
+            for (int i = 0; i < k; i++) {
+                assertEquals(results.get(k - 1 - i).getIndex(), batch.getIndex(q, i));
+                assertEquals(distances.get(k - 1 - i), batch.getDistance(q, i), 1e-5);
+            }
+        }
+    }
+
+    @Test
+    public void testFlatSearch() throws Exception {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray points = Nd4j.rand(1000, 10);
+        int k = 5;
+
+        for (String function : new String[] {"euclidean", "manhattan"}) {
+            VPTree tree = new VPTree(points, function, false);
+            FlatVPTree flat = FlatVPTree.fromTree(tree);
+            assertEquals(1000, flat.getNumNodes());
+
+            KnnHeaps heaps = new KnnHeaps(1, k);
+            int[] indices = new int[k];
+            float[] distances = new float[k];
+
+            for (int q = 0; q < 20; q++) {
+                INDArray query = Nd4j.rand(1, 10);
+                List<DataPoint> expResults = new ArrayList<>();
+                List<Double> expDistances = new ArrayList<>();
+                tree.search(query, k, expResults, expDistances);
+
+                assertEquals(k, flat.search(query.dup().data().asFloat(), heaps, indices, distances));
+                for (int i = 0; i < k; i++) {
+                    assertEquals(expResults.get(k - 1 - i).getIndex(), indices[i]);
+                    assertEquals(expDistances.get(k - 1 - i), distances[i], 1e-4);
+                }
+            }
+
+            // flat layout and node-based tree should be interchangeable
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            flat.save(baos);
+            FlatVPTree restored = FlatVPTree.load(new ByteArrayInputStream(baos.toByteArray()), points);
+            INDArray query = Nd4j.rand(1, 10);
+            assertArrayEquals(flat.search(query, k).getIndices(), restored.search(query, k).getIndices());
+            assertArrayEquals(flat.search(query, k).getIndices(), FlatVPTree.fromTree(restored.toTree()).search(query, k).getIndices());
+        }
+    }
+
+    @Test
+    public void testMutableTree() {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray points = Nd4j.rand(200, 4);
+        INDArray added = Nd4j.rand(50, 4);
+        INDArray all = Nd4j.vstack(points, added);
+        int k = 5;
+
+        MutableVPTree mutable = new MutableVPTree(new VPTree(points, "euclidean", false), 1000);
+        int[] ids = mutable.add(added);
+        assertEquals(200, ids[0]);
+        assertEquals(249, ids[49]);
+
+        // removing some of the original items and some of the added ones
+        int[] removed = mutable.remove(0, 10, 20, 210, 220, 220, 5000);
+        assertArrayEquals(new int[] {0, 10, 20, 210, 220}, removed);
+        assertEquals(245, mutable.size());
+        assertNull(mutable.snapshot().getVector(10));
+        assertArrayEquals(added.getRow(1).dup().data().asFloat(), mutable.snapshot().getVector(201), 1e-6f);
+
+        for (int round = 0; round < 2; round++) {
+            for (int q = 0; q < 10; q++) {
+                INDArray query = Nd4j.rand(1, 4);
+
+                // brute force over live items
+                List<Pair<Double, Integer>> expected = new ArrayList<>();
+                for (int r = 0; r < all.rows(); r++) {
+                    if (r == 0 || r == 10 || r == 20 || r == 210 || r == 220)
+                        continue;
+                    expected.add(Pair.makePair(all.getRow(r).distance2(query), r));
+                }
+                Collections.sort(expected, new Comparator<Pair<Double, Integer>>() {
+                    @Override
+                    public int compare(Pair<Double, Integer> o1, Pair<Double, Integer> o2) {
+                        return Double.compare(o1.getFirst(), o2.getFirst());
+                    }
+                });
+
+                BatchSearchResult found = mutable.search(query, k);
+                for (int i = 0; i < k; i++) {
+                    assertEquals((int) expected.get(i).getSecond(), found.getIndex(0, i));
+                    assertEquals(expected.get(i).getFirst(), found.getDistance(0, i), 1e-4);
+                }
+            }
+
+            // after rebuild results should stay the same
+            mutable.merge();
+            assertEquals(0, mutable.snapshot().getDeltaCount());
+            assertEquals(0, mutable.snapshot().getDeletedInMain());
+            assertEquals(245, mutable.size());
+        }
+        mutable.shutdown();
+    }
+
+    @Test
+    public void testMutableTreeMostlyRemoved() {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray points = Nd4j.rand(200, 4);
+        MutableVPTree mutable = new MutableVPTree(new VPTree(points, "euclidean", false), 1000);
+
+        // only every 20th item stays alive: deleted items must not take places of live ones in the results
+        int[] toRemove = new int[190];
+        int cnt = 0;
+        for (int i = 0; i < 200; i++) {
+            if (i % 20 != 0)
+                toRemove[cnt++] = i;
+        }
+        mutable.remove(toRemove);
+        assertEquals(10, mutable.size());
+
+        INDArray query = points.getRow(1);
+        BatchSearchResult found = mutable.search(query, 12);
+        for (int i = 0; i < 10; i++)
+            assertEquals(0, found.getIndex(0, i) % 20);
+        assertEquals(-1, found.getIndex(0, 10));
+        assertEquals(-1, found.getIndex(0, 11));
+        for (int i = 1; i < 10; i++)
+            assertTrue(found.getDistance(0, i - 1) <= found.getDistance(0, i));
+        mutable.shutdown();
+    }
+
+    @Test(timeout = 60000L)
+    public void testMutableTreeConcurrentMerge() throws Exception {
+        Nd4j.getRandom().setSeed(12345);
+        final INDArray added = Nd4j.rand(400, 4);
+        // small threshold, so background merges are running while we're merging explicitly
+        final MutableVPTree mutable = new MutableVPTree(new VPTree(Nd4j.rand(100, 4), "euclidean", false), 10);
+
+        final TreeSet<Integer> removed = new TreeSet<>();
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < added.rows(); i++) {
+                    int id = mutable.add(added.getRow(i))[0];
+                    if (i % 3 == 0) {
+                        mutable.remove(id);
+                        removed.add(id);
+                    }
+                }
+            }
+        });
+        writer.start();
+        while (writer.isAlive())
+            mutable.merge();
+        writer.join();
+        mutable.merge();
+
+        assertEquals(100 + added.rows() - removed.size(), mutable.size());
+        MutableVPTree.Snapshot snapshot = mutable.snapshot();
+        for (int i = 0; i < added.rows(); i++) {
+            int id = 100 + i;
+            assertEquals(!removed.contains(id), snapshot.contains(id));
+            if (!removed.contains(id))
+                assertArrayEquals(added.getRow(i).dup().data().asFloat(), snapshot.getVector(id), 1e-6f);
+        }
+        mutable.shutdown();
+    }
+
     @Test
     public void testParallel() {
         Nd4j.getRandom().setSeed(7);
@@ -0,0 +1,125 @@
+package org.deeplearning4j.models.sequencevectors.graph.primitives;
+
+import lombok.NonNull;
+import org.deeplearning4j.util.AliasTable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Alias tables (Vose's alias method) for weighted sampling of outgoing edges of each vertex in a graph.
+ * After O(numEdges) precomputation, sampling of a connected vertex with probability proportional to edge weight is
+ * O(1), regardless of vertex degree.
+ *
+ * Tables for all vertices are stored in flat arrays (see {@link AliasTable}), with neighbors of each vertex sorted
+ * by index, so {@link #isConnected(int, int)} is O(log(degree)). Edges with null value are treated as edges with
+ * weight 1.0
+ *
+ * PLEASE NOTE: instances are immutable after construction, so the same instance can be shared between walkers
+ * running in parallel on the same graph.
+ */
+public class EdgeAliasTables {
+
+    private final int[] offsets;
+    private final int[] targets;
+    private final AliasTable table;
+
+    public EdgeAliasTables(@NonNull IGraph<?, ? extends Number> graph) {
+        int numVertices = graph.numVertices();
+        offsets = new int[numVertices + 1];
+        int maxDegree = 0;
+        for (int i = 0; i < numVertices; i++) {
+            int degree = graph.getVertexDegree(i);
+            offsets[i + 1] = offsets[i] + degree;
+            maxDegree = Math.max(maxDegree, degree);
+        }
+
+        int numEdges = offsets[numVertices];
+        targets = new int[numEdges];
+        table = new AliasTable(numEdges);
+
+        long[] keys = new long[maxDegree];
+        double[] rawWeights = new double[maxDegree];
+        double[] weights = new double[maxDegree];
+        int[] worklist = new int[maxDegree];
+        for (int v = 0; v < numVertices; v++) {
+            int start = offsets[v];
+            int degree = offsets[v + 1] - start;
+            if (degree == 0)
+                continue;
+
+            List<? extends Edge<? extends Number>> edges = graph.getEdgesOut(v);
+            if (edges.size() != degree)
+                throw new IllegalStateException("Number of edges for vertex [" + v + "] doesn't match its degree: "
+                                + edges.size() + " vs " + degree);
+
+            // we sort neighbors by index, keeping original position in lower bits
+            int k = 0;
+            for (Edge<? extends Number> edge : edges) {
+                int target = edge.getFrom() == v ? edge.getTo() : edge.getFrom();
+                rawWeights[k] = edge.getValue() == null ? 1.0 : edge.getValue().doubleValue();
+                keys[k] = ((long) target << 32) | k;
+                k++;
+            }
+            Arrays.sort(keys, 0, degree);
+
+            for (int i = 0; i < degree; i++) {
+                targets[start + i] = (int) (keys[i] >>> 32);
+                weights[i] = rawWeights[(int) keys[i]];
+            }
+
+            try {
+                table.build(start, degree, weights, worklist);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid edge weights at vertex [" + v + "]: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * This method returns number of vertices covered by these tables
+     *
+     * @return
+     */
+    public int numVertices() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * This method returns number of outgoing (or undirected) edges of the given vertex
+     *
+     * @param vertex
+     * @return
+     */
+    public int getVertexDegree(int vertex) {
+        return offsets[vertex + 1] - offsets[vertex];
+    }
+
+    /**
+     * This method samples vertex connected to the given vertex, with probability proportional to edge weight
+     *
+     * @param vertex vertex to sample from
+     * @param rng
+     * @return index of sampled vertex, or -1 if given vertex has no outgoing edges
+     */
+    public int sample(int vertex, @NonNull Random rng) {
+        int start = offsets[vertex];
+        int degree = offsets[vertex + 1] - start;
+        if (degree == 0)
+            return -1;
+
+        return targets[start + table.sample(start, degree, rng)];
+    }
+
+    /**
+     * This method checks, if edge from one vertex to another exists
+     *
+     * @param from
+     * @param to
+     * @return
+     */
+    public boolean isConnected(int from, int to) {
+        return Arrays.binarySearch(targets, offsets[from], offsets[from + 1], to) >= 0;
+    }
+}
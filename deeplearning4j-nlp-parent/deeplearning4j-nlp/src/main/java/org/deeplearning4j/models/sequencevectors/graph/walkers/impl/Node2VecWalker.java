@@ -0,0 +1,198 @@
+package org.deeplearning4j.models.sequencevectors.graph.walkers.impl;
+
+import lombok.NonNull;
+import org.deeplearning4j.models.sequencevectors.graph.enums.NoEdgeHandling;
+import org.deeplearning4j.models.sequencevectors.graph.exception.NoEdgesException;
+import org.deeplearning4j.models.sequencevectors.graph.primitives.EdgeAliasTables;
+import org.deeplearning4j.models.sequencevectors.graph.primitives.IGraph;
+import org.deeplearning4j.models.sequencevectors.graph.walkers.GraphWalker;
+import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
+import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
+
+import java.util.Random;
+
+/**
+ * This is node2vec-style biased walker for SequenceVectors-based graph embeddings.
+ * Next hop x from vertex v (reached from vertex t) is chosen with probability proportional to w(v,x) * bias(t,x), where
+ * bias is 1/p if x == t, 1 if x is connected to t, and 1/q otherwise.
+ *
+ * Instead of second-order alias tables (which need memory proportional to sum of squared degrees), next hops are
+ * sampled from first-order {@link EdgeAliasTables}, and accepted with probability bias/max(bias) (rejection sampling).
+ * So memory usage is the same as for {@link WeightedWalker}, and expected number of attempts per step is at most
+ * max(bias)/min(bias), with O(log(degree)) connectivity check per attempt.
+ *
+ * PLEASE NOTE: WalkDirection and restart probability are ignored by this walker.
+ *
+ * Original node2vec paper: https://arxiv.org/abs/1607.00653
+ */
+public class Node2VecWalker<T extends SequenceElement> extends WeightedWalker<T> implements GraphWalker<T> {
+    protected double returnParameter = 1.0;
+    protected double inOutParameter = 1.0;
+
+    protected Node2VecWalker() {
+
+    }
+
+    /**
+     * This method returns next walk sequence from this graph
+     *
+     * @return
+     */
+    @Override
+    public Sequence<T> next() {
+        Sequence<T> sequence = new Sequence<>();
+
+        int startPoint = order[position.getAndIncrement()];
+        int currentPoint = startPoint;
+        int previousPoint = -1;
+        for (int i = 0; i < walkLength; i++) {
+            sequence.addElement(sourceGraph.getVertex(currentPoint).getValue());
+
+            int next = previousPoint < 0 ? aliasTables.sample(currentPoint, rng)
+                            : sampleBiased(previousPoint, currentPoint);
+
+            if (next < 0) {
+                switch (noEdgeHandling) {
+                    case CUTOFF_ON_DISCONNECTED:
+                        // we just break this sequence
+                        i = walkLength;
+                        break;
+                    case EXCEPTION_ON_DISCONNECTED:
+                        throw new NoEdgesException("No more edges at vertex [" + currentPoint + "]");
+                    case PADDING_ON_DISCONNECTED:
+                        throw new UnsupportedOperationException("PADDING not implemented yet");
+                    case RESTART_ON_DISCONNECTED:
+                        previousPoint = -1;
+                        currentPoint = startPoint;
+                        break;
+                    case SELF_LOOP_ON_DISCONNECTED:
+                        // we pad walk with this vertex
+                        break;
+                    default:
+                        throw new UnsupportedOperationException(
+                                        "NoEdgeHandling mode [" + noEdgeHandling + "] not implemented yet.");
+                }
+            } else {
+                previousPoint = currentPoint;
+                currentPoint = next;
+            }
+        }
+
+        return sequence;
+    }
+
+    /**
+     * This method samples next hop from currentPoint, given previousPoint, via rejection sampling
+     */
+    protected int sampleBiased(int previousPoint, int currentPoint) {
+        if (aliasTables.getVertexDegree(currentPoint) == 0)
+            return -1;
+
+        double returnBias = 1.0 / returnParameter;
+        double outBias = 1.0 / inOutParameter;
+        // return bias matters only if previous vertex can be sampled: in directed graph there might be no edge back.
+        // otherwise small return parameter would make rejection loop arbitrarily slow
+        double maxBias = Math.max(1.0, outBias);
+        if (aliasTables.isConnected(currentPoint, previousPoint))
+            maxBias = Math.max(maxBias, returnBias);
+        while (true) {
+            int candidate = aliasTables.sample(currentPoint, rng);
+
+            double bias;
+            if (candidate == previousPoint)
+                bias = returnBias;
+            else if (aliasTables.isConnected(previousPoint, candidate))
+                bias = 1.0;
+            else
+                bias = outBias;
+
+            if (bias >= maxBias || rng.nextDouble() * maxBias < bias)
+                return candidate;
+        }
+    }
+
+    public static class Builder<T extends SequenceElement> extends WeightedWalker.Builder<T> {
+        protected double returnParameter = 1.0;
+        protected double inOutParameter = 1.0;
+
+        public Builder(IGraph<T, ? extends Number> sourceGraph) {
+            super(sourceGraph);
+        }
+
+        /**
+         * This method specifies return parameter p: high values make immediate return to previous vertex less likely.
+         * Default value: 1.0
+         *
+         * @param p
+         * @return
+         */
+        public Builder<T> setReturnParameter(double p) {
+            if (p <= 0)
+                throw new IllegalArgumentException("Return parameter must be positive, got [" + p + "]");
+            this.returnParameter = p;
+            return this;
+        }
+
+        /**
+         * This method specifies in-out parameter q: values above 1.0 keep walk close to the start (BFS-like),
+         * values below 1.0 push walk further away (DFS-like).
+         * Default value: 1.0
+         *
+         * @param q
+         * @return
+         */
+        public Builder<T> setInOutParameter(double q) {
+            if (q <= 0)
+                throw new IllegalArgumentException("In-out parameter must be positive, got [" + q + "]");
+            this.inOutParameter = q;
+            return this;
+        }
+
+        @Override
+        public Builder<T> setAliasTables(@NonNull EdgeAliasTables aliasTables) {
+            super.setAliasTables(aliasTables);
+            return this;
+        }
+
+        @Override
+        public Builder<T> setWalkLength(int walkLength) {
+            super.setWalkLength(walkLength);
+            return this;
+        }
+
+        @Override
+        public Builder<T> setNoEdgeHandling(@NonNull NoEdgeHandling handling) {
+            super.setNoEdgeHandling(handling);
+            return this;
+        }
+
+        @Override
+        public Builder<T> setSeed(long seed) {
+            super.setSeed(seed);
+            return this;
+        }
+
+        @Override
+        public Node2VecWalker<T> build() {
+            Node2VecWalker<T> walker = new Node2VecWalker<>();
+            walker.noEdgeHandling = this.noEdgeHandling;
+            walker.sourceGraph = this.sourceGraph;
+            walker.walkLength = this.walkLength;
+            walker.seed = this.seed;
+            walker.walkDirection = this.walkDirection;
+            walker.returnParameter = this.returnParameter;
+            walker.inOutParameter = this.inOutParameter;
+            walker.aliasTables = getAliasTables();
+
+            walker.order = new int[sourceGraph.numVertices()];
+            for (int i = 0; i < walker.order.length; i++) {
+                walker.order[i] = i;
+            }
+
+            if (this.seed != 0)
+                walker.rng = new Random(this.seed);
+
+            return walker;
+        }
+    }
+}
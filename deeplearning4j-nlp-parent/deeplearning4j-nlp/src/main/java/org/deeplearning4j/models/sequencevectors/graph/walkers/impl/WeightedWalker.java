@@ -4,25 +4,26 @@ import lombok.NonNull;
 import org.deeplearning4j.models.sequencevectors.graph.enums.NoEdgeHandling;
 import org.deeplearning4j.models.sequencevectors.graph.enums.WalkDirection;
 import org.deeplearning4j.models.sequencevectors.graph.exception.NoEdgesException;
-import org.deeplearning4j.models.sequencevectors.graph.primitives.Edge;
+import org.deeplearning4j.models.sequencevectors.graph.primitives.EdgeAliasTables;
 import org.deeplearning4j.models.sequencevectors.graph.primitives.IGraph;
 import org.deeplearning4j.models.sequencevectors.graph.primitives.Vertex;
 import org.deeplearning4j.models.sequencevectors.graph.walkers.GraphWalker;
 import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
 import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
 
-import java.util.List;
 import java.util.Random;
 
 /**
  * This is vertex weight-based walker for SequenceVectors-based DeepWalk implementation.
  * Instead of random walks, this walker produces walks based on weight of the edges.
+ * Next hops are sampled via {@link EdgeAliasTables} in O(1) time, regardless of vertex degree.
  *
  * @author AlexDBlack
  * @author raver119@gmail.com
  * Based on Alex Black WeightedWalkIterator implementation
  */
 public class WeightedWalker<T extends SequenceElement> extends RandomWalker<T> implements GraphWalker<T> {
+    protected EdgeAliasTables aliasTables;
 
     protected WeightedWalker() {
 
@@ -67,9 +68,9 @@ public class WeightedWalker<T extends SequenceElement> extends RandomWalker<T> i
             Vertex<T> vertex = sourceGraph.getVertex(currentPoint);
             sequence.addElement(vertex.getValue());
 
-            List<? extends Edge<? extends Number>> edges = sourceGraph.getEdgesOut(currentPoint);
+            int next = aliasTables.sample(currentPoint, rng);
 
-            if (edges == null || edges.isEmpty()) {
+            if (next < 0) {
                 switch (noEdgeHandling) {
                     case CUTOFF_ON_DISCONNECTED:
                         // we just break this sequence
@@ -88,30 +89,8 @@ public class WeightedWalker<T extends SequenceElement> extends RandomWalker<T> i
                         break;
                 }
             } else {
-                double totalWeight = 0.0;
-                for (Edge<? extends Number> edge : edges) {
-                    totalWeight += edge.getValue().doubleValue();
-                }
-
-                double d = rng.nextDouble();
-                double threshold = d * totalWeight;
-                double sumWeight = 0.0;
-                for (Edge<? extends Number> edge : edges) {
-                    sumWeight += edge.getValue().doubleValue();
-                    if (sumWeight >= threshold) {
-                        if (edge.isDirected()) {
-                            currentPoint = edge.getTo();
-                        } else {
-                            if (edge.getFrom() == currentPoint) {
-                                currentPoint = edge.getTo();
-                            } else {
-                                currentPoint = edge.getFrom(); //Undirected edge: might be next--currVertexIdx instead of currVertexIdx--next
-                            }
-                        }
-                        lastId = currentPoint;
-                        break;
-                    }
-                }
+                currentPoint = next;
+                lastId = currentPoint;
             }
         }
 
@@ -129,11 +108,24 @@ public class WeightedWalker<T extends SequenceElement> extends RandomWalker<T> i
     }
 
     public static class Builder<T extends SequenceElement> extends RandomWalker.Builder<T> {
+        protected EdgeAliasTables aliasTables;
 
         public Builder(IGraph<T, ? extends Number> sourceGraph) {
             super(sourceGraph);
         }
 
+        /**
+         * This method allows to share precomputed alias tables between multiple walkers on the same graph.
+         * If not set, alias tables will be built for this walker
+         *
+         * @param aliasTables
+         * @return
+         */
+        public Builder<T> setAliasTables(@NonNull EdgeAliasTables aliasTables) {
+            this.aliasTables = aliasTables;
+            return this;
+        }
+
         /**
          * This method specifies output sequence (walk) length
          *
@@ -203,6 +195,7 @@ public class WeightedWalker<T extends SequenceElement> extends RandomWalker<T> i
             walker.seed = this.seed;
             walker.walkDirection = this.walkDirection;
             walker.alpha = this.alpha;
+            walker.aliasTables = getAliasTables();
 
             walker.order = new int[sourceGraph.numVertices()];
             for (int i = 0; i < walker.order.length; i++) {
@@ -214,5 +207,15 @@ public class WeightedWalker<T extends SequenceElement> extends RandomWalker<T> i
 
             return walker;
         }
+
+        protected EdgeAliasTables getAliasTables() {
+            if (aliasTables == null)
+                return new EdgeAliasTables(sourceGraph);
+
+            if (aliasTables.numVertices() != sourceGraph.numVertices())
+                throw new IllegalStateException("Alias tables don't match source graph: [" + aliasTables.numVertices()
+                                + "] vs [" + sourceGraph.numVertices() + "] vertices");
+            return aliasTables;
+        }
     }
 }
@@ -0,0 +1,96 @@
+package org.deeplearning4j.models.sequencevectors.iterators;
+
+import lombok.NonNull;
+import org.deeplearning4j.models.sequencevectors.graph.primitives.IGraph;
+import org.deeplearning4j.models.sequencevectors.interfaces.SequenceIterator;
+import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
+import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+import org.deeplearning4j.util.IntSequenceFile;
+
+import java.util.NoSuchElementException;
+
+/**
+ * This SequenceIterator implementation replays pre-generated sequences of element indices (for example, graph walks
+ * generated via deeplearning4j-graph WalkCorpusGenerator) from memory-mapped {@link IntSequenceFile}.
+ * So walks can be generated once, and reused across epochs, and across different models (DeepWalk, Node2Vec,
+ * SequenceVectors) with different hyperparameters.
+ *
+ * Indices are resolved into elements either via graph (index is vertex index), or via VocabCache (index is element
+ * index in vocabulary).
+ *
+ * PLEASE NOTE: this iterator isn't thread safe, but any number of instances can share the same IntSequenceFile.
+ */
+public class WalkCorpusSequenceIterator<T extends SequenceElement> implements SequenceIterator<T> {
+
+    private final IntSequenceFile corpus;
+    private final IGraph<T, ?> graph;
+    private final VocabCache<T> vocabCache;
+    private final int[] buffer;
+    private long position = 0;
+
+    /**
+     * Creates SequenceIterator over walk corpus, with vertex indices resolved via given graph
+     *
+     * @param corpus
+     * @param graph graph, walks were generated on
+     */
+    public WalkCorpusSequenceIterator(@NonNull IntSequenceFile corpus, @NonNull IGraph<T, ?> graph) {
+        this(corpus, graph, null);
+    }
+
+    /**
+     * Creates SequenceIterator over index sequences, with indices resolved via given VocabCache
+     *
+     * @param corpus
+     * @param vocabCache
+     */
+    public WalkCorpusSequenceIterator(@NonNull IntSequenceFile corpus, @NonNull VocabCache<T> vocabCache) {
+        this(corpus, null, vocabCache);
+    }
+
+    private WalkCorpusSequenceIterator(IntSequenceFile corpus, IGraph<T, ?> graph, VocabCache<T> vocabCache) {
+        this.corpus = corpus;
+        this.graph = graph;
+        this.vocabCache = vocabCache;
+        this.buffer = new int[corpus.getMaxSequenceLength()];
+    }
+
+    /**
+     * Checks, if there's any more sequences left in corpus
+     * @return
+     */
+    @Override
+    public boolean hasMoreSequences() {
+        return position < corpus.numSequences();
+    }
+
+    /**
+     * Returns next sequence from corpus. SequenceId is set to the index of the sequence in corpus.
+     * @return
+     */
+    @Override
+    public Sequence<T> nextSequence() {
+        if (!hasMoreSequences())
+            throw new NoSuchElementException();
+
+        int length = corpus.getSequence(position, buffer);
+        Sequence<T> sequence = new Sequence<>();
+        for (int i = 0; i < length; i++)
+            sequence.addElement(graph != null ? graph.getVertex(buffer[i]).getValue()
+                            : vocabCache.elementAtIndex(buffer[i]));
+
+        sequence.setSequenceId((int) position);
+        position++;
+
+        return sequence;
+    }
+
+    /**
+     * Resets iterator down to first sequence
+     */
+    @Override
+    public void reset() {
+        position = 0;
+    }
+}
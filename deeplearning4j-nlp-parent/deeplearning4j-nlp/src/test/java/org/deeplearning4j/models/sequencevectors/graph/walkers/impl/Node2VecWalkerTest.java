@@ -0,0 +1,129 @@
+package org.deeplearning4j.models.sequencevectors.graph.walkers.impl;
+
+import org.deeplearning4j.models.sequencevectors.graph.enums.NoEdgeHandling;
+import org.deeplearning4j.models.sequencevectors.graph.primitives.EdgeAliasTables;
+import org.deeplearning4j.models.sequencevectors.graph.primitives.Graph;
+import org.deeplearning4j.models.sequencevectors.graph.vertex.AbstractVertexFactory;
+import org.deeplearning4j.models.sequencevectors.graph.walkers.GraphWalker;
+import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class Node2VecWalkerTest {
+    private static Graph<VocabWord, Double> ringGraph;
+    private static Graph<VocabWord, Double> starGraph;
+
+    @Before
+    public void setUp() throws Exception {
+        if (ringGraph == null) {
+            ringGraph = new Graph<>(10, false, new AbstractVertexFactory<VocabWord>());
+            for (int i = 0; i < 10; i++) {
+                ringGraph.getVertex(i).setValue(new VocabWord(i, String.valueOf(i)));
+                ringGraph.addEdge(i, (i + 1) % 10, 1.0, false);
+            }
+
+            // vertex 0 is connected to all other vertices, with weight equal to index of the other vertex
+            starGraph = new Graph<>(10, false, new AbstractVertexFactory<VocabWord>());
+            for (int i = 0; i < 10; i++) {
+                starGraph.getVertex(i).setValue(new VocabWord(i, String.valueOf(i)));
+                if (i > 0)
+                    starGraph.addEdge(0, i, (double) i, false);
+            }
+        }
+    }
+
+    @Test
+    public void testAliasTables() throws Exception {
+        EdgeAliasTables tables = new EdgeAliasTables(starGraph);
+
+        assertEquals(10, tables.numVertices());
+        assertEquals(9, tables.getVertexDegree(0));
+        assertTrue(tables.isConnected(0, 5));
+        assertTrue(tables.isConnected(5, 0));
+        assertFalse(tables.isConnected(5, 6));
+
+        int[] counts = new int[10];
+        int numSamples = 100000;
+        Random rng = new Random(12345);
+        for (int i = 0; i < numSamples; i++)
+            counts[tables.sample(0, rng)]++;
+
+        assertEquals(0, counts[0]);
+        for (int i = 1; i < 10; i++)
+            assertEquals(i / 45.0, counts[i] / (double) numSamples, 0.01);
+    }
+
+    @Test
+    public void testBasicIterator1() throws Exception {
+        GraphWalker<VocabWord> walker = new Node2VecWalker.Builder<>(ringGraph).setWalkLength(10)
+                        .setReturnParameter(0.5).setInOutParameter(2.0).setSeed(12345).build();
+
+        int cnt = 0;
+        while (walker.hasNext()) {
+            Sequence<VocabWord> sequence = walker.next();
+
+            assertNotEquals(null, sequence);
+            assertEquals(10, sequence.getElements().size());
+            cnt++;
+        }
+
+        assertEquals(ringGraph.numVertices(), cnt);
+    }
+
+    @Test
+    public void testNoReturn() throws Exception {
+        // with very large return parameter, walk on the ring never goes back
+        EdgeAliasTables tables = new EdgeAliasTables(ringGraph);
+        GraphWalker<VocabWord> walker = new Node2VecWalker.Builder<>(ringGraph).setWalkLength(20)
+                        .setReturnParameter(1e9).setAliasTables(tables).setSeed(12345)
+                        .setNoEdgeHandling(NoEdgeHandling.EXCEPTION_ON_DISCONNECTED).build();
+
+        while (walker.hasNext()) {
+            List<VocabWord> elements = walker.next().getElements();
+            assertEquals(20, elements.size());
+            for (int i = 2; i < elements.size(); i++)
+                assertNotEquals(elements.get(i - 2).getLabel(), elements.get(i).getLabel());
+        }
+    }
+
+    @Test(timeout = 30000L)
+    public void testDirectedNoWayBack() throws Exception {
+        // directed ring: there's no edge back to previous vertex, so small return parameter must not stall sampling
+        Graph<VocabWord, Double> directedRing = new Graph<>(10, false, new AbstractVertexFactory<VocabWord>());
+        for (int i = 0; i < 10; i++) {
+            directedRing.getVertex(i).setValue(new VocabWord(i, String.valueOf(i)));
+            directedRing.addEdge(i, (i + 1) % 10, 1.0, true);
+        }
+
+        GraphWalker<VocabWord> walker = new Node2VecWalker.Builder<>(directedRing).setWalkLength(20)
+                        .setReturnParameter(1e-9).setSeed(12345).build();
+
+        while (walker.hasNext()) {
+            List<VocabWord> elements = walker.next().getElements();
+            assertEquals(20, elements.size());
+            for (int i = 1; i < elements.size(); i++) {
+                int previous = Integer.parseInt(elements.get(i - 1).getLabel());
+                assertEquals(String.valueOf((previous + 1) % 10), elements.get(i).getLabel());
+            }
+        }
+    }
+
+    @Test
+    public void testAlwaysReturn() throws Exception {
+        // with very small return parameter, walk on the ring goes back and forth between 2 vertices
+        GraphWalker<VocabWord> walker = new Node2VecWalker.Builder<>(ringGraph).setWalkLength(20)
+                        .setReturnParameter(1e-9).setSeed(12345).build();
+
+        while (walker.hasNext()) {
+            List<VocabWord> elements = walker.next().getElements();
+            for (int i = 2; i < elements.size(); i++)
+                assertEquals(elements.get(i - 2).getLabel(), elements.get(i).getLabel());
+        }
+    }
+}
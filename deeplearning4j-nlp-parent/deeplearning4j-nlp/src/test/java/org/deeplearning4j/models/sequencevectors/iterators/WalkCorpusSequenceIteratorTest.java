@@ -0,0 +1,106 @@
+package org.deeplearning4j.models.sequencevectors.iterators;
+
+import org.deeplearning4j.models.embeddings.learning.impl.elements.SkipGram;
+import org.deeplearning4j.models.embeddings.loader.VectorsConfiguration;
+import org.deeplearning4j.models.sequencevectors.SequenceVectors;
+import org.deeplearning4j.models.sequencevectors.graph.primitives.Graph;
+import org.deeplearning4j.models.sequencevectors.graph.vertex.AbstractVertexFactory;
+import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.util.IntSequenceFile;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class WalkCorpusSequenceIteratorTest {
+    private static final int WALK_LENGTH = 10;
+    private static final int WALKS_PER_VERTEX = 50;
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    private Graph<VocabWord, Double> graph;
+    private List<int[]> walks;
+    private IntSequenceFile corpus;
+
+    @Before
+    public void setUp() throws Exception {
+        // two cliques of 5 vertices: 0..4 and 5..9, connected by single edge 4-5
+        graph = new Graph<>(10, false, new AbstractVertexFactory<VocabWord>());
+        for (int i = 0; i < 10; i++)
+            graph.getVertex(i).setValue(new VocabWord(1.0, String.valueOf(i)));
+        for (int i = 0; i < 10; i++) {
+            for (int j = i + 1; j < 10; j++) {
+                if (i / 5 == j / 5)
+                    graph.addEdge(i, j, 1.0, false);
+            }
+        }
+        graph.addEdge(4, 5, 1.0, false);
+
+        Random rng = new Random(12345);
+        walks = new ArrayList<>();
+        File file = testDir.newFile("walks.bin");
+        try (IntSequenceFile.Writer writer = new IntSequenceFile.Writer(file)) {
+            for (int w = 0; w < WALKS_PER_VERTEX; w++) {
+                for (int v = 0; v < graph.numVertices(); v++) {
+                    int[] walk = new int[WALK_LENGTH];
+                    walk[0] = v;
+                    for (int i = 1; i < WALK_LENGTH; i++)
+                        walk[i] = graph.getRandomConnectedVertex(walk[i - 1], rng).vertexID();
+                    writer.write(walk);
+                    walks.add(walk);
+                }
+            }
+        }
+        corpus = new IntSequenceFile(file);
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+        WalkCorpusSequenceIterator<VocabWord> iterator = new WalkCorpusSequenceIterator<>(corpus, graph);
+
+        for (int epoch = 0; epoch < 2; epoch++) {
+            int cnt = 0;
+            while (iterator.hasMoreSequences()) {
+                Sequence<VocabWord> sequence = iterator.nextSequence();
+                int[] walk = walks.get(cnt);
+
+                assertEquals(cnt, sequence.getSequenceId());
+                assertEquals(WALK_LENGTH, sequence.size());
+                for (int i = 0; i < WALK_LENGTH; i++)
+                    assertEquals(String.valueOf(walk[i]), sequence.getElements().get(i).getLabel());
+                cnt++;
+            }
+            assertEquals(walks.size(), cnt);
+            iterator.reset();
+        }
+    }
+
+    @Test
+    public void testSequenceVectorsOnCorpus() throws Exception {
+        SequenceVectors<VocabWord> vectors = new SequenceVectors.Builder<VocabWord>(new VectorsConfiguration())
+                        .iterate(new WalkCorpusSequenceIterator<>(corpus, graph)).minWordFrequency(1)
+                        .elementsLearningAlgorithm(new SkipGram<VocabWord>()).trainElementsRepresentation(true)
+                        .trainSequencesRepresentation(false).layerSize(20).windowSize(3).learningRate(0.025)
+                        .sampling(0).negativeSample(0).useHierarchicSoftmax(true).batchSize(100).epochs(5)
+                        .workers(1).seed(12345).build();
+
+        vectors.fit();
+
+        assertEquals(10, vectors.getVocab().numWords());
+
+        // vertices in the same clique co-occur in walks far more often than vertices in different cliques
+        double sameClique = vectors.similarity("0", "1");
+        double otherClique = vectors.similarity("0", "8");
+        assertFalse(Double.isNaN(sameClique));
+        assertTrue("Same clique: " + sameClique + ", other clique: " + otherClique, sameClique > otherClique);
+    }
+}
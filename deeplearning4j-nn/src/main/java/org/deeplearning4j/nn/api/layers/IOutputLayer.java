@@ -40,6 +40,21 @@ public interface IOutputLayer extends Layer, Classifier {
      */
     INDArray getLabels();
 
+    /**
+     * Set the factor to multiply the loss gradient (dL/dz) by, before backprop through this layer - i.e., the loss
+     * scale for mixed-precision training. All gradients and epsilons of this layer are hence multiplied by it.
+     *
+     * @param lossGradientScale Loss gradient scale. 1.0 (default): no scaling
+     */
+    void setLossGradientScale(double lossGradientScale);
+
+    /**
+     * Get the loss gradient scale previously set with {@link #setLossGradientScale(double)}
+     *
+     * @return Loss gradient scale
+     */
+    double getLossGradientScale();
+
     /**
      * Compute score after labels and input have been set.
      *
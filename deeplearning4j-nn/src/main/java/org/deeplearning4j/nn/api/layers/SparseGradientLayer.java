@@ -0,0 +1,30 @@
+package org.deeplearning4j.nn.api.layers;
+
+import org.deeplearning4j.nn.api.Layer;
+
+/**
+ * Layer with row-sparse gradients for some of its parameters: for example, embedding layers, where only the rows for
+ * the indices present in the current minibatch have non-zero gradients.<br>
+ * Such parameters get their own updater block, and the updater is applied to the non-zero rows only (lazy update:
+ * updater state of all other rows, such as Adam moments, isn't modified).
+ *
+ * PLEASE NOTE: gradient of a sparse parameter must be 2d, in 'f' order, and all rows except for the ones returned by
+ * {@link #getGradientRows(String)} must be zero.
+ */
+public interface SparseGradientLayer extends Layer {
+
+    /**
+     * @param paramName Name of the parameter
+     * @return True if gradient of the given parameter is row-sparse
+     */
+    boolean isSparseGradient(String paramName);
+
+    /**
+     * This method returns rows of the gradient that may be non-zero after the last backprop call
+     *
+     * @param paramName Name of the parameter
+     * @return Unique row indices, in ascending order. Null if unknown, in which case the gradient should be treated
+     * as dense
+     */
+    int[] getGradientRows(String paramName);
+}
@@ -26,11 +26,13 @@ import org.deeplearning4j.nn.conf.layers.BaseLayer;
 import org.deeplearning4j.nn.conf.layers.BasePretrainNetwork;
 import org.deeplearning4j.nn.conf.layers.Layer;
 import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.conf.memory.ActivationMemoryPlan;
 import org.deeplearning4j.nn.conf.memory.MemoryReport;
 import org.deeplearning4j.nn.conf.memory.NetworkMemoryReport;
 import org.nd4j.base.Preconditions;
 import org.nd4j.linalg.activations.Activation;
 import org.nd4j.linalg.activations.IActivation;
+import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.shade.jackson.databind.JsonNode;
 import org.nd4j.shade.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
@@ -75,6 +77,13 @@ public class ComputationGraphConfiguration implements Serializable, Cloneable {
     @Setter
     protected CacheMode cacheMode;
 
+    /**
+     * Mixed-precision training configuration. Null if disabled
+     */
+    @Getter
+    @Setter
+    protected MixedPrecision mixedPrecision;
+
     /**
      * List of inputs to the network, by name
      */
@@ -91,6 +100,12 @@ public class ComputationGraphConfiguration implements Serializable, Cloneable {
     protected int tbpttFwdLength = 20;
     protected int tbpttBackLength = 20;
 
+    /**
+     * Vertices whose outputs are retained for backprop when activation checkpointing is used. Null if all activations
+     * are retained (no checkpointing)
+     */
+    protected List<String> activationCheckpoints;
+
     protected NeuralNetConfiguration defaultConfiguration;
 
     //Counter for the number of parameter updates so far
@@ -254,11 +269,13 @@ public class ComputationGraphConfiguration implements Serializable, Cloneable {
         conf.backpropType = backpropType;
         conf.tbpttFwdLength = tbpttFwdLength;
         conf.tbpttBackLength = tbpttBackLength;
+        conf.activationCheckpoints = activationCheckpoints == null ? null : new ArrayList<>(activationCheckpoints);
         conf.defaultConfiguration = defaultConfiguration.clone();
         conf.trainingWorkspaceMode = trainingWorkspaceMode;
         conf.inferenceWorkspaceMode = inferenceWorkspaceMode;
         conf.cacheMode = this.cacheMode;
         conf.defaultConfiguration.cacheMode = this.cacheMode;
+        conf.mixedPrecision = this.mixedPrecision;
 
         return conf;
     }
@@ -315,6 +332,16 @@ public class ComputationGraphConfiguration implements Serializable, Cloneable {
             }
         }
 
+        //Check activation checkpoints
+        if(activationCheckpoints != null) {
+            for (String s : activationCheckpoints) {
+                if (!vertices.containsKey(s)) {
+                    throw new IllegalStateException(
+                            "Invalid configuration: Activation checkpoint \"" + s + "\" is not a valid vertex");
+                }
+            }
+        }
+
         //Check output names:
         if(networkOutputs != null) {
             for (String s : networkOutputs) {
@@ -579,6 +606,20 @@ public class ComputationGraphConfiguration implements Serializable, Cloneable {
                         inputTypes);
     }
 
+    /**
+     * Get an {@link ActivationMemoryPlan} for the given computation graph configuration: assignment of vertex
+     * activations to a minimal set of reusable buffers, for inference with up to the given minibatch size
+     *
+     * @param maxMinibatch Maximal minibatch size
+     * @param dataType     Data type of activations
+     * @param inputTypes   Input types for the network
+     * @return Activations memory plan for the network
+     */
+    public ActivationMemoryPlan getActivationMemoryPlan(int maxMinibatch, DataBuffer.Type dataType,
+                    InputType... inputTypes) {
+        return ActivationMemoryPlan.create(this, topologicalOrdering(), maxMinibatch, dataType, inputTypes);
+    }
+
     @Data
     public static class GraphBuilder {
         protected Map<String, GraphVertex> vertices = new LinkedHashMap<>();
@@ -598,6 +639,8 @@ public class ComputationGraphConfiguration implements Serializable, Cloneable {
         protected int tbpttFwdLength = 20;
         protected int tbpttBackLength = 20;
 
+        protected List<String> activationCheckpoints;
+
         protected Map<String, InputPreProcessor> inputPreProcessors = new LinkedHashMap<>();
 
         protected NeuralNetConfiguration.Builder globalConfiguration;
@@ -624,6 +667,7 @@ public class ComputationGraphConfiguration implements Serializable, Cloneable {
             this.backpropType = clonedConf.getBackpropType();
             this.tbpttFwdLength = clonedConf.getTbpttFwdLength();
             this.tbpttBackLength = clonedConf.getTbpttBackLength();
+            this.activationCheckpoints = clonedConf.getActivationCheckpoints();
             this.globalConfiguration = globalConfiguration;
             //this.getGlobalConfiguration().setSeed(clonedConf.getDefaultConfiguration().getSeed());
         }
@@ -703,6 +747,26 @@ public class ComputationGraphConfiguration implements Serializable, Cloneable {
             return this;
         }
 
+        /**
+         * Enable activation checkpointing (gradient checkpointing) for training.<br>
+         * Only outputs of the specified vertices (plus network inputs, and any outputs that are used across
+         * checkpoints) are retained after the forward pass; activations between two consecutive checkpoints are
+         * discarded, and recomputed segment by segment during backprop. This trades an extra forward pass for
+         * memory: peak activations memory is roughly the retained outputs plus a single segment.<br>
+         * Typically, checkpoints are placed every sqrt(N) layers, for a network with N layers.
+         * <p>
+         * PLEASE NOTE: activations after the last checkpoint (and of any segment containing a network output) are
+         * never discarded. Checkpointing isn't used for truncated BPTT, and memory is released only if training
+         * workspace mode is enabled.
+         *
+         * @param vertexNames Names of the vertices to use as checkpoints. No arguments to disable checkpointing
+         */
+        public GraphBuilder activationCheckpoints(String... vertexNames) {
+            this.activationCheckpoints = vertexNames == null || vertexNames.length == 0 ? null
+                    : new ArrayList<>(Arrays.asList(vertexNames));
+            return this;
+        }
+
         /**
          * When doing truncated backpropagation through time (tBPTT): how many steps should we do?<br>
          * Only applicable when doing backpropType(BackpropType.TruncatedBPTT)<br>
@@ -802,6 +866,9 @@ public class ComputationGraphConfiguration implements Serializable, Cloneable {
                 if (networkOutputs.contains(vertexName)) {
                     networkOutputs.remove(vertexName);
                 }
+                if (activationCheckpoints != null) {
+                    activationCheckpoints.remove(vertexName);
+                }
                 for (Map.Entry<String, List<String>> entry : this.vertexInputs.entrySet()) {
                     List inputs = entry.getValue();
                     if (inputs.contains(vertexName)) {
@@ -959,6 +1026,7 @@ public class ComputationGraphConfiguration implements Serializable, Cloneable {
             conf.backpropType = backpropType;
             conf.tbpttBackLength = tbpttBackLength;
             conf.tbpttFwdLength = tbpttFwdLength;
+            conf.activationCheckpoints = activationCheckpoints;
 
             conf.networkInputs = networkInputs;
             conf.networkOutputs = networkOutputs;
@@ -968,6 +1036,7 @@ public class ComputationGraphConfiguration implements Serializable, Cloneable {
             conf.trainingWorkspaceMode = globalConfiguration.trainingWorkspaceMode;
             conf.inferenceWorkspaceMode = globalConfiguration.inferenceWorkspaceMode;
             conf.cacheMode = globalConfiguration.cacheMode;
+            conf.mixedPrecision = globalConfiguration.mixedPrecision;
 
             conf.defaultConfiguration = globalConfiguration.build();
             conf.getDefaultConfiguration().setPretrain(pretrain);
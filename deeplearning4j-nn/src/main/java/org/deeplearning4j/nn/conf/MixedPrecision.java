@@ -0,0 +1,155 @@
+package org.deeplearning4j.nn.conf;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Configuration for mixed-precision training: dynamic loss scaling, and compensated (master weights) parameter updates.
+ * <br>
+ * Usage: set reduced precision data type for the whole process (for example, DataTypeUtil.setDTypeForContext(HALF)),
+ * and enable mixed precision via {@link NeuralNetConfiguration.Builder#mixedPrecision(MixedPrecision)}.<br>
+ * During training, output layer gradients are multiplied by the current loss scale, so small gradients don't underflow
+ * in reduced precision. Gradients are unscaled before gradient normalization and updater are applied. If gradients
+ * contain NaN or infinite values, the whole step is skipped and the loss scale is decreased by {@link #backoffFactor}.
+ * After {@link #growthInterval} consecutive steps without overflow, the loss scale is increased by
+ * {@link #growthFactor}, up to {@link #maxScale}.<br>
+ * If {@link #masterWeights} is set, each updater block keeps residual of rounding errors from previous steps, and
+ * carries it into the next parameter update (compensated summation). So updates smaller than half ulp of the
+ * parameters aren't lost.
+ *
+ * PLEASE NOTE: ND4J uses single data type for all arrays, so master weights are implemented as residual arrays of the
+ * same data type, instead of separate FP32 copy of the parameters.
+ * PLEASE NOTE: master weights assume default parameter update (params -= update), and are ignored for external
+ * gradients.
+ */
+@Data
+@NoArgsConstructor
+public class MixedPrecision implements Serializable {
+    /**
+     * Initial loss scale
+     */
+    private double initialScale = 1024.0;
+
+    /**
+     * Loss scale multiplier, applied after {@link #growthInterval} steps without overflow
+     */
+    private double growthFactor = 2.0;
+
+    /**
+     * Loss scale multiplier, applied after each step with overflow
+     */
+    private double backoffFactor = 0.5;
+
+    /**
+     * Number of consecutive steps without overflow before loss scale is increased
+     */
+    private int growthInterval = 2000;
+
+    /**
+     * Lower bound for the loss scale
+     */
+    private double minScale = 1.0;
+
+    /**
+     * Upper bound for the loss scale. Default value is the largest power of 2 below max HALF value
+     */
+    private double maxScale = 32768.0;
+
+    /**
+     * If true, rounding errors of parameter updates are accumulated and applied on the next step
+     */
+    private boolean masterWeights = true;
+
+    private MixedPrecision(Builder builder) {
+        this.initialScale = builder.initialScale;
+        this.growthFactor = builder.growthFactor;
+        this.backoffFactor = builder.backoffFactor;
+        this.growthInterval = builder.growthInterval;
+        this.minScale = builder.minScale;
+        this.maxScale = builder.maxScale;
+        this.masterWeights = builder.masterWeights;
+    }
+
+    public static class Builder {
+        private double initialScale = 1024.0;
+        private double growthFactor = 2.0;
+        private double backoffFactor = 0.5;
+        private int growthInterval = 2000;
+        private double minScale = 1.0;
+        private double maxScale = 32768.0;
+        private boolean masterWeights = true;
+
+        /**
+         * Initial loss scale. Default: 1024
+         */
+        public Builder initialScale(double initialScale) {
+            this.initialScale = initialScale;
+            return this;
+        }
+
+        /**
+         * Loss scale multiplier, applied after growthInterval steps without overflow. Default: 2.0
+         */
+        public Builder growthFactor(double growthFactor) {
+            this.growthFactor = growthFactor;
+            return this;
+        }
+
+        /**
+         * Loss scale multiplier, applied after each step with overflow. Default: 0.5
+         */
+        public Builder backoffFactor(double backoffFactor) {
+            this.backoffFactor = backoffFactor;
+            return this;
+        }
+
+        /**
+         * Number of consecutive steps without overflow before loss scale is increased. Default: 2000
+         */
+        public Builder growthInterval(int growthInterval) {
+            this.growthInterval = growthInterval;
+            return this;
+        }
+
+        /**
+         * Lower and upper bounds for the loss scale. Default: [1.0, 32768.0]
+         */
+        public Builder scaleBounds(double minScale, double maxScale) {
+            this.minScale = minScale;
+            this.maxScale = maxScale;
+            return this;
+        }
+
+        /**
+         * If true, rounding errors of parameter updates are accumulated and applied on the next step. Default: true
+         */
+        public Builder masterWeights(boolean masterWeights) {
+            this.masterWeights = masterWeights;
+            return this;
+        }
+
+        public MixedPrecision build() {
+            if (initialScale <= 0 || minScale <= 0 || maxScale < minScale)
+                throw new IllegalStateException("Invalid loss scale configuration: initialScale=" + initialScale
+                                + ", minScale=" + minScale + ", maxScale=" + maxScale);
+            if (growthFactor < 1.0 || backoffFactor <= 0 || backoffFactor >= 1.0)
+                throw new IllegalStateException("Invalid loss scale configuration: growthFactor must be >= 1.0 and "
+                                + "backoffFactor must be in range (0, 1), got growthFactor=" + growthFactor
+                                + ", backoffFactor=" + backoffFactor);
+            if (growthInterval <= 0)
+                throw new IllegalStateException("Invalid growthInterval: must be > 0, got " + growthInterval);
+            return new MixedPrecision(this);
+        }
+    }
+
+    /**
+     * This method returns default mixed precision configuration
+     *
+     * @return
+     */
+    public static MixedPrecision defaults() {
+        return new Builder().build();
+    }
+}
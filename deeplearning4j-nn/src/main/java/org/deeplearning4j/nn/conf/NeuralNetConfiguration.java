@@ -297,6 +297,7 @@ public class NeuralNetConfiguration implements Serializable, Cloneable {
                             .pretrain(pretrain).backpropType(backpropType).tBPTTForwardLength(tbpttFwdLength)
                             .tBPTTBackwardLength(tbpttBackLength).setInputType(this.inputType)
                             .trainingWorkspaceMode(wsmTrain).cacheMode(globalConfig.cacheMode)
+                            .mixedPrecision(globalConfig.mixedPrecision)
                             .inferenceWorkspaceMode(wsmTest).confs(list).build();
         }
 
@@ -535,6 +536,7 @@ public class NeuralNetConfiguration implements Serializable, Cloneable {
         protected boolean setTWM = false;
         protected boolean setIWM = false;
         protected CacheMode cacheMode = CacheMode.NONE;
+        protected MixedPrecision mixedPrecision;
 
         protected ConvolutionMode convolutionMode = ConvolutionMode.Truncate;
         protected ConvolutionLayer.AlgoMode cudnnAlgoMode = ConvolutionLayer.AlgoMode.PREFER_FASTEST;
@@ -609,6 +611,19 @@ public class NeuralNetConfiguration implements Serializable, Cloneable {
             return this;
         }
 
+        /**
+         * This method enables mixed-precision training: dynamic loss scaling and compensated parameter updates.
+         * Should be used together with reduced precision (HALF) data type. Disabled by default.
+         *
+         * @param mixedPrecision Mixed precision configuration, or null to disable
+         * @return Builder
+         * @see MixedPrecision
+         */
+        public Builder mixedPrecision(MixedPrecision mixedPrecision) {
+            this.mixedPrecision = mixedPrecision;
+            return this;
+        }
+
         /**
          * Objective function to minimize or maximize cost function
          * Default set to minimize true.
@@ -35,10 +35,12 @@ import java.util.Map;
 @EqualsAndHashCode(callSuper = true)
 public class EmbeddingLayer extends FeedForwardLayer {
     private boolean hasBias = true; //Default for pre-0.9.2 implementations
+    private boolean sparseGradients = false;
 
     private EmbeddingLayer(Builder builder) {
         super(builder);
         this.hasBias = builder.hasBias;
+        this.sparseGradients = builder.sparseGradients;
         initializeConstraints(builder);
     }
 
@@ -88,6 +90,7 @@ public class EmbeddingLayer extends FeedForwardLayer {
     public static class Builder extends FeedForwardLayer.Builder<Builder> {
 
         private boolean hasBias = false;
+        private boolean sparseGradients = false;
 
         /**
          * If true: include bias parameters in the layer. False (default): no bias.
@@ -99,6 +102,21 @@ public class EmbeddingLayer extends FeedForwardLayer {
             return this;
         }
 
+        /**
+         * If true: weight gradients are treated as row-sparse. Only the rows for the indices present in the minibatch
+         * are zeroed/set during backprop, and the updater (Adam, RMSProp etc) is applied to these rows only - i.e.,
+         * updater state and L1/L2 regularization of all other rows aren't updated ("lazy" updates).<br>
+         * This is much faster for layers with a large number of rows (nIn), but results differ from dense updates
+         * for updaters with momentum or decay.<br>
+         * False (default): standard dense updates.
+         *
+         * @param sparseGradients If true: use sparse updates for weights
+         */
+        public Builder sparseGradients(boolean sparseGradients){
+            this.sparseGradients = sparseGradients;
+            return this;
+        }
+
         @Override
         @SuppressWarnings("unchecked")
         public EmbeddingLayer build() {
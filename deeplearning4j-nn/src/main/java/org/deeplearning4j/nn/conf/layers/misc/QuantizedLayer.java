@@ -0,0 +1,106 @@
+package org.deeplearning4j.nn.conf.layers.misc;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import org.deeplearning4j.nn.api.ParamInitializer;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.ConvolutionLayer;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.EmbeddingLayer;
+import org.deeplearning4j.nn.conf.layers.Layer;
+import org.deeplearning4j.nn.layers.BaseLayer;
+import org.deeplearning4j.nn.params.QuantizedLayerParamInitializer;
+import org.deeplearning4j.optimize.api.TrainingListener;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.shade.jackson.annotation.JsonIgnore;
+import org.nd4j.shade.jackson.annotation.JsonProperty;
+
+import java.util.Collection;
+
+/**
+ * Serving-only wrapper for DenseLayer, ConvolutionLayer or EmbeddingLayer, that keeps layer weights in INT8 (with
+ * per-channel scale) or FLOAT16 format, and dequantizes them on the fly during forward pass.
+ * Bias and other parameters stay in network parameters. Layer is frozen: backprop is skipped.
+ *
+ * PLEASE NOTE: quantized weights aren't part of network parameters, so they aren't saved by ModelSerializer.
+ * Use {@link org.deeplearning4j.util.NetworkQuantizer} to quantize restored network instead.
+ */
+@EqualsAndHashCode(callSuper = true)
+public class QuantizedLayer extends FrozenLayer {
+
+    public enum Format {
+        /**
+         * 8-bit signed integers, with one float scale per output channel (per row for EmbeddingLayer)
+         */
+        INT8,
+        /**
+         * IEEE 754 half precision floats
+         */
+        FLOAT16
+    }
+
+    @Getter
+    protected Format format;
+
+    public QuantizedLayer(@JsonProperty("layer") Layer layer, @JsonProperty("format") @NonNull Format format) {
+        super(layer);
+        if (!isSupported(layer))
+            throw new IllegalArgumentException("Only DenseLayer, ConvolutionLayer and EmbeddingLayer can be quantized, "
+                            + "got " + layer.getClass().getSimpleName());
+
+        this.format = format;
+        this.layerName = layer.getLayerName();
+    }
+
+    /**
+     * This method checks, if given layer configuration can be quantized
+     *
+     * @param layer
+     * @return
+     */
+    public static boolean isSupported(Layer layer) {
+        return layer != null && (layer.getClass() == DenseLayer.class || layer.getClass() == ConvolutionLayer.class
+                        || layer.getClass() == EmbeddingLayer.class);
+    }
+
+    /**
+     * This method returns true, if quantization scales are computed per row of weights matrix: per output channel
+     * for ConvolutionLayer ([nOut, nIn, kH, kW]), and per embedding vector for EmbeddingLayer ([nIn, nOut]).
+     * DenseLayer weights ([nIn, nOut]) use per column scales.
+     */
+    @JsonIgnore
+    public boolean isRowScaled() {
+        return !(layer instanceof DenseLayer);
+    }
+
+    @Override
+    public org.deeplearning4j.nn.api.Layer instantiate(NeuralNetConfiguration conf,
+                    Collection<TrainingListener> trainingListeners, int layerIndex, INDArray layerParamsView,
+                    boolean initializeParams) {
+        NeuralNetConfiguration innerConf = getInnerConf(conf);
+
+        // underlying layer gets only bias view: weights are attached for the duration of forward pass
+        BaseLayer<?> underlying;
+        if (layer instanceof ConvolutionLayer) {
+            underlying = new org.deeplearning4j.nn.layers.convolution.ConvolutionLayer(innerConf);
+        } else if (layer instanceof EmbeddingLayer) {
+            underlying = new org.deeplearning4j.nn.layers.feedforward.embedding.EmbeddingLayer(innerConf);
+        } else {
+            underlying = new org.deeplearning4j.nn.layers.feedforward.dense.DenseLayer(innerConf);
+        }
+
+        underlying.setListeners(trainingListeners);
+        underlying.setIndex(layerIndex);
+        underlying.setParamsViewArray(layerParamsView);
+        underlying.setParamTable(initializer().init(conf, layerParamsView, initializeParams));
+        underlying.setConf(innerConf);
+
+        return new org.deeplearning4j.nn.layers.QuantizedLayer(underlying, format, isRowScaled());
+    }
+
+    @Override
+    public ParamInitializer initializer() {
+        return QuantizedLayerParamInitializer.getInstance();
+    }
+}
@@ -0,0 +1,330 @@
+package org.deeplearning4j.nn.conf.memory;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.deeplearning4j.nn.conf.CacheMode;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.graph.GraphVertex;
+import org.deeplearning4j.nn.conf.graph.LayerVertex;
+import org.deeplearning4j.nn.conf.inputs.InputType;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
+import org.nd4j.linalg.api.memory.enums.AllocationPolicy;
+import org.nd4j.linalg.api.memory.enums.LearningPolicy;
+import org.nd4j.linalg.api.memory.enums.ResetPolicy;
+import org.nd4j.linalg.api.memory.enums.SpillPolicy;
+
+import java.text.DecimalFormat;
+import java.util.*;
+
+/**
+ * Static plan of activations memory for inference with a {@link org.deeplearning4j.nn.graph.ComputationGraph}.<br>
+ * Vertices are executed in topological order, and output of each vertex is live from the step it's produced at,
+ * until the step of its last consumer (or until the end of forward pass, for vertices without consumers).
+ * Outputs with non-overlapping lifetimes are assigned to the same buffer, so the whole forward pass needs a few
+ * buffers of known size, instead of one buffer per vertex.<br>
+ * Buffer sizes are based on {@link NetworkMemoryReport} estimates for the maximal minibatch size, so the same buffers
+ * can be reused for any smaller minibatch.
+ */
+public class ActivationMemoryPlan {
+    private static final DecimalFormat BYTES_FORMAT = new DecimalFormat("#,###");
+
+    /**
+     * Fraction of extra memory allocated for every buffer, to account for small arrays not covered by memory reports
+     */
+    public static final double OVERALLOCATION = 0.1;
+
+    @Getter
+    private final int maxMinibatch;
+    @Getter
+    private final List<String> topologicalOrder;
+    private final Map<String, Integer> assignment;
+    private final Map<String, Long> activationBytes;
+    private final long[] bufferBytes;
+    @Getter
+    private final long workingMemoryBytes;
+    @Getter
+    private final long peakLiveBytes;
+
+    protected ActivationMemoryPlan(int maxMinibatch, List<String> topologicalOrder, Map<String, Integer> assignment,
+                    Map<String, Long> activationBytes, long[] bufferBytes, long workingMemoryBytes, long peakLiveBytes) {
+        this.maxMinibatch = maxMinibatch;
+        this.topologicalOrder = Collections.unmodifiableList(topologicalOrder);
+        this.assignment = assignment;
+        this.activationBytes = activationBytes;
+        this.bufferBytes = bufferBytes;
+        this.workingMemoryBytes = workingMemoryBytes;
+        this.peakLiveBytes = peakLiveBytes;
+    }
+
+    /**
+     * This method builds activations memory plan for the given graph configuration
+     *
+     * @param conf graph configuration
+     * @param topologicalOrder order of vertex execution, including network inputs
+     * @param maxMinibatch maximal minibatch size the plan should support
+     * @param dataType data type of activations
+     * @param inputTypes network input types
+     * @return
+     */
+    public static ActivationMemoryPlan create(@NonNull ComputationGraphConfiguration conf,
+                    @NonNull List<String> topologicalOrder, int maxMinibatch, @NonNull DataBuffer.Type dataType,
+                    @NonNull InputType... inputTypes) {
+        if (maxMinibatch < 1)
+            throw new IllegalArgumentException("Max minibatch size should be positive, got " + maxMinibatch);
+
+        Map<String, MemoryReport> reports = conf.getMemoryReport(inputTypes).getLayerAndVertexReports();
+
+        Map<String, Long> bytes = new LinkedHashMap<>();
+        long working = 0;
+        for (String name : topologicalOrder) {
+            MemoryReport report = reports.get(name);
+            if (report == null) {
+                // network inputs aren't allocated by the network
+                bytes.put(name, 0L);
+                continue;
+            }
+
+            long size = report.getMemoryBytes(MemoryType.ACTIVATIONS, maxMinibatch, MemoryUseMode.INFERENCE,
+                            CacheMode.NONE, dataType);
+
+            // preprocessor output is allocated in the same workspace as layer output
+            GraphVertex vertex = conf.getVertices().get(name);
+            if (vertex instanceof LayerVertex && ((LayerVertex) vertex).getPreProcessor() != null
+                            && report instanceof LayerMemoryReport)
+                size += (long) maxMinibatch * ((LayerMemoryReport) report).getInputType().arrayElementsPerExample()
+                                * report.getBytesPerElement(dataType);
+
+            bytes.put(name, size);
+            working = Math.max(working, report.getMemoryBytes(MemoryType.WORKING_MEMORY_FIXED, maxMinibatch,
+                            MemoryUseMode.INFERENCE, CacheMode.NONE, dataType)
+                            + report.getMemoryBytes(MemoryType.WORKING_MEMORY_VARIABLE, maxMinibatch,
+                                            MemoryUseMode.INFERENCE, CacheMode.NONE, dataType));
+        }
+
+        return create(topologicalOrder, conf.getVertexInputs(), maxMinibatch, bytes, working);
+    }
+
+    /**
+     * This method assigns vertex outputs to buffers, given the execution order and output sizes.
+     * Output of a vertex may reuse buffer that was released before the step it's executed at: buffer of the closest
+     * sufficient size is preferred, otherwise the largest released buffer is grown, and only if there are no released
+     * buffers a new one is added.
+     *
+     * @param topologicalOrder order of vertex execution
+     * @param vertexInputs inputs of every vertex
+     * @param maxMinibatch minibatch size the sizes were computed for
+     * @param activationBytes output size of every vertex, in bytes
+     * @param workingMemoryBytes size of working memory, in bytes
+     * @return
+     */
+    public static ActivationMemoryPlan create(@NonNull List<String> topologicalOrder,
+                    @NonNull Map<String, List<String>> vertexInputs, int maxMinibatch,
+                    @NonNull Map<String, Long> activationBytes, long workingMemoryBytes) {
+        Map<String, Integer> steps = new HashMap<>();
+        for (int i = 0; i < topologicalOrder.size(); i++)
+            steps.put(topologicalOrder.get(i), i);
+
+        // last step each output is used at: outputs without consumers are kept until the end of forward pass
+        int[] lastUse = new int[topologicalOrder.size()];
+        Arrays.fill(lastUse, -1);
+        for (Map.Entry<String, List<String>> entry : vertexInputs.entrySet()) {
+            Integer consumer = steps.get(entry.getKey());
+            if (consumer == null)
+                throw new IllegalArgumentException("Vertex \"" + entry.getKey() + "\" isn't in topological order");
+
+            for (String input : entry.getValue()) {
+                int producer = steps.get(input);
+                lastUse[producer] = Math.max(lastUse[producer], consumer);
+            }
+        }
+
+        List<List<Integer>> releasedAt = new ArrayList<>();
+        for (int i = 0; i < topologicalOrder.size(); i++) {
+            if (lastUse[i] < 0)
+                lastUse[i] = topologicalOrder.size() - 1;
+            releasedAt.add(new ArrayList<Integer>());
+        }
+
+        List<Long> buffers = new ArrayList<>();
+        TreeSet<Integer> free = new TreeSet<>();
+        Map<String, Integer> assignment = new LinkedHashMap<>();
+        long live = 0;
+        long peak = 0;
+        for (int i = 0; i < topologicalOrder.size(); i++) {
+            String name = topologicalOrder.get(i);
+            Long size = activationBytes.get(name);
+            long required = size == null ? 0 : size;
+
+            int buffer = -1;
+            int largest = -1;
+            for (int candidate : free) {
+                long candidateSize = buffers.get(candidate);
+                if (candidateSize >= required && (buffer < 0 || candidateSize < buffers.get(buffer)))
+                    buffer = candidate;
+                if (largest < 0 || candidateSize > buffers.get(largest))
+                    largest = candidate;
+            }
+
+            if (buffer < 0 && largest >= 0) {
+                buffer = largest;
+                buffers.set(buffer, required);
+            } else if (buffer < 0) {
+                buffer = buffers.size();
+                buffers.add(required);
+            }
+
+            free.remove(buffer);
+            assignment.put(name, buffer);
+            releasedAt.get(lastUse[i]).add(i);
+
+            live += required;
+            peak = Math.max(peak, live);
+
+            // buffers are released once their outputs were consumed by the current step
+            for (int released : releasedAt.get(i)) {
+                String releasedName = topologicalOrder.get(released);
+                free.add(assignment.get(releasedName));
+                Long releasedSize = activationBytes.get(releasedName);
+                live -= releasedSize == null ? 0 : releasedSize;
+            }
+        }
+
+        long[] bufferBytes = new long[buffers.size()];
+        for (int i = 0; i < bufferBytes.length; i++)
+            bufferBytes[i] = buffers.get(i);
+
+        return new ActivationMemoryPlan(maxMinibatch, new ArrayList<>(topologicalOrder), assignment,
+                        new HashMap<>(activationBytes), bufferBytes, workingMemoryBytes, peak);
+    }
+
+    /**
+     * This method returns number of buffers used by the plan
+     *
+     * @return
+     */
+    public int getNumBuffers() {
+        return bufferBytes.length;
+    }
+
+    /**
+     * This method returns buffer index, assigned to output of the given vertex
+     *
+     * @param vertexName
+     * @return
+     */
+    public int getBuffer(@NonNull String vertexName) {
+        Integer buffer = assignment.get(vertexName);
+        if (buffer == null)
+            throw new IllegalArgumentException("Vertex \"" + vertexName + "\" isn't part of this plan");
+
+        return buffer;
+    }
+
+    /**
+     * This method returns size of the given buffer, in bytes
+     *
+     * @param buffer
+     * @return
+     */
+    public long getBufferBytes(int buffer) {
+        return bufferBytes[buffer];
+    }
+
+    /**
+     * This method returns estimated output size of the given vertex, in bytes
+     *
+     * @param vertexName
+     * @return
+     */
+    public long getActivationBytes(@NonNull String vertexName) {
+        Long bytes = activationBytes.get(vertexName);
+        return bytes == null ? 0 : bytes;
+    }
+
+    /**
+     * This method returns total memory of all buffers, plus working memory
+     *
+     * @return
+     */
+    public long getTotalBytes() {
+        long total = workingMemoryBytes;
+        for (long bytes : bufferBytes)
+            total += bytes;
+
+        return total;
+    }
+
+    /**
+     * This method returns memory that would be used without any buffer reuse, i.e. one buffer per vertex
+     *
+     * @return
+     */
+    public long getUnplannedBytes() {
+        long total = workingMemoryBytes;
+        for (long bytes : activationBytes.values())
+            total += bytes;
+
+        return total;
+    }
+
+    /**
+     * This method returns workspace configuration, preallocating given buffer
+     *
+     * @param buffer
+     * @return
+     */
+    public WorkspaceConfiguration getWorkspaceConfiguration(int buffer) {
+        return workspaceConfiguration(bufferBytes[buffer]);
+    }
+
+    /**
+     * This method returns workspace configuration, preallocating working memory
+     *
+     * @return
+     */
+    public WorkspaceConfiguration getWorkingMemoryConfiguration() {
+        return workspaceConfiguration(workingMemoryBytes);
+    }
+
+    protected static WorkspaceConfiguration workspaceConfiguration(long bytes) {
+        // sizes are known upfront, so there's nothing to learn. Buffers without estimates fall back to learning
+        return WorkspaceConfiguration.builder()
+                        .initialSize(bytes)
+                        .overallocationLimit(OVERALLOCATION)
+                        .policyLearning(bytes > 0 ? LearningPolicy.NONE : LearningPolicy.FIRST_LOOP)
+                        .policyReset(ResetPolicy.BLOCK_LEFT)
+                        .policySpill(SpillPolicy.REALLOCATE)
+                        .policyAllocation(AllocationPolicy.OVERALLOCATE)
+                        .build();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("----- Activation Memory Plan -----\n");
+        sb.append("  Max Minibatch:                      ").append(maxMinibatch).append("\n");
+        sb.append("  # Vertices:                         ").append(topologicalOrder.size()).append("\n");
+        sb.append("  # Buffers:                          ").append(bufferBytes.length).append("\n");
+        sb.append("  Planned Memory:                     ").append(BYTES_FORMAT.format(getTotalBytes()))
+                        .append(" bytes\n");
+        sb.append("  Unplanned Memory:                   ").append(BYTES_FORMAT.format(getUnplannedBytes()))
+                        .append(" bytes\n");
+        sb.append("  Peak Live Activations:              ").append(BYTES_FORMAT.format(peakLiveBytes))
+                        .append(" bytes\n");
+        sb.append("  Working Memory:                     ").append(BYTES_FORMAT.format(workingMemoryBytes))
+                        .append(" bytes\n");
+        for (int i = 0; i < bufferBytes.length; i++) {
+            List<String> tenants = new ArrayList<>();
+            for (Map.Entry<String, Integer> e : assignment.entrySet()) {
+                if (e.getValue() == i)
+                    tenants.add(e.getKey());
+            }
+
+            sb.append(String.format("  - Buffer %-27d", i)).append(BYTES_FORMAT.format(bufferBytes[i]))
+                            .append(" bytes: ").append(tenants).append("\n");
+        }
+
+        return sb.toString();
+    }
+}
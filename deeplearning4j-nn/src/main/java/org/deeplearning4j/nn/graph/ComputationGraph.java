@@ -33,16 +33,21 @@ import org.deeplearning4j.nn.api.layers.IOutputLayer;
 import org.deeplearning4j.nn.api.layers.RecurrentLayer;
 import org.deeplearning4j.nn.conf.*;
 import org.deeplearning4j.nn.conf.inputs.InputType;
+import org.deeplearning4j.nn.conf.memory.ActivationMemoryPlan;
 import org.deeplearning4j.nn.conf.layers.FeedForwardLayer;
 import org.deeplearning4j.nn.gradient.DefaultGradient;
 import org.deeplearning4j.nn.gradient.Gradient;
+import org.deeplearning4j.nn.graph.util.ActivationCheckpointPlan;
 import org.deeplearning4j.nn.graph.util.ComputationGraphUtil;
+import org.deeplearning4j.nn.graph.util.GraphBranchExecutor;
 import org.deeplearning4j.nn.graph.vertex.GraphVertex;
 import org.deeplearning4j.nn.graph.vertex.VertexIndices;
 import org.deeplearning4j.nn.graph.vertex.impl.InputVertex;
 import org.deeplearning4j.nn.graph.vertex.impl.LayerVertex;
 import org.deeplearning4j.nn.layers.FrozenLayer;
+import org.deeplearning4j.nn.layers.normalization.BatchNormalization;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.updater.LossScaler;
 import org.deeplearning4j.nn.updater.graph.ComputationGraphUpdater;
 import org.deeplearning4j.nn.workspace.ArrayType;
 import org.deeplearning4j.nn.workspace.LayerWorkspaceMgr;
@@ -54,6 +59,7 @@ import org.deeplearning4j.util.ModelSerializer;
 import org.deeplearning4j.util.NetworkUtils;
 import org.nd4j.base.Preconditions;
 import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.memory.MemoryWorkspaceManager;
 import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
 import org.nd4j.linalg.api.memory.enums.AllocationPolicy;
 import org.nd4j.linalg.api.memory.enums.LearningPolicy;
@@ -84,6 +90,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.Callable;
 
 /**
  * A ComputationGraph network is a neural network with arbitrary (directed acyclic graph) connection structure.
@@ -120,6 +127,19 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
      * Workspace for working memory in RNNs - opened and closed once per RNN time step
      */
     protected static final String WS_RNN_LOOP_WORKING_MEM = "WS_RNN_LOOP_WORKING_MEM";
+    /**
+     * Workspaces for activations, preallocated according to {@link ActivationMemoryPlan}: one per planned buffer
+     */
+    protected static final String WS_LAYER_ACT_PLANNED = "WS_LAYER_ACT_PLANNED_";
+    /**
+     * Workspace for working memory for a single layer, preallocated according to {@link ActivationMemoryPlan}
+     */
+    protected static final String WS_LAYER_WORKING_MEM_PLANNED = "WS_LAYER_WORKING_MEM_PLANNED";
+    /**
+     * Workspace for activations of a single segment, when activation checkpointing is used: opened once per segment
+     * in forward pass, and once per segment for recomputation in backprop
+     */
+    protected static final String WS_CHECKPOINT_SEGMENT = "WS_CHECKPOINT_SEGMENT";
 
 
     protected final WorkspaceConfiguration WS_LAYER_WORKING_MEM_CONFIG;
@@ -184,6 +204,33 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
     private NeuralNetConfiguration defaultConfiguration;
     private Collection<TrainingListener> trainingListeners = new ArrayList<>();
 
+    /**
+     * Executor for independent branches of the graph. If null, all vertices are executed one by one
+     */
+    protected transient GraphBranchExecutor branchExecutor;
+    /**
+     * Vertex indices grouped by depth, for concurrent execution of independent branches
+     */
+    protected transient int[][] branchLevels;
+    /**
+     * Static plan of activations memory for inference. If null, activations workspaces are learned during first
+     * iterations
+     */
+    @Getter
+    protected transient ActivationMemoryPlan activationMemoryPlan;
+    /**
+     * Segments for activation checkpointing. Null if checkpointing isn't configured
+     */
+    protected transient ActivationCheckpointPlan activationCheckpointPlan;
+    /**
+     * Outputs retained by the last checkpointed forward pass. Non-null only between forward pass and backprop
+     */
+    protected transient Map<String, INDArray> checkpointedActivations;
+    /**
+     * Dynamic loss scaling state for mixed-precision training. Null if mixed precision isn't configured
+     */
+    protected transient LossScaler lossScaler;
+
 
     public ComputationGraph(ComputationGraphConfiguration configuration) {
         this.configuration = configuration;
@@ -253,6 +300,78 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
         }
     }
 
+    /**
+     * This method enables concurrent execution of independent branches of this graph: vertices of the same depth
+     * are executed on a fork-join pool, for both forward pass (output, feedForward) and backprop.
+     *
+     * PLEASE NOTE: activations and activation gradients are passed between threads, so in this mode they are kept
+     * detached from workspaces, and only working memory is allocated in (thread-local) workspaces.
+     * PLEASE NOTE: only standard forward pass is executed concurrently, rnnTimeStep and stored-state passes stay serial.
+     *
+     * @param threads number of threads. 0 or 1 disables concurrent execution
+     */
+    public void setBranchParallelism(int threads) {
+        if (branchExecutor != null) {
+            branchExecutor.shutdown();
+            branchExecutor = null;
+        }
+
+        if (threads > 1)
+            branchExecutor = new GraphBranchExecutor(threads);
+    }
+
+    /**
+     * This method returns number of threads used for execution of independent branches
+     *
+     * @return 1 if branches are executed serially
+     */
+    public int getBranchParallelism() {
+        return branchExecutor == null ? 1 : branchExecutor.getParallelism();
+    }
+
+    /**
+     * This method builds static activations memory plan for inference, and uses it for all subsequent inference
+     * calls: activations of vertices with non-overlapping lifetimes share preallocated workspaces, sized for the
+     * given max minibatch, so workspaces don't have to be learned or reallocated when minibatch size changes.
+     *
+     * PLEASE NOTE: larger minibatches are still supported, but workspaces will be reallocated for them.
+     * PLEASE NOTE: plan is used only for inference, and only if inference workspace mode isn't NONE.
+     *
+     * @param maxMinibatch max minibatch size to preallocate workspaces for
+     * @param inputTypes   network input types
+     * @return plan that will be used
+     */
+    public ActivationMemoryPlan planActivationMemory(int maxMinibatch, @NonNull InputType... inputTypes) {
+        if (!initCalled)
+            init();
+
+        List<String> order = new ArrayList<>(topologicalOrder.length);
+        for (int idx : topologicalOrder)
+            order.add(vertices[idx].getVertexName());
+
+        activationMemoryPlan = ActivationMemoryPlan.create(configuration, order, maxMinibatch, Nd4j.dataType(),
+                        inputTypes);
+        return activationMemoryPlan;
+    }
+
+    /**
+     * This method removes activations memory plan: workspaces will be learned during first iterations again
+     */
+    public void clearActivationMemoryPlan() {
+        activationMemoryPlan = null;
+    }
+
+    /**
+     * This method returns loss scaler used for mixed-precision training, or null if mixed precision isn't configured
+     *
+     * @return
+     */
+    public LossScaler getLossScaler() {
+        if (lossScaler == null && configuration.getMixedPrecision() != null)
+            lossScaler = new LossScaler(configuration.getMixedPrecision());
+        return lossScaler;
+    }
+
     /**
      * This method returns configuration of this ComputationGraph
      *
@@ -1206,8 +1325,14 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
 
         //Calculate activations (which are stored in each layer, and used in backprop)
         try(MemoryWorkspace wsAllActivations = workspaceMgr.notifyScopeEntered(ArrayType.ACTIVATIONS)) {
-            Map<String, INDArray> activations = ffToLayerActivationsInWS(true, -1, getOutputLayerIndices(),
-                    fwdType, tbptt, inputs, inputMaskArrays, labelMaskArrays, false);
+            Map<String, INDArray> activations;
+            if(!tbptt && branchExecutor == null && getActivationCheckpointPlan() != null){
+                //Only checkpoints are retained: other activations are recomputed in calcBackpropGradients
+                activations = ffToCheckpointsInWS(inputs, inputMaskArrays, labelMaskArrays);
+            } else {
+                activations = ffToLayerActivationsInWS(true, -1, getOutputLayerIndices(),
+                        fwdType, tbptt, inputs, inputMaskArrays, labelMaskArrays, false);
+            }
             if (!trainingListeners.isEmpty()) {
                 try (MemoryWorkspace workspace = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
                     for (TrainingListener tl : trainingListeners) {
@@ -1249,12 +1374,28 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
             }
         }
 
+        checkpointedActivations = null;
         for(GraphVertex gv : vertices){
             gv.clear();
         }
     }
 
-
+    /**
+     * This method returns segments used for activation checkpointing, as configured by
+     * {@link ComputationGraphConfiguration.GraphBuilder#activationCheckpoints(String...)}
+     *
+     * @return Checkpointing plan, or null if activation checkpointing isn't used
+     */
+    protected ActivationCheckpointPlan getActivationCheckpointPlan(){
+        if(configuration.getActivationCheckpoints() == null || configuration.getActivationCheckpoints().isEmpty()){
+            return null;
+        }
+        if(activationCheckpointPlan == null){
+            activationCheckpointPlan = new ActivationCheckpointPlan(vertices, topologicalOrder,
+                    configuration.getActivationCheckpoints());
+        }
+        return activationCheckpointPlan;
+    }
 
 
     /**
@@ -1650,6 +1791,10 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
         //Verify that no workspace is open externally
         WorkspaceUtils.assertNoWorkspacesOpen("Expected no workspace active before call to ffToLayerActivationsDetached");
 
+        if(branchExecutor != null && fwdPassType == FwdPassType.STANDARD){
+            return toActivationsMap(ffBranchesParallel(train, layerIndex, excludeIdxs, clearLayers));
+        }
+
         LayerWorkspaceMgr workspaceMgr;
         WorkspaceMode wsm = (train ? configuration.getTrainingWorkspaceMode() : configuration.getInferenceWorkspaceMode());
         if (wsm == WorkspaceMode.NONE) {
@@ -1820,6 +1965,12 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
         } else {
             stopIndex = topologicalOrder.length -1;
         }
+
+        if(branchExecutor != null && fwdPassType == FwdPassType.STANDARD){
+            //Activations are detached in this case, as they are produced by different threads
+            return toActivationsMap(ffBranchesParallel(train, stopIndex, excludeIdxs, clearInputs));
+        }
+
         for (int i = 0; i <= stopIndex; i++) {
             GraphVertex current = vertices[topologicalOrder[i]];
             String vName = current.getVertexName();
@@ -1884,6 +2035,221 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
     }
 
 
+    /**
+     * Feed-forward for training with activation checkpointing: only the outputs that are retained according to
+     * {@link ActivationCheckpointPlan} are kept (in workspace WS_ALL_LAYERS_ACT, if workspaces are used). Activations
+     * of recomputed segments are allocated in a per-segment workspace, and discarded once the segment is done.
+     * Backprop recomputes them segment by segment, see
+     * {@link #recomputeCheckpointSegment(int, Map, MemoryWorkspace)}.<br>
+     * Note: if using workspaces for training, requires that WS_ALL_LAYERS_ACT is open externally.
+     *
+     * @param input Input feature arrays
+     * @param fMask Feature mask arrays. May be null.
+     * @param lMask Label mask array. May be null.
+     * @return Map of retained activations (including the input)
+     */
+    protected Map<String, INDArray> ffToCheckpointsInWS(INDArray[] input, INDArray[] fMask, INDArray[] lMask) {
+        ActivationCheckpointPlan plan = getActivationCheckpointPlan();
+        setInputs(input);
+        setLayerMaskArrays(fMask, lMask);
+
+        LayerWorkspaceMgr allLayersMgr;
+        if(configuration.getTrainingWorkspaceMode() == WorkspaceMode.NONE){
+            WorkspaceUtils.assertNoWorkspacesOpen("Expected no workspace active in ffToCheckpointsInWS");
+            allLayersMgr = LayerWorkspaceMgr.noWorkspaces();
+        } else {
+            WorkspaceUtils.assertOpenAndActive(WS_ALL_LAYERS_ACT, "ffToCheckpointsInWS method requires workspace WS_ALL_LAYERS_ACT to be open");
+
+            allLayersMgr = LayerWorkspaceMgr.builder()
+                    .with(ArrayType.ACTIVATIONS, WS_ALL_LAYERS_ACT, WS_ALL_LAYERS_ACT_CONFIG)
+                    .with(ArrayType.INPUT, WS_ALL_LAYERS_ACT, WS_ALL_LAYERS_ACT_CONFIG)
+                    .with(ArrayType.FF_WORKING_MEM, WS_LAYER_WORKING_MEM, WS_LAYER_WORKING_MEM_CONFIG)
+                    .with(ArrayType.RNN_FF_LOOP_WORKING_MEM, WS_RNN_LOOP_WORKING_MEM, WS_RNN_LOOP_WORKING_MEM_CONFIG)
+                    .build();
+
+            if(input[0].isAttached()){
+                //Don't leverage out of async DataMultiSetIterator workspaces
+                allLayersMgr.setNoLeverageOverride(input[0].data().getParentWorkspace().getId());
+            }
+
+            if(configuration.getCacheMode() != CacheMode.NONE){
+                allLayersMgr.setWorkspace(ArrayType.FF_CACHE, WS_ALL_LAYERS_ACT, WS_ALL_LAYERS_ACT_CONFIG);
+            }
+        }
+        LayerWorkspaceMgr segmentMgr = checkpointSegmentWorkspaceMgr();
+
+        Map<String, INDArray> retained = new HashMap<>();
+        MemoryWorkspace wsSegment = null;
+        try {
+            for (int i = 0; i < topologicalOrder.length; i++) {
+                int segment = plan.getSegment(i);
+                boolean recomputed = plan.isRecomputed(segment);
+                if (recomputed && plan.getSegmentStart(segment) == i) {
+                    //Random state is restored before recomputation, so dropout masks etc. are exactly the same
+                    long seed = Nd4j.getRandom().nextLong();
+                    plan.setSeed(segment, seed);
+                    Nd4j.getRandom().setSeed(seed);
+                    wsSegment = segmentMgr.notifyScopeEntered(ArrayType.ACTIVATIONS);
+                }
+
+                ffCheckpointedVertex(i, retained, segmentMgr, allLayersMgr, true);
+
+                if (recomputed && plan.getSegmentEnd(segment) == i) {
+                    //Activations of this segment won't be used until backprop, where they are recomputed (and all
+                    // layer inputs within the segment are set again) before use
+                    wsSegment.close();
+                    wsSegment = null;
+                }
+            }
+        } finally {
+            if(wsSegment != null){
+                wsSegment.close();
+            }
+        }
+
+        checkpointedActivations = retained;
+        return retained;
+    }
+
+    /**
+     * Recompute activations of the given segment for backprop, from the outputs retained by
+     * {@link #ffToCheckpointsInWS(INDArray[], INDArray[], INDArray[])}
+     *
+     * @param segment          Segment to recompute
+     * @param retained         Retained outputs
+     * @param initialWorkspace Workspace that was active before backprop
+     * @return Open segment workspace, with recomputed activations. Should be closed once backprop through the segment
+     * is done
+     */
+    protected MemoryWorkspace recomputeCheckpointSegment(int segment, Map<String, INDArray> retained,
+                                                         MemoryWorkspace initialWorkspace) {
+        ActivationCheckpointPlan plan = getActivationCheckpointPlan();
+        LayerWorkspaceMgr segmentMgr = checkpointSegmentWorkspaceMgr();
+        int start = plan.getSegmentStart(segment);
+        int end = plan.getSegmentEnd(segment);
+
+        //BatchNormalization updates global mean/variance during training forward pass: these were already updated
+        // once for this iteration, so original values are restored after recomputation
+        Map<Layer, INDArray> forwardState = new IdentityHashMap<>();
+        try (MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+            for (int j = start; j <= end; j++) {
+                GraphVertex gv = vertices[topologicalOrder[j]];
+                if (gv.hasLayer() && gv.getLayer() instanceof BatchNormalization) {
+                    forwardState.put(gv.getLayer(), gv.getLayer().params().dup());
+                }
+            }
+        }
+
+        Nd4j.getRandom().setSeed(plan.getSeed(segment));
+        MemoryWorkspace wsSegment = segmentMgr.notifyScopeEntered(ArrayType.ACTIVATIONS);
+        //Segment workspace isn't nested with activation gradient workspaces, see calcBackpropGradients
+        wsSegment.setPreviousWorkspace(initialWorkspace);
+        try {
+            for (int j = start; j <= end; j++) {
+                ffCheckpointedVertex(j, retained, segmentMgr, segmentMgr, false);
+            }
+        } catch (RuntimeException e) {
+            wsSegment.close();
+            throw e;
+        }
+
+        for (Map.Entry<Layer, INDArray> e : forwardState.entrySet()) {
+            e.getKey().params().assign(e.getValue());
+        }
+        return wsSegment;
+    }
+
+    /**
+     * Forward pass for a single vertex, with activation checkpointing.<br>
+     * Inputs from the same segment are set when they are produced. Inputs from other segments are set from retained
+     * outputs right before this vertex is executed, so they are in the workspace of the segment being executed.
+     *
+     * @param position     Position of the vertex in topological order
+     * @param retained     Retained outputs. Updated in first pass only
+     * @param segmentMgr   Workspace manager for recomputed segments
+     * @param allLayersMgr Workspace manager for retained activations
+     * @param firstPass    True for forward pass, false for recomputation in backprop
+     * @return Vertex output
+     */
+    protected INDArray ffCheckpointedVertex(int position, Map<String, INDArray> retained, LayerWorkspaceMgr segmentMgr,
+                                            LayerWorkspaceMgr allLayersMgr, boolean firstPass) {
+        ActivationCheckpointPlan plan = getActivationCheckpointPlan();
+        GraphVertex current = vertices[topologicalOrder[position]];
+        String vName = current.getVertexName();
+        int vIdx = current.getVertexIndex();
+        int segment = plan.getSegment(position);
+        boolean recomputed = plan.isRecomputed(segment);
+        LayerWorkspaceMgr workspaceMgr = recomputed ? segmentMgr : allLayersMgr;
+
+        try(MemoryWorkspace wsFFWorking = workspaceMgr.notifyScopeEntered(ArrayType.FF_WORKING_MEM)){
+            INDArray out;
+            if(current.isInputVertex()){
+                out = inputs[vIdx];
+            } else {
+                if(recomputed){
+                    VertexIndices[] inputsFrom = current.getInputVertices();
+                    for (int j = 0; j < inputsFrom.length; j++) {
+                        GraphVertex from = vertices[inputsFrom[j].getVertexIndex()];
+                        if(plan.getSegment(plan.getPosition(from.getVertexIndex())) != segment){
+                            current.setInput(j, retained.get(from.getVertexName()), workspaceMgr);
+                        }
+                    }
+                }
+
+                out = current.doForward(true, workspaceMgr);
+                validateArrayWorkspaces(workspaceMgr, out, ArrayType.ACTIVATIONS, vName, false, "Feed forward (checkpointed)");
+
+                if(firstPass && recomputed && plan.isRetained(vIdx)){
+                    //Segment workspace is closed at the end of the segment: retained outputs have to outlive it
+                    out = allLayersMgr.leverageTo(ArrayType.ACTIVATIONS, out);
+                }
+            }
+
+            if(firstPass && plan.isRetained(vIdx)){
+                retained.put(vName, out);
+            }
+
+            VertexIndices[] outputsTo = current.getOutputVertices();
+            if(outputsTo != null) {
+                for (VertexIndices v : outputsTo) {
+                    int toSegment = plan.getSegment(plan.getPosition(v.getVertexIndex()));
+                    if(toSegment == segment){
+                        vertices[v.getVertexIndex()].setInput(v.getVertexEdgeNumber(), out, workspaceMgr);
+                    } else if(firstPass && !plan.isRecomputed(toSegment)){
+                        vertices[v.getVertexIndex()].setInput(v.getVertexEdgeNumber(), out, allLayersMgr);
+                    }
+                }
+            }
+            return out;
+        }
+    }
+
+    /**
+     * Workspace manager for activations of a single checkpoint segment
+     */
+    protected LayerWorkspaceMgr checkpointSegmentWorkspaceMgr(){
+        if(configuration.getTrainingWorkspaceMode() == WorkspaceMode.NONE){
+            return LayerWorkspaceMgr.noWorkspaces();
+        }
+
+        LayerWorkspaceMgr workspaceMgr = LayerWorkspaceMgr.builder()
+                .with(ArrayType.ACTIVATIONS, WS_CHECKPOINT_SEGMENT, WS_LAYER_ACT_X_CONFIG)
+                .with(ArrayType.INPUT, WS_CHECKPOINT_SEGMENT, WS_LAYER_ACT_X_CONFIG)
+                .with(ArrayType.FF_WORKING_MEM, WS_LAYER_WORKING_MEM, WS_LAYER_WORKING_MEM_CONFIG)
+                .with(ArrayType.RNN_FF_LOOP_WORKING_MEM, WS_RNN_LOOP_WORKING_MEM, WS_RNN_LOOP_WORKING_MEM_CONFIG)
+                .build();
+
+        if(inputs[0].isAttached()){
+            //Don't leverage out of async DataMultiSetIterator workspaces
+            workspaceMgr.setNoLeverageOverride(inputs[0].data().getParentWorkspace().getId());
+        }
+
+        if(configuration.getCacheMode() != CacheMode.NONE){
+            workspaceMgr.setWorkspace(ArrayType.FF_CACHE, WS_CHECKPOINT_SEGMENT, WS_LAYER_ACT_X_CONFIG);
+        }
+        return workspaceMgr;
+    }
+
     /**
      * Provide the output of the specified layers, detached from any workspace. This is most commonly used at inference/test
      * time, and is more memory efficient than {@link #ffToLayerActivationsDetached(boolean, FwdPassType, boolean, int, int[], INDArray[], INDArray[], INDArray[], boolean)}
@@ -1921,6 +2287,19 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
         //Verify that no workspace is open externally
         WorkspaceUtils.assertNoWorkspacesOpen("Expected no workspace active before call to outputOfLayersDetached");
 
+        if(branchExecutor != null && fwdPassType == FwdPassType.STANDARD){
+            int stopIndex = -1;
+            for( int i=0; i<layerIndexes.length; i++ ){
+                stopIndex = Math.max(stopIndex, ArrayUtils.indexOf(topologicalOrder, layerIndexes[i]));
+            }
+            INDArray[] activations = ffBranchesParallel(train, stopIndex, null, clearLayerInputs);
+            INDArray[] outputs = new INDArray[layerIndexes.length];
+            for( int i=0; i<layerIndexes.length; i++ ){
+                outputs[i] = activations[layerIndexes[i]];
+            }
+            return outputs;
+        }
+
 
         //First: for each vertex, determine the highest index of the vertex that consumes it's output
         //Then: for each vertex, determine the forward pass step that each vertex's output has been fully consumed on
@@ -1967,6 +2346,11 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
         LayerWorkspaceMgr allNone = noWS ? LayerWorkspaceMgr.noWorkspaces() : null;
         List<MemoryWorkspace>[] closeAtEndIteraton = (List<MemoryWorkspace>[])new List[topologicalOrder.length];
         MemoryWorkspace initialWorkspace = Nd4j.getMemoryManager().getCurrentWorkspace();
+
+        //With static plan, activations of each vertex go to the planned buffer, instead of the first free workspace.
+        //Plan was built for the same topological order, so a buffer is never reused while it's still open
+        ActivationMemoryPlan plan = noWS || train ? null : activationMemoryPlan;
+        LayerWorkspaceMgr[] plannedWorkspaceManagers = plan == null ? null : new LayerWorkspaceMgr[plan.getNumBuffers()];
         try {
             for (int i = 0; i <= stopIndex; i++) {
                 GraphVertex current = vertices[topologicalOrder[i]];
@@ -1977,6 +2361,16 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
                 LayerWorkspaceMgr workspaceMgr;
                 if (noWS) {
                     workspaceMgr = allNone;
+                } else if (plan != null) {
+                    int buffer = plan.getBuffer(vName);
+                    if (plannedWorkspaceManagers[buffer] == null) {
+                        String wsName = WS_LAYER_ACT_PLANNED + buffer;
+                        releaseUndersizedWorkspace(wsName, plan.getBufferBytes(buffer));
+                        releaseUndersizedWorkspace(WS_LAYER_WORKING_MEM_PLANNED, plan.getWorkingMemoryBytes());
+                        plannedWorkspaceManagers[buffer] = inferenceWorkspaceMgr(wsName, plan.getWorkspaceConfiguration(buffer),
+                                WS_LAYER_WORKING_MEM_PLANNED, plan.getWorkingMemoryConfiguration(), detachedInputs, features);
+                    }
+                    workspaceMgr = plannedWorkspaceManagers[buffer];
                 } else {
                     //First: is there a free forward pass workspace we can use?
                     if (freeWorkspaceManagers.size() > 0) {
@@ -1984,25 +2378,8 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
                     } else {
                         //No existing free workspace managers for forward pass - create a new one...
                         String wsName = "WS_LAYER_ACT_" + allWorkspaceManagers.size();
-                        workspaceMgr = LayerWorkspaceMgr.builder()
-                                .with(ArrayType.INPUT, wsName, WS_LAYER_ACT_X_CONFIG)
-                                .with(ArrayType.ACTIVATIONS, wsName, WS_LAYER_ACT_X_CONFIG)
-                                .with(ArrayType.FF_WORKING_MEM, WS_LAYER_WORKING_MEM, WS_LAYER_WORKING_MEM_CONFIG)
-                                .with(ArrayType.RNN_FF_LOOP_WORKING_MEM, WS_RNN_LOOP_WORKING_MEM, WS_RNN_LOOP_WORKING_MEM_CONFIG)
-                                .build();
-
-                        if(detachedInputs){
-                            //Sometimes (like: external errors use cases) we don't want the activations/inputs to be
-                            // in a workspace
-                            workspaceMgr.setScopedOutFor(ArrayType.INPUT);
-                            workspaceMgr.setScopedOutFor(ArrayType.ACTIVATIONS);
-                        } else {
-                            //Don't leverage out of async MultiDataSetIterator workspaces
-                            if(features[0].isAttached()){
-                                workspaceMgr.setNoLeverageOverride(features[0].data().getParentWorkspace().getId());
-                            }
-                        }
-
+                        workspaceMgr = inferenceWorkspaceMgr(wsName, WS_LAYER_ACT_X_CONFIG, WS_LAYER_WORKING_MEM,
+                                WS_LAYER_WORKING_MEM_CONFIG, detachedInputs, features);
                         allWorkspaceManagers.add(workspaceMgr);
                     }
                 }
@@ -2101,7 +2478,9 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
                     for(MemoryWorkspace wsAct : closeAtEndIteraton[i]){
                         wsAct.close();
                         LayerWorkspaceMgr canNowReuse = openActivationsWorkspaces.remove(wsAct);
-                        freeWorkspaceManagers.add(canNowReuse);
+                        if(plan == null) {
+                            freeWorkspaceManagers.add(canNowReuse);
+                        }
                     }
                 }
             }
@@ -2117,6 +2496,164 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
         return outputs;
     }
 
+    /**
+     * Workspace manager for a single vertex in inference forward pass: activations and inputs go to the given
+     * activations workspace, working memory to the given working memory workspace
+     */
+    protected LayerWorkspaceMgr inferenceWorkspaceMgr(String wsName, WorkspaceConfiguration wsConf, String workingMemName,
+                                                      WorkspaceConfiguration workingMemConf, boolean detachedInputs,
+                                                      INDArray[] features){
+        LayerWorkspaceMgr workspaceMgr = LayerWorkspaceMgr.builder()
+                .with(ArrayType.INPUT, wsName, wsConf)
+                .with(ArrayType.ACTIVATIONS, wsName, wsConf)
+                .with(ArrayType.FF_WORKING_MEM, workingMemName, workingMemConf)
+                .with(ArrayType.RNN_FF_LOOP_WORKING_MEM, WS_RNN_LOOP_WORKING_MEM, WS_RNN_LOOP_WORKING_MEM_CONFIG)
+                .build();
+
+        if(detachedInputs){
+            //Sometimes (like: external errors use cases) we don't want the activations/inputs to be
+            // in a workspace
+            workspaceMgr.setScopedOutFor(ArrayType.INPUT);
+            workspaceMgr.setScopedOutFor(ArrayType.ACTIVATIONS);
+        } else {
+            //Don't leverage out of async MultiDataSetIterator workspaces
+            if(features[0].isAttached()){
+                workspaceMgr.setNoLeverageOverride(features[0].data().getParentWorkspace().getId());
+            }
+        }
+        return workspaceMgr;
+    }
+
+    /**
+     * Planned workspaces have no learning: if this thread already has a smaller workspace with the same name (i.e.,
+     * created for a previous plan), it has to be destroyed, so it's recreated with the current configuration
+     */
+    protected static void releaseUndersizedWorkspace(String wsName, long bytes){
+        MemoryWorkspaceManager manager = Nd4j.getWorkspaceManager();
+        if(manager.checkIfWorkspaceExists(wsName)){
+            MemoryWorkspace ws = manager.getWorkspaceForCurrentThread(wsName);
+            if(ws.getCurrentSize() < bytes){
+                manager.destroyWorkspace(ws);
+            }
+        }
+    }
+
+
+    /**
+     * Feed-forward through the network, executing independent vertices of the same depth concurrently.
+     * Activations are returned detached from any workspace, as they are passed between threads: each vertex uses
+     * working memory workspace of the thread it is executed in only.
+     *
+     * @param train       Training mode (true) or test/inference mode (false)
+     * @param stopIndex   Position in topological order (inclusive) to stop forward pass at
+     * @param excludeIdxs Layers (vertices) to exclude from forward pass. May be null.
+     * @param clearLayers Whether the layer inputs should be cleared
+     * @return Activations (including the input) by vertex index, detached from any workspace. Null for vertices that
+     * weren't executed
+     */
+    protected INDArray[] ffBranchesParallel(final boolean train, int stopIndex, int[] excludeIdxs, final boolean clearLayers){
+        WorkspaceMode wsm = (train ? configuration.getTrainingWorkspaceMode() : configuration.getInferenceWorkspaceMode());
+        final boolean noWS = wsm == WorkspaceMode.NONE;
+        LayerWorkspaceMgr propagationMgr = LayerWorkspaceMgr.noWorkspaces();
+
+        boolean[] execute = new boolean[vertices.length];
+        for (int i = 0; i <= stopIndex; i++) {
+            int vIdx = topologicalOrder[i];
+            execute[vIdx] = excludeIdxs == null || !ArrayUtils.contains(excludeIdxs, vIdx);
+        }
+
+        INDArray[] activations = new INDArray[vertices.length];
+        for (int[] level : getBranchLevels()) {
+            List<GraphVertex> executed = new ArrayList<>();
+            List<GraphVertex> submitted = new ArrayList<>();
+            List<Callable<INDArray>> tasks = new ArrayList<>();
+            for (int vIdx : level) {
+                if (!execute[vIdx])
+                    continue;
+
+                final GraphVertex current = vertices[vIdx];
+                executed.add(current);
+                if (current.isInputVertex()) {
+                    activations[vIdx] = inputs[vIdx];
+                    continue;
+                }
+
+                submitted.add(current);
+                tasks.add(new Callable<INDArray>() {
+                    @Override
+                    public INDArray call() {
+                        LayerWorkspaceMgr workspaceMgr = branchWorkspaceMgr(noWS, false);
+                        try (MemoryWorkspace wsFFWorking = workspaceMgr.notifyScopeEntered(ArrayType.FF_WORKING_MEM)) {
+                            INDArray out = current.doForward(train, workspaceMgr);
+                            validateArrayWorkspaces(workspaceMgr, out, ArrayType.ACTIVATIONS, current.getVertexName(),
+                                    false, "Feed forward (parallel)");
+                            if (clearLayers) {
+                                current.clear();
+                            }
+                            return out;
+                        }
+                    }
+                });
+            }
+
+            List<INDArray> results = branchExecutor.invokeAll(tasks);
+            for (int j = 0; j < results.size(); j++) {
+                activations[submitted.get(j).getVertexIndex()] = results.get(j);
+            }
+
+            //Inputs of the next levels are set from the calling thread only, once the whole level is done
+            for (GraphVertex current : executed) {
+                VertexIndices[] inputsTo = current.getOutputVertices();
+                if (inputsTo != null) {
+                    for (VertexIndices v : inputsTo) {
+                        vertices[v.getVertexIndex()].setInput(v.getVertexEdgeNumber(),
+                                activations[current.getVertexIndex()], propagationMgr);
+                    }
+                }
+            }
+        }
+
+        return activations;
+    }
+
+    /**
+     * Workspace manager for a single vertex executed by {@link GraphBranchExecutor}: only working memory is placed in
+     * workspaces (which are thread-local), everything that is passed between vertices is detached.
+     */
+    protected LayerWorkspaceMgr branchWorkspaceMgr(boolean noWS, boolean backprop){
+        if (noWS) {
+            return LayerWorkspaceMgr.noWorkspaces();
+        }
+
+        LayerWorkspaceMgr.Builder builder = LayerWorkspaceMgr.builder()
+                .with(ArrayType.FF_WORKING_MEM, WS_LAYER_WORKING_MEM, WS_LAYER_WORKING_MEM_CONFIG)
+                .with(ArrayType.BP_WORKING_MEM, WS_LAYER_WORKING_MEM, WS_LAYER_WORKING_MEM_CONFIG)
+                .with(ArrayType.RNN_FF_LOOP_WORKING_MEM, WS_RNN_LOOP_WORKING_MEM, WS_RNN_LOOP_WORKING_MEM_CONFIG)
+                .with(ArrayType.RNN_BP_LOOP_WORKING_MEM, WS_RNN_LOOP_WORKING_MEM, WS_RNN_LOOP_WORKING_MEM_CONFIG);
+        if (backprop) {
+            //For forward pass in the context of BP
+            builder.with(ArrayType.ACTIVATIONS, WS_LAYER_WORKING_MEM, WS_LAYER_WORKING_MEM_CONFIG);
+        }
+        return builder.defaultNoWorkspace().build();
+    }
+
+    protected int[][] getBranchLevels(){
+        if (branchLevels == null) {
+            branchLevels = GraphBranchExecutor.depthLevels(vertices, topologicalOrder);
+        }
+        return branchLevels;
+    }
+
+    protected Map<String, INDArray> toActivationsMap(INDArray[] activations){
+        Map<String, INDArray> map = new HashMap<>();
+        for (int i = 0; i < activations.length; i++) {
+            if (activations[i] != null) {
+                map.put(vertices[i].getVertexName(), activations[i]);
+            }
+        }
+        return map;
+    }
+
 
     /**
      * Calculate the gradient of the network with respect to some external errors.
@@ -2166,6 +2703,11 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
                     " in calcBackpropGradients when workspace mode is not set to NONE");
         }
 
+        if(branchExecutor != null){
+            setBackpropGradients(backpropBranchesParallel(truncatedBPTT, externalEpsilons), clearLayers, truncatedBPTT);
+            return;
+        }
+
         //Position in array: index of vertex. Value at position: the step (in topological order) that the activation
         // gradients of the specified vertex have been consumed by
         //Put another way: this is the step that it's safe to deallocate the layer's activation gradients by closing the
@@ -2204,12 +2746,31 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
         Map<MemoryWorkspace, LayerWorkspaceMgr> openActivationsWorkspaces = new IdentityHashMap<>();
         List<MemoryWorkspace>[] closeAtEndIteraton = (List<MemoryWorkspace>[])new List[topologicalOrder.length];
 
+        //With activation checkpointing, activations of each recomputed segment are restored once backprop reaches
+        // the end of the segment, and released once backprop leaves it
+        Map<String, INDArray> checkpointed = checkpointedActivations;
+        checkpointedActivations = null;
+        MemoryWorkspace wsSegment = null;
+        int openSegment = -1;
+
         //Do backprop, in reverse topological order
         LinkedList<Triple<String, INDArray, Character>> gradients = new LinkedList<>();
         boolean[] setVertexEpsilon = new boolean[topologicalOrder.length]; //If true: already set epsilon for this vertex; later epsilons should be *added* to the existing one, not set
         MemoryWorkspace initialWorkspace = Nd4j.getMemoryManager().getCurrentWorkspace();
         try{
             for(int i=topologicalOrder.length-1; i>= 0; i--){
+                if(checkpointed != null){
+                    int segment = activationCheckpointPlan.getSegment(i);
+                    if(wsSegment != null && segment != openSegment){
+                        wsSegment.close();
+                        wsSegment = null;
+                    }
+                    if(wsSegment == null && segment != openSegment && activationCheckpointPlan.isRecomputed(segment)){
+                        wsSegment = recomputeCheckpointSegment(segment, checkpointed, initialWorkspace);
+                        openSegment = segment;
+                    }
+                }
+
                 boolean hitFrozen = false;
                 GraphVertex current = vertices[topologicalOrder[i]];
                 int vIdx = current.getVertexIndex();
@@ -2272,6 +2833,7 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
 
                         INDArray currLabels = labels[thisOutputNumber];
                         outputLayer.setLabels(currLabels);
+                        outputLayer.setLossGradientScale(lossGradientScale(externalEpsilons));
                     } else {
                         if ((externalEpsilons == null || externalEpsilons.length == 0)
                                 && labels[thisOutputNumber] != null) {
@@ -2372,9 +2934,134 @@ public class ComputationGraph implements Serializable, Model, NeuralNetwork {
             for(MemoryWorkspace ws : openActivationsWorkspaces.keySet()){
                 ws.close();
             }
+            if(wsSegment != null){
+                wsSegment.close();
+            }
             Nd4j.getMemoryManager().setCurrentWorkspace(initialWorkspace);
         }
 
+        setBackpropGradients(gradients, clearLayers, truncatedBPTT);
+    }
+
+    /**
+     * Mixed-precision training: the factor to multiply the loss gradient dL/dz of output layers by, before backprop
+     * through them - so small gradients don't underflow. Gradients are unscaled by the updater.
+     * 1.0 (no scaling) if mixed precision isn't configured, or errors are provided externally
+     */
+    protected double lossGradientScale(INDArray[] externalEpsilons) {
+        if ((externalEpsilons != null && externalEpsilons.length > 0) || getLossScaler() == null)
+            return 1.0;
+        return lossScaler.getScale();
+    }
+
+    /**
+     * Backprop through the network, executing independent vertices of the same depth concurrently.
+     * Activation gradients are detached from any workspace, as they are passed between threads. Epsilons are
+     * accumulated in the calling thread only, once all vertices of the same depth are done.
+     *
+     * @param truncatedBPTT    false: normal backprop. true: calculate gradients using truncated BPTT for RNN layers
+     * @param externalEpsilons null usually (for typical supervised learning). If not null (and length > 0): errors
+     *                         provided externally
+     * @return Gradients, in the same order as parameters
+     */
+    protected LinkedList<Triple<String, INDArray, Character>> backpropBranchesParallel(final boolean truncatedBPTT,
+                                                                                        INDArray... externalEpsilons) {
+        final boolean noWS = configuration.getTrainingWorkspaceMode() == WorkspaceMode.NONE;
+        boolean[] setVertexEpsilon = new boolean[topologicalOrder.length];
+        Gradient[] vertexGradients = new Gradient[vertices.length];
+
+        int[][] levels = getBranchLevels();
+        for (int l = levels.length - 1; l >= 0; l--) {
+            List<GraphVertex> submitted = new ArrayList<>();
+            List<Callable<Pair<Gradient, INDArray[]>>> tasks = new ArrayList<>();
+            for (int vIdx : levels[l]) {
+                final GraphVertex current = vertices[vIdx];
+                if (current.isInputVertex() || (current.hasLayer() && current.getLayer() instanceof FrozenLayer)) {
+                    continue;
+                }
+
+                if (current.isOutputVertex()) {
+                    int thisOutputNumber = configuration.getNetworkOutputs().indexOf(current.getVertexName());
+                    if (current.getLayer() instanceof IOutputLayer) {
+                        ((IOutputLayer) current.getLayer()).setLabels(labels[thisOutputNumber]);
+                        ((IOutputLayer) current.getLayer()).setLossGradientScale(lossGradientScale(externalEpsilons));
+                    } else {
+                        if ((externalEpsilons == null || externalEpsilons.length == 0)
+                                && labels[thisOutputNumber] != null) {
+                            throw new DL4JException("Layer \"" + current.getVertexName() + "\" of type "
+                                    + current.getLayer().getClass().getSimpleName()
+                                    + " is set as network output "
+                                    + "(but isn't an IOutputLayer). Only IOutputLayer layers can be fit via backprop with"
+                                    + " a labels array. ");
+                        }
+                        current.setEpsilon(externalEpsilons[thisOutputNumber]);
+                        setVertexEpsilon[vIdx] = true;
+                    }
+                }
+
+                submitted.add(current);
+                tasks.add(new Callable<Pair<Gradient, INDArray[]>>() {
+                    @Override
+                    public Pair<Gradient, INDArray[]> call() {
+                        LayerWorkspaceMgr workspaceMgr = branchWorkspaceMgr(noWS, true);
+                        try (MemoryWorkspace wsWorkingMem = workspaceMgr.notifyScopeEntered(ArrayType.BP_WORKING_MEM)) {
+                            Pair<Gradient, INDArray[]> pair = current.doBackward(truncatedBPTT, workspaceMgr);
+                            for (INDArray epsilon : pair.getSecond()) {
+                                if (epsilon != null) {
+                                    validateArrayWorkspaces(workspaceMgr, epsilon, ArrayType.ACTIVATION_GRAD,
+                                            current.getVertexName(), false, "Backprop (parallel)");
+                                }
+                            }
+                            return pair;
+                        }
+                    }
+                });
+            }
+
+            List<Pair<Gradient, INDArray[]>> results = branchExecutor.invokeAll(tasks);
+
+            //Same order as serial backprop: reverse topological order
+            for (int j = submitted.size() - 1; j >= 0; j--) {
+                GraphVertex current = submitted.get(j);
+                Pair<Gradient, INDArray[]> pair = results.get(j);
+                INDArray[] epsilons = pair.getSecond();
+
+                VertexIndices[] inputVertices = current.getInputVertices();
+                if (inputVertices != null) {
+                    int k = 0;
+                    for (VertexIndices v : inputVertices) {
+                        GraphVertex gv = vertices[v.getVertexIndex()];
+                        if (setVertexEpsilon[gv.getVertexIndex()]) {
+                            INDArray currentEps = gv.getEpsilon();
+                            gv.setEpsilon(currentEps.addi(epsilons[k++]));
+                        } else {
+                            gv.setEpsilon(epsilons[k++]);
+                        }
+                        setVertexEpsilon[gv.getVertexIndex()] = true;
+                    }
+                }
+
+                vertexGradients[current.getVertexIndex()] = pair.getFirst();
+            }
+        }
+
+        LinkedList<Triple<String, INDArray, Character>> gradients = new LinkedList<>();
+        for (int vIdx : topologicalOrder) {
+            Gradient g = vertexGradients[vIdx];
+            if (g == null) {
+                continue;
+            }
+            for (Map.Entry<String, INDArray> entry : g.gradientForVariable().entrySet()) {
+                String origName = entry.getKey();
+                gradients.addLast(new Triple<>(vertices[vIdx].getVertexName() + "_" + origName, entry.getValue(),
+                        g.flatteningOrderForVariable(origName)));
+            }
+        }
+        return gradients;
+    }
+
+    protected void setBackpropGradients(List<Triple<String, INDArray, Character>> gradients, boolean clearLayers,
+                                        boolean truncatedBPTT) {
         //Now, add the gradients in the order we need them in for flattening (same as params order)
         Gradient gradient = new DefaultGradient(flattenedGradients);
         for (Triple<String, INDArray, Character> t : gradients) {
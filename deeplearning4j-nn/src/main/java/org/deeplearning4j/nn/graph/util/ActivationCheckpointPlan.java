@@ -0,0 +1,161 @@
+package org.deeplearning4j.nn.graph.util;
+
+import lombok.NonNull;
+import org.deeplearning4j.nn.graph.vertex.GraphVertex;
+import org.deeplearning4j.nn.graph.vertex.VertexIndices;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Split of a ComputationGraph into segments for activation checkpointing.<br>
+ * Topological order is split after each checkpoint vertex. Activations of a segment are discarded after the forward
+ * pass, and recomputed from the retained outputs when backprop reaches that segment. Retained outputs are: network
+ * inputs, checkpoints, and any output that is consumed in a different segment (i.e., skip connections over a
+ * checkpoint).<br>
+ * Segments that contain a network output (and the last segment) are never recomputed: they are backpropagated first,
+ * and their activations are required for score calculation.
+ *
+ * PLEASE NOTE: this class also holds random seeds used for each segment in the last forward pass, so recomputation
+ * reproduces the same dropout masks etc. Instances should not be shared between networks.
+ */
+public class ActivationCheckpointPlan {
+    private final int[] position;
+    private final int[] segmentOf;
+    private final int[] segmentStart;
+    private final int[] segmentEnd;
+    private final boolean[] recomputed;
+    private final boolean[] retained;
+    private final long[] seeds;
+
+    /**
+     * @param vertices         all vertices of the graph, by vertex index
+     * @param topologicalOrder vertex indices, in topological order
+     * @param checkpoints      names of checkpoint vertices
+     */
+    public ActivationCheckpointPlan(@NonNull GraphVertex[] vertices, @NonNull int[] topologicalOrder,
+                    @NonNull Collection<String> checkpoints) {
+        Set<String> checkpointSet = new HashSet<>(checkpoints);
+
+        position = new int[vertices.length];
+        segmentOf = new int[topologicalOrder.length];
+        int segments = 0;
+        for (int i = 0; i < topologicalOrder.length; i++) {
+            position[topologicalOrder[i]] = i;
+            segmentOf[i] = segments;
+            if (checkpointSet.contains(vertices[topologicalOrder[i]].getVertexName())
+                            && i < topologicalOrder.length - 1)
+                segments++;
+        }
+        segments++;
+
+        segmentStart = new int[segments];
+        segmentEnd = new int[segments];
+        recomputed = new boolean[segments];
+        seeds = new long[segments];
+        for (int i = topologicalOrder.length - 1; i >= 0; i--)
+            segmentStart[segmentOf[i]] = i;
+        for (int i = 0; i < topologicalOrder.length; i++)
+            segmentEnd[segmentOf[i]] = i;
+
+        for (int s = 0; s < segments - 1; s++) {
+            boolean hasOutput = false;
+            boolean hasComputation = false;
+            for (int i = segmentStart[s]; i <= segmentEnd[s]; i++) {
+                GraphVertex gv = vertices[topologicalOrder[i]];
+                hasOutput |= gv.isOutputVertex();
+                hasComputation |= !gv.isInputVertex();
+            }
+            recomputed[s] = hasComputation && !hasOutput;
+        }
+
+        retained = new boolean[vertices.length];
+        for (int i = 0; i < topologicalOrder.length; i++) {
+            GraphVertex gv = vertices[topologicalOrder[i]];
+            boolean keep = gv.isInputVertex() || !recomputed[segmentOf[i]]
+                            || checkpointSet.contains(gv.getVertexName());
+
+            VertexIndices[] outputsTo = gv.getOutputVertices();
+            if (outputsTo != null) {
+                for (VertexIndices vi : outputsTo)
+                    keep |= segmentOf[position[vi.getVertexIndex()]] != segmentOf[i];
+            }
+
+            retained[gv.getVertexIndex()] = keep;
+        }
+    }
+
+    /**
+     * @return number of segments
+     */
+    public int getNumSegments() {
+        return segmentStart.length;
+    }
+
+    /**
+     * This method returns position of the given vertex in topological order
+     *
+     * @param vertexIndex
+     * @return
+     */
+    public int getPosition(int vertexIndex) {
+        return position[vertexIndex];
+    }
+
+    /**
+     * This method returns segment of the vertex at the given position in topological order
+     *
+     * @param position
+     * @return
+     */
+    public int getSegment(int position) {
+        return segmentOf[position];
+    }
+
+    /**
+     * @return first position (in topological order) of the given segment
+     */
+    public int getSegmentStart(int segment) {
+        return segmentStart[segment];
+    }
+
+    /**
+     * @return last position (in topological order) of the given segment, inclusive
+     */
+    public int getSegmentEnd(int segment) {
+        return segmentEnd[segment];
+    }
+
+    /**
+     * This method returns true, if activations of the given segment are discarded after forward pass, and recomputed
+     * during backprop
+     *
+     * @param segment
+     * @return
+     */
+    public boolean isRecomputed(int segment) {
+        return recomputed[segment];
+    }
+
+    /**
+     * This method returns true, if output of the given vertex is retained after forward pass
+     *
+     * @param vertexIndex
+     * @return
+     */
+    public boolean isRetained(int vertexIndex) {
+        return retained[vertexIndex];
+    }
+
+    /**
+     * @return random seed, used for the given segment during the last forward pass
+     */
+    public long getSeed(int segment) {
+        return seeds[segment];
+    }
+
+    public void setSeed(int segment, long seed) {
+        seeds[segment] = seed;
+    }
+}
@@ -0,0 +1,132 @@
+package org.deeplearning4j.nn.graph.util;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.deeplearning4j.nn.graph.vertex.GraphVertex;
+import org.deeplearning4j.nn.graph.vertex.VertexIndices;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Executor for independent branches of a ComputationGraph.<br>
+ * Vertices are grouped by depth (longest path from any network input), so vertices within one group never depend on
+ * each other, and may be executed concurrently. Groups themselves are executed one after another: in topological
+ * order for the forward pass, and in reverse order for backprop.
+ *
+ * PLEASE NOTE: workspaces are thread-local, so each task should use its own workspace manager, and results passed
+ * between tasks should be detached from any workspace.
+ */
+public class GraphBranchExecutor {
+    @Getter
+    private final int parallelism;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param parallelism number of worker threads
+     */
+    public GraphBranchExecutor(int parallelism) {
+        if (parallelism < 2)
+            throw new IllegalArgumentException("Parallelism should be at least 2, got " + parallelism);
+
+        this.parallelism = parallelism;
+
+        // workers are attached to the same device as the thread that creates them, so parameters stay local
+        final int deviceId = Nd4j.getAffinityManager().getDeviceForCurrentThread();
+        this.pool = new ForkJoinPool(parallelism, new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+            @Override
+            public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("GraphBranchExecutor-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                Nd4j.getAffinityManager().attachThreadToDevice(thread, deviceId);
+                return thread;
+            }
+        }, null, false);
+    }
+
+    /**
+     * This method executes all given tasks, and returns their results in the same order.
+     * Single task is executed in the calling thread.
+     *
+     * @param tasks
+     * @return
+     */
+    public <T> List<T> invokeAll(@NonNull List<Callable<T>> tasks) {
+        if (tasks.isEmpty())
+            return Collections.emptyList();
+
+        try {
+            if (tasks.size() == 1)
+                return Collections.singletonList(tasks.get(0).call());
+
+            List<Future<T>> futures = pool.invokeAll(tasks);
+            List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures)
+                results.add(future.get());
+
+            return results;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new RuntimeException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * This method stops worker threads
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * This method groups graph vertices by depth: input vertices have depth 0, and every other vertex is one level
+     * deeper than the deepest of its inputs. Within each group vertices keep topological order.
+     *
+     * @param vertices graph vertices, by vertex index
+     * @param topologicalOrder topological order of vertices
+     * @return vertex indices for each depth level
+     */
+    public static int[][] depthLevels(@NonNull GraphVertex[] vertices, @NonNull int[] topologicalOrder) {
+        int[] depth = new int[vertices.length];
+        int maxDepth = 0;
+        for (int idx : topologicalOrder) {
+            int d = 0;
+            VertexIndices[] inputsFrom = vertices[idx].getInputVertices();
+            if (inputsFrom != null) {
+                for (VertexIndices vi : inputsFrom)
+                    d = Math.max(d, depth[vi.getVertexIndex()] + 1);
+            }
+            depth[idx] = d;
+            maxDepth = Math.max(maxDepth, d);
+        }
+
+        int[] counts = new int[maxDepth + 1];
+        for (int idx : topologicalOrder)
+            counts[depth[idx]]++;
+
+        int[][] levels = new int[maxDepth + 1][];
+        for (int d = 0; d <= maxDepth; d++)
+            levels[d] = new int[counts[d]];
+
+        int[] position = new int[maxDepth + 1];
+        for (int idx : topologicalOrder)
+            levels[depth[idx]][position[depth[idx]]++] = idx;
+
+        return levels;
+    }
+}
@@ -55,6 +55,8 @@ public abstract class BaseOutputLayer<LayerConfT extends org.deeplearning4j.nn.c
 
     //current input and label matrices
     protected INDArray labels;
+    //dL/dz is multiplied by this before backprop, for loss scaling (mixed precision)
+    protected double lossGradientScale = 1.0;
 
     private transient Solver solver;
 
@@ -175,6 +177,8 @@ public abstract class BaseOutputLayer<LayerConfT extends org.deeplearning4j.nn.c
         INDArray labels2d = getLabels2d(workspaceMgr, ArrayType.BP_WORKING_MEM);
         //INDArray delta = lossFunction.computeGradient(labels2d, preOut, layerConf().getActivationFunction(), maskArray);
         INDArray delta = lossFunction.computeGradient(labels2d, preOut, layerConf().getActivationFn(), maskArray);
+        if (lossGradientScale != 1.0)
+            delta.muli(lossGradientScale);
 
         Gradient gradient = new DefaultGradient();
 
@@ -350,6 +354,16 @@ public abstract class BaseOutputLayer<LayerConfT extends org.deeplearning4j.nn.c
         this.labels = labels;
     }
 
+    @Override
+    public double getLossGradientScale() {
+        return lossGradientScale;
+    }
+
+    @Override
+    public void setLossGradientScale(double lossGradientScale) {
+        this.lossGradientScale = lossGradientScale;
+    }
+
     protected INDArray preOutput2d(boolean training, LayerWorkspaceMgr workspaceMgr) {
         return preOutput(training, workspaceMgr);
     }
@@ -52,6 +52,8 @@ public class LossLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.LossL
 
     //current input and label matrices
     protected INDArray labels;
+    //dL/dz is multiplied by this before backprop, for loss scaling (mixed precision)
+    protected double lossGradientScale = 1.0;
 
     private transient Solver solver;
 
@@ -149,6 +151,8 @@ public class LossLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.LossL
         // delta calculation
         ILossFunction lossFunction = layerConf().getLossFn();
         INDArray delta = lossFunction.computeGradient(getLabels2d(), preOut, layerConf().getActivationFn(), maskArray);
+        if (lossGradientScale != 1.0)
+            delta.muli(lossGradientScale);
 
         // grab the empty gradient
         Gradient gradient = new DefaultGradient();
@@ -360,6 +364,16 @@ public class LossLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.LossL
         this.labels = labels;
     }
 
+    @Override
+    public double getLossGradientScale() {
+        return lossGradientScale;
+    }
+
+    @Override
+    public void setLossGradientScale(double lossGradientScale) {
+        this.lossGradientScale = lossGradientScale;
+    }
+
     protected INDArray getLabels2d() {
         if (labels.rank() > 2) {
             return labels.reshape(labels.size(2), labels.size(1));
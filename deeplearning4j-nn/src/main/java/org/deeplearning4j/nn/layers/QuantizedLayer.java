@@ -0,0 +1,143 @@
+package org.deeplearning4j.nn.layers;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.deeplearning4j.exception.DL4JInvalidInputException;
+import org.deeplearning4j.nn.api.Layer;
+import org.deeplearning4j.nn.conf.layers.misc.QuantizedLayer.Format;
+import org.deeplearning4j.nn.layers.feedforward.embedding.EmbeddingLayer;
+import org.deeplearning4j.nn.params.DefaultParamInitializer;
+import org.deeplearning4j.nn.workspace.ArrayType;
+import org.deeplearning4j.nn.workspace.LayerWorkspaceMgr;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Frozen layer, that keeps weights of the underlying DenseLayer, ConvolutionLayer or EmbeddingLayer in
+ * {@link QuantizedWeights} form. Weights are dequantized right before forward pass of the underlying layer, and
+ * released right after it.
+ * For EmbeddingLayer only rows referenced by the current input are dequantized.
+ *
+ * @see org.deeplearning4j.nn.conf.layers.misc.QuantizedLayer
+ */
+public class QuantizedLayer extends FrozenLayer {
+    @Getter
+    private final Format format;
+    @Getter
+    private final boolean rowScaled;
+    @Getter
+    private QuantizedWeights weights;
+
+    public QuantizedLayer(Layer insideLayer, @NonNull Format format, boolean rowScaled) {
+        super(insideLayer);
+        this.format = format;
+        this.rowScaled = rowScaled;
+    }
+
+    /**
+     * This method quantizes given weights, and stores them in this layer
+     *
+     * @param weights full precision weights of the underlying layer
+     */
+    public void setWeights(@NonNull INDArray weights) {
+        setWeights(QuantizedWeights.quantize(weights, format, rowScaled));
+    }
+
+    /**
+     * This method stores already quantized weights in this layer
+     *
+     * @param weights
+     */
+    public void setWeights(@NonNull QuantizedWeights weights) {
+        if (weights.getFormat() != format || weights.isRowScaled() != rowScaled)
+            throw new IllegalArgumentException("Expected " + format + " weights with " + (rowScaled ? "row" : "column")
+                            + " scales " + layerId());
+
+        this.weights = weights;
+    }
+
+    @Override
+    public INDArray activate(boolean training, LayerWorkspaceMgr workspaceMgr) {
+        if (getInsideLayer() instanceof EmbeddingLayer)
+            return activate(getInsideLayer().input(), training, workspaceMgr);
+
+        attachWeights(weights().dequantize());
+        try {
+            return super.activate(training, workspaceMgr);
+        } finally {
+            detachWeights();
+        }
+    }
+
+    @Override
+    public INDArray activate(INDArray input, boolean training, LayerWorkspaceMgr workspaceMgr) {
+        if (getInsideLayer() instanceof EmbeddingLayer)
+            input = attachEmbeddingRows(input, workspaceMgr);
+        else
+            attachWeights(weights().dequantize());
+
+        try {
+            return super.activate(input, training, workspaceMgr);
+        } finally {
+            detachWeights();
+        }
+    }
+
+    @Override
+    public Layer clone() {
+        QuantizedLayer layer = new QuantizedLayer(getInsideLayer().clone(), format, rowScaled);
+        layer.weights = weights;
+        return layer;
+    }
+
+    /**
+     * This method dequantizes embedding rows used by given input, and returns input with indices remapped into
+     * these rows
+     */
+    protected INDArray attachEmbeddingRows(INDArray input, LayerWorkspaceMgr workspaceMgr) {
+        if (input == null)
+            throw new IllegalStateException("Cannot do forward pass with null input " + layerId());
+
+        int numRows = weights().getRows();
+        Map<Integer, Integer> positions = new HashMap<>();
+        int[] rows = new int[input.length()];
+        INDArray remapped = workspaceMgr.createUninitialized(ArrayType.FF_WORKING_MEM, input.shape(), input.ordering());
+        for (int i = 0; i < rows.length; i++) {
+            int index = input.getInt(i, 0);
+            if (index < 0 || index >= numRows)
+                throw new DL4JInvalidInputException("Invalid index for embedding layer: got index " + index
+                                + " for entry " + i + " in minibatch; indexes must be between 0 and nIn-1 inclusive "
+                                + "(0 to " + (numRows - 1) + ") " + layerId());
+
+            Integer position = positions.get(index);
+            if (position == null) {
+                position = positions.size();
+                positions.put(index, position);
+                rows[position] = index;
+            }
+
+            remapped.putScalar(i, 0, position);
+        }
+
+        attachWeights(weights.dequantizeRows(Arrays.copyOf(rows, positions.size())));
+        return remapped;
+    }
+
+    protected QuantizedWeights weights() {
+        if (weights == null)
+            throw new IllegalStateException("Quantized weights weren't set " + layerId());
+
+        return weights;
+    }
+
+    protected void attachWeights(INDArray dequantized) {
+        getInsideLayer().paramTable().put(DefaultParamInitializer.WEIGHT_KEY, dequantized);
+    }
+
+    protected void detachWeights() {
+        getInsideLayer().paramTable().remove(DefaultParamInitializer.WEIGHT_KEY);
+    }
+}
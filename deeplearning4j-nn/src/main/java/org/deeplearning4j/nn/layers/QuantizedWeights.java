@@ -0,0 +1,235 @@
+package org.deeplearning4j.nn.layers;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.deeplearning4j.nn.conf.layers.misc.QuantizedLayer.Format;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Compact storage for layer weights: INT8 values with one scale per channel, or FLOAT16 values.
+ * Weights are treated as 2d matrix in 'c' order: [rows, length / rows], and INT8 channels are either rows or columns
+ * of that matrix.
+ */
+public class QuantizedWeights implements Serializable {
+    private static final int INT8_RANGE = 127;
+
+    @Getter
+    private final Format format;
+    private final int[] shape;
+    @Getter
+    private final int rows;
+    @Getter
+    private final int columns;
+    @Getter
+    private final boolean rowScaled;
+
+    private byte[] int8;
+    private float[] scales;
+    private short[] float16;
+
+    protected QuantizedWeights(Format format, int[] shape, boolean rowScaled) {
+        this.format = format;
+        this.shape = shape;
+        this.rowScaled = rowScaled;
+
+        int length = 1;
+        for (int d : shape)
+            length *= d;
+        this.rows = shape[0];
+        this.columns = length / shape[0];
+    }
+
+    /**
+     * This method quantizes given weights
+     *
+     * @param weights weights array, first dimension is treated as rows
+     * @param format
+     * @param rowScaled if true, INT8 scale is computed per row, otherwise per column
+     * @return
+     */
+    public static QuantizedWeights quantize(@NonNull INDArray weights, @NonNull Format format, boolean rowScaled) {
+        QuantizedWeights result = new QuantizedWeights(format, weights.shape(), rowScaled);
+        float[] data = weights.dup('c').data().asFloat();
+
+        if (format == Format.FLOAT16) {
+            result.float16 = new short[data.length];
+            for (int i = 0; i < data.length; i++)
+                result.float16[i] = toFloat16(data[i]);
+        } else {
+            result.int8 = new byte[data.length];
+            result.scales = quantizeInt8(data, result.rows, result.columns, rowScaled, result.int8);
+        }
+
+        return result;
+    }
+
+    /**
+     * This method returns weights shape
+     *
+     * @return
+     */
+    public int[] getShape() {
+        return Arrays.copyOf(shape, shape.length);
+    }
+
+    /**
+     * This method returns number of bytes used by quantized values and scales
+     *
+     * @return
+     */
+    public long getMemoryBytes() {
+        if (format == Format.FLOAT16)
+            return 2L * float16.length;
+
+        return int8.length + 4L * scales.length;
+    }
+
+    /**
+     * This method returns dequantized copy of all weights, in original shape and 'c' order
+     *
+     * @return
+     */
+    public INDArray dequantize() {
+        float[] out = new float[rows * columns];
+        for (int r = 0; r < rows; r++)
+            dequantizeRow(r, out, r * columns);
+
+        return Nd4j.create(out, shape, 'c');
+    }
+
+    /**
+     * This method returns dequantized copy of the given rows only, as [rowIndices.length, columns] matrix
+     *
+     * @param rowIndices
+     * @return
+     */
+    public INDArray dequantizeRows(@NonNull int[] rowIndices) {
+        float[] out = new float[rowIndices.length * columns];
+        for (int i = 0; i < rowIndices.length; i++) {
+            if (rowIndices[i] < 0 || rowIndices[i] >= rows)
+                throw new IllegalArgumentException("Row index " + rowIndices[i] + " is out of range [0, " + rows + ")");
+
+            dequantizeRow(rowIndices[i], out, i * columns);
+        }
+
+        return Nd4j.create(out, new int[] {rowIndices.length, columns}, 'c');
+    }
+
+    protected void dequantizeRow(int row, float[] out, int offset) {
+        int start = row * columns;
+        if (format == Format.FLOAT16) {
+            for (int c = 0; c < columns; c++)
+                out[offset + c] = fromFloat16(float16[start + c]);
+        } else if (rowScaled) {
+            float scale = scales[row];
+            for (int c = 0; c < columns; c++)
+                out[offset + c] = int8[start + c] * scale;
+        } else {
+            for (int c = 0; c < columns; c++)
+                out[offset + c] = int8[start + c] * scales[c];
+        }
+    }
+
+    /**
+     * This method quantizes [rows, columns] matrix into symmetric INT8 values, with scale = max(abs(x)) / 127 per
+     * row or per column
+     *
+     * @param data matrix values, in 'c' order
+     * @param rows
+     * @param columns
+     * @param rowScaled
+     * @param target quantized values
+     * @return scales
+     */
+    public static float[] quantizeInt8(float[] data, int rows, int columns, boolean rowScaled, byte[] target) {
+        float[] scales = new float[rowScaled ? rows : columns];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                int channel = rowScaled ? r : c;
+                scales[channel] = Math.max(scales[channel], Math.abs(data[r * columns + c]));
+            }
+        }
+
+        for (int i = 0; i < scales.length; i++)
+            scales[i] /= INT8_RANGE;
+
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                float scale = scales[rowScaled ? r : c];
+                int q = scale == 0.0f ? 0 : Math.round(data[r * columns + c] / scale);
+                target[r * columns + c] = (byte) Math.max(-INT8_RANGE, Math.min(INT8_RANGE, q));
+            }
+        }
+
+        return scales;
+    }
+
+    /**
+     * This method converts float value to IEEE 754 half precision bits, rounding to nearest
+     *
+     * @param value
+     * @return
+     */
+    public static short toFloat16(float value) {
+        int bits = Float.floatToIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int abs = bits & 0x7fffffff;
+
+        // NaN and infinities
+        if (abs >= 0x7f800000)
+            return (short) (sign | 0x7c00 | (abs > 0x7f800000 ? 0x200 : 0));
+
+        // rounding bit added to mantissa may carry into exponent, that's intended
+        int rounded = abs + 0x1000;
+        if (rounded >= 0x47800000)
+            return (short) (sign | 0x7c00);
+
+        // normal half values
+        if (rounded >= 0x38800000)
+            return (short) (sign | ((rounded - 0x38000000) >>> 13));
+
+        // too small even for subnormal half
+        if (abs < 0x33000000)
+            return (short) sign;
+
+        // subnormal half values
+        int exponent = abs >>> 23;
+        int mantissa = (abs & 0x7fffff) | 0x800000;
+        return (short) (sign | ((mantissa + (0x800000 >>> (exponent - 102))) >>> (126 - exponent)));
+    }
+
+    /**
+     * This method converts IEEE 754 half precision bits to float value
+     *
+     * @param value
+     * @return
+     */
+    public static float fromFloat16(short value) {
+        int bits = value & 0xffff;
+        int sign = (bits & 0x8000) << 16;
+        int exponent = bits & 0x7c00;
+        int mantissa = bits & 0x03ff;
+
+        if (exponent == 0x7c00) {
+            // NaN and infinities
+            exponent = 0x3fc00;
+        } else if (exponent != 0) {
+            // normal values: rebias exponent from 15 to 127
+            exponent += 0x1c000;
+        } else if (mantissa != 0) {
+            // subnormal values are normalized
+            exponent = 0x1c400;
+            do {
+                mantissa <<= 1;
+                exponent -= 0x400;
+            } while ((mantissa & 0x400) == 0);
+            mantissa &= 0x3ff;
+        }
+
+        return Float.intBitsToFloat(sign | ((exponent | mantissa) << 13));
+    }
+}
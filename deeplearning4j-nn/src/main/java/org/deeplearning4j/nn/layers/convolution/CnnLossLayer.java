@@ -59,6 +59,9 @@ public class CnnLossLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.Cn
     @Setter
     @Getter
     protected INDArray labels;
+    //dL/dz is multiplied by this before backprop, for loss scaling (mixed precision)
+    @Setter @Getter
+    protected double lossGradientScale = 1.0;
 
     public CnnLossLayer(NeuralNetConfiguration conf) {
         super(conf);
@@ -81,6 +84,8 @@ public class CnnLossLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.Cn
         // delta calculation
         ILossFunction lossFunction = layerConf().getLossFn();
         INDArray delta2d = lossFunction.computeGradient(labels2d, input2d.dup(input2d.ordering()), layerConf().getActivationFn(), maskReshaped);
+        if (lossGradientScale != 1.0)
+            delta2d.muli(lossGradientScale);
         delta2d = workspaceMgr.leverageTo(ArrayType.ACTIVATION_GRAD, delta2d);
 
         INDArray delta4d = ConvolutionUtils.reshape2dTo4d(delta2d, input.shape(), workspaceMgr, ArrayType.ACTIVATION_GRAD);
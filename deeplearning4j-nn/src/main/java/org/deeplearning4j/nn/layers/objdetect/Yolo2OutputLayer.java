@@ -73,6 +73,9 @@ public class Yolo2OutputLayer extends AbstractLayer<org.deeplearning4j.nn.conf.l
     //current input and label matrices
     @Setter @Getter
     protected INDArray labels;
+    //dL/dz is multiplied by this before backprop, for loss scaling (mixed precision)
+    @Setter @Getter
+    protected double lossGradientScale = 1.0;
 
     private double fullNetworkL1;
     private double fullNetworkL2;
@@ -85,6 +88,8 @@ public class Yolo2OutputLayer extends AbstractLayer<org.deeplearning4j.nn.conf.l
     @Override
     public Pair<Gradient, INDArray> backpropGradient(INDArray epsilon, LayerWorkspaceMgr workspaceMgr) {
         INDArray epsOut = computeBackpropGradientAndScore(workspaceMgr, false);
+        if (lossGradientScale != 1.0)
+            epsOut.muli(lossGradientScale);    //No parameters: epsilon is dL/dz
 
         return new Pair<>(EMPTY_GRADIENT, epsOut);
     }
@@ -50,6 +50,9 @@ import java.util.List;
  */
 public class RnnLossLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.RnnLossLayer> implements IOutputLayer {
     @Setter @Getter protected INDArray labels;
+    //dL/dz is multiplied by this before backprop, for loss scaling (mixed precision)
+    @Setter @Getter
+    protected double lossGradientScale = 1.0;
 
     public RnnLossLayer(NeuralNetConfiguration conf) {
         super(conf);
@@ -80,6 +83,8 @@ public class RnnLossLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.Rn
         // delta calculation
         ILossFunction lossFunction = layerConf().getLossFn();
         INDArray delta2d = lossFunction.computeGradient(labels2d, input2d.dup(input2d.ordering()), layerConf().getActivationFn(), maskReshaped);
+        if (lossGradientScale != 1.0)
+            delta2d.muli(lossGradientScale);
 
         INDArray delta3d = TimeSeriesUtils.reshape2dTo3d(delta2d, input.size(0), workspaceMgr, ArrayType.ACTIVATION_GRAD);
 
@@ -176,7 +176,7 @@ public class CenterLossOutputLayer extends BaseOutputLayer<org.deeplearning4j.nn
         INDArray epsilonNext = workspaceMgr.createUninitialized(ArrayType.ACTIVATION_GRAD, new int[]{w.size(0), delta.size(0)}, 'f');
         epsilonNext = w.mmuli(delta.transpose(), epsilonNext).transpose();
         double lambda = layerConf().getLambda();
-        epsilonNext.addi(dLcdai.muli(lambda)); // add center loss here
+        epsilonNext.addi(dLcdai.muli(lambda * lossGradientScale)); // add center loss here
 
         weightNoiseParams.clear();
 
@@ -203,6 +203,8 @@ public class CenterLossOutputLayer extends BaseOutputLayer<org.deeplearning4j.nn
         }
 
         INDArray delta = lossFunction.computeGradient(labels2d, preOut, layerConf().getActivationFn(), maskArray);
+        if (lossGradientScale != 1.0)
+            delta.muli(lossGradientScale);
 
         Gradient gradient = new DefaultGradient();
 
@@ -227,6 +229,8 @@ public class CenterLossOutputLayer extends BaseOutputLayer<org.deeplearning4j.nn
         } else {
             deltaC = numerator.diviColumnVector(denominator);
         }
+        if (lossGradientScale != 1.0)
+            deltaC.muli(lossGradientScale);
         centersGradView.assign(deltaC);
 
 
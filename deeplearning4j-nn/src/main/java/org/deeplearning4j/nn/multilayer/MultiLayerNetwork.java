@@ -41,6 +41,7 @@ import org.deeplearning4j.nn.gradient.DefaultGradient;
 import org.deeplearning4j.nn.gradient.Gradient;
 import org.deeplearning4j.nn.graph.ComputationGraph;
 import org.deeplearning4j.nn.layers.FrozenLayer;
+import org.deeplearning4j.nn.updater.LossScaler;
 import org.deeplearning4j.nn.updater.MultiLayerUpdater;
 import org.deeplearning4j.nn.updater.UpdaterCreator;
 import org.deeplearning4j.nn.workspace.ArrayType;
@@ -122,6 +123,7 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
     protected int layerIndex; //For Layer.get/setIndex()
 
     protected transient Solver solver; //Used to call optimizers during backprop
+    protected transient LossScaler lossScaler; //Used only for mixed-precision training
 
 
     /**
@@ -1619,6 +1621,10 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
                     if (labels == null)
                         throw new IllegalStateException("No labels found");
                     outputLayer.setLabels(labels);
+                    //Mixed precision, training only: scale the loss gradient dL/dz before backprop through the output
+                    // layer, so small gradients don't underflow. Gradients are unscaled by the updater
+                    outputLayer.setLossGradientScale(epsilon == null && !returnInputActGrad && getLossScaler() != null
+                                    ? lossScaler.getScale() : 1.0);
                 }
 
                 try(MemoryWorkspace wsBPWorking = workspaceMgr.notifyScopeEntered(ArrayType.BP_WORKING_MEM)){
@@ -2832,6 +2838,16 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer, Neura
         return ffToLayerActivationsDetached(training, FwdPassType.RNN_ACTIVATE_WITH_STORED_STATE, storeLastForTBPTT, layers.length-1, input, mask, null, false);
     }
 
+    /**
+     * Get the loss scaler used for mixed-precision training
+     * @return Loss scaler, or null if mixed precision isn't configured
+     */
+    public LossScaler getLossScaler() {
+        if (lossScaler == null && layerWiseConfigurations.getMixedPrecision() != null)
+            lossScaler = new LossScaler(layerWiseConfigurations.getMixedPrecision());
+        return lossScaler;
+    }
+
     /** Get the updater for this MultiLayerNetwork
      * @return Updater for MultiLayerNetwork
      */
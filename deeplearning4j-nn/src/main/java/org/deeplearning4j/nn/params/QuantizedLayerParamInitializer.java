@@ -0,0 +1,103 @@
+package org.deeplearning4j.nn.params;
+
+import org.deeplearning4j.nn.api.ParamInitializer;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.BaseLayer;
+import org.deeplearning4j.nn.conf.layers.ConvolutionLayer;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.EmbeddingLayer;
+import org.deeplearning4j.nn.conf.layers.FeedForwardLayer;
+import org.deeplearning4j.nn.conf.layers.Layer;
+import org.deeplearning4j.nn.conf.layers.misc.QuantizedLayer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.util.*;
+
+/**
+ * Parameter initializer for {@link QuantizedLayer} instances.
+ * Only bias of the underlying layer is kept in network parameters, weights are stored in quantized form by the layer
+ * itself.
+ */
+public class QuantizedLayerParamInitializer implements ParamInitializer {
+
+    private static final QuantizedLayerParamInitializer INSTANCE = new QuantizedLayerParamInitializer();
+
+    public static QuantizedLayerParamInitializer getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public int numParams(NeuralNetConfiguration conf) {
+        return numParams(conf.getLayer());
+    }
+
+    @Override
+    public int numParams(Layer layer) {
+        Layer inner = ((QuantizedLayer) layer).getLayer();
+        return hasBias(inner) ? ((FeedForwardLayer) inner).getNOut() : 0;
+    }
+
+    @Override
+    public List<String> paramKeys(Layer layer) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public List<String> weightKeys(Layer layer) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public List<String> biasKeys(Layer layer) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isWeightParam(Layer layer, String key) {
+        return false;
+    }
+
+    @Override
+    public boolean isBiasParam(Layer layer, String key) {
+        return false;
+    }
+
+    @Override
+    public Map<String, INDArray> init(NeuralNetConfiguration conf, INDArray paramsView, boolean initializeParams) {
+        int length = numParams(conf);
+        if (paramsView.length() != length)
+            throw new IllegalStateException(
+                            "Expected params view of length " + length + ", got length " + paramsView.length());
+
+        // map is modified by the layer: quantized weights are attached to it during forward pass
+        Map<String, INDArray> params = Collections.synchronizedMap(new LinkedHashMap<String, INDArray>());
+        if (length > 0) {
+            if (initializeParams)
+                paramsView.assign(((BaseLayer) ((QuantizedLayer) conf.getLayer()).getLayer()).getBiasInit());
+
+            params.put(DefaultParamInitializer.BIAS_KEY, paramsView);
+        }
+
+        return params;
+    }
+
+    @Override
+    public Map<String, INDArray> getGradientsFromFlattened(NeuralNetConfiguration conf, INDArray gradientView) {
+        Map<String, INDArray> out = new LinkedHashMap<>();
+        if (gradientView.length() > 0)
+            out.put(DefaultParamInitializer.BIAS_KEY, gradientView);
+
+        return out;
+    }
+
+    protected boolean hasBias(Layer layer) {
+        if (layer instanceof ConvolutionLayer)
+            return ((ConvolutionLayer) layer).hasBias();
+        if (layer instanceof DenseLayer)
+            return ((DenseLayer) layer).hasBias();
+        if (layer instanceof EmbeddingLayer)
+            return ((EmbeddingLayer) layer).hasBias();
+
+        return false;
+    }
+}
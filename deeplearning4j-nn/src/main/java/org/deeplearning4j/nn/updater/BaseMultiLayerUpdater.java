@@ -8,6 +8,7 @@ import org.deeplearning4j.nn.conf.GradientNormalization;
 import org.deeplearning4j.nn.conf.layers.BaseLayer;
 import org.deeplearning4j.nn.gradient.DefaultGradient;
 import org.deeplearning4j.nn.gradient.Gradient;
+import org.deeplearning4j.optimize.api.StepFunction;
 import org.nd4j.linalg.api.memory.MemoryWorkspace;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.api.ops.CustomOp;
@@ -91,7 +92,8 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
 
                     //First: decide whether to add to the existing updater block, or create a new one
                     if (currentBlock == null || !UpdaterUtils.updaterConfigurationsEquals(lastLayer, lastVariable,
-                                    layers[i], var)) {
+                                    layers[i], var) || UpdaterUtils.hasSparseGradient(lastLayer, lastVariable)
+                                    || UpdaterUtils.hasSparseGradient(layers[i], var)) {
                         //Create a new block
                         List<UpdaterBlock.ParamState> list = new ArrayList<>();
                         list.add(new UpdaterBlock.ParamState(layers[i], var, paramsViewSoFar,
@@ -152,6 +154,8 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
                 INDArray gradientViewSubset = gradientView.get(NDArrayIndex.point(0),
                                 NDArrayIndex.interval(paramsViewSoFar, paramsViewSoFar + gradSize));
                 ub.setGradientView(gradientViewSubset);
+                ub.setParamsView(paramsView.get(NDArrayIndex.point(0),
+                                NDArrayIndex.interval(paramsViewSoFar, paramsViewSoFar + gradSize)));
             }
 
             ub.init();
@@ -183,6 +187,13 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
      */
     protected abstract boolean isMiniBatch();
 
+    /**
+     * @return Loss scaler of the model, if mixed-precision training is enabled. Null otherwise
+     */
+    protected LossScaler getLossScaler() {
+        return null;
+    }
+
     /**
      * Set the view array. Note that this does an assign operation - the provided array is not stored internally.
      *
@@ -216,6 +227,8 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
      * 1. Pre-apply: gradient clipping, etc on a per-layer basis
      * 2. Execute the updater (Adam, Nesterov momentum, etc) - in blocks of layers at a time
      * 3. Divide by minibatch size
+     * For mixed-precision training, gradients are unscaled first (and the whole step is skipped on overflow), and
+     * rounding residual of previous steps is applied last.
      *
      * @param gradient  Gradient to updater
      * @param iteration The current iteration (i.e., number of parameter updates so far)
@@ -228,6 +241,18 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
         // hence should be the same object under normal circumstances
         boolean isExternal = gradient.gradient() != getFlattenedGradientsView();
 
+        LossScaler lossScaler = (isExternal ? null : getLossScaler());
+        if (lossScaler != null && !lossScaler.unscale(getFlattenedGradientsView())) {
+            //Overflow: skip this step. Zero update leaves params as is, and updater state isn't modified
+            if (hasSparseBlocks()) {
+                for (UpdaterBlock ub : updaterBlocks)
+                    ub.zeroGradient();
+            } else {
+                getFlattenedGradientsView().assign(0);
+            }
+            return;
+        }
+
         //Split up the gradients on a per-layer basis, for pre-apply
         Map<String, Gradient> layerGradients = new HashMap<>();
 
@@ -291,18 +316,76 @@ public abstract class BaseMultiLayerUpdater<T extends Model> implements Updater
             } else {
                 //Standard case
                 INDArray grad = getFlattenedGradientsView();
-                if(grad != null) {
+                if (grad != null && hasSparseBlocks()) {
+                    //Row-sparse blocks: divide only the rows that were updated
+                    for (UpdaterBlock ub : updaterBlocks)
+                        ub.divideGradient(batchSize);
+                } else if(grad != null) {
                     //May be null for nets with no parameters
                     grad.divi(batchSize);
                 }
             }
         }
+
+        //Mixed precision: carry rounding errors of previous updates into this one
+        if (lossScaler != null && lossScaler.getConfiguration().isMasterWeights()) {
+            for (UpdaterBlock ub : updaterBlocks) {
+                //Row-sparse blocks are skipped: residual would make rows outside of the minibatch non-zero
+                if (ub.skipDueToPretrainConfig() || ub.isSparseGradientBlock())
+                    continue;
+                try (MemoryWorkspace ws = workspaceMgr.notifyScopeEntered(ArrayType.UPDATER_WORKING_MEM)) {
+                    ub.applyUpdateResidual();
+                }
+            }
+        }
     }
 
     protected boolean isSingleLayerUpdater() {
         return false;
     }
 
+    protected boolean hasSparseBlocks() {
+        for (UpdaterBlock ub : updaterBlocks) {
+            if (ub.isSparseGradientBlock())
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Apply the update calculated by the last {@link #update(Gradient, int, int, int, LayerWorkspaceMgr)} call to the
+     * parameters, via the given step function (i.e., params -= update).<br>
+     * Row-sparse blocks are stepped in the updated rows only: the dense step is applied to the contiguous ranges of
+     * parameters between them. If there are no row-sparse blocks, or the arrays aren't the parameters and flattened
+     * gradients of the network, this is a single dense step.
+     *
+     * @param stepFunction Step function to apply
+     * @param params       Parameters of the network
+     * @param update       Update to apply: gradients of the network, after the updater was applied
+     */
+    public void step(StepFunction stepFunction, INDArray params, INDArray update) {
+        if (params != getParams() || update != getFlattenedGradientsView() || !hasSparseBlocks()) {
+            stepFunction.step(params, update);
+            return;
+        }
+
+        int denseStart = 0;
+        for (UpdaterBlock ub : updaterBlocks) {
+            if (!ub.isSparseGradientBlock() || !ub.stepSparse(stepFunction))
+                continue;
+            stepDense(stepFunction, params, update, denseStart, ub.getParamOffsetStart());
+            denseStart = ub.getParamOffsetEnd();
+        }
+        stepDense(stepFunction, params, update, denseStart, params.length());
+    }
+
+    private static void stepDense(StepFunction stepFunction, INDArray params, INDArray update, int start, int end) {
+        if (start >= end)
+            return;
+        stepFunction.step(params.get(NDArrayIndex.point(0), NDArrayIndex.interval(start, end)),
+                        update.get(NDArrayIndex.point(0), NDArrayIndex.interval(start, end)));
+    }
+
     /**
      * Pre-apply: Apply gradient normalization/clipping
      *
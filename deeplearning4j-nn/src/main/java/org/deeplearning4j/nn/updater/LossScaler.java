@@ -0,0 +1,78 @@
+package org.deeplearning4j.nn.updater;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.nn.conf.MixedPrecision;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.indexing.BooleanIndexing;
+import org.nd4j.linalg.indexing.conditions.Conditions;
+
+import java.io.Serializable;
+
+/**
+ * Dynamic loss scaling for mixed-precision training, as configured by {@link MixedPrecision}.<br>
+ * The loss gradient dL/dz of output layers (and hence all gradients computed by backprop) is multiplied by the current
+ * scale before backprop, via {@link org.deeplearning4j.nn.api.layers.IOutputLayer#setLossGradientScale(double)}, and
+ * gradients are divided by it in the updater via {@link #unscale(INDArray)}. If unscaled
+ * gradients contain NaN or infinite values, the step should be skipped: the scale is decreased, and increased again
+ * after a number of steps without overflow.
+ *
+ * PLEASE NOTE: this class is stateful, and instances should not be shared between networks.
+ */
+@Slf4j
+public class LossScaler implements Serializable {
+    @Getter
+    private final MixedPrecision configuration;
+    @Getter
+    private double scale;
+    @Getter
+    private int stepsSinceOverflow;
+    @Getter
+    private long skippedSteps;
+
+    public LossScaler(@NonNull MixedPrecision configuration) {
+        this.configuration = configuration;
+        this.scale = Math.min(configuration.getMaxScale(), Math.max(configuration.getMinScale(),
+                        configuration.getInitialScale()));
+    }
+
+    /**
+     * This method checks gradients for overflow, and divides them by the current loss scale, in place.
+     * Loss scale is updated accordingly.
+     *
+     * @param gradient flattened gradients of the network
+     * @return true if gradients are finite and were unscaled, false if the step should be skipped
+     */
+    public boolean unscale(INDArray gradient) {
+        if (gradient == null)
+            return true;
+
+        if (BooleanIndexing.or(gradient, Conditions.isNan()) || BooleanIndexing.or(gradient, Conditions.isInfinite())) {
+            skippedSteps++;
+            stepsSinceOverflow = 0;
+            scale = Math.max(configuration.getMinScale(), scale * configuration.getBackoffFactor());
+            if (log.isDebugEnabled())
+                log.debug("Gradient overflow detected, skipping step. Loss scale decreased to {}", scale);
+            return false;
+        }
+
+        gradient.divi(scale);
+
+        if (++stepsSinceOverflow >= configuration.getGrowthInterval()) {
+            stepsSinceOverflow = 0;
+            scale = Math.min(configuration.getMaxScale(), scale * configuration.getGrowthFactor());
+        }
+        return true;
+    }
+
+    /**
+     * This method resets loss scale to initial value
+     */
+    public void reset() {
+        scale = Math.min(configuration.getMaxScale(), Math.max(configuration.getMinScale(),
+                        configuration.getInitialScale()));
+        stepsSinceOverflow = 0;
+        skippedSteps = 0;
+    }
+}
@@ -3,10 +3,14 @@ package org.deeplearning4j.nn.updater;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import org.deeplearning4j.nn.api.Layer;
+import org.deeplearning4j.nn.api.layers.SparseGradientLayer;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.conf.layers.BaseLayer;
 import org.deeplearning4j.nn.layers.FrozenLayer;
+import org.deeplearning4j.optimize.api.StepFunction;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.custom.ScatterUpdate;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.indexing.NDArrayIndex;
 import org.nd4j.linalg.learning.GradientUpdater;
@@ -23,6 +27,8 @@ import java.util.List;
  */
 @Data
 public class UpdaterBlock {
+    private static final int[] DIM_1 = new int[] {1};
+
     private int paramOffsetStart;
     private int paramOffsetEnd;
     private int updaterViewOffsetStart;
@@ -31,8 +37,15 @@ public class UpdaterBlock {
 
     private INDArray updaterView;
     private INDArray gradientView;
+    private INDArray paramsView;
     private boolean updaterViewRequiresInitialization;
 
+    //Rounding errors of previous parameter updates, for mixed-precision training. Created on first use
+    private INDArray updateResidual;
+
+    //Rows updated by the last sparse update, or null if the last update was dense
+    private int[] sparseRows;
+
     private GradientUpdater gradientUpdater;
 
 
@@ -90,6 +103,17 @@ public class UpdaterBlock {
         return !vs.getLayer().conf().isPretrain(); //Skip if not pretrain
     }
 
+    /**
+     * @return True if this block has a single parameter with row-sparse gradients
+     * @see org.deeplearning4j.nn.api.layers.SparseGradientLayer
+     */
+    public boolean isSparseGradientBlock() {
+        if (layersAndVariablesInBlock.size() != 1)
+            return false;
+        ParamState p = layersAndVariablesInBlock.get(0);
+        return UpdaterUtils.hasSparseGradient(p.getLayer(), p.getParamName());
+    }
+
     public GradientUpdater getGradientUpdater() {
         if (gradientUpdater == null) {
             init();
@@ -138,6 +162,11 @@ public class UpdaterBlock {
             return;
         }
 
+        sparseRows = null;
+        if (!externalGradient && isSparseGradientBlock() && updateSparse(iteration, epoch)) {
+            return;
+        }
+
         //Apply the updater itself
         gradientUpdater.applyUpdater(blockGradViewArray, iteration, epoch);
 
@@ -159,6 +188,161 @@ public class UpdaterBlock {
         }
     }
 
+    /**
+     * Apply the updater and L1/L2 to the non-zero rows of a row-sparse gradient only. Rows are copied (with the
+     * corresponding rows of each updater state array) into temporary arrays, updated, and copied back.
+     *
+     * @return False if sparse update isn't possible (rows are unknown, or updater state isn't element-wise), in which
+     * case dense update should be applied
+     */
+    private boolean updateSparse(int iteration, int epoch) {
+        ParamState p = layersAndVariablesInBlock.get(0);
+        int[] rows = ((SparseGradientLayer) p.getLayer()).getGradientRows(p.getParamName());
+        int length = paramOffsetEnd - paramOffsetStart;
+        int stateLength = updaterView == null ? 0 : updaterView.length();
+        if (rows == null || gradientView == null || stateLength % length != 0)
+            return false;
+
+        sparseRows = rows;
+        if (rows.length == 0)
+            return true;
+
+        int[] shape = p.getLayer().getParam(p.getParamName()).shape();
+        INDArray gradMatrix = gradientView.reshape('f', shape[0], shape[1]);
+        INDArray gradRows = Nd4j.toFlattened('c', Nd4j.pullRows(gradMatrix, 1, rows));
+
+        //Element-wise updater state (Adam, RMSProp etc): stateLength/length arrays, each aligned with gradient
+        GradientUpdater updater = gradientUpdater;
+        INDArray[] stateMatrices = new INDArray[stateLength / length];
+        INDArray stateRows = null;
+        if (stateMatrices.length > 0) {
+            INDArray[] pulled = new INDArray[stateMatrices.length];
+            for (int i = 0; i < stateMatrices.length; i++) {
+                stateMatrices[i] = updaterView.get(NDArrayIndex.point(0),
+                                NDArrayIndex.interval(i * length, (i + 1) * length)).reshape('f', shape[0], shape[1]);
+                pulled[i] = Nd4j.pullRows(stateMatrices[i], 1, rows);
+            }
+            stateRows = Nd4j.toFlattened('c', pulled);
+            updater = p.getLayer().conf().getLayer().getUpdaterByParam(p.getParamName()).instantiate(stateRows,
+                            false);
+        }
+
+        updater.applyUpdater(gradRows, iteration, epoch);
+
+        INDArray updatedGrad = gradRows.reshape('c', rows.length, shape[1]);
+        postApply(p.getLayer(), p.getParamName(), updatedGrad,
+                        Nd4j.pullRows(p.getLayer().getParam(p.getParamName()), 1, rows));
+        assignRows(gradMatrix, updatedGrad, rows);
+
+        int rowsLength = rows.length * shape[1];
+        for (int i = 0; i < stateMatrices.length; i++) {
+            INDArray updatedState = stateRows.get(NDArrayIndex.point(0),
+                            NDArrayIndex.interval(i * rowsLength, (i + 1) * rowsLength)).reshape('c', rows.length,
+                                            shape[1]);
+            assignRows(stateMatrices[i], updatedState, rows);
+        }
+        return true;
+    }
+
+    /**
+     * Divide the gradient by minibatch size. For row-sparse blocks, only the rows modified by the last update are
+     * divided
+     *
+     * @param batchSize Minibatch size
+     */
+    public void divideGradient(int batchSize) {
+        if (gradientView == null)
+            return;
+
+        if (sparseRows == null) {
+            gradientView.divi(batchSize);
+        } else if (sparseRows.length > 0) {
+            ParamState p = layersAndVariablesInBlock.get(0);
+            int[] shape = p.getLayer().getParam(p.getParamName()).shape();
+            INDArray divisor = Nd4j.valueArrayOf(new int[] {sparseRows.length, shape[1]}, batchSize);
+            Nd4j.getExecutioner().exec(new ScatterUpdate(gradientView.reshape('f', shape[0], shape[1]), divisor,
+                            sparseRows, DIM_1, ScatterUpdate.UpdateOp.DIVIDE));
+        }
+    }
+
+    /**
+     * Zero the gradient of this block, so the step leaves parameters as is. For row-sparse blocks, only the rows
+     * modified by the last backprop are zeroed, and the step skips this block entirely
+     */
+    public void zeroGradient() {
+        if (gradientView == null)
+            return;
+
+        int[] rows = null;
+        ParamState p = layersAndVariablesInBlock.get(0);
+        if (isSparseGradientBlock())
+            rows = ((SparseGradientLayer) p.getLayer()).getGradientRows(p.getParamName());
+
+        if (rows == null) {
+            gradientView.assign(0);
+            sparseRows = null;
+            return;
+        }
+
+        if (rows.length > 0) {
+            int[] shape = p.getLayer().getParam(p.getParamName()).shape();
+            assignRows(gradientView.reshape('f', shape[0], shape[1]), Nd4j.zeros(rows.length, shape[1]), rows);
+        }
+        sparseRows = new int[0];
+    }
+
+    /**
+     * Apply the last row-sparse update of this block to the parameters: the step function is applied to the updated
+     * rows only, which are then assigned back to the parameter rows. Parameters outside of these rows aren't touched.
+     *
+     * @param stepFunction Step function (i.e., params -= update)
+     * @return False if the last update wasn't row-sparse, in which case the dense step should be applied to this block
+     */
+    public boolean stepSparse(StepFunction stepFunction) {
+        if (sparseRows == null || gradientView == null)
+            return false;
+        if (sparseRows.length == 0)
+            return true;
+
+        ParamState p = layersAndVariablesInBlock.get(0);
+        INDArray paramMatrix = p.getLayer().getParam(p.getParamName());
+        INDArray gradMatrix = gradientView.reshape('f', paramMatrix.size(0), paramMatrix.size(1));
+        INDArray paramRows = Nd4j.pullRows(paramMatrix, 1, sparseRows);
+        stepFunction.step(paramRows, Nd4j.pullRows(gradMatrix, 1, sparseRows));
+        assignRows(paramMatrix, paramRows, sparseRows);
+        return true;
+    }
+
+    private static void assignRows(INDArray target, INDArray rowValues, int[] rows) {
+        Nd4j.getExecutioner().exec(new ScatterUpdate(target, rowValues, rows, DIM_1, ScatterUpdate.UpdateOp.ASSIGN));
+    }
+
+    /**
+     * Compensated (Kahan) summation for the parameter update of this block, used for mixed-precision training.<br>
+     * Residual of previous steps is added to the update, and the gradient view is replaced with the update that is
+     * actually representable after params -= update. Part of the update lost due to rounding is stored as the new
+     * residual, and applied on the next step.
+     *
+     * PLEASE NOTE: this method should be called after the updater and minibatch division were applied, and temporary
+     * arrays are allocated in current workspace.
+     */
+    public void applyUpdateResidual() {
+        if (gradientView == null || paramsView == null)
+            return;
+
+        if (updateResidual == null) {
+            try (MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+                updateResidual = Nd4j.zeros(gradientView.shape(), gradientView.ordering());
+            }
+        }
+
+        //intended = update + residual; updated = params - intended; applied = params - updated
+        INDArray intended = gradientView.add(updateResidual);
+        INDArray applied = paramsView.sub(intended).rsubi(paramsView);
+        updateResidual.assign(intended.subi(applied));
+        gradientView.assign(applied);
+    }
+
     /**
      * Apply L1 and L2 regularization, if necessary. Note that L1/L2 may differ for different layers in the same block
      *
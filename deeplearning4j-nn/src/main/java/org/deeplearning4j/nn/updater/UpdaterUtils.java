@@ -1,6 +1,7 @@
 package org.deeplearning4j.nn.updater;
 
 import org.deeplearning4j.nn.api.Layer;
+import org.deeplearning4j.nn.api.layers.SparseGradientLayer;
 import org.nd4j.linalg.learning.config.IUpdater;
 
 /**
@@ -36,4 +37,11 @@ public class UpdaterUtils {
 
         return true;
     }
+
+    /**
+     * @return True if gradient of the given parameter is row-sparse. Such parameters always get their own updater block
+     */
+    public static boolean hasSparseGradient(Layer layer, String param) {
+        return layer instanceof SparseGradientLayer && ((SparseGradientLayer) layer).isSparseGradient(param);
+    }
 }
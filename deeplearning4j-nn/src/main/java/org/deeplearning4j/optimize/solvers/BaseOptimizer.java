@@ -29,6 +29,7 @@ import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.gradient.Gradient;
 import org.deeplearning4j.nn.graph.ComputationGraph;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.updater.BaseMultiLayerUpdater;
 import org.deeplearning4j.nn.updater.UpdaterCreator;
 import org.deeplearning4j.nn.updater.graph.ComputationGraphUpdater;
 import org.deeplearning4j.nn.workspace.LayerWorkspaceMgr;
@@ -159,6 +160,16 @@ public abstract class BaseOptimizer implements ConvexOptimizer {
         this.computationGraphUpdater = updater;
     }
 
+    /**
+     * @return Updater of the MultiLayerNetwork or ComputationGraph being optimized, or null if there's no such updater
+     * (yet)
+     */
+    protected BaseMultiLayerUpdater<?> getMultiLayerUpdater() {
+        if (computationGraphUpdater != null)
+            return computationGraphUpdater;
+        return updater instanceof BaseMultiLayerUpdater ? (BaseMultiLayerUpdater<?>) updater : null;
+    }
+
     @Override
     public void setListeners(Collection<TrainingListener> listeners) {
         if (listeners == null)
@@ -22,6 +22,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.deeplearning4j.nn.api.Model;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.gradient.Gradient;
+import org.deeplearning4j.nn.updater.BaseMultiLayerUpdater;
 import org.deeplearning4j.nn.workspace.LayerWorkspaceMgr;
 import org.deeplearning4j.optimize.api.StepFunction;
 import org.deeplearning4j.optimize.api.TerminationCondition;
@@ -76,7 +77,13 @@ public class StochasticGradientDescent extends BaseOptimizer {
             // if there's no update available - just go on then
         } else {
             // if accumulator isn't used - we just to for direct updates application
-            stepFunction.step(params, gradient.gradient());
+            // Row-sparse updater blocks (i.e., EmbeddingLayer with sparse gradients) are stepped in updated rows only
+            BaseMultiLayerUpdater<?> multiLayerUpdater = getMultiLayerUpdater();
+            if (multiLayerUpdater != null) {
+                multiLayerUpdater.step(stepFunction, params, gradient.gradient());
+            } else {
+                stepFunction.step(params, gradient.gradient());
+            }
         }
 
         //Note: model.params() is always in-place for MultiLayerNetwork and ComputationGraph, hence no setParams is necessary there
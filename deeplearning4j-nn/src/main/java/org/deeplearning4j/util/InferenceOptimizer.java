@@ -0,0 +1,293 @@
+package org.deeplearning4j.util;
+
+import lombok.NonNull;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.InputPreProcessor;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.graph.GraphVertex;
+import org.deeplearning4j.nn.conf.graph.LayerVertex;
+import org.deeplearning4j.nn.conf.layers.*;
+import org.deeplearning4j.nn.conf.preprocessor.ComposableInputPreProcessor;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.params.BatchNormalizationParamInitializer;
+import org.deeplearning4j.nn.params.DefaultParamInitializer;
+import org.nd4j.linalg.activations.impl.ActivationIdentity;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.ops.transforms.Transforms;
+
+import java.util.*;
+
+/**
+ * Inference optimization pass, that produces equivalent network which is cheaper to run:
+ * - BatchNormalization layers are folded into weights and biases of the preceding ConvolutionLayer or DenseLayer
+ * - ActivationLayer is fused into the preceding ConvolutionLayer or DenseLayer, so activation is applied in place,
+ *   right after bias, without separate activations array
+ * - DropoutLayer is removed, as well as dropout (GaussianNoise, GaussianDropout etc) and weight noise of all layers
+ *
+ * Folding is applied only when the preceding layer has identity activation, and (for ComputationGraph) when its
+ * output isn't consumed by any other vertex. Other layers are copied as is.
+ *
+ * PLEASE NOTE: resulting network is meant for inference only, it shouldn't be trained
+ */
+public class InferenceOptimizer {
+
+    private InferenceOptimizer() {
+    }
+
+    /**
+     * This method returns optimized copy of the given network. Original network isn't modified
+     *
+     * @param net
+     * @return
+     */
+    public static MultiLayerNetwork optimize(@NonNull MultiLayerNetwork net) {
+        MultiLayerConfiguration origConf = net.getLayerWiseConfigurations();
+
+        List<FusedLayer> layers = new ArrayList<>();
+        Map<Integer, InputPreProcessor> preProcessors = new HashMap<>();
+        InputPreProcessor pending = null;
+        int numLayers = net.getnLayers();
+        for (int i = 0; i < numLayers; i++) {
+            NeuralNetConfiguration conf = origConf.getConf(i).clone();
+            Layer layer = conf.getLayer();
+            InputPreProcessor preProcessor = compose(pending, origConf.getInputPreProcess(i));
+            pending = null;
+
+            // dropout layer is identity at inference time, but its preprocessor still has to be applied
+            if (layer instanceof DropoutLayer && i < numLayers - 1) {
+                pending = preProcessor;
+                continue;
+            }
+
+            FusedLayer last = layers.isEmpty() ? null : layers.get(layers.size() - 1);
+            if (preProcessor == null && last != null && isFoldTarget(last.conf.getLayer())) {
+                if (layer instanceof BatchNormalization) {
+                    last.foldBatchNorm(net.getLayer(i));
+                    continue;
+                }
+
+                if (layer instanceof ActivationLayer && ((ActivationLayer) layer).getActivationFn() != null) {
+                    ((BaseLayer) last.conf.getLayer()).setActivationFn(((ActivationLayer) layer).getActivationFn());
+                    continue;
+                }
+            }
+
+            removeNoise(layer);
+            if (preProcessor != null)
+                preProcessors.put(layers.size(), preProcessor);
+
+            layers.add(new FusedLayer(conf, net.getLayer(i)));
+        }
+
+        List<NeuralNetConfiguration> confs = new ArrayList<>();
+        for (FusedLayer layer : layers)
+            confs.add(layer.conf);
+
+        MultiLayerConfiguration conf = origConf.clone();
+        conf.setConfs(confs);
+        conf.setInputPreProcessors(preProcessors);
+
+        MultiLayerNetwork result = new MultiLayerNetwork(conf);
+        result.init();
+        for (int i = 0; i < layers.size(); i++)
+            layers.get(i).copyParams(result.getLayer(i));
+
+        return result;
+    }
+
+    /**
+     * This method returns optimized copy of the given graph. Original graph isn't modified
+     *
+     * @param net
+     * @return
+     */
+    public static ComputationGraph optimize(@NonNull ComputationGraph net) {
+        ComputationGraphConfiguration conf = net.getConfiguration().clone();
+        Map<String, GraphVertex> vertices = conf.getVertices();
+        Map<String, FusedLayer> fused = new HashMap<>();
+
+        // topological order guarantees that chains like conv -> batchnorm -> activation are folded completely
+        for (int idx : net.topologicalSortOrder()) {
+            String name = net.getVertices()[idx].getVertexName();
+            GraphVertex vertex = vertices.get(name);
+            if (!(vertex instanceof LayerVertex))
+                continue;
+
+            Layer layer = ((LayerVertex) vertex).getLayerConf().getLayer();
+            removeNoise(layer);
+
+            List<String> inputs = conf.getVertexInputs().get(name);
+            if (((LayerVertex) vertex).getPreProcessor() != null || inputs == null || inputs.size() != 1)
+                continue;
+
+            String previous = inputs.get(0);
+            if (layer instanceof DropoutLayer && !conf.getNetworkOutputs().contains(name)) {
+                removeVertex(conf, name, previous);
+                continue;
+            }
+
+            GraphVertex previousVertex = vertices.get(previous);
+            if (!(previousVertex instanceof LayerVertex) || countConsumers(conf, previous) != 1)
+                continue;
+
+            NeuralNetConfiguration previousConf = ((LayerVertex) previousVertex).getLayerConf();
+            if (!isFoldTarget(previousConf.getLayer()))
+                continue;
+
+            if (layer instanceof BatchNormalization) {
+                FusedLayer target = fused.get(previous);
+                if (target == null) {
+                    target = new FusedLayer(previousConf, net.getLayer(previous));
+                    fused.put(previous, target);
+                }
+
+                target.foldBatchNorm(net.getLayer(name));
+                removeVertex(conf, name, previous);
+            } else if (layer instanceof ActivationLayer && ((ActivationLayer) layer).getActivationFn() != null) {
+                ((BaseLayer) previousConf.getLayer()).setActivationFn(((ActivationLayer) layer).getActivationFn());
+                removeVertex(conf, name, previous);
+            }
+        }
+
+        ComputationGraph result = new ComputationGraph(conf);
+        result.init();
+        for (org.deeplearning4j.nn.api.Layer layer : result.getLayers()) {
+            String name = layer.conf().getLayer().getLayerName();
+            FusedLayer source = fused.get(name);
+            if (source == null)
+                source = new FusedLayer(null, net.getLayer(name));
+
+            source.copyParams(layer);
+        }
+
+        return result;
+    }
+
+    /**
+     * Only plain convolution and dense layers without activation can absorb following batch norm or activation
+     */
+    protected static boolean isFoldTarget(Layer layer) {
+        if (layer == null || (layer.getClass() != ConvolutionLayer.class && layer.getClass() != DenseLayer.class))
+            return false;
+
+        return ((BaseLayer) layer).getActivationFn() instanceof ActivationIdentity;
+    }
+
+    protected static void removeNoise(Layer layer) {
+        layer.setIDropout(null);
+        if (layer instanceof BaseLayer)
+            ((BaseLayer) layer).setWeightNoise(null);
+    }
+
+    protected static InputPreProcessor compose(InputPreProcessor first, InputPreProcessor second) {
+        if (first == null)
+            return second;
+        if (second == null)
+            return first;
+
+        return new ComposableInputPreProcessor(first, second);
+    }
+
+    /**
+     * This method removes vertex with single input, and connects its consumers to that input instead
+     */
+    protected static void removeVertex(ComputationGraphConfiguration conf, String name, String replacement) {
+        conf.getVertices().remove(name);
+        conf.getVertexInputs().remove(name);
+        for (List<String> inputs : conf.getVertexInputs().values())
+            Collections.replaceAll(inputs, name, replacement);
+
+        Collections.replaceAll(conf.getNetworkOutputs(), name, replacement);
+    }
+
+    protected static int countConsumers(ComputationGraphConfiguration conf, String name) {
+        int count = Collections.frequency(conf.getNetworkOutputs(), name);
+        for (List<String> inputs : conf.getVertexInputs().values())
+            count += Collections.frequency(inputs, name);
+
+        return count;
+    }
+
+    /**
+     * Layer of the optimized network: its configuration, original layer to copy parameters from, and weights/bias
+     * if they were changed by folding
+     */
+    protected static class FusedLayer {
+        private final NeuralNetConfiguration conf;
+        private final org.deeplearning4j.nn.api.Layer source;
+        private INDArray weights;
+        private INDArray bias;
+
+        protected FusedLayer(NeuralNetConfiguration conf, @NonNull org.deeplearning4j.nn.api.Layer source) {
+            this.conf = conf;
+            this.source = source;
+        }
+
+        /**
+         * This method folds batch norm statistics into weights and bias:
+         * W' = W * gamma / std, b' = (b - mean) * gamma / std + beta, per output channel
+         */
+        protected void foldBatchNorm(@NonNull org.deeplearning4j.nn.api.Layer batchNorm) {
+            BatchNormalization bnConf = (BatchNormalization) batchNorm.conf().getLayer();
+            FeedForwardLayer layerConf = (FeedForwardLayer) conf.getLayer();
+            int nOut = layerConf.getNOut();
+
+            if (weights == null) {
+                weights = source.getParam(DefaultParamInitializer.WEIGHT_KEY).dup('c');
+                INDArray b = source.getParam(DefaultParamInitializer.BIAS_KEY);
+                bias = b == null ? Nd4j.zeros(1, nOut) : b.dup();
+
+                // folded shift needs bias, even if original layer had none
+                if (layerConf instanceof ConvolutionLayer)
+                    ((ConvolutionLayer) layerConf).setHasBias(true);
+                else
+                    ((DenseLayer) layerConf).setHasBias(true);
+            }
+
+            INDArray mean = batchNorm.getParam(BatchNormalizationParamInitializer.GLOBAL_MEAN);
+            // global variance already includes epsilon, it's added to minibatch variance during training
+            INDArray std = Transforms.sqrt(batchNorm.getParam(BatchNormalizationParamInitializer.GLOBAL_VAR), true);
+
+            INDArray gamma;
+            INDArray beta;
+            if (bnConf.isLockGammaBeta()) {
+                // same as BatchNormalization layer: fixed gamma and beta are applied only if both differ from defaults
+                boolean apply = bnConf.getGamma() != 1.0 && bnConf.getBeta() != 0.0;
+                gamma = Nd4j.valueArrayOf(new int[] {1, nOut}, apply ? bnConf.getGamma() : 1.0);
+                beta = Nd4j.valueArrayOf(new int[] {1, nOut}, apply ? bnConf.getBeta() : 0.0);
+            } else {
+                gamma = batchNorm.getParam(BatchNormalizationParamInitializer.GAMMA);
+                beta = batchNorm.getParam(BatchNormalizationParamInitializer.BETA);
+            }
+
+            INDArray scale = gamma.div(std).reshape(1, nOut);
+            if (layerConf instanceof ConvolutionLayer) {
+                // [nOut, nIn, kH, kW]: scale is applied per output channel
+                int[] shape = weights.shape();
+                weights = weights.reshape('c', nOut, weights.length() / nOut)
+                                .mulColumnVector(scale.transpose()).reshape('c', shape);
+            } else {
+                // [nIn, nOut]
+                weights = weights.mulRowVector(scale);
+            }
+
+            bias = bias.sub(mean.reshape(1, nOut)).muli(scale).addi(beta.reshape(1, nOut));
+        }
+
+        protected void copyParams(@NonNull org.deeplearning4j.nn.api.Layer target) {
+            Map<String, INDArray> sourceParams = source.paramTable();
+            for (Map.Entry<String, INDArray> entry : target.paramTable().entrySet()) {
+                String key = entry.getKey();
+                if (weights != null && key.equals(DefaultParamInitializer.WEIGHT_KEY))
+                    entry.getValue().assign(weights);
+                else if (weights != null && key.equals(DefaultParamInitializer.BIAS_KEY))
+                    entry.getValue().assign(bias);
+                else
+                    entry.getValue().assign(sourceParams.get(key));
+            }
+        }
+    }
+}
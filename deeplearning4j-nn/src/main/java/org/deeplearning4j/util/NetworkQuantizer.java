@@ -0,0 +1,143 @@
+package org.deeplearning4j.util;
+
+import lombok.NonNull;
+import org.deeplearning4j.eval.Evaluation;
+import org.deeplearning4j.nn.api.Layer;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.graph.GraphVertex;
+import org.deeplearning4j.nn.conf.graph.LayerVertex;
+import org.deeplearning4j.nn.conf.layers.misc.QuantizedLayer;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.params.DefaultParamInitializer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import org.nd4j.linalg.factory.Nd4j;
+
+/**
+ * Post-training weight quantization for serving.
+ * Weights of DenseLayer, ConvolutionLayer and EmbeddingLayer layers are stored in INT8 (with per-channel scale) or
+ * FLOAT16 format, and dequantized on the fly during forward pass. All other layers and parameters are kept as is.
+ *
+ * PLEASE NOTE: quantized network is for inference only, and quantized weights aren't saved by ModelSerializer:
+ * save original network, and quantize it after restoring.
+ *
+ * @see QuantizedLayer
+ */
+public class NetworkQuantizer {
+
+    private NetworkQuantizer() {
+    }
+
+    /**
+     * This method returns quantized copy of the given network. Original network isn't modified
+     *
+     * @param net
+     * @param format
+     * @return
+     */
+    public static MultiLayerNetwork quantize(@NonNull MultiLayerNetwork net, @NonNull QuantizedLayer.Format format) {
+        MultiLayerConfiguration conf = net.getLayerWiseConfigurations().clone();
+        for (NeuralNetConfiguration layerConf : conf.getConfs())
+            wrap(layerConf, format);
+
+        MultiLayerNetwork result = new MultiLayerNetwork(conf);
+        result.init();
+        for (int i = 0; i < result.getnLayers(); i++)
+            copyParams(net.getLayer(i), result.getLayer(i));
+
+        return result;
+    }
+
+    /**
+     * This method returns quantized copy of the given graph. Original graph isn't modified
+     *
+     * @param net
+     * @param format
+     * @return
+     */
+    public static ComputationGraph quantize(@NonNull ComputationGraph net, @NonNull QuantizedLayer.Format format) {
+        ComputationGraphConfiguration conf = net.getConfiguration().clone();
+        for (GraphVertex vertex : conf.getVertices().values()) {
+            if (vertex instanceof LayerVertex)
+                wrap(((LayerVertex) vertex).getLayerConf(), format);
+        }
+
+        ComputationGraph result = new ComputationGraph(conf);
+        result.init();
+        for (Layer layer : result.getLayers())
+            copyParams(net.getLayer(layer.conf().getLayer().getLayerName()), layer);
+
+        return result;
+    }
+
+    /**
+     * This method evaluates original and quantized networks on the same data
+     *
+     * @param original
+     * @param quantized
+     * @param iterator
+     * @return
+     */
+    public static QuantizationReport compare(@NonNull MultiLayerNetwork original, @NonNull MultiLayerNetwork quantized,
+                    @NonNull DataSetIterator iterator) {
+        Evaluation before = original.evaluate(iterator);
+        Evaluation after = quantized.evaluate(iterator);
+        return new QuantizationReport(before, after, parameterBytes(original.getLayers()),
+                        parameterBytes(quantized.getLayers()));
+    }
+
+    /**
+     * This method evaluates original and quantized graphs on the same data
+     *
+     * @param original
+     * @param quantized
+     * @param iterator
+     * @return
+     */
+    public static QuantizationReport compare(@NonNull ComputationGraph original, @NonNull ComputationGraph quantized,
+                    @NonNull DataSetIterator iterator) {
+        Evaluation before = original.evaluate(iterator);
+        Evaluation after = quantized.evaluate(iterator);
+        return new QuantizationReport(before, after, parameterBytes(original.getLayers()),
+                        parameterBytes(quantized.getLayers()));
+    }
+
+    /**
+     * This method returns number of bytes used by parameters of given layers, including quantized weights
+     *
+     * @param layers
+     * @return
+     */
+    public static long parameterBytes(@NonNull Layer[] layers) {
+        long bytes = 0;
+        for (Layer layer : layers) {
+            bytes += (long) layer.numParams() * Nd4j.sizeOfDataType();
+            if (layer instanceof org.deeplearning4j.nn.layers.QuantizedLayer
+                            && ((org.deeplearning4j.nn.layers.QuantizedLayer) layer).getWeights() != null)
+                bytes += ((org.deeplearning4j.nn.layers.QuantizedLayer) layer).getWeights().getMemoryBytes();
+        }
+
+        return bytes;
+    }
+
+    protected static void wrap(NeuralNetConfiguration conf, QuantizedLayer.Format format) {
+        if (QuantizedLayer.isSupported(conf.getLayer()))
+            conf.setLayer(new QuantizedLayer(conf.getLayer(), format));
+    }
+
+    protected static void copyParams(Layer source, Layer target) {
+        if (target instanceof org.deeplearning4j.nn.layers.QuantizedLayer) {
+            ((org.deeplearning4j.nn.layers.QuantizedLayer) target)
+                            .setWeights(source.getParam(DefaultParamInitializer.WEIGHT_KEY));
+
+            INDArray bias = source.getParam(DefaultParamInitializer.BIAS_KEY);
+            if (bias != null)
+                target.params().assign(bias);
+        } else if (target.numParams() > 0) {
+            target.params().assign(source.params());
+        }
+    }
+}
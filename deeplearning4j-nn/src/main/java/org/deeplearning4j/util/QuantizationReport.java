@@ -0,0 +1,56 @@
+package org.deeplearning4j.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.deeplearning4j.eval.Evaluation;
+
+/**
+ * Accuracy and memory comparison of original and quantized networks, produced by
+ * {@link NetworkQuantizer#compare(org.deeplearning4j.nn.multilayer.MultiLayerNetwork,
+ * org.deeplearning4j.nn.multilayer.MultiLayerNetwork, org.nd4j.linalg.dataset.api.iterator.DataSetIterator)}
+ */
+@Data
+@AllArgsConstructor
+public class QuantizationReport {
+    private Evaluation original;
+    private Evaluation quantized;
+    private long originalBytes;
+    private long quantizedBytes;
+
+    /**
+     * This method returns quantized parameters size, relative to original
+     *
+     * @return
+     */
+    public double getCompressionRatio() {
+        return originalBytes == 0 ? 1.0 : (double) quantizedBytes / originalBytes;
+    }
+
+    /**
+     * This method returns accuracy change caused by quantization
+     *
+     * @return
+     */
+    public double getAccuracyDelta() {
+        return quantized.accuracy() - original.accuracy();
+    }
+
+    public String stats() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("========================Quantization Report========================\n");
+        sb.append(String.format(" Parameters memory:  %d -> %d bytes (%.1f%%)%n", originalBytes, quantizedBytes,
+                        100.0 * getCompressionRatio()));
+        sb.append(String.format(" Accuracy:           %.4f -> %.4f (%+.4f)%n", original.accuracy(),
+                        quantized.accuracy(), getAccuracyDelta()));
+        sb.append(String.format(" Precision:          %.4f -> %.4f%n", original.precision(), quantized.precision()));
+        sb.append(String.format(" Recall:             %.4f -> %.4f%n", original.recall(), quantized.recall()));
+        sb.append(String.format(" F1 Score:           %.4f -> %.4f%n", original.f1(), quantized.f1()));
+        sb.append("===================================================================");
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return stats();
+    }
+}
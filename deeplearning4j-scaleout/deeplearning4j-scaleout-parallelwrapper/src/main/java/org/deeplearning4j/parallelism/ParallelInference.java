@@ -7,21 +7,36 @@ import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.graph.ComputationGraph;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.parallelism.inference.AdaptiveBatchPolicy;
 import org.deeplearning4j.parallelism.inference.InferenceMode;
 import org.deeplearning4j.parallelism.inference.InferenceObservable;
 import org.deeplearning4j.parallelism.inference.observers.BasicInferenceObservable;
 import org.deeplearning4j.parallelism.inference.observers.BasicInferenceObserver;
 import org.deeplearning4j.parallelism.inference.observers.BatchedInferenceObservable;
+import org.deeplearning4j.parallelism.inference.observers.FutureInferenceObserver;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.primitives.Pair;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Observer;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -34,11 +49,21 @@ import java.util.concurrent.atomic.AtomicLong;
 @Slf4j
 public class ParallelInference {
     private Model model;
+    private volatile ModelSlot modelSlot;
+    private volatile ModelSlot stagedSlot;
+    // version of the last activated model, versions are assigned under locker when model is switched on
+    private final AtomicLong modelVersion = new AtomicLong(0);
+    private boolean sharedParameters;
+    private List<INDArray[]> warmupBatches = Collections.emptyList();
+    private ExecutorService deployer;
     private long nanos;
     private int workers;
     private int batchLimit;
     private InferenceMode inferenceMode;
     private int queueLimit;
+    private long targetLatencyNanos;
+    private boolean coalesceInputs;
+    private int[] sequenceBuckets;
 
     // this queue
     private BlockingQueue<InferenceObservable> observables;
@@ -47,6 +72,7 @@ public class ParallelInference {
 
     private InferenceWorker[] zoo;
     private ObservablesProvider provider;
+    private AdaptiveBatchPolicy batchPolicy;
 
 
 
@@ -55,6 +81,9 @@ public class ParallelInference {
     public final static InferenceMode DEFAULT_INFERENCE_MODE = InferenceMode.BATCHED;
     public final static int DEFAULT_QUEUE_LIMIT = 64;
 
+    // how often idle workers check for staged and updated models
+    protected final static long WORKER_POLL_MILLIS = 100;
+
 
 
     protected ParallelInference() {
@@ -63,6 +92,10 @@ public class ParallelInference {
 
     protected void init() {
         observables = new LinkedBlockingQueue<>(queueLimit);
+        modelSlot = new ModelSlot(model, 0);
+
+        if (targetLatencyNanos > 0)
+            batchPolicy = new AdaptiveBatchPolicy(targetLatencyNanos, batchLimit, workers);
 
         int numDevices = Nd4j.getAffinityManager().getNumberOfDevices();
         int currentDevice = Nd4j.getAffinityManager().getDeviceForCurrentThread();
@@ -74,7 +107,7 @@ public class ParallelInference {
             boolean cRoot = !assignedRoot.get() && cDevice == currentDevice;
             assignedRoot.compareAndSet(false, cRoot);
 
-            zoo[i] = new InferenceWorker(i, model, observables, cRoot);
+            zoo[i] = new InferenceWorker(i, observables, cRoot, batchPolicy);
 
             Nd4j.getAffinityManager().attachThreadToDevice(zoo[i], cDevice);
             zoo[i].setDaemon(true);
@@ -84,7 +117,8 @@ public class ParallelInference {
 
         if (inferenceMode == InferenceMode.BATCHED) {
             log.info("Initializing ObservablesProvider...");
-            provider = new ObservablesProvider(nanos, batchLimit, observables);
+            provider = new ObservablesProvider(nanos, batchLimit, observables, batchPolicy, coalesceInputs,
+                            sequenceBuckets);
         }
     }
 
@@ -92,6 +126,172 @@ public class ParallelInference {
         return zoo[workerIdx].getCounterValue();
     }
 
+    protected void shutdownWorker(int workerIdx) {
+        zoo[workerIdx].shutdown();
+    }
+
+    /**
+     * This method replaces model used for inference.
+     *
+     * Requests that are already being processed are finished with the previous model, and each worker switches
+     * to the new model before its next request. Previous model (or its shared parameters) is released once
+     * all workers have switched.
+     *
+     * PLEASE NOTE: in shared parameters mode, parameters of the given model are used as is, so the model
+     * shouldn't be modified (i.e. trained) while it's being served
+     *
+     * @param model
+     */
+    public void updateModel(@NonNull Model model) {
+        synchronized (locker) {
+            this.model = model;
+            this.modelSlot = new ModelSlot(model, modelVersion.incrementAndGet());
+        }
+    }
+
+    /**
+     * This method deploys new model version without interrupting inference, using warm-up batches defined in Builder
+     *
+     * @param model
+     * @return future completed with version of the deployed model, once previous version is released
+     */
+    public CompletableFuture<Long> deployModel(@NonNull Model model) {
+        return deployModel(model, warmupBatches);
+    }
+
+    /**
+     * This method deploys new model version without interrupting inference:
+     * 1) Each worker creates its own instance of the new model, and runs warm-up batches through it, so workspaces
+     *    get allocated. This happens in background, between requests, so requests are served by the current model
+     *    meanwhile.
+     * 2) Once all workers are ready, all new requests are atomically switched to the new model.
+     * 3) Requests in progress are finished by the previous model, and after that it's released.
+     *
+     * PLEASE NOTE: deployments are executed one by one, in order of calls
+     *
+     * @param model
+     * @param warmupBatches inputs to run through the new model before it's switched on, i.e. batches of typical shapes.
+     *                      May be empty
+     * @return future completed with version of the deployed model, once previous version is released, or
+     * exceptionally if new model failed to warm up. Current model is kept in latter case
+     */
+    public CompletableFuture<Long> deployModel(@NonNull final Model model, @NonNull final List<INDArray[]> warmupBatches) {
+        final CompletableFuture<Long> future = new CompletableFuture<>();
+        final int deviceId = Nd4j.getAffinityManager().getDeviceForCurrentThread();
+
+        synchronized (locker) {
+            if (deployer == null) {
+                deployer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "ModelDeployer");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            }
+        }
+
+        deployer.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    // new slot should be created on the same device as the model itself
+                    Nd4j.getAffinityManager().unsafeSetDevice(deviceId);
+
+                    // version is assigned once the slot is switched on, so concurrent updateModel() calls and failed
+                    // deployments never produce duplicate or skipped versions
+                    ModelSlot staged = new ModelSlot(model, -1, workers, warmupBatches);
+                    stagedSlot = staged;
+                    Exception failure = awaitPrepared(staged);
+                    if (failure != null) {
+                        stagedSlot = null;
+                        future.completeExceptionally(failure);
+                        return;
+                    }
+
+                    ModelSlot previous;
+                    synchronized (locker) {
+                        previous = modelSlot;
+                        staged.setVersion(modelVersion.incrementAndGet());
+                        ParallelInference.this.model = model;
+                        modelSlot = staged;
+                        stagedSlot = null;
+                    }
+                    log.info("Model version {} is active", staged.getVersion());
+
+                    awaitDrained(previous);
+                    previous.release();
+                    future.complete(staged.getVersion());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    future.completeExceptionally(e);
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * This method blocks until all running workers have prepared the staged slot. Workers prepare slots only while
+     * they're running, so stopped workers are skipped.
+     *
+     * @return exception thrown by any worker during preparation, or null
+     */
+    protected Exception awaitPrepared(@NonNull ModelSlot staged) throws InterruptedException {
+        while (!staged.awaitPrepared(WORKER_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            boolean anyAlive = false;
+            for (InferenceWorker worker : zoo) {
+                if (worker.isAlive())
+                    anyAlive = true;
+                else
+                    staged.markPrepared(worker);
+            }
+
+            if (!anyAlive)
+                return new IllegalStateException("All inference workers have stopped, model can't be deployed");
+        }
+
+        return staged.getFailure();
+    }
+
+    /**
+     * This method blocks until no worker uses given slot. Workers release their slot when they stop,
+     * so waiting also stops once all workers have stopped
+     */
+    protected void awaitDrained(@NonNull ModelSlot slot) throws InterruptedException {
+        while (!slot.awaitDrained(WORKER_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            boolean anyAlive = false;
+            for (InferenceWorker worker : zoo)
+                anyAlive |= worker.isAlive();
+
+            if (!anyAlive)
+                return;
+        }
+    }
+
+    /**
+     * This method returns current model version, that is incremented on every updateModel() or successful
+     * deployModel() call
+     *
+     * @return
+     */
+    public long getModelVersion() {
+        return modelSlot.getVersion();
+    }
+
+    /**
+     * This method returns adaptive batch policy used by this instance, or null if no latency target was set
+     *
+     * @return
+     */
+    public AdaptiveBatchPolicy getBatchPolicy() {
+        return batchPolicy;
+    }
+
     /**
      *
      * @param input
@@ -156,20 +356,7 @@ public class ParallelInference {
         // basically, depending on model type we either throw stuff to specific model, or wait for batch
 
         BasicInferenceObserver observer = new BasicInferenceObserver();
-        InferenceObservable observable;
-
-        if (inferenceMode == InferenceMode.SEQUENTIAL) {
-            observable = new BasicInferenceObservable(input, inputMasks);
-            observable.addObserver(observer);
-            try {
-                observables.put(observable);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new RuntimeException(e);
-            }
-        } else {
-            observable = provider.setInput(observer, input, inputMasks);
-        }
+        InferenceObservable observable = submit(observer, input, inputMasks);
 
         try {
             // submit query to processing
@@ -184,6 +371,74 @@ public class ParallelInference {
         return observable.getOutput();
     }
 
+    /**
+     * Generate predictions/output from the network without blocking caller thread
+     *
+     * @param input Input to the network
+     * @return Future that will be completed with output from the network
+     */
+    public CompletableFuture<INDArray[]> outputAsync(INDArray... input) {
+        return outputAsync(input, null);
+    }
+
+    /**
+     * Generate predictions/outputs from the network without blocking caller thread, optionally using input masks.
+     *
+     * PLEASE NOTE: Returned future is completed from inference thread, so any heavy processing attached to it should
+     * be moved to another executor, i.e. via thenApplyAsync()
+     * PLEASE NOTE: This method may still block if internal queue is full, see Builder.queueLimit()
+     *
+     * @param input      Input to the network
+     * @param inputMasks Input masks for the network. May be null.
+     * @return Future that will be completed with output from the network, or exceptionally if inference failed
+     */
+    public CompletableFuture<INDArray[]> outputAsync(INDArray[] input, INDArray[] inputMasks) {
+        FutureInferenceObserver observer = new FutureInferenceObserver();
+        try {
+            InferenceObservable observable = submit(observer, input, inputMasks);
+
+            if (observable instanceof BatchedInferenceObservable)
+                observer.setPosition(((BatchedInferenceObservable) observable).getPosition());
+            else
+                observer.setPosition(0);
+        } catch (Exception e) {
+            observer.getFuture().completeExceptionally(e);
+        }
+
+        return observer.getFuture();
+    }
+
+    protected InferenceObservable submit(@NonNull Observer observer, INDArray[] input, INDArray[] inputMasks) {
+        int numExamples = input[0].size(0);
+        if (batchPolicy != null && !batchPolicy.tryAdmit(numExamples))
+            throw new RejectedExecutionException("Request rejected: projected latency exceeds target of "
+                            + TimeUnit.NANOSECONDS.toMillis(targetLatencyNanos) + " ms");
+
+        InferenceObservable observable;
+        try {
+            if (inferenceMode == InferenceMode.SEQUENTIAL) {
+                observable = new BasicInferenceObservable(input, inputMasks);
+                observable.addObserver(observer);
+                try {
+                    observables.put(observable);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+            } else {
+                observable = provider.setInput(observer, input, inputMasks);
+            }
+        } catch (RuntimeException e) {
+            // request never reached workers, so its examples will never be recorded as processed
+            if (batchPolicy != null)
+                batchPolicy.release(numExamples);
+
+            throw e;
+        }
+
+        return observable;
+    }
+
 
     public static class Builder {
         private Model model;
@@ -191,6 +446,11 @@ public class ParallelInference {
         private int batchLimit = DEFAULT_BATCH_LIMIT;
         private InferenceMode inferenceMode = DEFAULT_INFERENCE_MODE;
         private int queueLimit = DEFAULT_QUEUE_LIMIT;
+        private long targetLatencyNanos = 0;
+        private boolean coalesceInputs = false;
+        private int[] sequenceBuckets;
+        private boolean sharedParameters = false;
+        private List<INDArray[]> warmupBatches = Collections.emptyList();
 
         public Builder(@NonNull Model model) {
             this.model = model;
@@ -264,6 +524,107 @@ public class ParallelInference {
             return this;
         }
 
+        /**
+         * This method enables adaptive batching with a latency target.
+         *
+         * Batch size is adjusted between 1 and batchLimit, based on observed batch latency,
+         * so that p99 latency stays within given target. Requests that can't be served within
+         * target due to queue length will be rejected with RejectedExecutionException.
+         *
+         * Default value: 0, which means fixed batchLimit is used and requests are never rejected
+         *
+         * @param latency
+         * @param timeUnit
+         * @return
+         */
+        public Builder targetLatency(long latency, @NonNull TimeUnit timeUnit) {
+            if (latency < 0)
+                throw new IllegalStateException("Target latency can't be negative value");
+
+            this.targetLatencyNanos = timeUnit.toNanos(latency);
+            return this;
+        }
+
+        /**
+         * This method enables coalescing of identical inputs: if the same input (and input mask) is submitted
+         * while previous one is still waiting within the current batch, it won't be added to the batch again, and
+         * both requests will share the same output arrays.
+         *
+         * PLEASE NOTE: This value has no effect in SEQUENTIAL inference mode
+         * PLEASE NOTE: Shared output arrays should be treated as read-only by callers
+         *
+         * Default value: false
+         *
+         * @param reallyCoalesce
+         * @return
+         */
+        public Builder coalesceInputs(boolean reallyCoalesce) {
+            this.coalesceInputs = reallyCoalesce;
+            return this;
+        }
+
+        /**
+         * This method enables bucketing of time series inputs by length. Time series within the same bucket are
+         * padded to the longest one, and batched together with masks, while time series from different buckets
+         * are never batched together. So padding overhead is bounded by bucket width.
+         *
+         * I.e. boundaries {16, 64, 256} give buckets for lengths [1..16], [17..64], [65..256] and [257..]
+         *
+         * PLEASE NOTE: This value has no effect in SEQUENTIAL inference mode
+         * PLEASE NOTE: Model must support masking for padded time steps, i.e. recurrent or global pooling layers
+         *
+         * Default value: null, which means only inputs of exactly the same shape are batched together
+         *
+         * @param boundaries sorted upper (inclusive) length boundaries of buckets
+         * @return
+         */
+        public Builder sequenceBuckets(@NonNull int... boundaries) {
+            if (boundaries.length < 1)
+                throw new IllegalStateException("At least one bucket boundary should be defined");
+
+            for (int i = 0; i < boundaries.length; i++) {
+                if (boundaries[i] < 1 || (i > 0 && boundaries[i] <= boundaries[i - 1]))
+                    throw new IllegalStateException("Bucket boundaries should be positive and sorted in ascending order");
+            }
+
+            this.sequenceBuckets = boundaries;
+            return this;
+        }
+
+        /**
+         * This method enables sharing of parameters between workers: instead of holding its own copy of the
+         * model parameters, each worker creates lightweight model instance that uses the same flattened parameters
+         * buffer (one buffer per device), and keeps only its own activation workspaces.
+         * So memory used by parameters doesn't grow with number of workers.
+         *
+         * PLEASE NOTE: parameters are used read-only by workers, so model shouldn't be trained while being served.
+         * Use updateModel() to replace parameters safely.
+         *
+         * Default value: false
+         *
+         * @param reallyShare
+         * @return
+         */
+        public Builder sharedParameters(boolean reallyShare) {
+            this.sharedParameters = reallyShare;
+            return this;
+        }
+
+        /**
+         * This method defines inputs that are run through a new model by each worker during deployModel(), before
+         * requests are switched to the new model. Typically these are batches of the most common shapes, so
+         * workspaces are allocated before first real request.
+         *
+         * Default value: empty, which means new model isn't warmed up
+         *
+         * @param batches
+         * @return
+         */
+        public Builder warmupBatches(@NonNull List<INDArray[]> batches) {
+            this.warmupBatches = batches;
+            return this;
+        }
+
         /**
          * This method builds new ParallelInference instance
          *
@@ -276,6 +637,11 @@ public class ParallelInference {
             inference.inferenceMode = this.inferenceMode;
             inference.model = this.model;
             inference.workers = this.workers;
+            inference.targetLatencyNanos = this.targetLatencyNanos;
+            inference.coalesceInputs = this.coalesceInputs;
+            inference.sequenceBuckets = this.sequenceBuckets;
+            inference.sharedParameters = this.sharedParameters;
+            inference.warmupBatches = this.warmupBatches;
 
             inference.init();
 
@@ -292,15 +658,22 @@ public class ParallelInference {
         private BlockingQueue<InferenceObservable> inputQueue;
         private AtomicBoolean shouldWork = new AtomicBoolean(true);
         private AtomicBoolean isStopped = new AtomicBoolean(false);
-        private Model protoModel;
+        private ModelSlot slot;
         private Model replicatedModel;
+        // model prepared in advance for the staged slot, used once that slot becomes active
+        private ModelSlot preparedSlot;
+        private Model preparedModel;
+        // last staged slot this worker has tried to prepare, successfully or not: each slot is prepared only once
+        private ModelSlot attemptedSlot;
         private AtomicLong counter = new AtomicLong(0);
         private boolean rootDevice;
+        private AdaptiveBatchPolicy batchPolicy;
 
-        private InferenceWorker(int id, @NonNull Model model, @NonNull BlockingQueue inputQueue, boolean rootDevice) {
+        private InferenceWorker(int id, @NonNull BlockingQueue inputQueue, boolean rootDevice,
+                        AdaptiveBatchPolicy batchPolicy) {
             this.inputQueue = inputQueue;
-            this.protoModel = model;
             this.rootDevice = rootDevice;
+            this.batchPolicy = batchPolicy;
 
             this.setDaemon(true);
             this.setName("InferenceThread-" + id);
@@ -315,71 +688,47 @@ public class ParallelInference {
         public void run() {
             try {
                 // model should be replicated & initialized here
-                if (protoModel instanceof ComputationGraph) {
-                    if (!rootDevice) {
-                        this.replicatedModel = new ComputationGraph(ComputationGraphConfiguration
-                                        .fromJson(((ComputationGraph) protoModel).getConfiguration().toJson()));
-                        this.replicatedModel.init();
-
-                        synchronized (locker) {
-                            this.replicatedModel.setParams(protoModel.params().unsafeDuplication(true));
-
-                            Nd4j.getExecutioner().commit();
-                        }
-                    } else {
-                        this.replicatedModel = protoModel;
-                    }
-                } else if (protoModel instanceof MultiLayerNetwork) {
-                    if (!rootDevice) {
-                        this.replicatedModel = new MultiLayerNetwork(MultiLayerConfiguration.fromJson(
-                                        ((MultiLayerNetwork) protoModel).getLayerWiseConfigurations().toJson()));
-                        this.replicatedModel.init();
-
-                        synchronized (locker) {
-                            this.replicatedModel.setParams(protoModel.params().unsafeDuplication(true));
-
-                            Nd4j.getExecutioner().commit();
-                        }
-                    } else {
-                        this.replicatedModel = protoModel;
-                    }
-                }
+                switchTo(modelSlot);
 
                 while (shouldWork.get()) {
-                    InferenceObservable request = inputQueue.take();
+                    // new model could be staged for deployment: it's prepared by this thread, so workspaces get
+                    // allocated for this thread, but only between requests
+                    ModelSlot staged = stagedSlot;
+                    if (staged != null && staged != attemptedSlot && staged != slot)
+                        prepare(staged);
+                    else if (staged == null && preparedSlot != null && preparedSlot != modelSlot)
+                        dropPrepared();
+
+                    // poll instead of take, so idle workers still notice staged and updated models
+                    InferenceObservable request = inputQueue.poll(WORKER_POLL_MILLIS, TimeUnit.MILLISECONDS);
+
+                    // model could be updated since last request
+                    ModelSlot current = modelSlot;
+                    if (current != slot)
+                        switchTo(current);
 
                     if (request != null) {
                         counter.incrementAndGet();
+                        long timeStart = System.nanoTime();
+                        List<Pair<INDArray[],INDArray[]>> batches = request.getInputBatches();
 
-                        // FIXME: get rid of instanceof here, model won't change during runtime anyway
-                        if (replicatedModel instanceof ComputationGraph) {
-                            List<Pair<INDArray[],INDArray[]>> batches = request.getInputBatches();
-                            List<INDArray[]> out = new ArrayList<>(batches.size());
-                            try {
-                                for (Pair<INDArray[],INDArray[]> inBatch : batches) {
-                                    INDArray[] output = ((ComputationGraph) replicatedModel).output(false, inBatch.getFirst(), inBatch.getSecond());
-                                    out.add(output);
-                                }
-                                request.setOutputBatches(out);
-                            } catch (Exception e){
-                                request.setOutputException(e);
-                            }
-                        } else if (replicatedModel instanceof MultiLayerNetwork) {
-                            List<Pair<INDArray[],INDArray[]>> batches = request.getInputBatches();
-                            List<INDArray[]> out = new ArrayList<>(batches.size());
-                            try {
-                                for (Pair<INDArray[],INDArray[]> inBatch : batches) {
-                                    INDArray f = inBatch.getFirst()[0];
-                                    INDArray fm = (inBatch.getSecond() == null ? null : inBatch.getSecond()[0]);
-                                    INDArray output = ((MultiLayerNetwork) replicatedModel).output(f, false, fm, null);
-                                    out.add(new INDArray[]{output});
-                                }
-                                request.setOutputBatches(out);
-                            } catch (Exception e){
-                                request.setOutputException(e);
-                            }
+                        List<INDArray[]> out = new ArrayList<>(batches.size());
+                        try {
+                            for (Pair<INDArray[],INDArray[]> inBatch : batches)
+                                out.add(output(replicatedModel, inBatch.getFirst(), inBatch.getSecond()));
+
+                            request.setOutputBatches(out);
+                        } catch (Exception e){
+                            request.setOutputException(e);
                         }
 
+                        if (batchPolicy != null) {
+                            int numExamples = 0;
+                            for (Pair<INDArray[],INDArray[]> inBatch : batches)
+                                numExamples += inBatch.getFirst()[0].size(0);
+
+                            batchPolicy.recordBatch(numExamples, System.nanoTime() - timeStart);
+                        }
 
                     } else {
                         // just do nothing, i guess and hope for next round?
@@ -390,8 +739,108 @@ public class ParallelInference {
                 // do nothing
             } catch (Exception e) {
                 throw new RuntimeException(e);
+            } finally {
+                // slot is released however worker stops, otherwise deployment would wait for it forever
+                if (slot != null)
+                    slot.detach();
+                this.slot = null;
+                this.replicatedModel = null;
+                dropPrepared();
+                isStopped.set(true);
+            }
+        }
+
+        /**
+         * This method creates model for the staged slot, and runs warm-up batches through it
+         */
+        protected void prepare(@NonNull ModelSlot staged) {
+            this.attemptedSlot = staged;
+            try {
+                Model model = createModel(staged);
+                for (INDArray[] batch : staged.getWarmupBatches())
+                    output(model, batch, null);
+
+                Nd4j.getExecutioner().commit();
+
+                this.preparedModel = model;
+                this.preparedSlot = staged;
+            } catch (Exception e) {
+                staged.fail(e);
+            } finally {
+                staged.markPrepared(this);
+            }
+        }
+
+        /**
+         * This method releases model prepared for a deployment that has failed
+         */
+        protected void dropPrepared() {
+            this.preparedSlot = null;
+            this.preparedModel = null;
+        }
+
+        /**
+         * This method switches worker to the given slot, and releases its previous model
+         */
+        protected void switchTo(@NonNull ModelSlot target) {
+            Model model = target == preparedSlot ? preparedModel : createModel(target);
+            this.preparedSlot = null;
+            this.preparedModel = null;
+
+            ModelSlot previous = this.slot;
+            this.replicatedModel = model;
+            this.slot = target;
+
+            target.attach();
+            if (previous != null)
+                previous.detach();
+        }
+
+        /**
+         * This method creates worker's own instance of the model from given slot
+         */
+        protected Model createModel(@NonNull ModelSlot slot) {
+            Model protoModel = slot.getModel();
+
+            if (rootDevice) {
+                // root worker uses original model, it's located on the same device anyway
+                return protoModel;
+            }
+
+            // either shared read-only parameters, or worker's own copy. In both cases parameters aren't copied on init
+            INDArray params;
+            if (sharedParameters) {
+                params = slot.getParameters(Nd4j.getAffinityManager().getDeviceForCurrentThread());
+            } else {
+                synchronized (locker) {
+                    params = protoModel.params().unsafeDuplication(true);
+
+                    Nd4j.getExecutioner().commit();
+                }
+            }
+
+            if (protoModel instanceof ComputationGraph) {
+                ComputationGraph graph = new ComputationGraph(ComputationGraphConfiguration
+                                .fromJson(((ComputationGraph) protoModel).getConfiguration().toJson()));
+                graph.init(params, false);
+                return graph;
+            } else if (protoModel instanceof MultiLayerNetwork) {
+                MultiLayerNetwork network = new MultiLayerNetwork(MultiLayerConfiguration.fromJson(
+                                ((MultiLayerNetwork) protoModel).getLayerWiseConfigurations().toJson()));
+                network.init(params, false);
+                return network;
+            }
+
+            throw new IllegalStateException("Unsupported model type: " + protoModel.getClass().getSimpleName());
+        }
+
+        protected INDArray[] output(Model model, INDArray[] input, INDArray[] inputMasks) {
+            if (model instanceof ComputationGraph) {
+                return ((ComputationGraph) model).output(false, input, inputMasks);
+            } else {
+                INDArray fm = (inputMasks == null ? null : inputMasks[0]);
+                return new INDArray[] {((MultiLayerNetwork) model).output(input[0], false, fm, null)};
             }
-            isStopped.set(true);
         }
 
         protected void shutdown() {
@@ -403,18 +852,161 @@ public class ParallelInference {
     }
 
 
+    /**
+     * Model published to workers, along with its version. Workers compare slots before each request, so replacement
+     * of the slot never affects requests that are already in progress.
+     */
+    protected static class ModelSlot {
+        private Model model;
+        private volatile long version;
+        private final int modelDevice;
+        private final List<INDArray[]> warmupBatches;
+        // shared parameters for devices other than the one model is located on
+        private final Map<Integer, INDArray> deviceParameters = new HashMap<>();
+
+        private final CountDownLatch prepared;
+        // workers that have prepared this slot, or were skipped as stopped: each one is counted only once
+        private final Set<Object> preparedBy = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+        private volatile Exception failure;
+        // number of workers that currently use this slot
+        private int users = 0;
+
+        protected ModelSlot(@NonNull Model model, long version) {
+            this(model, version, 0, Collections.<INDArray[]>emptyList());
+        }
+
+        protected ModelSlot(@NonNull Model model, long version, int workers, @NonNull List<INDArray[]> warmupBatches) {
+            this.model = model;
+            this.version = version;
+            this.warmupBatches = warmupBatches;
+            this.prepared = new CountDownLatch(workers);
+            this.modelDevice = Nd4j.getAffinityManager().getDeviceForCurrentThread();
+        }
+
+        protected Model getModel() {
+            return model;
+        }
+
+        protected long getVersion() {
+            return version;
+        }
+
+        protected void setVersion(long version) {
+            this.version = version;
+        }
+
+        protected List<INDArray[]> getWarmupBatches() {
+            return warmupBatches;
+        }
+
+        /**
+         * This method returns read-only parameters buffer shared by all workers on the given device.
+         * Should be called from a thread attached to that device
+         */
+        protected INDArray getParameters(int deviceId) {
+            if (deviceId == modelDevice)
+                return model.params();
+
+            synchronized (deviceParameters) {
+                INDArray params = deviceParameters.get(deviceId);
+                if (params == null) {
+                    params = model.params().unsafeDuplication(true);
+                    Nd4j.getExecutioner().commit();
+                    deviceParameters.put(deviceId, params);
+                }
+                return params;
+            }
+        }
+
+        protected void fail(Exception e) {
+            this.failure = e;
+        }
+
+        protected void markPrepared(@NonNull Object worker) {
+            if (preparedBy.add(worker))
+                prepared.countDown();
+        }
+
+        /**
+         * This method blocks until all workers have prepared this slot, or until timeout
+         *
+         * @return true if all workers have prepared this slot, false if timeout has elapsed
+         */
+        protected boolean awaitPrepared(long timeout, @NonNull TimeUnit timeUnit) throws InterruptedException {
+            return prepared.await(timeout, timeUnit);
+        }
+
+        /**
+         * @return exception thrown by any worker during preparation, or null
+         */
+        protected Exception getFailure() {
+            return failure;
+        }
+
+        protected synchronized void attach() {
+            users++;
+        }
+
+        protected synchronized void detach() {
+            users--;
+            if (users == 0)
+                notifyAll();
+        }
+
+        /**
+         * This method blocks until no worker uses this slot, i.e. all in-flight requests are finished, or until timeout
+         *
+         * @return true if no worker uses this slot, false if timeout has elapsed
+         */
+        protected synchronized boolean awaitDrained(long timeout, @NonNull TimeUnit timeUnit)
+                        throws InterruptedException {
+            long deadline = System.nanoTime() + timeUnit.toNanos(timeout);
+            long left;
+            while (users > 0 && (left = deadline - System.nanoTime()) > 0)
+                TimeUnit.NANOSECONDS.timedWait(this, left);
+
+            return users == 0;
+        }
+
+        /**
+         * This method releases references to the model and its shared parameters
+         */
+        protected synchronized void release() {
+            deviceParameters.clear();
+            model = null;
+        }
+    }
+
+
     protected static class ObservablesProvider {
         private BlockingQueue<InferenceObservable> targetQueue;
         private long nanos;
         private int batchLimit;
+        private AdaptiveBatchPolicy batchPolicy;
+        private boolean coalesceInputs;
+        private int[] sequenceBuckets;
 
         private volatile BatchedInferenceObservable currentObservable;
+        private final Map<InputKey, Integer> currentPositions = new HashMap<>();
         private final Object locker = new Object();
 
         protected ObservablesProvider(long nanos, int batchLimit, @NonNull BlockingQueue<InferenceObservable> queue) {
+            this(nanos, batchLimit, queue, null, false);
+        }
+
+        protected ObservablesProvider(long nanos, int batchLimit, @NonNull BlockingQueue<InferenceObservable> queue,
+                        AdaptiveBatchPolicy batchPolicy, boolean coalesceInputs) {
+            this(nanos, batchLimit, queue, batchPolicy, coalesceInputs, null);
+        }
+
+        protected ObservablesProvider(long nanos, int batchLimit, @NonNull BlockingQueue<InferenceObservable> queue,
+                        AdaptiveBatchPolicy batchPolicy, boolean coalesceInputs, int[] sequenceBuckets) {
             this.targetQueue = queue;
             this.nanos = nanos;
             this.batchLimit = batchLimit;
+            this.batchPolicy = batchPolicy;
+            this.coalesceInputs = coalesceInputs;
+            this.sequenceBuckets = sequenceBuckets;
         }
 
         protected InferenceObservable setInput(@NonNull Observer observer, INDArray input){
@@ -428,15 +1020,31 @@ public class ParallelInference {
         protected InferenceObservable setInput(@NonNull Observer observer, INDArray[] input, INDArray[] inputMask) {
             synchronized (locker) {
                 boolean isNew = false;
-                if (currentObservable == null || currentObservable.getCounter() >= batchLimit
+                if (currentObservable == null || isFull(currentObservable, input[0].size(0))
                                 || currentObservable.isLocked()) {
                     isNew = true;
-                    currentObservable = new BatchedInferenceObservable();
+                    currentObservable = sequenceBuckets == null ? new BatchedInferenceObservable()
+                                    : new BatchedInferenceObservable(sequenceBuckets);
+                    currentPositions.clear();
                 }
 
-                currentObservable.addInput(input, inputMask);
+                // observer goes first: once input is added, batch may be picked up and processed at any moment
                 currentObservable.addObserver(observer);
 
+                InputKey key = coalesceInputs ? new InputKey(input, inputMask) : null;
+                Integer existing = key == null ? null : currentPositions.get(key);
+                if (existing != null) {
+                    currentObservable.reuseInput(existing);
+
+                    if (batchPolicy != null)
+                        batchPolicy.release(input[0].size(0));
+                } else {
+                    currentObservable.addInput(input, inputMask);
+
+                    if (key != null)
+                        currentPositions.put(key, currentObservable.getPosition());
+                }
+
                 try {
                     if (isNew)
                         targetQueue.put(currentObservable);
@@ -448,5 +1056,94 @@ public class ParallelInference {
                 return currentObservable;
             }
         }
+
+        /**
+         * This method checks if given input can't be added to the batch anymore.
+         * Fixed batchLimit is number of requests, while adaptive limit is number of examples
+         */
+        private boolean isFull(BatchedInferenceObservable observable, int numExamples) {
+            if (batchPolicy == null)
+                return observable.getCounter() >= batchLimit;
+
+            int batched = observable.getNumExamples();
+            return batched > 0 && batched + numExamples > batchPolicy.getBatchLimit();
+        }
+    }
+    /**
+     * Key used for coalescing of identical inputs within the same batch
+     */
+    private static class InputKey {
+        // number of elements of each array used for hash
+        private static final int HASH_SAMPLES = 8;
+
+        private final INDArray[] input;
+        private final INDArray[] inputMask;
+        private final int hash;
+
+        private InputKey(INDArray[] input, INDArray[] inputMask) {
+            this.input = input;
+            this.inputMask = inputMask;
+
+            // cheap hash: shapes plus few evenly spaced elements, so it's O(1) per request regardless of input size.
+            // actual comparison of contents happens in equals(), only if hashes match
+            int h = 1;
+            for (INDArray array : input) {
+                h = 31 * h + Arrays.hashCode(array.shape());
+
+                int length = array.length();
+                int samples = Math.min(HASH_SAMPLES, length);
+                for (int i = 0; i < samples; i++) {
+                    int idx = samples == 1 ? 0 : (int) (i * (long) (length - 1) / (samples - 1));
+                    h = 31 * h + Double.valueOf(array.getDouble(idx)).hashCode();
+                }
+            }
+            this.hash = 31 * h + (inputMask == null ? 0 : inputMask.length);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof InputKey))
+                return false;
+
+            InputKey other = (InputKey) o;
+            return hash == other.hash && sameContents(input, other.input) && sameContents(inputMask, other.inputMask);
+        }
+
+        private static boolean sameContents(INDArray[] first, INDArray[] second) {
+            if (first == second)
+                return true;
+            if (first == null || second == null || first.length != second.length)
+                return false;
+
+            for (int i = 0; i < first.length; i++) {
+                // the same array submitted twice doesn't need element-wise comparison
+                if (first[i] == second[i])
+                    continue;
+                if (first[i] == null || second[i] == null || !Arrays.equals(first[i].shape(), second[i].shape())
+                                || !sameElements(first[i], second[i]))
+                    return false;
+            }
+            return true;
+        }
+
+        /**
+         * Exact element-wise comparison. INDArray.equals() uses eps, so inputs that differ slightly
+         * would be coalesced, and one caller would get output computed for another one's input
+         */
+        private static boolean sameElements(INDArray first, INDArray second) {
+            int length = first.length();
+            for (int i = 0; i < length; i++) {
+                if (Double.compare(first.getDouble(i), second.getDouble(i)) != 0)
+                    return false;
+            }
+            return true;
+        }
     }
 }
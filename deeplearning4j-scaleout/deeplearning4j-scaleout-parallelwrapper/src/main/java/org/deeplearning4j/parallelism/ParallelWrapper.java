@@ -23,6 +23,7 @@ import org.deeplearning4j.optimize.solvers.accumulation.EncodedGradientsAccumula
 import org.deeplearning4j.optimize.solvers.accumulation.GradientsAccumulator;
 import org.deeplearning4j.optimize.solvers.accumulation.Registerable;
 import org.deeplearning4j.parallelism.factory.DefaultTrainerContext;
+import org.deeplearning4j.parallelism.factory.HogwildTrainerContext;
 import org.deeplearning4j.parallelism.factory.SymmetricTrainerContext;
 import org.deeplearning4j.parallelism.factory.TrainerContext;
 import org.deeplearning4j.parallelism.trainer.Trainer;
@@ -71,6 +72,11 @@ public class ParallelWrapper implements AutoCloseable {
          * This option assumes use of GradientsAccumulator with any MessageHandler
          */
         CUSTOM,
+
+        /**
+         * Lock-free training (Hogwild!): all models share params & updater state, and apply updates without any synchronization
+         */
+        HOGWILD,
     }
 
     protected final String uuid = java.util.UUID.randomUUID().toString();
@@ -771,6 +777,7 @@ public class ParallelWrapper implements AutoCloseable {
          *  1) AVERAGING - stands for parameters averaging. Each X epochs weights and updaters state will be averaged across all models
          *  2) SHARED_GRADIENTS - stands for gradients sharing - more details available here: https://deeplearning4j.org/distributed
          *  3) CUSTOM - this method allows you to specify custom gradients accumulator, this giving you better control of configuration params for training.
+         *  4) HOGWILD - stands for lock-free training: all workers apply updates directly to shared params, without averaging or barriers. Single device only.
          *
          * @param mode
          * @return
@@ -842,6 +849,16 @@ public class ParallelWrapper implements AutoCloseable {
                                         "Please specify GradientsAccumulator fo encoded gradients mode");
                 }
                     break;
+                case HOGWILD: {
+                    if (Nd4j.getAffinityManager().getNumberOfDevices() > 1)
+                        throw new DL4JInvalidConfigException(
+                                        "HOGWILD training mode requires shared memory, and isn't supported for multiple devices");
+
+                    this.trainerContext = new HogwildTrainerContext();
+                    this.accumulator = null;
+                    log.info("Creating new HogwildTraining instance");
+                }
+                    break;
                 default:
                     throw new UnsupportedOperationException("Unknown trainingMode: [" + trainingMode + "]");
             }
@@ -0,0 +1,96 @@
+package org.deeplearning4j.parallelism.factory;
+
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.nn.api.Model;
+import org.deeplearning4j.nn.conf.WorkspaceMode;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.optimize.api.TrainingListener;
+import org.deeplearning4j.parallelism.ParallelWrapper;
+import org.deeplearning4j.parallelism.trainer.HogwildTrainer;
+import org.deeplearning4j.parallelism.trainer.Trainer;
+import org.nd4j.linalg.dataset.api.DataSet;
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Creates {@link HogwildTrainer}
+ * instances for use with {@link ParallelWrapper}.
+ * All trainers created by the same context share input queue and original model params & updater state,
+ * as well as the first failure of any of them
+ */
+@Slf4j
+public class HogwildTrainerContext implements TrainerContext {
+    protected LinkedBlockingQueue<DataSet> queue;
+    protected LinkedBlockingQueue<MultiDataSet> queueMDS;
+    protected AtomicInteger running;
+    protected AtomicReference<Exception> failure;
+
+    /**
+     * Initialize the context
+     *
+     * @param model
+     * @param args the arguments to initialize with (maybe null)
+     */
+    @Override
+    public void init(Model model, Object... args) {
+        // queues are created along with the first trainer, since their capacity depends on number of workers
+        queue = null;
+        queueMDS = null;
+        running = new AtomicInteger(0);
+        failure = new AtomicReference<>();
+
+        // params & updater state must exist before any trainer takes views of them
+        if (model instanceof MultiLayerNetwork) {
+            if (!((MultiLayerNetwork) model).isInitCalled())
+                model.init();
+            ((MultiLayerNetwork) model).getUpdater();
+        } else if (model instanceof ComputationGraph) {
+            model.init();
+            ((ComputationGraph) model).getUpdater();
+        }
+    }
+
+    /**
+     * Create a {@link Trainer}
+     * based on the given parameters
+     *
+     * @param threadId   the thread id to use for this worker
+     * @param model      the model to start the trainer with
+     * @param rootDevice the root device id
+     * @param useMDS     whether to use MultiDataSet queue or not
+     * @param wrapper    the wrapper instance to use with this trainer (this refernece is needed
+     *                   for coordination with the {@link ParallelWrapper} 's {@link TrainingListener}
+     * @return the created training instance
+     */
+    @Override
+    public Trainer create(String uuid, int threadId, Model model, int rootDevice, boolean useMDS, ParallelWrapper wrapper,
+                    WorkspaceMode mode, int averagingFrequency) {
+        if (queue == null) {
+            // one pending minibatch per worker, same as DefaultTrainer
+            queue = new LinkedBlockingQueue<>(Math.max(1, wrapper.getWorkers()));
+            queueMDS = new LinkedBlockingQueue<>(Math.max(1, wrapper.getWorkers()));
+        }
+
+        HogwildTrainer trainer = new HogwildTrainer(model, uuid, threadId, mode, wrapper, useMDS, queue, queueMDS,
+                        running, failure);
+
+        trainer.setName("HogwildTrainer thread " + threadId);
+        trainer.setDaemon(true);
+
+        return trainer;
+    }
+
+    @Override
+    public void finalizeRound(Model originalModel, Model... models) {
+        // no-op
+    }
+
+    @Override
+    public void finalizeTraining(Model originalModel, Model... models) {
+        // no-op: all models share params with the original model
+    }
+}
@@ -0,0 +1,238 @@
+package org.deeplearning4j.parallelism.inference;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class sizes batches for BATCHED inference from observed per-batch latency, instead of using fixed batch limit.
+ *
+ * Batch latency is modelled as {@code overhead + perExample * batchSize}, fitted online from worker measurements.
+ * Batch limit is then chosen so that queue wait plus batch execution stays within given latency target,
+ * and it's additionally halved whenever observed p99 goes above the target.
+ *
+ * It also provides admission control: if the number of examples already waiting would push projected latency of
+ * a new request above the target, the request is rejected instead of being queued.
+ *
+ * PLEASE NOTE: This class is thread-safe
+ */
+@Slf4j
+public class AdaptiveBatchPolicy {
+    public static final int DEFAULT_WINDOW_SIZE = 256;
+
+    // smoothing factor for online regression
+    private static final double ALPHA = 0.1;
+
+    private final long targetLatencyNanos;
+    private final int maxBatchSize;
+    private final int workers;
+
+    private final long[] window;
+    private int windowPosition;
+    private int windowFill;
+    private int recordsSinceUpdate;
+
+    // exponentially weighted moments of (batchSize, latency), used for least squares fit
+    private double meanX;
+    private double meanY;
+    private double meanXX;
+    private double meanXY;
+    private boolean hasEstimate = false;
+
+    private volatile double overheadNanos;
+    private volatile double perExampleNanos;
+    private volatile long p99Nanos;
+    private volatile int batchLimit;
+
+    private final AtomicInteger pendingExamples = new AtomicInteger(0);
+
+    public AdaptiveBatchPolicy(long targetLatencyNanos, int maxBatchSize, int workers) {
+        this(targetLatencyNanos, maxBatchSize, workers, DEFAULT_WINDOW_SIZE);
+    }
+
+    public AdaptiveBatchPolicy(long targetLatencyNanos, int maxBatchSize, int workers, int windowSize) {
+        if (targetLatencyNanos <= 0)
+            throw new IllegalStateException("Target latency should be positive value");
+
+        if (maxBatchSize < 1)
+            throw new IllegalStateException("Max batch size should be positive value");
+
+        if (workers < 1)
+            throw new IllegalStateException("Workers should be positive value");
+
+        if (windowSize < 1)
+            throw new IllegalStateException("Window size should be positive value");
+
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.maxBatchSize = maxBatchSize;
+        this.workers = workers;
+        this.window = new long[windowSize];
+
+        // until we have any measurements, we start with the most conservative batch size
+        this.batchLimit = 1;
+    }
+
+    /**
+     * This method returns current batch limit, i.e. max number of examples that should be packed into single batch
+     *
+     * @return
+     */
+    public int getBatchLimit() {
+        return batchLimit;
+    }
+
+    /**
+     * This method returns p99 batch latency observed within the sliding window, in nanoseconds
+     *
+     * @return
+     */
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    /**
+     * This method returns number of examples accepted, but not processed yet
+     *
+     * @return
+     */
+    public int getPendingExamples() {
+        return pendingExamples.get();
+    }
+
+    public long getTargetLatencyNanos() {
+        return targetLatencyNanos;
+    }
+
+    /**
+     * This method returns projected latency for a request of given size, if it was submitted right now
+     *
+     * @param numExamples
+     * @return projected latency in nanoseconds, or 0 if there's no estimate yet
+     */
+    public long projectedLatency(int numExamples) {
+        if (!hasEstimate)
+            return 0;
+
+        int limit = Math.max(1, batchLimit);
+        double batchNanos = overheadNanos + perExampleNanos * limit;
+
+        // number of batch "rounds" required to drain everything queued before us, plus our own batch
+        int pending = pendingExamples.get() + numExamples;
+        double rounds = Math.ceil(pending / (double) (limit * workers));
+
+        return (long) (rounds * batchNanos);
+    }
+
+    /**
+     * This method checks if request of given size can be served within latency target, and if so - accounts it as pending
+     *
+     * @param numExamples
+     * @return true if request was admitted, false if it should be shed
+     */
+    public boolean tryAdmit(int numExamples) {
+        // there's always room for request if nothing else is queued, otherwise we'd never recover from overload
+        if (pendingExamples.get() > 0 && projectedLatency(numExamples) > targetLatencyNanos)
+            return false;
+
+        pendingExamples.addAndGet(numExamples);
+        return true;
+    }
+
+    /**
+     * This method removes previously admitted examples from pending count, without recording any latency.
+     * I.e. if request was coalesced with another one, and won't be processed on its own.
+     *
+     * @param numExamples
+     */
+    public void release(int numExamples) {
+        pendingExamples.addAndGet(-numExamples);
+    }
+
+    /**
+     * This method should be called by workers after each processed batch
+     *
+     * @param numExamples number of examples in processed batch
+     * @param latencyNanos time spent on processing, in nanoseconds
+     */
+    public synchronized void recordBatch(int numExamples, long latencyNanos) {
+        pendingExamples.addAndGet(-numExamples);
+
+        if (numExamples < 1)
+            return;
+
+        window[windowPosition] = latencyNanos;
+        windowPosition = (windowPosition + 1) % window.length;
+        if (windowFill < window.length)
+            windowFill++;
+
+        double x = numExamples;
+        double y = latencyNanos;
+        if (!hasEstimate) {
+            meanX = x;
+            meanY = y;
+            meanXX = x * x;
+            meanXY = x * y;
+            hasEstimate = true;
+        } else {
+            meanX += ALPHA * (x - meanX);
+            meanY += ALPHA * (y - meanY);
+            meanXX += ALPHA * (x * x - meanXX);
+            meanXY += ALPHA * (x * y - meanXY);
+        }
+
+        double varX = meanXX - meanX * meanX;
+        double slope;
+        double intercept;
+        if (varX > 1e-6) {
+            slope = (meanXY - meanX * meanY) / varX;
+            intercept = meanY - slope * meanX;
+        } else {
+            // all batches had the same size so far, so we can't separate fixed overhead from per-example cost
+            slope = meanY / meanX;
+            intercept = 0.0;
+        }
+
+        // noisy measurements may give us negative values, which make no sense here
+        if (slope <= 0.0) {
+            slope = meanY / meanX;
+            intercept = 0.0;
+        }
+
+        this.perExampleNanos = slope;
+        this.overheadNanos = Math.max(0.0, intercept);
+
+        // p99 is recalculated periodically, there's no sense sorting the window on every batch
+        if (++recordsSinceUpdate >= Math.max(1, window.length / 16) || windowFill < window.length) {
+            recordsSinceUpdate = 0;
+            long[] sorted = Arrays.copyOf(window, windowFill);
+            Arrays.sort(sorted);
+            int idx = (int) Math.ceil(0.99 * windowFill) - 1;
+            p99Nanos = sorted[Math.max(0, idx)];
+        }
+
+        updateBatchLimit();
+    }
+
+    private void updateBatchLimit() {
+        // request may have to wait for one batch that's already in flight, so half of the budget goes to queueing
+        double budget = targetLatencyNanos / 2.0 - overheadNanos;
+        int modelLimit = budget <= 0 ? 1 : (int) Math.min(maxBatchSize, Math.floor(budget / perExampleNanos));
+        modelLimit = Math.max(1, modelLimit);
+
+        int current = batchLimit;
+        int next;
+        if (p99Nanos > targetLatencyNanos) {
+            // multiplicative decrease
+            next = Math.max(1, Math.min(modelLimit, current / 2));
+        } else {
+            // additive increase towards model estimate
+            next = Math.min(modelLimit, current + Math.max(1, current / 4));
+        }
+
+        if (next != current && log.isTraceEnabled())
+            log.trace("Batch limit changed: {} -> {}; p99: {} ns", current, next, p99Nanos);
+
+        batchLimit = next;
+    }
+}
@@ -29,8 +29,14 @@ public class BatchedInferenceObservable extends BasicInferenceObservable impleme
     private List<INDArray[]> inputMasks = new ArrayList<>();
     private List<INDArray[]> outputs = new ArrayList<>();
     private AtomicInteger counter = new AtomicInteger(0);
+    // number of examples in all inputs added so far, inputs might have more than one example each
+    private AtomicInteger numExamples = new AtomicInteger(0);
     private ThreadLocal<Integer> position = new ThreadLocal<>();
     private List<int[]> outputBatchInputArrays = new ArrayList<>();
+    // time series length boundaries for bucketing, null if bucketing is disabled
+    private int[] bucketBoundaries;
+    // order in which inputs are batched: batch position -> input position. null means inputs are batched as added
+    private int[] order;
 
     private final Object locker = new Object();
 
@@ -42,11 +48,24 @@ public class BatchedInferenceObservable extends BasicInferenceObservable impleme
 
     }
 
+    /**
+     * This constructor enables bucketing of time series inputs: inputs of different length that fall into the same
+     * bucket are padded to the longest one within bucket, and batched together using masks.
+     *
+     * I.e. boundaries {16, 64} give buckets for lengths [1..16], [17..64] and [65..]
+     *
+     * @param bucketBoundaries sorted upper (inclusive) time series length boundaries of buckets
+     */
+    public BatchedInferenceObservable(int[] bucketBoundaries) {
+        this.bucketBoundaries = bucketBoundaries;
+    }
+
     @Override
     public void addInput(INDArray[] input, INDArray[] inputMasks) {
         synchronized (locker) {
             inputs.add(input);
             this.inputMasks.add(inputMasks);
+            numExamples.addAndGet(input[0].size(0));
             position.set(counter.getAndIncrement());
 
             if (isReadLocked.get())
@@ -54,17 +73,39 @@ public class BatchedInferenceObservable extends BasicInferenceObservable impleme
         }
     }
 
+    /**
+     * This method makes current thread share output with input that was added earlier, instead of adding new input
+     *
+     * @param pos position of earlier input
+     */
+    public void reuseInput(int pos) {
+        synchronized (locker) {
+            if (pos < 0 || pos >= counter.get())
+                throw new ND4JIllegalStateException("Can't reuse input at position " + pos + ": only "
+                                + counter.get() + " inputs were added");
+
+            position.set(pos);
+
+            if (isReadLocked.get())
+                realLocker.readLock().unlock();
+        }
+    }
+
     @Override
     public List<Pair<INDArray[],INDArray[]>> getInputBatches() {
         realLocker.writeLock().lock();
         isLocked.set(true);
 
         outputBatchInputArrays.clear();
+        order = null;
 
         // this method should pile individual examples into single batch
 
         if (counter.get() > 1) {
 
+            if (bucketBoundaries != null)
+                order = bucketOrder();
+
             int pos = 0;
             List<Pair<INDArray[],INDArray[]>> out = new ArrayList<>();
             int numArrays = inputs.get(0).length;
@@ -73,7 +114,7 @@ public class BatchedInferenceObservable extends BasicInferenceObservable impleme
                 //First: determine which we can actually batch...
                 int lastPossible = pos;
                 for (int i = pos+1; i < inputs.size(); i++) {
-                    if (canBatch(inputs.get(pos), inputs.get(i))) {
+                    if (canBatch(inputs.get(index(pos)), inputs.get(index(i)))) {
                         lastPossible = i;
                     } else {
                         break;
@@ -85,20 +126,21 @@ public class BatchedInferenceObservable extends BasicInferenceObservable impleme
                 INDArray[][] fMasksToMerge = null;
                 int fPos = 0;
                 for( int i=pos; i<=lastPossible; i++ ){
-                    featuresToMerge[fPos] = inputs.get(i);
+                    featuresToMerge[fPos] = inputs.get(index(i));
 
-                    if(inputMasks.get(i) != null) {
+                    if(inputMasks.get(index(i)) != null) {
                         if(fMasksToMerge == null){
                             fMasksToMerge = new INDArray[countToMerge][0];
                             for( int j=0; j<countToMerge; j++ ){
                                 fMasksToMerge[j] = null;
                             }
                         }
-                        fMasksToMerge[fPos] = inputMasks.get(i);
+                        fMasksToMerge[fPos] = inputMasks.get(index(i));
                     }
                     fPos++;
                 }
 
+                //Time series of different length are padded and masked here
                 Pair<INDArray[],INDArray[]> merged = DataSetUtil.mergeFeatures(featuresToMerge, fMasksToMerge);
                 out.add(merged);
 
@@ -114,13 +156,24 @@ public class BatchedInferenceObservable extends BasicInferenceObservable impleme
         }
     }
 
-    private static boolean canBatch(INDArray[] first, INDArray[] candidate){
+    private boolean canBatch(INDArray[] first, INDArray[] candidate){
         //Check if we can batch these inputs into the one array. This isn't always possible - for example, some fully
         // convolutional nets can support different input image sizes
-        //For now: let's simply require that the inputs have the same shape
-        //In the future: we'll intelligently handle the RNN variable length case
+        //Without bucketing: let's simply require that the inputs have the same shape
+        //With bucketing: time series within the same bucket may differ in length, they'll be padded and masked
         //Note also we can ignore input masks here - they should have shared dimensions with the input, thus if the
         // inputs can be batched, so can the masks
+        if (bucketBoundaries != null && bucketOf(first) >= 0) {
+            if (bucketOf(first) != bucketOf(candidate))
+                return false;
+
+            for (int i = 0; i < first.length; i++) {
+                if (first[i].size(1) != candidate[i].size(1))
+                    return false;
+            }
+            return true;
+        }
+
         for(int i=0; i<first.length; i++ ){
             if(!Arrays.equals(first[i].shape(), candidate[i].shape())){
                 return false;
@@ -129,16 +182,75 @@ public class BatchedInferenceObservable extends BasicInferenceObservable impleme
         return true;
     }
 
+    /**
+     * This method returns time series length of given input, or 0 if input isn't a time series
+     */
+    private static int timeSeriesLength(INDArray[] input) {
+        int length = 0;
+        for (INDArray array : input) {
+            if (array.rank() != 3)
+                return 0;
+
+            length = Math.max(length, array.size(2));
+        }
+        return length;
+    }
+
+    /**
+     * This method returns bucket index for given input, or -1 if input isn't a time series
+     */
+    private int bucketOf(INDArray[] input) {
+        int length = timeSeriesLength(input);
+        if (length == 0)
+            return -1;
+
+        for (int i = 0; i < bucketBoundaries.length; i++) {
+            if (length <= bucketBoundaries[i])
+                return i;
+        }
+        return bucketBoundaries.length;
+    }
+
+    /**
+     * This method builds batching order: inputs are grouped by bucket, keeping arrival order within each bucket
+     */
+    private int[] bucketOrder() {
+        int numInputs = inputs.size();
+        int[] buckets = new int[numInputs];
+        for (int i = 0; i < numInputs; i++)
+            buckets[i] = bucketOf(inputs.get(i));
+
+        int[] result = new int[numInputs];
+        int cnt = 0;
+        for (int b = -1; b <= bucketBoundaries.length; b++) {
+            for (int i = 0; i < numInputs; i++) {
+                if (buckets[i] == b)
+                    result[cnt++] = i;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * This method maps position within batching order to position of input
+     */
+    private int index(int batchPosition) {
+        return order == null ? batchPosition : order[batchPosition];
+    }
+
     @Override
     public void setOutputBatches(List<INDArray[]> output) {
         //this method should split batched output INDArray[] into multiple separate INDArrays
+        for (int i = outputs.size(); i < inputs.size(); i++)
+            outputs.add(null);
+
         int countNumInputBatches = 0;   //Counter for total number of input batches processed
         for( int outBatchNum=0; outBatchNum<output.size(); outBatchNum++ ){ //Iterate over output batch
             INDArray[] currBatchOutputs = output.get(outBatchNum);
             int[] inputBatchIdxs = outputBatchInputArrays.get(outBatchNum);
             int inputBatchCount = inputBatchIdxs[1] - inputBatchIdxs[0] + 1;
             for (int i = 0; i < inputBatchCount; i++) {
-                outputs.add(new INDArray[currBatchOutputs.length]);
+                outputs.set(index(countNumInputBatches + i), new INDArray[currBatchOutputs.length]);
             }
 
             // pull back results for individual input batches
@@ -149,7 +261,7 @@ public class BatchedInferenceObservable extends BasicInferenceObservable impleme
                 int currentInputBatch = firstInputBatch;
                 //Iterate over input batch (examples) - note that each output batch is made up of 1 or more input batches
                 for (int inputInBatch = 0; inputInBatch < inputBatchCount; inputInBatch++) {
-                    outputs.get(currentInputBatch++)[outputNumber] = split[inputInBatch];
+                    outputs.get(index(currentInputBatch++))[outputNumber] = split[inputInBatch];
 
                     if(outputNumber == 0){
                         countNumInputBatches++;
@@ -175,8 +287,17 @@ public class BatchedInferenceObservable extends BasicInferenceObservable impleme
             }
             int examplesSoFar = 0;
             for( int inNum = 0; inNum < numSplits; inNum++ ){
-                int inSizeEx = inputs.get(firstInputComponent + inNum)[0].size(0);
+                INDArray[] input = inputs.get(index(firstInputComponent + inNum));
+                int inSizeEx = input[0].size(0);
                 indices[0] = NDArrayIndex.interval(examplesSoFar, examplesSoFar+inSizeEx);
+
+                //Padded time series output: trim it back to original length
+                int inLength = timeSeriesLength(input);
+                if (order != null && netOutput.rank() == 3 && inLength > 0 && inLength < netOutput.size(2))
+                    indices[2] = NDArrayIndex.interval(0, inLength);
+                else if (indices.length > 2)
+                    indices[2] = NDArrayIndex.all();
+
                 out[inNum] = netOutput.get(indices);
                 examplesSoFar += inSizeEx;
             }
@@ -201,10 +322,28 @@ public class BatchedInferenceObservable extends BasicInferenceObservable impleme
         position.set(pos);
     }
 
+    /**
+     * This method returns position of the last input added by current thread
+     *
+     * @return
+     */
+    public int getPosition() {
+        return position.get();
+    }
+
     public int getCounter() {
         return counter.get();
     }
 
+    /**
+     * This method returns total number of examples in inputs added so far. Reused inputs aren't counted again
+     *
+     * @return
+     */
+    public int getNumExamples() {
+        return numExamples.get();
+    }
+
 
 
     public boolean isLocked() {
@@ -222,7 +361,17 @@ public class BatchedInferenceObservable extends BasicInferenceObservable impleme
     @Override
     public INDArray[] getOutput() {
         // basically we should take care of splits here: each client should get its own part of output, wrt order number
+        return getOutput(position.get());
+    }
+
+    /**
+     * This method returns output for input at given position. Unlike getOutput(), it can be used from any thread
+     *
+     * @param pos
+     * @return
+     */
+    public INDArray[] getOutput(int pos) {
         checkOutputException();
-        return outputs.get(position.get());
+        return outputs.get(pos);
     }
 }
@@ -0,0 +1,59 @@
+package org.deeplearning4j.parallelism.inference.observers;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.parallelism.inference.InferenceObservable;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Observer implementation for asynchronous inference: instead of blocking caller thread,
+ * it completes CompletableFuture once output is available.
+ *
+ * Since observable may be notified before submitting thread learns its position within the batch,
+ * future is completed only when both notification and position are known.
+ */
+@Slf4j
+public class FutureInferenceObserver implements Observer {
+    @Getter
+    private final CompletableFuture<INDArray[]> future = new CompletableFuture<>();
+
+    private InferenceObservable observable;
+    private int position = -1;
+
+    @Override
+    public synchronized void update(Observable o, Object arg) {
+        this.observable = (InferenceObservable) o;
+        tryComplete();
+    }
+
+    /**
+     * This method sets position of the request within BatchedInferenceObservable. For other observables it should be 0
+     *
+     * @param position
+     */
+    public synchronized void setPosition(int position) {
+        this.position = position;
+        tryComplete();
+    }
+
+    private void tryComplete() {
+        if (observable == null || position < 0 || future.isDone())
+            return;
+
+        try {
+            INDArray[] output;
+            if (observable instanceof BatchedInferenceObservable)
+                output = ((BatchedInferenceObservable) observable).getOutput(position);
+            else
+                output = observable.getOutput();
+
+            future.complete(output);
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+    }
+}
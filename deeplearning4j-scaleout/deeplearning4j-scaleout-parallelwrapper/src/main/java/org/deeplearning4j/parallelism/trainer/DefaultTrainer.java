@@ -182,8 +182,9 @@ public class DefaultTrainer extends Thread implements Trainer {
     @Override
     public boolean isRunning() {
         // if Trainer thread got exception during training - rethrow it here
-        if (thrownException != null)
-            throw new RuntimeException(thrownException);
+        Exception failure = getFailure();
+        if (failure != null)
+            throw new RuntimeException(failure);
 
         return running.get() == 0;
     }
@@ -238,76 +239,84 @@ public class DefaultTrainer extends Thread implements Trainer {
         this.replicatedModel.setListeners(replicatedListeners);
     }
 
-    @Override
-    public void run() {
-        setupIfNeccessary();
-        AtomicInteger iterationsCounter = new AtomicInteger(0);
-
-        // FIXME: make this thing CUDA-compatible, and avoid RC at originalModel relocation
-        if (threadId == 0)
-            onRootModel = true;
-
-        try {
-            // we create fresh network, with the same configuration, as initially created by user
-            // however, we don't need clone or anything here
-            if (originalModel instanceof MultiLayerNetwork) {
-                if (!onRootModel) {
-                    MultiLayerConfiguration conf = MultiLayerConfiguration.fromJson(
-                                    ((MultiLayerNetwork) originalModel).getLayerWiseConfigurations().toJson());
-                    conf.setTrainingWorkspaceMode(workspaceMode);
-                    this.replicatedModel = new MultiLayerNetwork(conf);
+    /**
+     * This method creates replicatedModel for this trainer: either original model itself (for thread 0), or a fresh
+     * network with the same configuration, params and updater state
+     */
+    protected void replicateModel() {
+        // we create fresh network, with the same configuration, as initially created by user
+        // however, we don't need clone or anything here
+        if (originalModel instanceof MultiLayerNetwork) {
+            if (!onRootModel) {
+                MultiLayerConfiguration conf = MultiLayerConfiguration.fromJson(
+                                ((MultiLayerNetwork) originalModel).getLayerWiseConfigurations().toJson());
+                conf.setTrainingWorkspaceMode(workspaceMode);
+                this.replicatedModel = new MultiLayerNetwork(conf);
+
+                replicatedModel.init();
+
+                // we replicate original model params & updater state, just in case it's pre-trained model
+                synchronized (originalModel) {
+                    replicatedModel.setParams(originalModel.params().unsafeDuplication(true));
+
+                    Updater updaterReplica = ((MultiLayerNetwork) replicatedModel).getUpdater();
+                    Updater updaterOrigina = ((MultiLayerNetwork) originalModel).getUpdater();
+
+                    if (updaterOrigina != null && updaterOrigina.getStateViewArray() != null)
+                        updaterReplica.setStateViewArray((MultiLayerNetwork) replicatedModel,
+                                        updaterOrigina.getStateViewArray().unsafeDuplication(true), false);
+
+                    Nd4j.getExecutioner().commit();
+                }
+            } else {
+                this.replicatedModel = originalModel;
+                if (!((MultiLayerNetwork) replicatedModel).isInitCalled())
+                    this.replicatedModel.init();
 
-                    replicatedModel.init();
+                ((MultiLayerNetwork) replicatedModel).getLayerWiseConfigurations()
+                                .setTrainingWorkspaceMode(workspaceMode);
+            }
+        } else if (originalModel instanceof ComputationGraph) {
+            if (!onRootModel) {
+                ComputationGraphConfiguration conf = ComputationGraphConfiguration
+                                .fromJson(((ComputationGraph) originalModel).getConfiguration().toJson());
+                conf.setTrainingWorkspaceMode(workspaceMode);
 
-                    // we replicate original model params & updater state, just in case it's pre-trained model
-                    synchronized (originalModel) {
-                        replicatedModel.setParams(originalModel.params().unsafeDuplication(true));
+                this.replicatedModel = new ComputationGraph(conf);
+                this.replicatedModel.init();
 
-                        Updater updaterReplica = ((MultiLayerNetwork) replicatedModel).getUpdater();
-                        Updater updaterOrigina = ((MultiLayerNetwork) originalModel).getUpdater();
+                // we replicate original model params & updater state, just in case it's pre-trained model
+                synchronized (originalModel) {
+                    replicatedModel.setParams(originalModel.params().unsafeDuplication(true));
 
-                        if (updaterOrigina != null && updaterOrigina.getStateViewArray() != null)
-                            updaterReplica.setStateViewArray((MultiLayerNetwork) replicatedModel,
-                                            updaterOrigina.getStateViewArray().unsafeDuplication(true), false);
+                    ComputationGraphUpdater updaterReplica = ((ComputationGraph) replicatedModel).getUpdater();
+                    ComputationGraphUpdater updaterOrigina = ((ComputationGraph) originalModel).getUpdater();
 
-                        Nd4j.getExecutioner().commit();
-                    }
-                } else {
-                    this.replicatedModel = originalModel;
-                    if (!((MultiLayerNetwork) replicatedModel).isInitCalled())
-                        this.replicatedModel.init();
+                    if (updaterOrigina != null && updaterOrigina.getStateViewArray() != null)
+                        updaterReplica.setStateViewArray(
+                                        updaterOrigina.getStateViewArray().unsafeDuplication(true));
 
-                    ((MultiLayerNetwork) replicatedModel).getLayerWiseConfigurations()
-                                    .setTrainingWorkspaceMode(workspaceMode);
+                    Nd4j.getExecutioner().commit();
                 }
-            } else if (originalModel instanceof ComputationGraph) {
-                if (!onRootModel) {
-                    ComputationGraphConfiguration conf = ComputationGraphConfiguration
-                                    .fromJson(((ComputationGraph) originalModel).getConfiguration().toJson());
-                    conf.setTrainingWorkspaceMode(workspaceMode);
-
-                    this.replicatedModel = new ComputationGraph(conf);
-                    this.replicatedModel.init();
-
-                    // we replicate original model params & updater state, just in case it's pre-trained model
-                    synchronized (originalModel) {
-                        replicatedModel.setParams(originalModel.params().unsafeDuplication(true));
+            } else {
+                this.replicatedModel = originalModel;
+                this.replicatedModel.init();
+                ((ComputationGraph) replicatedModel).getConfiguration().setTrainingWorkspaceMode(workspaceMode);
+            }
+        }
+    }
 
-                        ComputationGraphUpdater updaterReplica = ((ComputationGraph) replicatedModel).getUpdater();
-                        ComputationGraphUpdater updaterOrigina = ((ComputationGraph) originalModel).getUpdater();
+    @Override
+    public void run() {
+        setupIfNeccessary();
+        AtomicInteger iterationsCounter = new AtomicInteger(0);
 
-                        if (updaterOrigina != null && updaterOrigina.getStateViewArray() != null)
-                            updaterReplica.setStateViewArray(
-                                            updaterOrigina.getStateViewArray().unsafeDuplication(true));
+        // FIXME: make this thing CUDA-compatible, and avoid RC at originalModel relocation
+        if (threadId == 0)
+            onRootModel = true;
 
-                        Nd4j.getExecutioner().commit();
-                    }
-                } else {
-                    this.replicatedModel = originalModel;
-                    this.replicatedModel.init();
-                    ((ComputationGraph) replicatedModel).getConfiguration().setTrainingWorkspaceMode(workspaceMode);
-                }
-            }
+        try {
+            replicateModel();
 
             if (replicatedModel == null)
                 log.error("replicatedModel is NULL at worker_{}", threadId);
@@ -393,7 +402,7 @@ public class DefaultTrainer extends Thread implements Trainer {
                 }
             }
         } catch (Exception e) {
-            this.thrownException = e;
+            setFailure(e);
             throw new RuntimeException(e);
         } finally {
             log.debug("Terminating all workspaces for trainer_{}", threadId);
@@ -407,13 +416,28 @@ public class DefaultTrainer extends Thread implements Trainer {
         while (running.get() != 0) {
             // if Trainer thread got exception during training - rethrow it here
             //log.info("Thread {} running {}", Thread.currentThread().getId(), running.get());
-            if (thrownException != null)
-                throw new RuntimeException(thrownException);
+            Exception failure = getFailure();
+            if (failure != null)
+                throw new RuntimeException(failure);
 
             LockSupport.parkNanos(1000L);
         }
     }
 
+    /**
+     * This method stores exception thrown during training, so it's rethrown by isRunning() and waitTillRunning()
+     */
+    protected void setFailure(Exception e) {
+        this.thrownException = e;
+    }
+
+    /**
+     * @return exception thrown during training, or null
+     */
+    protected Exception getFailure() {
+        return thrownException;
+    }
+
 
     @Override
     public boolean averagingRequired() {
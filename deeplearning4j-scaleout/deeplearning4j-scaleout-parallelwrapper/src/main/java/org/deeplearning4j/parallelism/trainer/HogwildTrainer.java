@@ -0,0 +1,125 @@
+package org.deeplearning4j.parallelism.trainer;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.nn.api.Model;
+import org.deeplearning4j.nn.api.Updater;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.WorkspaceMode;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.updater.MultiLayerUpdater;
+import org.deeplearning4j.nn.updater.graph.ComputationGraphUpdater;
+import org.deeplearning4j.parallelism.ParallelWrapper;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.api.DataSet;
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This trainer implementation does lock-free parallel training (Hogwild!).
+ * All trainers share the same parameters and updater state arrays as the original model, and apply their updates
+ * directly to them, without any locks or barriers. Trainers also share the same input queue, so each minibatch is
+ * picked up by the first idle trainer.
+ *
+ * PLEASE NOTE: updates are racy by design: concurrent updates of the same parameters may be partially lost. This works
+ * well for sparse or small updates, but may hurt convergence for dense models with large learning rates.
+ * PLEASE NOTE: this trainer is applicable only to single-device environments, i.e. CPU.
+ */
+@Slf4j
+public class HogwildTrainer extends DefaultTrainer {
+    // first exception thrown by any trainer sharing the same queue
+    private final AtomicReference<Exception> failure;
+
+    public HogwildTrainer(@NonNull Model originalModel, String uuid, int threadIdx, @NonNull WorkspaceMode mode,
+                    @NonNull ParallelWrapper wrapper, boolean useMDS, @NonNull LinkedBlockingQueue<DataSet> queue,
+                    @NonNull LinkedBlockingQueue<MultiDataSet> queueMDS, @NonNull AtomicInteger running,
+                    @NonNull AtomicReference<Exception> failure) {
+        super();
+        this.uuid = uuid + "_thread_" + threadIdx;
+        this.useMDS = useMDS;
+        this.originalModel = originalModel;
+        this.threadId = threadIdx;
+        this.workspaceMode = mode;
+        this.parallelWrapper = wrapper;
+        this.queue = queue;
+        this.queueMDS = queueMDS;
+        this.running = running;
+        this.failure = failure;
+    }
+
+    /**
+     * Trainers share the running counter, so failure of any trainer is shared as well:
+     * otherwise other trainers would wait forever for the minibatch the failed one took
+     */
+    @Override
+    protected void setFailure(Exception e) {
+        super.setFailure(e);
+        failure.compareAndSet(null, e);
+    }
+
+    @Override
+    protected Exception getFailure() {
+        return failure.get();
+    }
+
+    @Override
+    public boolean averagingRequired() {
+        return false;
+    }
+
+    /**
+     * This method creates replicatedModel for this trainer. Unlike {@link DefaultTrainer}, params and updater state
+     * of the replica are views of the original model arrays, not copies
+     */
+    @Override
+    protected void replicateModel() {
+        if (onRootModel) {
+            super.replicateModel();
+            return;
+        }
+
+        if (originalModel instanceof MultiLayerNetwork) {
+            MultiLayerConfiguration conf = MultiLayerConfiguration
+                            .fromJson(((MultiLayerNetwork) originalModel).getLayerWiseConfigurations().toJson());
+            conf.setTrainingWorkspaceMode(workspaceMode);
+            MultiLayerNetwork replica = new MultiLayerNetwork(conf);
+
+            synchronized (originalModel) {
+                replica.init(originalModel.params(), false);
+
+                Updater updaterOriginal = ((MultiLayerNetwork) originalModel).getUpdater();
+                INDArray state = updaterOriginal == null ? null : updaterOriginal.getStateViewArray();
+                if (state != null)
+                    replica.setUpdater(new MultiLayerUpdater(replica, state));
+
+                Nd4j.getExecutioner().commit();
+            }
+
+            this.replicatedModel = replica;
+        } else if (originalModel instanceof ComputationGraph) {
+            ComputationGraphConfiguration conf = ComputationGraphConfiguration
+                            .fromJson(((ComputationGraph) originalModel).getConfiguration().toJson());
+            conf.setTrainingWorkspaceMode(workspaceMode);
+            ComputationGraph replica = new ComputationGraph(conf);
+
+            synchronized (originalModel) {
+                replica.init(originalModel.params(), false);
+
+                ComputationGraphUpdater updaterOriginal = ((ComputationGraph) originalModel).getUpdater();
+                INDArray state = updaterOriginal == null ? null : updaterOriginal.getStateViewArray();
+                if (state != null)
+                    replica.setUpdater(new ComputationGraphUpdater(replica, state));
+
+                Nd4j.getExecutioner().commit();
+            }
+
+            this.replicatedModel = replica;
+        }
+    }
+}
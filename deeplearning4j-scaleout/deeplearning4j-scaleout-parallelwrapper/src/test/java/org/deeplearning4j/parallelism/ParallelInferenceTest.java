@@ -14,6 +14,7 @@ import org.nd4j.linalg.io.ClassPathResource;
 import org.deeplearning4j.datasets.iterator.impl.MnistDataSetIterator;
 import org.deeplearning4j.eval.Evaluation;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.parallelism.inference.AdaptiveBatchPolicy;
 import org.deeplearning4j.parallelism.inference.InferenceMode;
 import org.deeplearning4j.parallelism.inference.InferenceObservable;
 import org.deeplearning4j.parallelism.inference.observers.BasicInferenceObserver;
@@ -31,7 +32,10 @@ import org.nd4j.linalg.primitives.Pair;
 import java.io.File;
 import java.lang.reflect.Field;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
@@ -424,6 +428,45 @@ public class ParallelInferenceTest {
 
 
 
+    @Test(timeout = 60000L)
+    public void testParallelInferenceSequenceBuckets() throws Exception {
+        Nd4j.getRandom().setSeed(12345);
+
+        int nIn = 10;
+
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+                .activation(Activation.TANH)
+                .seed(12345)
+                .list()
+                .layer(new LSTM.Builder().nIn(nIn).nOut(5).build())
+                .layer(new RnnOutputLayer.Builder().nIn(5).nOut(5).build())
+                .build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        for( int w : new int[]{1,2}) {
+            final ParallelInference inf =
+                    new ParallelInference.Builder(net)
+                            .inferenceMode(InferenceMode.BATCHED)
+                            .batchLimit(20)
+                            .queueLimit(64)
+                            .sequenceBuckets(4, 16)
+                            .workers(w).build();
+
+            List<INDArray> arrs = new ArrayList<>();
+            List<INDArray> exp = new ArrayList<>();
+
+            Random r = new Random(12345);
+            for( int i=0; i<200; i++ ){
+                INDArray in = Nd4j.rand(new int[]{r.nextInt(3)+1, nIn, r.nextInt(30)+1});
+                arrs.add(in);
+                exp.add(net.output(in));
+            }
+            testParallelInference(inf, arrs, exp);
+        }
+    }
+
     @Test(timeout = 30000L)
     public void testParallelInferenceVariableSizeCNN() throws Exception {
         //Variable size input for CNN model - for example, YOLO models
@@ -690,6 +733,302 @@ public class ParallelInferenceTest {
     }
 
 
+    @Test(timeout = 60000L)
+    public void testOutputAsync() throws Exception {
+        int nIn = 10;
+
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+                .activation(Activation.TANH)
+                .seed(12345)
+                .list()
+                .layer(new DenseLayer.Builder().nIn(nIn).nOut(5).build())
+                .layer(new OutputLayer.Builder().nIn(5).nOut(5).build())
+                .build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        for( InferenceMode m : InferenceMode.values()) {
+            for (int w : new int[]{1, 2}) {
+                for (boolean coalesce : new boolean[]{false, true}) {
+
+                    final ParallelInference inf =
+                            new ParallelInference.Builder(net)
+                                    .inferenceMode(m)
+                                    .batchLimit(20)
+                                    .queueLimit(64)
+                                    .coalesceInputs(coalesce)
+                                    .workers(w).build();
+
+                    List<INDArray> in = new ArrayList<>();
+                    List<INDArray> exp = new ArrayList<>();
+                    List<CompletableFuture<INDArray[]>> futures = new ArrayList<>();
+                    for (int i = 0; i < 200; i++) {
+                        // every other input is a duplicate, so coalescing has something to work on
+                        INDArray inArr = (i % 2 == 1 ? in.get(i - 1) : Nd4j.rand(1, nIn));
+                        in.add(inArr);
+                        exp.add(net.output(inArr));
+                        futures.add(inf.outputAsync(inArr));
+                    }
+
+                    for (int i = 0; i < in.size(); i++) {
+                        INDArray[] out = futures.get(i).get();
+                        assertEquals(1, out.length);
+                        assertEquals(exp.get(i), out[0]);
+                    }
+
+                    // errors should be propagated through the future, not thrown
+                    CompletableFuture<INDArray[]> failed = inf.outputAsync(Nd4j.ones(1, nIn + 1));
+                    try {
+                        failed.get();
+                        fail("Expected exception");
+                    } catch (ExecutionException e) {
+                        assertTrue(e.getCause() instanceof DL4JInvalidInputException);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test(timeout = 60000L)
+    public void testSharedParameters() throws Exception {
+        int nIn = 10;
+
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+                .activation(Activation.TANH)
+                .seed(12345)
+                .list()
+                .layer(new DenseLayer.Builder().nIn(nIn).nOut(5).build())
+                .layer(new OutputLayer.Builder().nIn(5).nOut(5).build())
+                .build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        MultiLayerNetwork net2 = new MultiLayerNetwork(conf.clone());
+        net2.init();
+        net2.setParams(Nd4j.rand(1, net.numParams()));
+
+        for (InferenceMode m : InferenceMode.values()) {
+            ParallelInference inf = new ParallelInference.Builder(net)
+                    .inferenceMode(m)
+                    .sharedParameters(true)
+                    .workers(4).build();
+
+            for (int i = 0; i < 50; i++) {
+                INDArray in = Nd4j.rand(1, nIn);
+                assertEquals(net.output(in), inf.output(in));
+            }
+
+            assertEquals(0, inf.getModelVersion());
+            inf.updateModel(net2);
+            assertEquals(1, inf.getModelVersion());
+
+            for (int i = 0; i < 50; i++) {
+                INDArray in = Nd4j.rand(1, nIn);
+                assertEquals(net2.output(in), inf.output(in));
+            }
+
+            inf.updateModel(net);
+        }
+    }
+
+    @Test(timeout = 60000L)
+    public void testDeployModel() throws Exception {
+        int nIn = 10;
+
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+                .activation(Activation.TANH)
+                .seed(12345)
+                .list()
+                .layer(new DenseLayer.Builder().nIn(nIn).nOut(5).build())
+                .layer(new OutputLayer.Builder().nIn(5).nOut(5).build())
+                .build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        MultiLayerNetwork net2 = new MultiLayerNetwork(conf.clone());
+        net2.init();
+        net2.setParams(Nd4j.rand(1, net.numParams()));
+
+        List<INDArray[]> warmup = new ArrayList<>();
+        warmup.add(new INDArray[]{Nd4j.rand(1, nIn)});
+        warmup.add(new INDArray[]{Nd4j.rand(16, nIn)});
+
+        for (boolean shared : new boolean[]{false, true}) {
+            ParallelInference inf = new ParallelInference.Builder(net)
+                    .inferenceMode(InferenceMode.BATCHED)
+                    .batchLimit(8)
+                    .sharedParameters(shared)
+                    .warmupBatches(warmup)
+                    .workers(3).build();
+
+            INDArray in = Nd4j.rand(1, nIn);
+            INDArray exp1 = net.output(in);
+            INDArray exp2 = net2.output(in);
+
+            // requests submitted during deployment are served by one of the versions, and none is dropped
+            CompletableFuture<Long> deployed = inf.deployModel(net2);
+            while (!deployed.isDone()) {
+                INDArray out = inf.output(in);
+                assertTrue(out.equals(exp1) || out.equals(exp2));
+            }
+            assertEquals(1L, (long) deployed.get());
+            assertEquals(1L, inf.getModelVersion());
+
+            for (int i = 0; i < 20; i++)
+                assertEquals(exp2, inf.output(in));
+
+            // model that fails to warm up is never switched on
+            List<INDArray[]> invalid = Collections.singletonList(new INDArray[]{Nd4j.rand(1, nIn + 1)});
+            try {
+                inf.deployModel(net, invalid).get();
+                fail("Expected exception");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof DL4JInvalidInputException);
+            }
+            assertEquals(1L, inf.getModelVersion());
+            assertEquals(exp2, inf.output(in));
+
+            // failed deployment doesn't consume version number
+            inf.updateModel(net);
+            assertEquals(2L, inf.getModelVersion());
+            assertEquals(exp1, inf.output(in));
+        }
+    }
+
+    @Test(timeout = 60000L)
+    public void testDeployModelStoppedWorker() throws Exception {
+        int nIn = 10;
+
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+                .activation(Activation.TANH)
+                .seed(12345)
+                .list()
+                .layer(new DenseLayer.Builder().nIn(nIn).nOut(5).build())
+                .layer(new OutputLayer.Builder().nIn(5).nOut(5).build())
+                .build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        MultiLayerNetwork net2 = new MultiLayerNetwork(conf.clone());
+        net2.init();
+        net2.setParams(Nd4j.rand(1, net.numParams()));
+
+        List<INDArray[]> warmup = Collections.singletonList(new INDArray[]{Nd4j.rand(16, nIn)});
+
+        ParallelInference inf = new ParallelInference.Builder(net)
+                .inferenceMode(InferenceMode.BATCHED)
+                .batchLimit(8)
+                .warmupBatches(warmup)
+                .workers(3).build();
+
+        INDArray in = Nd4j.rand(1, nIn);
+        assertEquals(net.output(in), inf.output(in));
+
+        // stopped worker releases its slot, and is skipped by deployment
+        inf.shutdownWorker(0);
+        assertEquals(1L, (long) inf.deployModel(net2).get(30, TimeUnit.SECONDS));
+        assertEquals(net2.output(in), inf.output(in));
+
+        // worker stopped while deployment is pending doesn't block it either
+        CompletableFuture<Long> deployed = inf.deployModel(net);
+        inf.shutdownWorker(1);
+        assertEquals(2L, (long) deployed.get(30, TimeUnit.SECONDS));
+        assertEquals(2L, inf.getModelVersion());
+        assertEquals(net.output(in), inf.output(in));
+    }
+
+    @Test
+    public void testProviderCoalescing() throws Exception {
+        LinkedBlockingQueue queue = new LinkedBlockingQueue();
+        BasicInferenceObserver observer = new BasicInferenceObserver();
+        ParallelInference.ObservablesProvider provider =
+                        new ParallelInference.ObservablesProvider(10000000L, 4, queue, null, true);
+
+        BatchedInferenceObservable observable1 =
+                        (BatchedInferenceObservable) provider.setInput(observer, Nd4j.create(100).assign(1.0));
+        BatchedInferenceObservable observable2 =
+                        (BatchedInferenceObservable) provider.setInput(observer, Nd4j.create(100).assign(2.0));
+        int position2 = observable2.getPosition();
+        BatchedInferenceObservable observable3 =
+                        (BatchedInferenceObservable) provider.setInput(observer, Nd4j.create(100).assign(1.0));
+
+        assertTrue(observable1 == observable2);
+        assertTrue(observable1 == observable3);
+        assertEquals(1, position2);
+        assertEquals(0, observable3.getPosition());
+        assertEquals(2, observable1.getCounter());
+
+        // hash is built from few elements only: input that differs elsewhere must not be coalesced
+        BatchedInferenceObservable observable4 = (BatchedInferenceObservable) provider.setInput(observer,
+                        Nd4j.create(100).assign(1.0).putScalar(1, 5.0));
+        assertTrue(observable1 == observable4);
+        assertEquals(2, observable4.getPosition());
+        assertEquals(3, observable1.getCounter());
+
+        // contents are compared exactly: difference below equals() eps must not be coalesced either
+        BatchedInferenceObservable observable5 = (BatchedInferenceObservable) provider.setInput(observer,
+                        Nd4j.create(100).assign(1.0).putScalar(1, 1.0 + 1e-7));
+        assertTrue(observable1 == observable5);
+        assertEquals(3, observable5.getPosition());
+        assertEquals(4, observable1.getCounter());
+
+        List<Pair<INDArray[],INDArray[]>> l = observable1.getInputBatches();
+        assertEquals(1, l.size());
+        assertArrayEquals(new int[] {4, 100}, l.get(0).getFirst()[0].shape());
+    }
+
+
+    @Test
+    public void testProviderAdaptiveLimitCountsExamples() throws Exception {
+        LinkedBlockingQueue queue = new LinkedBlockingQueue();
+        BasicInferenceObserver observer = new BasicInferenceObserver();
+        AdaptiveBatchPolicy policy = new AdaptiveBatchPolicy(1000000000L, 4, 1) {
+            @Override
+            public int getBatchLimit() {
+                return 4;
+            }
+        };
+        ParallelInference.ObservablesProvider provider =
+                        new ParallelInference.ObservablesProvider(10000000L, 4, queue, policy, false);
+
+        BatchedInferenceObservable observable1 =
+                        (BatchedInferenceObservable) provider.setInput(observer, Nd4j.create(3, 100));
+        BatchedInferenceObservable observable2 =
+                        (BatchedInferenceObservable) provider.setInput(observer, Nd4j.create(1, 100));
+        // 2 requests only, but 5 examples: doesn't fit into the batch anymore
+        BatchedInferenceObservable observable3 =
+                        (BatchedInferenceObservable) provider.setInput(observer, Nd4j.create(1, 100));
+
+        assertTrue(observable1 == observable2);
+        assertTrue(observable1 != observable3);
+        assertEquals(4, observable1.getNumExamples());
+        assertEquals(1, observable3.getNumExamples());
+    }
+
+    @Test(timeout = 30000L)
+    public void testFailedSubmitReleasesPendingExamples() throws Exception {
+        ParallelInference inf = new ParallelInference.Builder(model).inferenceMode(InferenceMode.SEQUENTIAL)
+                        .targetLatency(1, TimeUnit.SECONDS).workers(1).build();
+
+        // interrupted caller fails to enqueue request
+        Thread.currentThread().interrupt();
+        try {
+            inf.output(iterator.next().getFeatureMatrix());
+            fail("Expected exception");
+        } catch (RuntimeException e) {
+            // OK
+        } finally {
+            Thread.interrupted();
+        }
+
+        assertEquals(0, inf.getBatchPolicy().getPendingExamples());
+        assertNotNull(inf.output(iterator.next().getFeatureMatrix()));
+    }
+
     private static void testParallelInference(ParallelInference inf, List<INDArray> in, List<INDArray> exp) throws Exception {
         testParallelInference(inf, in, null, exp);
     }
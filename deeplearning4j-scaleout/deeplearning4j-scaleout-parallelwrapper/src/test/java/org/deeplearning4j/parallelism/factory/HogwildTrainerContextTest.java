@@ -0,0 +1,130 @@
+package org.deeplearning4j.parallelism.factory;
+
+import org.deeplearning4j.datasets.iterator.impl.IrisDataSetIterator;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.WorkspaceMode;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.weights.WeightInit;
+import org.deeplearning4j.parallelism.ParallelWrapper;
+import org.deeplearning4j.parallelism.trainer.HogwildTrainer;
+import org.deeplearning4j.parallelism.trainer.Trainer;
+import org.junit.Test;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.learning.config.Sgd;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import static org.junit.Assert.*;
+
+public class HogwildTrainerContextTest {
+
+    private static MultiLayerNetwork getModel() {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(123)
+                .weightInit(WeightInit.XAVIER).updater(new Sgd(0.1)).list()
+                .layer(0, new DenseLayer.Builder().nIn(4).nOut(10).activation(Activation.TANH).build())
+                .layer(1, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(10).nOut(3)
+                        .activation(Activation.SOFTMAX).build())
+                .build();
+
+        MultiLayerNetwork model = new MultiLayerNetwork(conf);
+        model.init();
+        return model;
+    }
+
+    @Test
+    public void testTrainersShareQueue() throws Exception {
+        MultiLayerNetwork model = getModel();
+        ParallelWrapper wrapper = new ParallelWrapper.Builder(model).workers(2)
+                .trainingMode(ParallelWrapper.TrainingMode.HOGWILD).build();
+        Trainer t1 = null;
+        try {
+            HogwildTrainerContext context = new HogwildTrainerContext();
+            context.init(model);
+            Trainer t0 = context.create("alpha", 0, model, 0, false, wrapper, WorkspaceMode.NONE, 1);
+            t1 = context.create("alpha", 1, model, 0, false, wrapper, WorkspaceMode.NONE, 1);
+
+            assertTrue(t0 instanceof HogwildTrainer);
+            assertEquals("alpha_thread_1", t1.getUuid());
+            assertFalse(t0.averagingRequired());
+
+            // minibatches fed to different trainers end up in the same queue
+            DataSet ds = new IrisDataSetIterator(10, 10).next();
+            t0.feedDataSet(ds, 0);
+            t1.feedDataSet(ds, 0);
+            assertEquals(2, context.queue.size());
+            assertFalse(t0.isRunning());
+            assertFalse(t1.isRunning());
+
+            // so a single running trainer consumes minibatches fed to the other one, and updates original params
+            INDArray paramsBefore = model.params().dup();
+            ((Thread) t1).start();
+            long deadline = System.currentTimeMillis() + 60000L;
+            while (!t1.isRunning() && System.currentTimeMillis() < deadline)
+                Thread.sleep(10);
+
+            assertTrue(t0.isRunning());
+            assertTrue(t1.isRunning());
+            assertEquals(0, context.queue.size());
+            assertNotEquals(paramsBefore, model.params());
+        } finally {
+            if (t1 != null && ((Thread) t1).isAlive())
+                t1.shutdown();
+            wrapper.close();
+        }
+    }
+
+    @Test(timeout = 60000L)
+    public void testTrainerFailureIsShared() throws Exception {
+        MultiLayerNetwork model = getModel();
+        ParallelWrapper wrapper = new ParallelWrapper.Builder(model).workers(2)
+                .trainingMode(ParallelWrapper.TrainingMode.HOGWILD).build();
+        try {
+            HogwildTrainerContext context = new HogwildTrainerContext();
+            context.init(model);
+            Trainer t0 = context.create("alpha", 0, model, 0, false, wrapper, WorkspaceMode.NONE, 1);
+            Trainer t1 = context.create("alpha", 1, model, 0, false, wrapper, WorkspaceMode.NONE, 1);
+
+            // invalid minibatch fed to one trainer is taken by another one, and kills it mid-batch
+            t0.feedDataSet(new DataSet(Nd4j.rand(10, 5), Nd4j.rand(10, 3)), 0);
+            ((Thread) t1).start();
+            ((Thread) t1).join();
+
+            // the other trainer never finishes that minibatch, so it has to rethrow the failure instead of waiting
+            try {
+                t0.waitTillRunning();
+                fail("Expected exception");
+            } catch (RuntimeException e) {
+                assertNotNull(e.getCause());
+            }
+        } finally {
+            wrapper.close();
+        }
+    }
+
+    @Test
+    public void testHogwildTraining() {
+        MultiLayerNetwork model = getModel();
+        INDArray paramsBefore = model.params().dup();
+
+        DataSet ds = new IrisDataSetIterator(150, 150).next();
+        double scoreBefore = model.score(ds);
+
+        ParallelWrapper wrapper = new ParallelWrapper.Builder(model).workers(4).prefetchBuffer(4)
+                .trainingMode(ParallelWrapper.TrainingMode.HOGWILD).build();
+
+        IrisDataSetIterator iter = new IrisDataSetIterator(10, 150);
+        for (int i = 0; i < 20; i++)
+            wrapper.fit(iter);
+
+        wrapper.shutdown();
+
+        // all workers update params of the original model directly
+        assertNotEquals(paramsBefore, model.params());
+        assertTrue(model.score(ds) < scoreBefore);
+    }
+}
@@ -0,0 +1,69 @@
+package org.deeplearning4j.parallelism.inference;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveBatchPolicyTest {
+
+    @Test
+    public void testBatchLimitGrowsWithinTarget() {
+        // 1 ms overhead + 0.1 ms per example, 10 ms target: 40 examples fit into half of the budget
+        AdaptiveBatchPolicy policy = new AdaptiveBatchPolicy(TimeUnit.MILLISECONDS.toNanos(10), 64, 1);
+        assertEquals(1, policy.getBatchLimit());
+
+        for (int i = 0; i < 200; i++) {
+            int size = policy.getBatchLimit();
+            assertTrue(policy.tryAdmit(size));
+            policy.recordBatch(size, 1000000L + 100000L * size);
+        }
+
+        assertEquals(40, policy.getBatchLimit(), 2);
+        assertEquals(0, policy.getPendingExamples());
+    }
+
+    @Test
+    public void testBatchLimitShrinksOnSlowBatches() {
+        AdaptiveBatchPolicy policy = new AdaptiveBatchPolicy(TimeUnit.MILLISECONDS.toNanos(10), 64, 1, 16);
+
+        for (int i = 0; i < 100; i++) {
+            int size = policy.getBatchLimit();
+            policy.tryAdmit(size);
+            policy.recordBatch(size, 100000L * size);
+        }
+        int before = policy.getBatchLimit();
+        assertTrue(before > 1);
+
+        // model suddenly became 10x slower
+        for (int i = 0; i < 100; i++) {
+            int size = policy.getBatchLimit();
+            policy.tryAdmit(size);
+            policy.recordBatch(size, 1000000L * size);
+        }
+
+        assertTrue(policy.getBatchLimit() < before);
+        assertTrue(policy.getBatchLimit() <= 5);
+    }
+
+    @Test
+    public void testAdmissionControl() {
+        AdaptiveBatchPolicy policy = new AdaptiveBatchPolicy(TimeUnit.MILLISECONDS.toNanos(10), 8, 1);
+
+        // without any measurements everything is admitted
+        assertTrue(policy.tryAdmit(1));
+        policy.recordBatch(1, TimeUnit.MILLISECONDS.toNanos(4));
+
+        // ~4 ms per request, so only a couple of requests fit into the queue
+        int admitted = 0;
+        for (int i = 0; i < 10; i++) {
+            if (policy.tryAdmit(1))
+                admitted++;
+        }
+
+        assertTrue(admitted >= 1);
+        assertTrue(admitted < 10);
+        assertEquals(admitted, policy.getPendingExamples());
+    }
+}
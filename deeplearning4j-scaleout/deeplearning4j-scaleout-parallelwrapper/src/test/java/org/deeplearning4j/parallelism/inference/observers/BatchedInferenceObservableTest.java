@@ -6,6 +6,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.primitives.Pair;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
@@ -15,6 +16,7 @@ import java.util.List;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 
 /**
  * @author raver119@gmail.com
@@ -124,4 +126,36 @@ public class BatchedInferenceObservableTest {
             assertEquals((float) i, outputs.get(i)[1].meanNumber().floatValue(), 0.001f);
         }
     }
+
+    @Test
+    public void testSequenceBuckets1() throws Exception {
+        BatchedInferenceObservable observable = new BatchedInferenceObservable(new int[] {8});
+
+        int[] lengths = {3, 10, 5, 12};
+        INDArray[] in = new INDArray[lengths.length];
+        for (int i = 0; i < lengths.length; i++) {
+            in[i] = Nd4j.rand(new int[] {1, 4, lengths[i]});
+            observable.addInput(new INDArray[]{in[i]}, null);
+        }
+
+        List<Pair<INDArray[], INDArray[]>> batches = observable.getInputBatches();
+        assertEquals(2, batches.size());
+
+        // short sequences are batched together, and padded to the longest one within bucket only
+        assertArrayEquals(new int[] {2, 4, 5}, batches.get(0).getFirst()[0].shape());
+        assertArrayEquals(new int[] {2, 4, 12}, batches.get(1).getFirst()[0].shape());
+        assertNotNull(batches.get(0).getSecond());
+        assertNotNull(batches.get(1).getSecond());
+
+        // identity "model": outputs should be trimmed back to original lengths, in original order
+        List<INDArray[]> out = new ArrayList<>();
+        for (Pair<INDArray[], INDArray[]> batch : batches)
+            out.add(batch.getFirst());
+
+        observable.setOutputBatches(out);
+
+        for (int i = 0; i < lengths.length; i++) {
+            assertEquals(in[i], observable.getOutput(i)[0]);
+        }
+    }
 }